@@ -1,7 +1,9 @@
 package com.example.coffee;
 
-import java.util.Collections;
-import java.util.HashSet;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
@@ -10,13 +12,22 @@ import java.util.UUID;
  * Represents a beverage order with size, grind type, beverage type, and optional additions.
  * Each order is assigned a unique identifier upon creation.
  * The order can be for either coffee or soda.
+ * <p>
+ * Generated IDs are kept as two longs and compared as such; their UUID string form is
+ * built on the first call to {@link #getOrderId()}. The size, grind type, beverage type
+ * and additions are held by a shared {@link OrderShape}, so orders with the same
+ * configuration carry no copies of it, and checking additions allocates nothing.
+ * </p>
  */
 public class CoffeeOrder {
-    private final String orderId;
-    private final Size size;
-    private final GrindType grindType;
-    private final BeverageType beverageType;
-    private final Set<Addition> additions;
+    private static final String ID_LABEL = "Order ID: ";
+    private static final byte[] ID_LABEL_BYTES = ID_LABEL.getBytes(StandardCharsets.US_ASCII);
+
+    private final long idHigh;
+    private final long idLow;
+    private final boolean packedId;
+    private String orderId;
+    private final OrderShape shape;
 
     /**
      * Creates a new beverage order with the specified parameters.
@@ -29,11 +40,77 @@ public class CoffeeOrder {
      */
     public CoffeeOrder(Size size, GrindType grindType, BeverageType beverageType, 
                        Set<Addition> additions) {
-        this.orderId = UUID.randomUUID().toString();
-        this.size = Objects.requireNonNull(size, "Size cannot be null");
-        this.grindType = Objects.requireNonNull(grindType, "Grind type cannot be null");
-        this.beverageType = Objects.requireNonNull(beverageType, "Beverage type cannot be null");
-        this.additions = additions == null ? new HashSet<>() : new HashSet<>(additions);
+        this(TimeOrderedIdGenerator.SYSTEM.nextId(), OrderShape.of(size, grindType, beverageType, additions));
+    }
+
+    /**
+     * Creates a new beverage order whose ID comes from the given generator.
+     * 
+     * @param idGenerator the generator of the order ID (cannot be null)
+     * @param size the size of the beverage order (cannot be null)
+     * @param grindType the grind type for the coffee (cannot be null)
+     * @param beverageType the type of beverage - either CoffeeType or SodaType (cannot be null)
+     * @param additions optional set of additions; null is treated as empty set
+     * @throws NullPointerException if idGenerator, the generated ID, size, grindType,
+     *         or beverageType is null
+     */
+    public CoffeeOrder(OrderIdGenerator idGenerator, Size size, GrindType grindType,
+                       BeverageType beverageType, Set<Addition> additions) {
+        this(Objects.requireNonNull(idGenerator, "ID generator cannot be null").nextId(),
+                OrderShape.of(size, grindType, beverageType, additions));
+    }
+
+    private CoffeeOrder(UUID orderId, OrderShape shape) {
+        this(Objects.requireNonNull(orderId, "Order ID cannot be null").getMostSignificantBits(),
+                orderId.getLeastSignificantBits(), shape);
+    }
+
+    /**
+     * Recreates an existing order from the two halves of its ID, for example from
+     * compact storage. The ID string is built only when requested.
+     * 
+     * @param idHigh the high 64 bits of the order ID
+     * @param idLow the low 64 bits of the order ID
+     * @param shape the canonical shape of the order (cannot be null)
+     * @throws NullPointerException if shape is null
+     */
+    CoffeeOrder(long idHigh, long idLow, OrderShape shape) {
+        this.idHigh = idHigh;
+        this.idLow = idLow;
+        this.packedId = true;
+        this.shape = Objects.requireNonNull(shape, "Shape cannot be null");
+    }
+
+    /**
+     * Recreates an existing order from its ID string. IDs in canonical UUID form are
+     * packed into two longs like generated ones; any other string is kept as is.
+     * 
+     * @param orderId the ID of the existing order (cannot be null)
+     * @param size the size of the beverage order (cannot be null)
+     * @param grindType the grind type for the coffee (cannot be null)
+     * @param beverageType the type of beverage (cannot be null)
+     * @param additions optional set of additions; null is treated as empty set
+     * @throws NullPointerException if orderId, size, grindType, or beverageType is null
+     */
+    CoffeeOrder(String orderId, Size size, GrindType grindType, BeverageType beverageType,
+                Set<Addition> additions) {
+        this(orderId, OrderShape.of(size, grindType, beverageType, additions));
+    }
+
+    /**
+     * Recreates an existing order from its ID string and shape.
+     * 
+     * @param orderId the ID of the existing order (cannot be null)
+     * @param shape the canonical shape of the order (cannot be null)
+     * @throws NullPointerException if orderId or shape is null
+     * @see #CoffeeOrder(String, Size, GrindType, BeverageType, Set)
+     */
+    CoffeeOrder(String orderId, OrderShape shape) {
+        this.orderId = Objects.requireNonNull(orderId, "Order ID cannot be null");
+        this.packedId = OrderEncoding.isPackableId(orderId);
+        this.idHigh = packedId ? OrderEncoding.idHigh(orderId) : 0L;
+        this.idLow = packedId ? OrderEncoding.idLow(orderId) : 0L;
+        this.shape = Objects.requireNonNull(shape, "Shape cannot be null");
     }
 
     /**
@@ -42,7 +119,40 @@ public class CoffeeOrder {
      * @return the order ID as a string
      */
     public String getOrderId() {
-        return orderId;
+        String id = orderId;
+        if (id == null) {
+            // Racing threads format equal strings, so the unsynchronized cache is safe.
+            id = OrderEncoding.formatId(idHigh, idLow);
+            orderId = id;
+        }
+        return id;
+    }
+
+    /**
+     * Checks whether the order ID is a canonical UUID held as two longs.
+     * 
+     * @return true if {@link #idHigh()} and {@link #idLow()} hold the ID
+     */
+    boolean hasPackedId() {
+        return packedId;
+    }
+
+    /**
+     * Gets the high 64 bits of a packed order ID.
+     * 
+     * @return the high bits, or 0 if the ID is not packed
+     */
+    long idHigh() {
+        return idHigh;
+    }
+
+    /**
+     * Gets the low 64 bits of a packed order ID.
+     * 
+     * @return the low bits, or 0 if the ID is not packed
+     */
+    long idLow() {
+        return idLow;
     }
 
     /**
@@ -51,7 +161,7 @@ public class CoffeeOrder {
      * @return the size of the order
      */
     public Size getSize() {
-        return size;
+        return shape.getSize();
     }
 
     /**
@@ -60,7 +170,7 @@ public class CoffeeOrder {
      * @return the grind type
      */
     public GrindType getGrindType() {
-        return grindType;
+        return shape.getGrindType();
     }
 
     /**
@@ -69,7 +179,7 @@ public class CoffeeOrder {
      * @return the beverage type (either CoffeeType or SodaType)
      */
     public BeverageType getBeverageType() {
-        return beverageType;
+        return shape.getBeverageType();
     }
 
     /**
@@ -80,16 +190,48 @@ public class CoffeeOrder {
      */
     @Deprecated
     public CoffeeType getCoffeeType() {
-        return beverageType instanceof CoffeeType ? (CoffeeType) beverageType : null;
+        return shape.getBeverageType() instanceof CoffeeType coffeeType ? coffeeType : null;
     }
 
     /**
-     * Gets an immutable set of additions for this order.
+     * Gets an immutable set of additions for this order. Orders with the same
+     * additions share one set, so calling this allocates nothing.
      * 
      * @return an unmodifiable set of additions
      */
     public Set<Addition> getAdditions() {
-        return Collections.unmodifiableSet(additions);
+        return shape.getAdditions();
+    }
+
+    /**
+     * Checks whether this order includes an addition.
+     * 
+     * @param addition the addition
+     * @return true if the order includes it
+     * @throws NullPointerException if addition is null
+     */
+    public boolean hasAddition(Addition addition) {
+        return shape.hasAddition(addition);
+    }
+
+    /**
+     * Gets the additions of this order as a bitmask, bit {@code i} being set when the
+     * addition with ordinal {@code i} is included.
+     * 
+     * @return the additions bitmask
+     */
+    public int additionsMask() {
+        return shape.additionsMask();
+    }
+
+    /**
+     * Gets the shape of this order, shared with every order having the same size, grind
+     * type, beverage type and additions.
+     * 
+     * @return the canonical shape
+     */
+    public OrderShape getShape() {
+        return shape;
     }
 
     @Override
@@ -97,33 +239,80 @@ public class CoffeeOrder {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         CoffeeOrder that = (CoffeeOrder) o;
-        return Objects.equals(orderId, that.orderId);
+        if (packedId || that.packedId) {
+            return packedId == that.packedId && idHigh == that.idHigh && idLow == that.idLow;
+        }
+        return orderId.equals(that.orderId);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(orderId);
+        return packedId ? Long.hashCode(idHigh ^ idLow) : orderId.hashCode();
     }
 
-    @Override
-    public String toString() {
-        StringBuilder sb = new StringBuilder();
-        sb.append("Order ID: ").append(orderId).append("\n");
-        sb.append("  Size: ").append(size).append("\n");
-        if (grindType != GrindType.NONE) {
-            sb.append("  Grind Type: ").append(grindType).append("\n");
+    /**
+     * Appends the same text as {@link #toString()} to a builder. The size, grind type,
+     * beverage and additions lines are rendered once per {@link OrderShape} and the ID
+     * is written digit by digit, so nothing is allocated beyond growing the builder.
+     * 
+     * @param out the builder to append to
+     * @return the builder
+     */
+    public StringBuilder appendTo(StringBuilder out) {
+        out.append(ID_LABEL);
+        String id = orderId;
+        if (id != null) {
+            out.append(id);
+        } else {
+            OrderEncoding.appendId(idHigh, idLow, out);
+        }
+        return out.append('\n').append(shape.description());
+    }
+
+    /**
+     * Appends the same text as {@link #toString()} to any appendable, such as a
+     * {@code Writer} or {@code PrintStream}. Appendables other than
+     * {@link StringBuilder} take the ID as a string, which is formatted once per order.
+     * 
+     * @param out the appendable to append to
+     * @throws IOException if appending fails
+     */
+    public void appendTo(Appendable out) throws IOException {
+        if (out instanceof StringBuilder builder) {
+            appendTo(builder);
+            return;
         }
-        String beverageLabel = beverageType instanceof CoffeeType ? "Coffee Type" : "Soda Type";
-        sb.append("  ").append(beverageLabel).append(": ").append(beverageType).append("\n");
-        if (!additions.isEmpty()) {
-            sb.append("  Additions: ");
-            sb.append(String.join(", ", additions.stream()
-                    .map(Addition::getDisplayName)
-                    .toList()));
-            sb.append("\n");
+        out.append(ID_LABEL).append(getOrderId()).append('\n').append(shape.description());
+    }
+
+    /**
+     * Writes the same text as {@link #toString()} as UTF-8 at the buffer's position and
+     * advances the position. Nothing is allocated.
+     * 
+     * @param buffer the buffer to write to
+     * @return the number of bytes written
+     * @throws BufferOverflowException if the text does not fit; nothing is written
+     */
+    public int appendTo(ByteBuffer buffer) {
+        byte[] description = shape.descriptionBytes();
+        int idLength = packedId ? 36 : orderId.getBytes(StandardCharsets.UTF_8).length;
+        int length = ID_LABEL_BYTES.length + idLength + 1 + description.length;
+        if (buffer.remaining() < length) {
+            throw new BufferOverflowException();
+        }
+        buffer.put(ID_LABEL_BYTES);
+        if (packedId) {
+            OrderEncoding.putId(idHigh, idLow, buffer, buffer.position());
+            buffer.position(buffer.position() + idLength);
         } else {
-            sb.append("  Additions: None\n");
+            buffer.put(orderId.getBytes(StandardCharsets.UTF_8));
         }
-        return sb.toString();
+        buffer.put((byte) '\n').put(description);
+        return length;
+    }
+
+    @Override
+    public String toString() {
+        return appendTo(new StringBuilder(ID_LABEL.length() + 37 + shape.description().length())).toString();
     }
 }
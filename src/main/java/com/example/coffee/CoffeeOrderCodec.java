@@ -0,0 +1,165 @@
+package com.example.coffee;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Fixed-width binary format for {@link CoffeeOrder}.
+ * <p>
+ * Every order takes {@link #ENCODED_BYTES} bytes: the 128-bit order ID as two longs
+ * (most significant half first), followed by an int holding the {@link Size},
+ * {@link GrindType}, beverage type and {@link Addition} bitmask. In the int, bits 0-1
+ * are the size ordinal, bits 2-4 the grind type ordinal, bits 5-8 the beverage code
+ * (coffee types in declaration order, then soda types) and bits 9-13 the additions,
+ * bit {@code 9 + i} being the addition with ordinal {@code i}. Values are written in
+ * the buffer's byte order.
+ * </p>
+ * <p>
+ * Encoding allocates nothing; decoding creates only the order itself, whose ID
+ * string is formatted only if it is asked for. Only orders
+ * whose ID is a canonical UUID string, as generated by {@link CoffeeOrder}, can be
+ * encoded.
+ * </p>
+ */
+public final class CoffeeOrderCodec {
+    /** Number of bytes taken by one encoded order. */
+    public static final int ENCODED_BYTES = 2 * Long.BYTES + Integer.BYTES;
+
+    private CoffeeOrderCodec() {
+    }
+
+    /**
+     * Writes an order at the buffer's position and advances the position.
+     *
+     * @param order the order to encode
+     * @param buffer the buffer to write to
+     * @throws IllegalArgumentException if order is null or its ID is not a canonical UUID
+     * @throws BufferOverflowException if fewer than {@link #ENCODED_BYTES} bytes remain
+     */
+    public static void encode(CoffeeOrder order, ByteBuffer buffer) {
+        if (buffer.remaining() < ENCODED_BYTES) {
+            throw new BufferOverflowException();
+        }
+        encode(order, buffer, buffer.position());
+        buffer.position(buffer.position() + ENCODED_BYTES);
+    }
+
+    /**
+     * Writes an order at an absolute index without moving the buffer's position.
+     *
+     * @param order the order to encode
+     * @param buffer the buffer to write to
+     * @param index the index of the first byte
+     * @throws IllegalArgumentException if order is null or its ID is not a canonical UUID
+     * @throws IndexOutOfBoundsException if the order does not fit at the index
+     */
+    public static void encode(CoffeeOrder order, ByteBuffer buffer, int index) {
+        if (order == null) {
+            throw new IllegalArgumentException("Order cannot be null");
+        }
+        if (!order.hasPackedId()) {
+            throw new IllegalArgumentException("Order ID is not a canonical UUID: " + order.getOrderId());
+        }
+        if (index < 0 || index > buffer.limit() - ENCODED_BYTES) {
+            throw new IndexOutOfBoundsException("No room for an order at index " + index);
+        }
+        buffer.putLong(index, order.idHigh())
+                .putLong(index + Long.BYTES, order.idLow())
+                .putInt(index + 2 * Long.BYTES, OrderEncoding.encode(order));
+    }
+
+    /**
+     * Reads an order at the buffer's position and advances the position.
+     *
+     * @param buffer the buffer to read from
+     * @return the decoded order
+     * @throws IllegalArgumentException if the bytes do not hold a valid order
+     * @throws BufferUnderflowException if fewer than {@link #ENCODED_BYTES} bytes remain
+     */
+    public static CoffeeOrder decode(ByteBuffer buffer) {
+        if (buffer.remaining() < ENCODED_BYTES) {
+            throw new BufferUnderflowException();
+        }
+        CoffeeOrder order = decode(buffer, buffer.position());
+        buffer.position(buffer.position() + ENCODED_BYTES);
+        return order;
+    }
+
+    /**
+     * Reads an order at an absolute index without moving the buffer's position.
+     *
+     * @param buffer the buffer to read from
+     * @param index the index of the first byte
+     * @return the decoded order
+     * @throws IllegalArgumentException if the bytes do not hold a valid order
+     * @throws IndexOutOfBoundsException if the order does not fit at the index
+     */
+    public static CoffeeOrder decode(ByteBuffer buffer, int index) {
+        if (index < 0 || index > buffer.limit() - ENCODED_BYTES) {
+            throw new IndexOutOfBoundsException("No order at index " + index);
+        }
+        return OrderEncoding.decode(buffer.getLong(index), buffer.getLong(index + Long.BYTES),
+                buffer.getInt(index + 2 * Long.BYTES));
+    }
+
+    /**
+     * Writes several orders one after another at the buffer's position. Nothing is
+     * written unless all of them fit.
+     *
+     * @param orders the orders to encode, in order
+     * @param buffer the buffer to write to
+     * @return the number of bytes written
+     * @throws IllegalArgumentException if an order is null or its ID is not a canonical
+     *         UUID; orders before it have been written and the position is after them
+     * @throws BufferOverflowException if the orders do not all fit
+     */
+    public static int encodeAll(Collection<CoffeeOrder> orders, ByteBuffer buffer) {
+        long bytes = (long) orders.size() * ENCODED_BYTES;
+        if (buffer.remaining() < bytes) {
+            throw new BufferOverflowException();
+        }
+        for (CoffeeOrder order : orders) {
+            encode(order, buffer);
+        }
+        return (int) bytes;
+    }
+
+    /**
+     * Reads every complete order between the buffer's position and limit, passing each
+     * to a consumer without collecting them. The position ends after the last order
+     * read, so a trailing partial order is left for a later call.
+     *
+     * @param buffer the buffer to read from
+     * @param consumer receives the orders in order
+     * @return the number of orders read
+     * @throws IllegalArgumentException if the bytes do not hold valid orders; the
+     *         position is left at the invalid order
+     */
+    public static int decodeAll(ByteBuffer buffer, Consumer<? super CoffeeOrder> consumer) {
+        int count = buffer.remaining() / ENCODED_BYTES;
+        for (int i = 0; i < count; i++) {
+            consumer.accept(decode(buffer, buffer.position()));
+            buffer.position(buffer.position() + ENCODED_BYTES);
+        }
+        return count;
+    }
+
+    /**
+     * Reads every complete order between the buffer's position and limit.
+     *
+     * @param buffer the buffer to read from
+     * @return the orders read, in order
+     * @throws IllegalArgumentException if the bytes do not hold valid orders
+     * @see #decodeAll(ByteBuffer, Consumer)
+     */
+    public static List<CoffeeOrder> decodeAll(ByteBuffer buffer) {
+        List<CoffeeOrder> orders = new ArrayList<>(buffer.remaining() / ENCODED_BYTES);
+        decodeAll(buffer, orders::add);
+        return orders;
+    }
+}
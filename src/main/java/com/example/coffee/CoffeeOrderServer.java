@@ -0,0 +1,163 @@
+package com.example.coffee;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Scanner;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves {@link CoffeeOrderTerminal} sessions to many clients over a local socket.
+ * <p>
+ * The server listens on the loopback interface only. Every accepted connection runs
+ * the usual menu on its own virtual thread, reading and writing UTF-8 text over the
+ * socket, and all sessions share one order collection, which should be thread-safe,
+ * such as {@link OrderCollection#concurrent()}. A session waiting for input parks its
+ * virtual thread without holding a platform thread, so thousands of idle sessions
+ * cost little more than their sockets and buffers. A session ends when the user
+ * exits the menu or the client disconnects.
+ * </p>
+ */
+public final class CoffeeOrderServer implements AutoCloseable {
+    /** Port used by {@code --serve} when none is given. */
+    public static final int DEFAULT_PORT = 5050;
+
+    private static final long MIN_ACCEPT_BACKOFF_MILLIS = 10;
+    private static final long MAX_ACCEPT_BACKOFF_MILLIS = 1000;
+
+    private final OrderCollection orderCollection;
+    private final ServerSocket serverSocket;
+    private final ExecutorService sessions = Executors.newVirtualThreadPerTaskExecutor();
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    private final Thread acceptor;
+    private volatile boolean closed;
+
+    private CoffeeOrderServer(OrderCollection orderCollection, ServerSocket serverSocket) {
+        this.orderCollection = orderCollection;
+        this.serverSocket = serverSocket;
+        this.acceptor = Thread.ofVirtual().name("coffee-order-server").start(this::acceptSessions);
+    }
+
+    /**
+     * Starts a server on a loopback port.
+     *
+     * @param orderCollection the thread-safe collection shared by all sessions
+     * @param port the port to listen on, or 0 for any free port
+     * @return the running server
+     * @throws IOException if the port cannot be bound
+     * @throws NullPointerException if orderCollection is null
+     */
+    public static CoffeeOrderServer start(OrderCollection orderCollection, int port) throws IOException {
+        Objects.requireNonNull(orderCollection, "Order collection cannot be null");
+        return new CoffeeOrderServer(orderCollection,
+                new ServerSocket(port, 0, InetAddress.getLoopbackAddress()));
+    }
+
+    /**
+     * Gets the port the server listens on.
+     *
+     * @return the local port
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Gets the number of sessions currently connected.
+     *
+     * @return the number of open sessions
+     */
+    public int getActiveSessions() {
+        return connections.size();
+    }
+
+    /**
+     * Waits until the server is closed.
+     *
+     * @throws InterruptedException if the waiting thread is interrupted
+     */
+    public void awaitClose() throws InterruptedException {
+        acceptor.join();
+    }
+
+    /**
+     * Stops accepting connections, disconnects every session and waits for their
+     * threads to finish.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            // Already unusable; nothing more to release.
+        }
+        // Wakes the acceptor if it is backing off after failed accepts.
+        acceptor.interrupt();
+        try {
+            // Once the acceptor has stopped, no connection can be added behind our back.
+            acceptor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Socket connection : connections) {
+            closeQuietly(connection);
+        }
+        sessions.close();
+    }
+
+    /**
+     * Accepts connections until the server is closed. A failed accept, such as when the
+     * process is out of file descriptors, is retried after a pause that doubles with
+     * every further failure, up to a second, rather than in a busy loop.
+     */
+    private void acceptSessions() {
+        long backoffMillis = MIN_ACCEPT_BACKOFF_MILLIS;
+        while (!closed) {
+            Socket connection;
+            try {
+                connection = serverSocket.accept();
+            } catch (IOException e) {
+                if (closed) {
+                    return;
+                }
+                try {
+                    Thread.sleep(backoffMillis);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+                backoffMillis = Math.min(2 * backoffMillis, MAX_ACCEPT_BACKOFF_MILLIS);
+                continue;
+            }
+            backoffMillis = MIN_ACCEPT_BACKOFF_MILLIS;
+            connections.add(connection);
+            sessions.execute(() -> serve(connection));
+        }
+    }
+
+    private void serve(Socket connection) {
+        try (connection) {
+            Scanner scanner = new Scanner(connection.getInputStream(), StandardCharsets.UTF_8);
+            new CoffeeOrderTerminal(orderCollection, scanner, connection.getOutputStream()).run();
+        } catch (IOException | NoSuchElementException | IllegalStateException e) {
+            // The client disconnected or the server is closing; the session just ends.
+        } finally {
+            connections.remove(connection);
+        }
+    }
+
+    private static void closeQuietly(Socket connection) {
+        try {
+            connection.close();
+        } catch (IOException e) {
+            // Closing is best effort; the session thread ends either way.
+        }
+    }
+}
@@ -1,24 +1,44 @@
 package com.example.coffee;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Scanner;
 import java.util.Set;
 
 /**
  * Interactive terminal application for managing coffee orders.
- * Provides a menu-driven interface for creating and viewing orders.
+ * Provides a menu-driven interface for creating and viewing orders and order statistics.
  */
 public class CoffeeOrderTerminal {
+    private static final int PAGE_SIZE = 10;
+    private static final int EXPORT_PAGE_SIZE = 4096;
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 16;
+
     private final OrderCollection orderCollection;
     private final Scanner scanner;
+    private final PrintWriter out;
+    private final StringBuilder orderText = new StringBuilder();
+    private char[] orderChars = new char[0];
 
     /**
      * Creates a new terminal with default dependencies.
      */
     public CoffeeOrderTerminal() {
-        this.orderCollection = new OrderCollection();
-        this.scanner = new Scanner(System.in);
+        this(new OrderCollection(), new Scanner(System.in), System.out);
     }
 
     /**
@@ -28,30 +48,301 @@ public class CoffeeOrderTerminal {
      * @param scanner the scanner for input
      */
     public CoffeeOrderTerminal(OrderCollection orderCollection, Scanner scanner) {
+        this(orderCollection, scanner, System.out);
+    }
+
+    /**
+     * Creates a new terminal that reads from a scanner and writes to an output stream,
+     * such as one session of a {@link CoffeeOrderServer}. Output is UTF-8 unless the
+     * stream is a {@link PrintStream}, whose charset is used.
+     * 
+     * @param orderCollection the order collection to use
+     * @param scanner the scanner for input
+     * @param output the stream the terminal writes to
+     */
+    public CoffeeOrderTerminal(OrderCollection orderCollection, Scanner scanner, OutputStream output) {
         this.orderCollection = orderCollection;
         this.scanner = scanner;
+        this.out = bufferedOutput(output);
     }
 
     /**
      * Main entry point for the coffee order terminal application.
+     * With {@code --batch [file]} the orders in the file, or on standard input when
+     * the file is omitted or {@code -}, are loaded without prompting and a summary is
+     * printed; see {@link OrderBatchLoader} for the format. Unless {@code --wal} or
+     * {@code --snapshot} keeps the orders, the menu then starts on them, or, when they
+     * were read from standard input, a warning that they were not kept is printed.
+     * With {@code --export} every order is written to standard output without prompting,
+     * one per line, in the order the menu lists them.
+     * With {@code --serve [port]} the menu is instead served to clients connecting to
+     * the port on the loopback interface, by default {@value CoffeeOrderServer#DEFAULT_PORT},
+     * all sharing one concurrent collection; see {@link CoffeeOrderServer}.
+     * With {@code --http [port]} a JSON order API is served on the loopback interface
+     * instead, by default on port {@value OrderHttpServer#DEFAULT_PORT}; see
+     * {@link OrderHttpServer}. Unless given with {@code -D}, it sets the JDK server's
+     * JVM-wide properties {@code sun.net.httpserver.nodelay=true} and
+     * {@code sun.net.httpserver.maxIdleConnections=4096} first.
+     * <p>
+     * Any of these may be preceded by {@code --wal <file> [policy]} to keep the orders
+     * in a {@link DurableOrderStore}: the log is replayed on startup and every change
+     * is logged. The policy is {@code every-write} (the default), {@code os-buffered}
+     * or {@code group-commit[=millis]}; see {@link OrderWriteAheadLog.SyncPolicy}.
+     * Instead, the menu and {@code --batch} may be preceded by {@code --snapshot <file>}
+     * to open the orders of a snapshot file, if it exists, with a
+     * {@link MappedOrderStore} and write them back to it on exit.
+     * </p>
      * 
-     * @param args command line arguments (not used)
+     * @param args command line arguments
      */
     public static void main(String[] args) {
-        CoffeeOrderTerminal terminal = new CoffeeOrderTerminal();
-        terminal.run();
+        int first = 0;
+        DurableOrderStore durableStore = null;
+        Path snapshotFile = null;
+        if (args.length > 1 && args[0].equals("--wal")) {
+            first = args.length > 2 && !args[2].startsWith("--") ? 3 : 2;
+            durableStore = openLog(Path.of(args[1]), first == 3 ? args[2] : "every-write",
+                    args.length > first && isServerMode(args[first]));
+        } else if (args.length > 1 && args[0].equals("--snapshot")) {
+            first = 2;
+            snapshotFile = Path.of(args[1]);
+        }
+        String mode = args.length > first ? args[first] : "";
+        String operand = args.length > first + 1 ? args[first + 1] : null;
+        if (snapshotFile != null && isServerMode(mode)) {
+            // Mapped stores are single-threaded; servers share one concurrent collection.
+            System.err.println("--snapshot cannot be combined with " + mode);
+            System.exit(1);
+        }
+        OrderCollection orderCollection = durableStore != null ? new OrderCollection(durableStore)
+                : snapshotFile != null ? openSnapshot(snapshotFile)
+                : isServerMode(mode) ? OrderCollection.concurrent() : new OrderCollection();
+        if (mode.equals("--http")) {
+            serveHttp(orderCollection,
+                    operand != null ? Integer.parseInt(operand) : OrderHttpServer.DEFAULT_PORT, durableStore);
+            return;
+        }
+        try {
+            if (mode.equals("--serve")) {
+                serve(orderCollection,
+                        operand != null ? Integer.parseInt(operand) : CoffeeOrderServer.DEFAULT_PORT);
+                return;
+            }
+            CoffeeOrderTerminal terminal = new CoffeeOrderTerminal(orderCollection, new Scanner(System.in));
+            if (mode.equals("--export")) {
+                terminal.exportOrders();
+                return;
+            }
+            if (mode.equals("--batch")) {
+                String source = operand != null ? operand : "-";
+                try (InputStream in = source.equals("-") ? System.in
+                        : Files.newInputStream(Path.of(source))) {
+                    terminal.runBatch(in);
+                } catch (IOException e) {
+                    System.err.println("Could not read orders from " + source + ": " + e.getMessage());
+                    System.exit(1);
+                }
+                if (durableStore != null || snapshotFile != null) {
+                    return;
+                }
+                if (source.equals("-")) {
+                    System.err.println("The orders were not kept; use --wal or --snapshot to keep them");
+                    return;
+                }
+                // Nothing would keep the orders, so let the user work with them instead.
+            }
+            terminal.run();
+        } finally {
+            closeLog(durableStore);
+            saveSnapshot(orderCollection, snapshotFile);
+        }
+    }
+
+    private static OrderCollection openSnapshot(Path snapshotFile) {
+        if (!Files.exists(snapshotFile)) {
+            return new OrderCollection();
+        }
+        try {
+            MappedOrderStore store = MappedOrderStore.open(snapshotFile);
+            System.err.println("Opened " + store.size() + " orders from " + snapshotFile);
+            return new OrderCollection(store);
+        } catch (IOException e) {
+            System.err.println("Could not open snapshot " + snapshotFile + ": " + e.getMessage());
+            System.exit(1);
+            return null;
+        }
+    }
+
+    private static void saveSnapshot(OrderCollection orderCollection, Path snapshotFile) {
+        if (snapshotFile == null) {
+            return;
+        }
+        try {
+            int count = orderCollection.writeSnapshot(snapshotFile);
+            System.err.println("Saved " + count + " orders to " + snapshotFile);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Could not write snapshot " + snapshotFile + ": " + e.getMessage());
+        }
+    }
+
+    private static boolean isServerMode(String mode) {
+        return mode.equals("--serve") || mode.equals("--http");
+    }
+
+    private static DurableOrderStore openLog(Path logFile, String policy, boolean concurrent) {
+        try {
+            DurableOrderStore store = DurableOrderStore.open(logFile, syncPolicy(policy),
+                    concurrent ? new ConcurrentOrderStore() : new InMemoryOrderStore());
+            System.err.println("Recovered " + store.size() + " orders from " + logFile);
+            return store;
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Could not open order log " + logFile + ": " + e.getMessage());
+            System.exit(1);
+            return null;
+        }
+    }
+
+    /**
+     * Parses a sync policy given on the command line.
+     * 
+     * @param policy {@code every-write}, {@code os-buffered} or
+     *        {@code group-commit[=millis]}, by default every 10 ms
+     * @return the sync policy
+     * @throws IllegalArgumentException if the policy is not recognized
+     */
+    static OrderWriteAheadLog.SyncPolicy syncPolicy(String policy) {
+        if (policy.equals("every-write")) {
+            return OrderWriteAheadLog.SyncPolicy.everyWrite();
+        }
+        if (policy.equals("os-buffered")) {
+            return OrderWriteAheadLog.SyncPolicy.osBuffered();
+        }
+        if (policy.equals("group-commit")) {
+            return OrderWriteAheadLog.SyncPolicy.groupCommit(Duration.ofMillis(10));
+        }
+        if (policy.startsWith("group-commit=")) {
+            try {
+                return OrderWriteAheadLog.SyncPolicy.groupCommit(
+                        Duration.ofMillis(Long.parseLong(policy.substring("group-commit=".length()))));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid group-commit interval: " + policy);
+            }
+        }
+        throw new IllegalArgumentException("Unknown sync policy: " + policy);
+    }
+
+    private static void closeLog(DurableOrderStore durableStore) {
+        if (durableStore == null) {
+            return;
+        }
+        try {
+            durableStore.close();
+        } catch (IOException e) {
+            System.err.println("Could not close the order log: " + e.getMessage());
+        }
+    }
+
+    private static void serve(OrderCollection orderCollection, int port) {
+        try (CoffeeOrderServer server = CoffeeOrderServer.start(orderCollection, port)) {
+            System.out.println("Serving coffee order sessions on localhost:" + server.getPort());
+            server.awaitClose();
+        } catch (IOException e) {
+            System.err.println("Could not listen on port " + port + ": " + e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void serveHttp(OrderCollection orderCollection, int port,
+                                  DurableOrderStore durableStore) {
+        // JVM-wide settings the JDK server reads once, when it first starts; without
+        // no-delay each response waits for the client's delayed acknowledgement of its
+        // headers, and the default idle-connection limit closes keep-alive connections
+        // that busy clients are about to reuse. Values given with -D take precedence.
+        setDefaultProperty("sun.net.httpserver.nodelay", "true");
+        setDefaultProperty("sun.net.httpserver.maxIdleConnections", "4096");
+        try {
+            OrderHttpServer server = OrderHttpServer.start(orderCollection, port);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                server.close();
+                closeLog(durableStore);
+            }));
+            System.out.println("Serving the order API on http://localhost:" + server.getPort() + "/orders");
+        } catch (IOException e) {
+            System.err.println("Could not listen on port " + port + ": " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static void setDefaultProperty(String property, String value) {
+        if (System.getProperty(property) == null) {
+            System.setProperty(property, value);
+        }
+    }
+
+    /**
+     * Loads order lines into the collection without prompting and prints how many
+     * were imported and rejected, and how fast.
+     * 
+     * @param in the order lines, in the format read by {@link OrderBatchLoader}
+     * @return the summary of the load
+     * @throws IOException if the input cannot be read
+     */
+    public OrderBatchLoader.Summary runBatch(InputStream in) throws IOException {
+        OrderBatchLoader.Summary summary;
+        try {
+            summary = OrderBatchLoader.load(in, orderCollection);
+        } finally {
+            out.flush();
+        }
+        out.println("=== Batch Import ===");
+        out.println("Imported orders: " + summary.imported());
+        out.println("Rejected lines: " + summary.rejected());
+        out.printf("Elapsed: %.3f s (%.0f orders/s)%n",
+                summary.elapsed().toNanos() / 1e9, summary.ordersPerSecond());
+        for (String reject : summary.rejectSamples()) {
+            out.println("  " + reject);
+        }
+        if (summary.rejected() > summary.rejectSamples().size()) {
+            out.println("  ... and " + (summary.rejected() - summary.rejectSamples().size()) + " more");
+        }
+        out.flush();
+        return summary;
+    }
+
+    /**
+     * Writes every order without prompting, in the order {@code View all orders} pages
+     * through them, and flushes the output once at the end. Suited to redirecting
+     * millions of orders to a file, which the ten-order pages of the menu cannot do.
+     * 
+     * @return the number of orders written
+     */
+    public int exportOrders() {
+        int count = 0;
+        OrderPage page = orderCollection.pageAfter(OrderCursor.first(), EXPORT_PAGE_SIZE);
+        while (!page.isEmpty()) {
+            printOrders(page.orders());
+            count += page.orders().size();
+            if (!page.hasNext()) {
+                break;
+            }
+            page = orderCollection.pageAfter(page.next(), EXPORT_PAGE_SIZE);
+        }
+        out.flush();
+        return count;
     }
 
     /**
      * Runs the main application loop, displaying menus and handling user input.
      */
     public void run() {
-        System.out.println("=== Coffee Order System ===");
+        out.println("=== Coffee Order System ===");
         
         boolean running = true;
         while (running) {
             displayMenu();
-            String choice = scanner.nextLine().trim();
+            String choice = readLine().trim();
             
             running = switch (choice) {
                 case "1" -> {
@@ -63,29 +354,45 @@ public class CoffeeOrderTerminal {
                     yield true;
                 }
                 case "3" -> {
-                    System.out.println("Thank you for using the Coffee Order System!");
+                    viewStatistics();
+                    yield true;
+                }
+                case "4" -> {
+                    viewIntakeRates();
+                    yield true;
+                }
+                case "5" -> {
+                    filterOrders();
+                    yield true;
+                }
+                case "6" -> {
+                    out.println("Thank you for using the Coffee Order System!");
                     yield false;
                 }
                 default -> {
-                    System.out.println("Invalid choice. Please try again.\n");
+                    out.println("Invalid choice. Please try again.\n");
                     yield true;
                 }
             };
         }
         
+        out.flush();
         scanner.close();
     }
 
     private void displayMenu() {
-        System.out.println("\nWhat would you like to do?");
-        System.out.println("1. Create new order");
-        System.out.println("2. View all orders");
-        System.out.println("3. Exit");
-        System.out.print("Enter your choice (1-3): ");
+        out.println("\nWhat would you like to do?");
+        out.println("1. Create new order");
+        out.println("2. View all orders");
+        out.println("3. View order statistics");
+        out.println("4. View order intake rates");
+        out.println("5. Filter orders");
+        out.println("6. Exit");
+        out.print("Enter your choice (1-6): ");
     }
 
     private void createNewOrder() {
-        System.out.println("\n=== Create New Order ===");
+        out.println("\n=== Create New Order ===");
         
         Size size = selectSize();
         if (size == null) return;
@@ -96,7 +403,7 @@ public class CoffeeOrderTerminal {
         GrindType grindType;
         if (beverageType instanceof SodaType) {
             grindType = GrindType.NONE;
-            System.out.println("Grind type automatically set to 'None' for soda orders.");
+            out.println("Grind type automatically set to 'None' for soda orders.");
         } else {
             grindType = selectGrindType();
             if (grindType == null) return;
@@ -107,64 +414,64 @@ public class CoffeeOrderTerminal {
         CoffeeOrder order = new CoffeeOrder(size, grindType, beverageType, additions);
         orderCollection.addOrder(order);
         
-        System.out.println("\n✓ Order created successfully!");
-        System.out.println("Order ID: " + order.getOrderId());
+        out.println("\n✓ Order created successfully!");
+        out.println("Order ID: " + order.getOrderId());
     }
 
     private Size selectSize() {
         while (true) {
-            System.out.println("\nSelect size:");
+            out.println("\nSelect size:");
             Size[] sizes = Size.values();
             for (int i = 0; i < sizes.length; i++) {
-                System.out.println((i + 1) + ". " + sizes[i].getDisplayName());
+                out.println((i + 1) + ". " + sizes[i].getDisplayName());
             }
-            System.out.print("Enter choice (1-" + sizes.length + "): ");
+            out.print("Enter choice (1-" + sizes.length + "): ");
             
-            String input = scanner.nextLine().trim();
+            String input = readLine().trim();
             try {
                 int choice = Integer.parseInt(input);
                 if (choice >= 1 && choice <= sizes.length) {
                     return sizes[choice - 1];
                 }
-                System.out.println("Invalid choice. Please enter a number between 1 and " + 
+                out.println("Invalid choice. Please enter a number between 1 and " + 
                                  sizes.length);
             } catch (NumberFormatException e) {
-                System.out.println("Invalid input. Please enter a number.");
+                out.println("Invalid input. Please enter a number.");
             }
         }
     }
 
     private GrindType selectGrindType() {
         while (true) {
-            System.out.println("\nSelect grind type:");
+            out.println("\nSelect grind type:");
             GrindType[] grindTypes = GrindType.values();
             for (int i = 0; i < grindTypes.length; i++) {
-                System.out.println((i + 1) + ". " + grindTypes[i].getDisplayName());
+                out.println((i + 1) + ". " + grindTypes[i].getDisplayName());
             }
-            System.out.print("Enter choice (1-" + grindTypes.length + "): ");
+            out.print("Enter choice (1-" + grindTypes.length + "): ");
             
-            String input = scanner.nextLine().trim();
+            String input = readLine().trim();
             try {
                 int choice = Integer.parseInt(input);
                 if (choice >= 1 && choice <= grindTypes.length) {
                     return grindTypes[choice - 1];
                 }
-                System.out.println("Invalid choice. Please enter a number between 1 and " + 
+                out.println("Invalid choice. Please enter a number between 1 and " + 
                                  grindTypes.length);
             } catch (NumberFormatException e) {
-                System.out.println("Invalid input. Please enter a number.");
+                out.println("Invalid input. Please enter a number.");
             }
         }
     }
 
     private BeverageType selectBeverageType() {
         while (true) {
-            System.out.println("\nSelect beverage category:");
-            System.out.println("1. Coffee");
-            System.out.println("2. Soda");
-            System.out.print("Enter choice (1-2): ");
+            out.println("\nSelect beverage category:");
+            out.println("1. Coffee");
+            out.println("2. Soda");
+            out.print("Enter choice (1-2): ");
             
-            String input = scanner.nextLine().trim();
+            String input = readLine().trim();
             try {
                 int choice = Integer.parseInt(input);
                 if (choice == 1) {
@@ -172,56 +479,56 @@ public class CoffeeOrderTerminal {
                 } else if (choice == 2) {
                     return selectSodaType();
                 } else {
-                    System.out.println("Invalid choice. Please enter 1 or 2.");
+                    out.println("Invalid choice. Please enter 1 or 2.");
                 }
             } catch (NumberFormatException e) {
-                System.out.println("Invalid input. Please enter a number.");
+                out.println("Invalid input. Please enter a number.");
             }
         }
     }
 
     private CoffeeType selectCoffeeType() {
         while (true) {
-            System.out.println("\nSelect coffee type:");
+            out.println("\nSelect coffee type:");
             CoffeeType[] coffeeTypes = CoffeeType.values();
             for (int i = 0; i < coffeeTypes.length; i++) {
-                System.out.println((i + 1) + ". " + coffeeTypes[i].getDisplayName());
+                out.println((i + 1) + ". " + coffeeTypes[i].getDisplayName());
             }
-            System.out.print("Enter choice (1-" + coffeeTypes.length + "): ");
+            out.print("Enter choice (1-" + coffeeTypes.length + "): ");
             
-            String input = scanner.nextLine().trim();
+            String input = readLine().trim();
             try {
                 int choice = Integer.parseInt(input);
                 if (choice >= 1 && choice <= coffeeTypes.length) {
                     return coffeeTypes[choice - 1];
                 }
-                System.out.println("Invalid choice. Please enter a number between 1 and " + 
+                out.println("Invalid choice. Please enter a number between 1 and " + 
                                  coffeeTypes.length);
             } catch (NumberFormatException e) {
-                System.out.println("Invalid input. Please enter a number.");
+                out.println("Invalid input. Please enter a number.");
             }
         }
     }
 
     private SodaType selectSodaType() {
         while (true) {
-            System.out.println("\nSelect soda type:");
+            out.println("\nSelect soda type:");
             SodaType[] sodaTypes = SodaType.values();
             for (int i = 0; i < sodaTypes.length; i++) {
-                System.out.println((i + 1) + ". " + sodaTypes[i].getDisplayName());
+                out.println((i + 1) + ". " + sodaTypes[i].getDisplayName());
             }
-            System.out.print("Enter choice (1-" + sodaTypes.length + "): ");
+            out.print("Enter choice (1-" + sodaTypes.length + "): ");
             
-            String input = scanner.nextLine().trim();
+            String input = readLine().trim();
             try {
                 int choice = Integer.parseInt(input);
                 if (choice >= 1 && choice <= sodaTypes.length) {
                     return sodaTypes[choice - 1];
                 }
-                System.out.println("Invalid choice. Please enter a number between 1 and " + 
+                out.println("Invalid choice. Please enter a number between 1 and " + 
                                  sodaTypes.length);
             } catch (NumberFormatException e) {
-                System.out.println("Invalid input. Please enter a number.");
+                out.println("Invalid input. Please enter a number.");
             }
         }
     }
@@ -229,14 +536,14 @@ public class CoffeeOrderTerminal {
     private Set<Addition> selectAdditions() {
         Set<Addition> selectedAdditions = new HashSet<>();
         
-        System.out.println("\nSelect additions (comma-separated, or press Enter for none):");
+        out.println("\nSelect additions (comma-separated, or press Enter for none):");
         Addition[] additions = Addition.values();
         for (int i = 0; i < additions.length; i++) {
-            System.out.println((i + 1) + ". " + additions[i].getDisplayName());
+            out.println((i + 1) + ". " + additions[i].getDisplayName());
         }
-        System.out.print("Enter choices (e.g., 1,3,5): ");
+        out.print("Enter choices (e.g., 1,3,5): ");
         
-        String input = scanner.nextLine().trim();
+        String input = readLine().trim();
         if (input.isEmpty()) {
             return selectedAdditions;
         }
@@ -248,10 +555,10 @@ public class CoffeeOrderTerminal {
                 if (index >= 1 && index <= additions.length) {
                     selectedAdditions.add(additions[index - 1]);
                 } else {
-                    System.out.println("Warning: Skipping invalid choice: " + choice);
+                    out.println("Warning: Skipping invalid choice: " + choice);
                 }
             } catch (NumberFormatException e) {
-                System.out.println("Warning: Skipping invalid input: " + choice);
+                out.println("Warning: Skipping invalid input: " + choice);
             }
         }
         
@@ -259,21 +566,184 @@ public class CoffeeOrderTerminal {
     }
 
     private void viewOrders() {
-        System.out.println("\n=== All Orders ===");
+        out.println("\n=== All Orders ===");
         
-        if (orderCollection.isEmpty()) {
-            System.out.println("No orders found.");
+        OrderPage page = orderCollection.pageAfter(OrderCursor.first(), PAGE_SIZE);
+        if (page.isEmpty()) {
+            out.println("No orders found.");
             return;
         }
         
-        System.out.println("Total orders: " + orderCollection.getOrderCount());
-        System.out.println();
+        out.println("Total orders: " + orderCollection.getOrderCount());
         
-        for (CoffeeOrder order : orderCollection.getAllOrders()) {
-            System.out.println(order);
+        while (true) {
+            out.println();
+            printOrders(page.orders());
+            if (!page.hasNext() && !page.hasPrevious()) {
+                return;
+            }
+            
+            out.print("\n" + (page.hasNext() ? "n. Next page  " : "")
+                    + (page.hasPrevious() ? "p. Previous page  " : "")
+                    + "q. Back to menu: ");
+            String input = readLine().trim().toLowerCase();
+            if (input.equals("n") && page.hasNext()) {
+                page = orderCollection.pageAfter(page.next(), PAGE_SIZE);
+            } else if (input.equals("p") && page.hasPrevious()) {
+                page = orderCollection.pageBefore(page.previous(), PAGE_SIZE);
+            } else if (input.equals("q") || input.isEmpty()) {
+                return;
+            } else {
+                out.println("Invalid choice.");
+            }
+            if (page.isEmpty()) {
+                out.println("No more orders.");
+                return;
+            }
+        }
+    }
+
+    private void viewStatistics() {
+        out.println("\n=== Order Statistics ===");
+
+        OrderStatistics statistics = orderCollection.statistics();
+        if (statistics.total() == 0) {
+            out.println("No orders found.");
+            return;
+        }
+
+        out.println("Total orders: " + statistics.total());
+        out.println("\nBy size:");
+        for (Size size : Size.values()) {
+            printCount(size.getDisplayName(), statistics.count(size));
+        }
+        out.println("\nBy beverage:");
+        for (CoffeeType coffeeType : CoffeeType.values()) {
+            printCount(coffeeType.getDisplayName(), statistics.count(coffeeType));
+        }
+        for (SodaType sodaType : SodaType.values()) {
+            printCount(sodaType.getDisplayName(), statistics.count(sodaType));
+        }
+        out.println("\nBy grind type:");
+        for (GrindType grindType : GrindType.values()) {
+            printCount(grindType.getDisplayName(), statistics.count(grindType));
+        }
+        out.println("\nBy addition:");
+        for (Addition addition : Addition.values()) {
+            printCount(addition.getDisplayName(), statistics.count(addition));
+        }
+        out.println("\nTop combinations:");
+        for (OrderStatistics.Combination combination : statistics.topCombinations(5)) {
+            StringBuilder label = new StringBuilder()
+                    .append(combination.size().getDisplayName()).append(' ')
+                    .append(combination.beverageType().getDisplayName());
+            if (combination.grindType() != GrindType.NONE) {
+                label.append(", ").append(combination.grindType().getDisplayName());
+            }
+            for (Addition addition : Addition.values()) {
+                if (combination.additions().contains(addition)) {
+                    label.append(", ").append(addition.getDisplayName());
+                }
+            }
+            printCount(label.toString(), combination.count());
         }
     }
 
+    private void viewIntakeRates() {
+        out.println("\n=== Order Intake Rates ===");
+
+        OrderRateTracker rates = orderCollection.intakeRates();
+        if (rates.count(OrderRateTracker.Window.FIFTEEN_MINUTES) == 0) {
+            out.println("No orders in the last 15 minutes.");
+            return;
+        }
+
+        out.println("Orders per minute over the last 1 / 5 / 15 minutes:");
+        out.printf("  All: %.1f / %.1f / %.1f%n",
+                rates.perMinute(OrderRateTracker.Window.ONE_MINUTE),
+                rates.perMinute(OrderRateTracker.Window.FIVE_MINUTES),
+                rates.perMinute(OrderRateTracker.Window.FIFTEEN_MINUTES));
+        List<BeverageType> beverageTypes = new ArrayList<>(Arrays.asList(CoffeeType.values()));
+        beverageTypes.addAll(Arrays.asList(SodaType.values()));
+        for (BeverageType beverageType : beverageTypes) {
+            if (rates.count(OrderRateTracker.Window.FIFTEEN_MINUTES, beverageType) > 0) {
+                out.printf("  %s: %.1f / %.1f / %.1f%n", beverageType.getDisplayName(),
+                        rates.perMinute(OrderRateTracker.Window.ONE_MINUTE, beverageType),
+                        rates.perMinute(OrderRateTracker.Window.FIVE_MINUTES, beverageType),
+                        rates.perMinute(OrderRateTracker.Window.FIFTEEN_MINUTES, beverageType));
+            }
+        }
+    }
+
+    private void filterOrders() {
+        out.println("\n=== Filter Orders ===");
+        out.println("Example: size=LARGE and beverage in (ESPRESSO, ARABICA) and additions contains MILK");
+        out.print("Enter filter: ");
+
+        OrderFilter filter;
+        try {
+            filter = OrderFilter.compile(readLine());
+        } catch (IllegalArgumentException e) {
+            out.println(e.getMessage());
+            return;
+        }
+
+        // The count comes from the per-combination counters, so it costs the same at
+        // any collection size; only the printed orders are read from the store.
+        long matches = orderCollection.statistics().count(filter);
+        out.println("Matching orders: " + matches);
+        if (matches == 0) {
+            return;
+        }
+        List<CoffeeOrder> orders = orderCollection.query().where(filter).orders(PAGE_SIZE);
+        printOrders(orders);
+        if (matches > orders.size()) {
+            out.println("... and " + (matches - orders.size()) + " more");
+        }
+    }
+
+    /**
+     * Streams orders to the output one at a time, rendering each into a reused builder
+     * and copying it into the buffered writer without creating strings.
+     */
+    private void printOrders(List<CoffeeOrder> orders) {
+        for (CoffeeOrder order : orders) {
+            orderText.setLength(0);
+            order.appendTo(orderText).append(System.lineSeparator());
+            int length = orderText.length();
+            if (orderChars.length < length) {
+                orderChars = new char[Math.max(length, 2 * orderChars.length)];
+            }
+            orderText.getChars(0, length, orderChars, 0);
+            out.write(orderChars, 0, length);
+        }
+    }
+
+    /**
+     * Flushes pending output so the user sees every prompt, then reads a line.
+     */
+    private String readLine() {
+        out.flush();
+        return scanner.nextLine();
+    }
+
+    /**
+     * Wraps the output in a large buffer that is only flushed before reading input and
+     * on exit, so printing many lines costs a few large writes rather than a lock and a
+     * possible flush per line.
+     */
+    private static PrintWriter bufferedOutput(OutputStream output) {
+        Charset charset = output instanceof PrintStream printStream
+                ? printStream.charset()
+                : StandardCharsets.UTF_8;
+        return new PrintWriter(new BufferedWriter(
+                new OutputStreamWriter(output, charset), OUTPUT_BUFFER_SIZE));
+    }
+
+    private void printCount(String label, long count) {
+        out.println("  " + label + ": " + count);
+    }
+
     /**
      * Gets the order collection used by this terminal.
      * 
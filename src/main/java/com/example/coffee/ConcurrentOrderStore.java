@@ -0,0 +1,186 @@
+package com.example.coffee;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe {@link OrderStore} that lets many threads add, look up and remove
+ * orders without a global lock.
+ * Each order is placed in a slot claimed with an atomic counter, slots live in
+ * fixed-size chunks that are never copied, and IDs are resolved to slots through a
+ * {@link ConcurrentHashMap}. Canonical UUIDs are keyed by their two packed halves, so
+ * lookups never format an ID string or hash its 36 characters; other IDs fall back to
+ * the string itself. The order count is kept in a {@link LongAdder} so that
+ * writers do not contend on a single counter.
+ * <p>
+ * The store does not support compaction, as moving an order to another slot cannot be
+ * made safe against writers that take no lock. A removed order leaves its slot empty
+ * until {@link #clear()}, costing a reference in its chunk and a few bits in the
+ * owning collection's bitmaps; the collection skips such slots a word at a time, so
+ * they cost memory but not read time. Slots are never reused, so at most
+ * {@link Integer#MAX_VALUE} orders can be added between clears.
+ * </p>
+ */
+public class ConcurrentOrderStore implements OrderStore {
+    private static final int CHUNK_SHIFT = 14;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final VarHandle SLOT = MethodHandles.arrayElementVarHandle(CoffeeOrder[].class);
+
+    private volatile State state = new State();
+
+    @Override
+    public int add(CoffeeOrder order) {
+        State current = state;
+        Object key = key(order);
+        while (true) {
+            Integer existing = current.slotsById.computeIfPresent(key, (id, slot) -> {
+                current.write(slot, order);
+                return slot;
+            });
+            if (existing != null) {
+                return existing;
+            }
+            // Publish the order in its slot before its ID so a racing remove always finds it.
+            int slot = current.nextSlot.getAndIncrement();
+            if (slot < 0) {
+                throw new IllegalStateException("Order store is full");
+            }
+            current.write(slot, order);
+            current.count.increment();
+            if (current.slotsById.putIfAbsent(key, slot) == null) {
+                return slot;
+            }
+            current.write(slot, null);
+            current.count.decrement();
+        }
+    }
+
+    @Override
+    public int slotOf(String orderId) {
+        Integer slot = state.slotsById.get(key(orderId));
+        return slot == null ? -1 : slot;
+    }
+
+    @Override
+    public int slotOf(CoffeeOrder order) {
+        Integer slot = state.slotsById.get(key(order));
+        return slot == null ? -1 : slot;
+    }
+
+    @Override
+    public CoffeeOrder get(int slot) {
+        return slot < 0 ? null : state.read(slot);
+    }
+
+    @Override
+    public CoffeeOrder remove(int slot) {
+        State current = state;
+        CoffeeOrder order = slot < 0 ? null : current.read(slot);
+        // Only the thread that unmaps the ID owns the removal.
+        if (order == null || !current.slotsById.remove(key(order), slot)) {
+            return null;
+        }
+        CoffeeOrder removed = (CoffeeOrder) SLOT.getAndSet(
+                current.chunkFor(slot), slot & CHUNK_MASK, null);
+        current.count.decrement();
+        return removed != null ? removed : order;
+    }
+
+    @Override
+    public int slotLimit() {
+        State current = state;
+        return Math.min(current.nextSlot.get(), current.chunks.length << CHUNK_SHIFT);
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.max(0, state.count.sum());
+    }
+
+    /**
+     * Removes all stored orders by swapping in fresh, empty storage.
+     * Operations that overlap the call may apply to either the old or the new storage.
+     */
+    @Override
+    public void clear() {
+        state = new State();
+    }
+
+    private static Object key(CoffeeOrder order) {
+        return order.hasPackedId() ? new PackedId(order.idHigh(), order.idLow()) : order.getOrderId();
+    }
+
+    private static Object key(String orderId) {
+        if (!OrderEncoding.isPackableId(orderId)) {
+            return orderId;
+        }
+        return new PackedId(OrderEncoding.idHigh(orderId), OrderEncoding.idLow(orderId));
+    }
+
+    /**
+     * Map key for an order ID that is a canonical UUID.
+     *
+     * @param high the high ID bits
+     * @param low the low ID bits
+     */
+    private record PackedId(long high, long low) {
+        @Override
+        public int hashCode() {
+            long h = (high ^ low) * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+
+    /**
+     * Storage that is replaced as a whole by {@link #clear()}.
+     */
+    private static final class State {
+        private final ConcurrentHashMap<Object, Integer> slotsById = new ConcurrentHashMap<>();
+        private final AtomicInteger nextSlot = new AtomicInteger();
+        private final LongAdder count = new LongAdder();
+        private volatile CoffeeOrder[][] chunks = new CoffeeOrder[1][];
+
+        private CoffeeOrder read(int slot) {
+            CoffeeOrder[][] directory = chunks;
+            int chunkIndex = slot >>> CHUNK_SHIFT;
+            if (chunkIndex >= directory.length || directory[chunkIndex] == null) {
+                return null;
+            }
+            return (CoffeeOrder) SLOT.getAcquire(directory[chunkIndex], slot & CHUNK_MASK);
+        }
+
+        private void write(int slot, CoffeeOrder order) {
+            SLOT.setRelease(chunkFor(slot), slot & CHUNK_MASK, order);
+        }
+
+        private CoffeeOrder[] chunkFor(int slot) {
+            int chunkIndex = slot >>> CHUNK_SHIFT;
+            CoffeeOrder[][] directory = chunks;
+            if (chunkIndex < directory.length && directory[chunkIndex] != null) {
+                return directory[chunkIndex];
+            }
+            return allocateChunk(chunkIndex);
+        }
+
+        // Only runs once per CHUNK_SIZE slots, so the lock is rarely taken.
+        private synchronized CoffeeOrder[] allocateChunk(int chunkIndex) {
+            CoffeeOrder[][] directory = chunks;
+            if (chunkIndex >= directory.length) {
+                directory = Arrays.copyOf(directory,
+                        Math.max(chunkIndex + 1, directory.length * 2));
+            } else if (directory[chunkIndex] != null) {
+                return directory[chunkIndex];
+            } else {
+                directory = directory.clone();
+            }
+            directory[chunkIndex] = new CoffeeOrder[CHUNK_SIZE];
+            chunks = directory;
+            return directory[chunkIndex];
+        }
+    }
+}
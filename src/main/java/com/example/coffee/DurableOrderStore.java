@@ -0,0 +1,330 @@
+package com.example.coffee;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * {@link OrderStore} decorator that records every add, removal and clear in an
+ * {@link OrderWriteAheadLog} once another store has applied it.
+ * <p>
+ * {@link #open(Path, OrderWriteAheadLog.SyncPolicy)} replays the existing log into the
+ * underlying store, so an {@link OrderCollection} created on top of it starts with the
+ * orders that were present when the previous process stopped. Mutations are
+ * serialized so that the log and the store apply them in the same order; reads go
+ * straight to the underlying store. Only order IDs in canonical UUID form can be
+ * stored.
+ * </p>
+ * <p>
+ * An add is logged only after the underlying store has accepted it, under the same
+ * lock, so a store that rejects an order, for example because it is full, leaves no
+ * record for replay to trip over; if the log then cannot be written, the add is undone
+ * before the {@link UncheckedIOException} is thrown. Removals and clears cannot be
+ * rejected by the store, so they are logged first and only applied once logged. Either
+ * way a failed write leaves the store as it was.
+ * </p>
+ */
+public final class DurableOrderStore implements OrderStore, AutoCloseable {
+    private final OrderStore delegate;
+    private final OrderWriteAheadLog log;
+
+    private DurableOrderStore(OrderStore delegate, OrderWriteAheadLog log) {
+        this.delegate = delegate;
+        this.log = log;
+    }
+
+    /**
+     * Opens a durable store over a new {@link InMemoryOrderStore}.
+     * 
+     * @param logFile the write-ahead log file, created if missing
+     * @param syncPolicy when log records are forced to disk
+     * @return the store, holding the orders recovered from the log
+     * @throws IOException if the log cannot be read or opened
+     */
+    public static DurableOrderStore open(Path logFile, OrderWriteAheadLog.SyncPolicy syncPolicy)
+            throws IOException {
+        return open(logFile, syncPolicy, new InMemoryOrderStore());
+    }
+
+    /**
+     * Opens a durable store over the given store, replaying the log into it.
+     * 
+     * @param logFile the write-ahead log file, created if missing
+     * @param syncPolicy when log records are forced to disk
+     * @param delegate the store that holds the orders; it should be empty
+     * @return the store, holding the orders recovered from the log
+     * @throws IOException if the log cannot be read or opened
+     */
+    public static DurableOrderStore open(Path logFile, OrderWriteAheadLog.SyncPolicy syncPolicy,
+                                         OrderStore delegate) throws IOException {
+        Objects.requireNonNull(logFile, "Log file cannot be null");
+        Objects.requireNonNull(delegate, "Store cannot be null");
+        OrderWriteAheadLog.replay(logFile, new OrderWriteAheadLog.Listener() {
+            @Override
+            public void added(CoffeeOrder order) {
+                delegate.add(order);
+            }
+
+            @Override
+            public void removed(String orderId) {
+                delegate.remove(delegate.slotOf(orderId));
+            }
+
+            @Override
+            public void cleared() {
+                delegate.clear();
+            }
+        });
+        return new DurableOrderStore(delegate, OrderWriteAheadLog.open(logFile, syncPolicy));
+    }
+
+    /**
+     * Stores and logs an order.
+     * 
+     * @param order the order to store
+     * @return the slot holding the order
+     * @throws IllegalArgumentException if the order ID is not a canonical UUID
+     * @throws UncheckedIOException if the log cannot be written; the order is not
+     *         stored then
+     */
+    @Override
+    public synchronized int add(CoffeeOrder order) {
+        requirePackedId(order);
+        int existing = delegate.slotOf(order);
+        CoffeeOrder replaced = existing < 0 ? null : delegate.get(existing);
+        int slot = delegate.add(order);
+        try {
+            log.appendAdd(order);
+        } catch (RuntimeException e) {
+            undoAdd(slot, replaced, e);
+            throw e;
+        }
+        return slot;
+    }
+
+    /**
+     * Checks that an order has a canonical UUID and that the underlying store would
+     * accept it.
+     * 
+     * @param order the order to check
+     * @throws IllegalArgumentException if the order cannot be stored
+     */
+    @Override
+    public void validate(CoffeeOrder order) {
+        requirePackedId(order);
+        delegate.validate(order);
+    }
+
+    /**
+     * Stores and logs several orders under one lock, forcing the log once for the
+     * whole batch when the sync policy forces every write. If the underlying store
+     * rejects an order, the orders stored before it are logged and the rest are not;
+     * if the log cannot be written, every order of the batch is taken back out and
+     * its entries are reset to -1 and null.
+     * 
+     * @param orders the orders to store
+     * @param slots receives the slot holding each order
+     * @param replaced receives the order each one replaced, or null
+     * @throws IllegalArgumentException if an order cannot be stored; nothing is logged
+     *         or stored then if the order fails {@link #validate(CoffeeOrder)}
+     * @throws UncheckedIOException if the log cannot be written
+     */
+    @Override
+    public synchronized void addAll(List<CoffeeOrder> orders, int[] slots, CoffeeOrder[] replaced) {
+        for (CoffeeOrder order : orders) {
+            validate(order);
+        }
+        delegate.ensureCapacity(orders.size());
+        int stored = 0;
+        try {
+            for (; stored < orders.size(); stored++) {
+                CoffeeOrder order = orders.get(stored);
+                int existing = delegate.slotOf(order);
+                CoffeeOrder previous = existing < 0 ? null : delegate.get(existing);
+                slots[stored] = delegate.add(order);
+                replaced[stored] = previous;
+            }
+        } catch (RuntimeException e) {
+            try {
+                log.appendAdds(orders.subList(0, stored));
+            } catch (RuntimeException logFailure) {
+                undoAdds(slots, replaced, stored, logFailure);
+                e.addSuppressed(logFailure);
+            }
+            throw e;
+        }
+        try {
+            log.appendAdds(orders);
+        } catch (RuntimeException e) {
+            undoAdds(slots, replaced, stored, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void ensureCapacity(int additionalOrders) {
+        delegate.ensureCapacity(additionalOrders);
+    }
+
+    @Override
+    public int slotOf(String orderId) {
+        return delegate.slotOf(orderId);
+    }
+
+    @Override
+    public int slotOf(CoffeeOrder order) {
+        return delegate.slotOf(order);
+    }
+
+    @Override
+    public CoffeeOrder get(int slot) {
+        return delegate.get(slot);
+    }
+
+    @Override
+    public int nextOccupied(int slot) {
+        return delegate.nextOccupied(slot);
+    }
+
+    @Override
+    public int previousOccupied(int slot) {
+        return delegate.previousOccupied(slot);
+    }
+
+    /**
+     * Removes the order in a slot and logs the removal.
+     * 
+     * @param slot the slot to empty
+     * @return the removed order, or null if the slot was already empty
+     * @throws UncheckedIOException if the log cannot be written
+     */
+    @Override
+    public synchronized CoffeeOrder remove(int slot) {
+        CoffeeOrder order = delegate.get(slot);
+        if (order == null) {
+            return null;
+        }
+        log.appendRemove(order.getOrderId());
+        return delegate.remove(slot);
+    }
+
+    /**
+     * Removes the orders in several slots under one lock and logs the removals,
+     * forcing the log once for the whole batch when the sync policy forces every write.
+     * 
+     * @param slots the slots to empty
+     * @return the removed order for each slot, or null where the slot was empty
+     * @throws UncheckedIOException if the log cannot be written
+     */
+    @Override
+    public synchronized CoffeeOrder[] removeAll(int[] slots) {
+        List<String> orderIds = new ArrayList<>(slots.length);
+        for (int slot : slots) {
+            CoffeeOrder order = delegate.get(slot);
+            if (order != null) {
+                orderIds.add(order.getOrderId());
+            }
+        }
+        log.appendRemoves(orderIds);
+        return delegate.removeAll(slots);
+    }
+
+    @Override
+    public boolean supportsCompaction() {
+        return delegate.supportsCompaction();
+    }
+
+    /**
+     * Moves an order in the underlying store. Slots are not part of the log, so
+     * nothing is logged.
+     * 
+     * @param from the occupied slot
+     * @param to the empty slot below it
+     */
+    @Override
+    public synchronized void moveSlot(int from, int to) {
+        delegate.moveSlot(from, to);
+    }
+
+    @Override
+    public synchronized void truncate(int slotLimit) {
+        delegate.truncate(slotLimit);
+    }
+
+    @Override
+    public int slotLimit() {
+        return delegate.slotLimit();
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    /**
+     * Removes all stored orders and logs a clear.
+     * 
+     * @throws UncheckedIOException if the log cannot be written
+     */
+    @Override
+    public synchronized void clear() {
+        log.appendClear();
+        delegate.clear();
+    }
+
+    /**
+     * Forces all logged mutations to disk, whatever the sync policy.
+     * 
+     * @throws UncheckedIOException if the log cannot be written
+     */
+    public void flush() {
+        log.flush();
+    }
+
+    /**
+     * Flushes and closes the log. The underlying store is left as it is.
+     * 
+     * @throws IOException if the log cannot be flushed or closed
+     */
+    @Override
+    public void close() throws IOException {
+        log.close();
+    }
+
+    /**
+     * Takes an add that could not be logged back out of the underlying store.
+     */
+    private void undoAdd(int slot, CoffeeOrder replaced, RuntimeException failure) {
+        try {
+            if (replaced == null) {
+                delegate.remove(slot);
+            } else {
+                delegate.add(replaced);
+            }
+        } catch (RuntimeException undoFailure) {
+            failure.addSuppressed(undoFailure);
+        }
+    }
+
+    private void undoAdds(int[] slots, CoffeeOrder[] replaced, int stored,
+                          RuntimeException failure) {
+        // Newest first, so an order added twice in the batch ends up as it was before.
+        for (int i = stored - 1; i >= 0; i--) {
+            undoAdd(slots[i], replaced[i], failure);
+            slots[i] = -1;
+            replaced[i] = null;
+        }
+    }
+
+    private static void requirePackedId(CoffeeOrder order) {
+        if (order == null) {
+            throw new IllegalArgumentException("Order cannot be null");
+        }
+        if (!order.hasPackedId()) {
+            throw new IllegalArgumentException("Order ID is not a canonical UUID: " + order.getOrderId());
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.coffee;
+
+/**
+ * {@link OrderStore} that keeps orders as attribute words and can hand them out
+ * without building {@link CoffeeOrder} views, which lets indexes be built without
+ * allocating.
+ */
+interface EncodedOrderStore extends OrderStore {
+    /**
+     * Gets the attribute word of the order in a slot.
+     * 
+     * @param slot the slot
+     * @return the attribute word, see {@link OrderEncoding#encode}, or -1 if the slot is
+     *         empty or out of range
+     */
+    int attributes(int slot);
+
+    /**
+     * Gets the high half of the ID of the order in an occupied slot.
+     * 
+     * @param slot the occupied slot
+     * @return the most significant 64 bits of the order ID
+     */
+    long idHigh(int slot);
+
+    /**
+     * Gets the low half of the ID of the order in an occupied slot.
+     * 
+     * @param slot the occupied slot
+     * @return the least significant 64 bits of the order ID
+     */
+    long idLow(int slot);
+
+    /**
+     * Finds the first occupied slot at or above a slot from the attribute words, without
+     * building orders.
+     * 
+     * @param slot the slot to start at
+     * @return the first occupied slot not below slot, or -1 if there is none
+     */
+    @Override
+    default int nextOccupied(int slot) {
+        for (int s = Math.max(slot, 0), limit = slotLimit(); s < limit; s++) {
+            if (attributes(s) >= 0) {
+                return s;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the last occupied slot at or below a slot from the attribute words, without
+     * building orders.
+     * 
+     * @param slot the slot to start at
+     * @return the last occupied slot not above slot, or -1 if there is none
+     */
+    @Override
+    default int previousOccupied(int slot) {
+        for (int s = Math.min(slot, slotLimit() - 1); s >= 0; s--) {
+            if (attributes(s) >= 0) {
+                return s;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checks that the order ID is a canonical UUID, the only kind of ID packed stores
+     * can hold.
+     * 
+     * @param order the order to check
+     * @throws IllegalArgumentException if the order ID is not a canonical UUID
+     */
+    @Override
+    default void validate(CoffeeOrder order) {
+        if (!order.hasPackedId()) {
+            throw new IllegalArgumentException("Order ID is not a canonical UUID: " + order.getOrderId());
+        }
+    }
+}
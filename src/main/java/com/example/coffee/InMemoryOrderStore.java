@@ -0,0 +1,159 @@
+package com.example.coffee;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Default single-threaded {@link OrderStore}.
+ * Orders are kept in a list of slots with an open-addressing {@link SlotIdIndex} from
+ * packed order IDs to slots, giving constant-time lookups and removals that never
+ * format or hash ID strings, while preserving insertion order. IDs that are not
+ * canonical UUIDs fall back to a hash map keyed by the string.
+ */
+public class InMemoryOrderStore implements OrderStore {
+    private final ArrayList<CoffeeOrder> slots = new ArrayList<>();
+    private final SlotIdIndex packedIds = new SlotIdIndex(new SlotIdIndex.Keys() {
+        @Override
+        public long high(int slot) {
+            return slots.get(slot).idHigh();
+        }
+
+        @Override
+        public long low(int slot) {
+            return slots.get(slot).idLow();
+        }
+    }, IntBuffer::allocate);
+    private final HashMap<String, Integer> otherIds = new HashMap<>();
+    private int size;
+
+    @Override
+    public int add(CoffeeOrder order) {
+        int existing = slotOf(order);
+        if (existing >= 0) {
+            slots.set(existing, order);
+            return existing;
+        }
+        return append(order);
+    }
+
+    @Override
+    public void addAll(List<CoffeeOrder> orders, int[] added, CoffeeOrder[] replaced) {
+        ensureCapacity(orders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            CoffeeOrder order = orders.get(i);
+            int existing = slotOf(order);
+            if (existing >= 0) {
+                replaced[i] = slots.set(existing, order);
+                added[i] = existing;
+            } else {
+                replaced[i] = null;
+                added[i] = append(order);
+            }
+        }
+    }
+
+    /**
+     * Grows the slot list and the ID index so that the additional orders fit without
+     * further copying or rehashing.
+     * 
+     * @param additionalOrders the number of orders about to be added
+     */
+    @Override
+    public void ensureCapacity(int additionalOrders) {
+        slots.ensureCapacity(slots.size() + additionalOrders);
+        packedIds.ensureCapacity(additionalOrders);
+    }
+
+    @Override
+    public int slotOf(String orderId) {
+        if (OrderEncoding.isPackableId(orderId)) {
+            return packedIds.find(OrderEncoding.idHigh(orderId), OrderEncoding.idLow(orderId));
+        }
+        Integer slot = otherIds.get(orderId);
+        return slot == null ? -1 : slot;
+    }
+
+    @Override
+    public int slotOf(CoffeeOrder order) {
+        if (order.hasPackedId()) {
+            return packedIds.find(order.idHigh(), order.idLow());
+        }
+        Integer slot = otherIds.get(order.getOrderId());
+        return slot == null ? -1 : slot;
+    }
+
+    @Override
+    public CoffeeOrder get(int slot) {
+        return slot >= 0 && slot < slots.size() ? slots.get(slot) : null;
+    }
+
+    @Override
+    public CoffeeOrder remove(int slot) {
+        CoffeeOrder order = get(slot);
+        if (order != null) {
+            // The index reads the ID from the slot, so it is unmapped first.
+            if (order.hasPackedId()) {
+                packedIds.delete(slot);
+            } else {
+                otherIds.remove(order.getOrderId());
+            }
+            slots.set(slot, null);
+            size--;
+        }
+        return order;
+    }
+
+    @Override
+    public boolean supportsCompaction() {
+        return true;
+    }
+
+    @Override
+    public void moveSlot(int from, int to) {
+        CoffeeOrder order = slots.get(from);
+        slots.set(to, order);
+        if (order.hasPackedId()) {
+            packedIds.move(from, to);
+        } else {
+            otherIds.put(order.getOrderId(), to);
+        }
+        slots.set(from, null);
+    }
+
+    @Override
+    public void truncate(int slotLimit) {
+        slots.subList(slotLimit, slots.size()).clear();
+    }
+
+    @Override
+    public int slotLimit() {
+        return slots.size();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        slots.clear();
+        packedIds.clear();
+        otherIds.clear();
+        size = 0;
+    }
+
+    private int append(CoffeeOrder order) {
+        int slot = slots.size();
+        slots.add(order);
+        if (order.hasPackedId()) {
+            packedIds.insert(slot);
+        } else {
+            otherIds.put(order.getOrderId(), slot);
+        }
+        size++;
+        return slot;
+    }
+}
@@ -0,0 +1,431 @@
+package com.example.coffee;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * {@link OrderStore} opened from a snapshot file that is memory-mapped rather than
+ * read, so opening a snapshot of any size takes about the same time and the operating
+ * system pages records in as they are used.
+ * <p>
+ * A snapshot file holds a 32-byte header, one record per order in
+ * {@link CoffeeOrderCodec} format with the top bit of the attribute int marking a live
+ * order, and the ID hash table
+ * built when the snapshot was written, so lookups by ID work straight from the
+ * mapping without rebuilding anything. Snapshots are written with
+ * {@link #write(OrderCollection, Path)}.
+ * </p>
+ * <p>
+ * The store can be modified after opening: replacements and removals of snapshot
+ * orders are applied to a private copy of the touched pages and never reach the file,
+ * and new orders are kept on the heap in slots after the snapshot's. The snapshot's ID
+ * table is read-only, so the store does not support compaction: removed orders keep
+ * their slots until {@link #clear()}. Writing a new snapshot leaves them out, and
+ * opening that snapshot starts without them. The store is not thread-safe. Closing it
+ * drops the mapping, after which every operation throws
+ * {@link IllegalStateException}; like all mapped buffers, the mapping itself is
+ * released once the buffers are collected. Only order IDs in canonical UUID form can
+ * be stored.
+ * </p>
+ */
+public class MappedOrderStore implements EncodedOrderStore, AutoCloseable {
+    private static final int MAGIC = 0x434F5331;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int RECORD_BYTES = CoffeeOrderCodec.ENCODED_BYTES;
+    private static final int ID_LOW_OFFSET = 8;
+    private static final int WORD_OFFSET = 16;
+    private static final int SEGMENT_SHIFT = 20;
+    private static final int SEGMENT_RECORDS = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_RECORDS - 1;
+    private static final int MAX_TABLE_LENGTH = 1 << 28;
+    private static final int WRITE_BUFFER_RECORDS = 4096;
+    private static final int OCCUPIED = 1 << 31;
+
+    private ByteBuffer[] segments;
+    private SlotIdIndex snapshotIndex;
+    private int snapshotCount;
+    private int snapshotSize;
+    private final InMemoryOrderStore overlay = new InMemoryOrderStore();
+    private boolean closed;
+
+    private MappedOrderStore(ByteBuffer[] segments, IntBuffer table, int count) {
+        this.segments = segments;
+        this.snapshotIndex = new SlotIdIndex(keys(segments), table, count, length -> {
+            throw new IllegalStateException("Snapshot ID table is read-only");
+        });
+        this.snapshotCount = count;
+        this.snapshotSize = count;
+    }
+
+    /**
+     * Writes the orders of a collection to a snapshot file, in insertion order.
+     * The snapshot is written to a temporary file next to the target and then moved
+     * into place, so an existing snapshot is only replaced by a complete one.
+     *
+     * @param orderCollection the orders to write
+     * @param file the snapshot file
+     * @return the number of orders written
+     * @throws IOException if the file cannot be written
+     * @throws IllegalArgumentException if an order ID is not a canonical UUID, or there
+     *         are too many orders for one snapshot
+     * @throws NullPointerException if orderCollection or file is null
+     */
+    public static int write(OrderCollection orderCollection, Path file) throws IOException {
+        Objects.requireNonNull(orderCollection, "Order collection cannot be null");
+        Path target = Objects.requireNonNull(file, "File cannot be null").toAbsolutePath();
+        Path temp = Files.createTempFile(target.getParent(),
+                "." + target.getFileName() + "-", ".tmp");
+        try {
+            int count;
+            try (FileChannel channel = FileChannel.open(temp,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                count = writeRecords(orderCollection.store(), channel);
+                int tableLength = SlotIdIndex.tableLengthFor(count);
+                if (tableLength > MAX_TABLE_LENGTH) {
+                    throw new IllegalArgumentException("Too many orders for one snapshot: " + count);
+                }
+                IntBuffer table = channel.map(FileChannel.MapMode.READ_WRITE,
+                                tableOffset(count), (long) tableLength * Integer.BYTES)
+                        .order(ByteOrder.LITTLE_ENDIAN)
+                        .asIntBuffer();
+                ByteBuffer[] records = mapRecords(channel, FileChannel.MapMode.READ_ONLY, count);
+                SlotIdIndex idIndex = new SlotIdIndex(keys(records), table, 0, length -> {
+                    throw new IllegalStateException("Snapshot ID table was sized too small");
+                });
+                for (int slot = 0; slot < count; slot++) {
+                    idIndex.insert(slot);
+                }
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(MAGIC).putInt(VERSION).putInt(count).putInt(tableLength).clear();
+                while (header.hasRemaining()) {
+                    channel.write(header, header.position());
+                }
+                channel.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            return count;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Opens a snapshot file. Only the header is read; records are paged in on use.
+     *
+     * @param file the snapshot file
+     * @return a store holding the snapshot's orders in their original order
+     * @throws IOException if the file cannot be read or is not a valid snapshot
+     * @throws NullPointerException if file is null
+     */
+    public static MappedOrderStore open(Path file) throws IOException {
+        Objects.requireNonNull(file, "File cannot be null");
+        // Written pages are copied privately, which needs a channel open for writing.
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_BYTES) {
+                throw new IOException("Not an order snapshot: " + file);
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                channel.read(header, header.position());
+            }
+            header.flip();
+            int magic = header.getInt();
+            int version = header.getInt();
+            int count = header.getInt();
+            int tableLength = header.getInt();
+            if (magic != MAGIC) {
+                throw new IOException("Not an order snapshot: " + file);
+            }
+            if (version != VERSION) {
+                throw new IOException("Unsupported order snapshot version " + version + ": " + file);
+            }
+            if (count < 0 || tableLength <= 0 || tableLength > MAX_TABLE_LENGTH
+                    || Integer.bitCount(tableLength) != 1
+                    || count * 4L > tableLength * 3L
+                    || fileSize != tableOffset(count) + (long) tableLength * Integer.BYTES) {
+                throw new IOException("Corrupt order snapshot: " + file);
+            }
+            IntBuffer table = channel.map(FileChannel.MapMode.READ_ONLY,
+                            tableOffset(count), (long) tableLength * Integer.BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN)
+                    .asIntBuffer();
+            return new MappedOrderStore(
+                    mapRecords(channel, FileChannel.MapMode.PRIVATE, count), table, count);
+        }
+    }
+
+    /**
+     * Stores an order. Replacing a snapshot order keeps its slot; other orders are
+     * added after the last slot.
+     *
+     * @param order the order to store
+     * @return the slot holding the order
+     * @throws IllegalArgumentException if the order ID is not a canonical UUID
+     * @throws IllegalStateException if the store is closed
+     */
+    @Override
+    public int add(CoffeeOrder order) {
+        ensureOpen();
+        validate(order);
+        int existing = snapshotSlotOf(order.idHigh(), order.idLow());
+        if (existing >= 0) {
+            segment(existing).putInt(offset(existing) + WORD_OFFSET,
+                    OrderEncoding.encode(order) | OCCUPIED);
+            return existing;
+        }
+        return snapshotCount + overlay.add(order);
+    }
+
+    @Override
+    public int slotOf(String orderId) {
+        ensureOpen();
+        int slot = overlay.slotOf(orderId);
+        if (slot >= 0) {
+            return snapshotCount + slot;
+        }
+        return OrderEncoding.isPackableId(orderId) ? snapshotSlotOf(orderId) : -1;
+    }
+
+    @Override
+    public int slotOf(CoffeeOrder order) {
+        ensureOpen();
+        int slot = overlay.slotOf(order);
+        if (slot >= 0) {
+            return snapshotCount + slot;
+        }
+        return order.hasPackedId() ? snapshotSlotOf(order.idHigh(), order.idLow()) : -1;
+    }
+
+    @Override
+    public CoffeeOrder get(int slot) {
+        ensureOpen();
+        if (slot < 0) {
+            return null;
+        }
+        if (slot >= snapshotCount) {
+            return overlay.get(slot - snapshotCount);
+        }
+        ByteBuffer segment = segment(slot);
+        int offset = offset(slot);
+        int word = segment.getInt(offset + WORD_OFFSET);
+        if ((word & OCCUPIED) == 0) {
+            return null;
+        }
+        return OrderEncoding.decode(segment.getLong(offset),
+                segment.getLong(offset + ID_LOW_OFFSET), word & ~OCCUPIED);
+    }
+
+    @Override
+    public int attributes(int slot) {
+        ensureOpen();
+        if (slot < 0) {
+            return -1;
+        }
+        if (slot >= snapshotCount) {
+            CoffeeOrder order = overlay.get(slot - snapshotCount);
+            return order == null ? -1 : OrderEncoding.encode(order);
+        }
+        int word = segment(slot).getInt(offset(slot) + WORD_OFFSET);
+        return (word & OCCUPIED) == 0 ? -1 : word & ~OCCUPIED;
+    }
+
+    @Override
+    public long idHigh(int slot) {
+        ensureOpen();
+        if (slot >= snapshotCount) {
+            return overlay.get(slot - snapshotCount).idHigh();
+        }
+        return segment(slot).getLong(offset(slot));
+    }
+
+    @Override
+    public long idLow(int slot) {
+        ensureOpen();
+        if (slot >= snapshotCount) {
+            return overlay.get(slot - snapshotCount).idLow();
+        }
+        return segment(slot).getLong(offset(slot) + ID_LOW_OFFSET);
+    }
+
+    @Override
+    public CoffeeOrder remove(int slot) {
+        ensureOpen();
+        if (slot >= snapshotCount) {
+            return overlay.remove(slot - snapshotCount);
+        }
+        CoffeeOrder order = get(slot);
+        if (order == null) {
+            return null;
+        }
+        // The ID stays in the read-only table; lookups skip slots that are no longer occupied.
+        segment(slot).putInt(offset(slot) + WORD_OFFSET, 0);
+        snapshotSize--;
+        return order;
+    }
+
+    @Override
+    public int slotLimit() {
+        ensureOpen();
+        return snapshotCount + overlay.slotLimit();
+    }
+
+    @Override
+    public int size() {
+        ensureOpen();
+        return snapshotSize + overlay.size();
+    }
+
+    /**
+     * Removes all orders, dropping the snapshot mapping. The file is left unchanged.
+     *
+     * @throws IllegalStateException if the store is closed
+     */
+    @Override
+    public void clear() {
+        ensureOpen();
+        dropSnapshot();
+        overlay.clear();
+    }
+
+    /**
+     * Gets the number of orders the snapshot held when it was opened.
+     *
+     * @return the number of snapshot records
+     * @throws IllegalStateException if the store is closed
+     */
+    public int snapshotCount() {
+        ensureOpen();
+        return snapshotCount;
+    }
+
+    /**
+     * Checks whether the store has been closed.
+     *
+     * @return true if {@link #close()} has been called
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Drops the snapshot mapping and all orders. Closing an already closed store has
+     * no effect.
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            dropSnapshot();
+            overlay.clear();
+        }
+    }
+
+    private int snapshotSlotOf(String orderId) {
+        return snapshotSlotOf(OrderEncoding.idHigh(orderId), OrderEncoding.idLow(orderId));
+    }
+
+    private int snapshotSlotOf(long high, long low) {
+        if (snapshotIndex == null) {
+            return -1;
+        }
+        int slot = snapshotIndex.find(high, low);
+        if (slot < 0 || (segment(slot).getInt(offset(slot) + WORD_OFFSET) & OCCUPIED) == 0) {
+            return -1;
+        }
+        return slot;
+    }
+
+    private void dropSnapshot() {
+        segments = new ByteBuffer[0];
+        snapshotIndex = null;
+        snapshotCount = 0;
+        snapshotSize = 0;
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Order store is closed");
+        }
+    }
+
+    private ByteBuffer segment(int slot) {
+        return segments[slot >>> SEGMENT_SHIFT];
+    }
+
+    private static int offset(int slot) {
+        return (slot & SEGMENT_MASK) * RECORD_BYTES;
+    }
+
+    private static long tableOffset(int count) {
+        return HEADER_BYTES + (long) count * RECORD_BYTES;
+    }
+
+    private static SlotIdIndex.Keys keys(ByteBuffer[] segments) {
+        return new SlotIdIndex.Keys() {
+            @Override
+            public long high(int slot) {
+                return segments[slot >>> SEGMENT_SHIFT].getLong(offset(slot));
+            }
+
+            @Override
+            public long low(int slot) {
+                return segments[slot >>> SEGMENT_SHIFT].getLong(offset(slot) + ID_LOW_OFFSET);
+            }
+        };
+    }
+
+    private static int writeRecords(OrderStore store, FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_RECORDS * RECORD_BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        long position = HEADER_BYTES;
+        int count = 0;
+        for (int slot = 0, limit = store.slotLimit(); slot < limit; slot++) {
+            CoffeeOrder order = store.get(slot);
+            if (order == null) {
+                continue;
+            }
+            if (!buffer.hasRemaining()) {
+                position += drain(buffer, channel, position);
+            }
+            int start = buffer.position();
+            CoffeeOrderCodec.encode(order, buffer);
+            buffer.putInt(start + WORD_OFFSET, buffer.getInt(start + WORD_OFFSET) | OCCUPIED);
+            count++;
+        }
+        drain(buffer, channel, position);
+        return count;
+    }
+
+    private static int drain(ByteBuffer buffer, FileChannel channel, long position) throws IOException {
+        buffer.flip();
+        int written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, position + written);
+        }
+        buffer.clear();
+        return written;
+    }
+
+    private static ByteBuffer[] mapRecords(FileChannel channel, FileChannel.MapMode mode, int count)
+            throws IOException {
+        ByteBuffer[] segments = new ByteBuffer[(int) ((count + (long) SEGMENT_MASK) >>> SEGMENT_SHIFT)];
+        for (int i = 0; i < segments.length; i++) {
+            int records = Math.min(SEGMENT_RECORDS, count - (i << SEGMENT_SHIFT));
+            segments[i] = channel.map(mode, tableOffset(i << SEGMENT_SHIFT), (long) records * RECORD_BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return segments;
+    }
+}
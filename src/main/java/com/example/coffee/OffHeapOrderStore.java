@@ -0,0 +1,331 @@
+package com.example.coffee;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+/**
+ * {@link OrderStore} that keeps order records in direct memory outside the Java heap,
+ * so a large store adds neither heap usage nor garbage collection work.
+ * <p>
+ * Each record takes 20 bytes: the two halves of the order ID followed by the
+ * attribute word. Records live in direct segments of 65,536 records that are
+ * allocated as slots are handed out, and the ID index is a direct buffer as well.
+ * {@link #get(int)} builds a new {@link CoffeeOrder} view on every call.
+ * </p>
+ * <p>
+ * The store holds at most {@link #capacity()} slots between calls to {@link #clear()};
+ * removed orders keep their slot until the owning collection compacts the store.
+ * Closing the store releases its segments, after which every operation throws
+ * {@link IllegalStateException}. Like all direct buffers, the memory is handed back to
+ * the operating system once the buffers are collected. Only order IDs in canonical
+ * UUID form can be stored.
+ * </p>
+ */
+public class OffHeapOrderStore implements EncodedOrderStore, AutoCloseable {
+    private static final int RECORD_BYTES = 20;
+    private static final int ID_LOW_OFFSET = 8;
+    private static final int WORD_OFFSET = 16;
+    private static final int SEGMENT_SHIFT = 16;
+    private static final int SEGMENT_RECORDS = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_RECORDS - 1;
+    private static final int OCCUPIED = 1 << 31;
+
+    private final int capacity;
+    private ByteBuffer[] segments;
+    private int slotLimit;
+    private int size;
+    private boolean closed;
+    private final SlotIdIndex idIndex = new SlotIdIndex(new SlotIdIndex.Keys() {
+        @Override
+        public long high(int slot) {
+            return segment(slot).getLong(offset(slot));
+        }
+
+        @Override
+        public long low(int slot) {
+            return segment(slot).getLong(offset(slot) + ID_LOW_OFFSET);
+        }
+    }, OffHeapOrderStore::allocateTable);
+
+    /**
+     * Creates an empty off-heap store.
+     * 
+     * @param capacity the maximum number of slots the store can hand out
+     * @throws IllegalArgumentException if capacity is not positive
+     */
+    public OffHeapOrderStore(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.segments = new ByteBuffer[(int) ((capacity + (long) SEGMENT_MASK) >>> SEGMENT_SHIFT)];
+    }
+
+    /**
+     * Stores an order in direct memory.
+     * 
+     * @param order the order to store
+     * @return the slot holding the order
+     * @throws IllegalArgumentException if the order ID is not a canonical UUID
+     * @throws IllegalStateException if the store is full or closed
+     */
+    @Override
+    public int add(CoffeeOrder order) {
+        ensureOpen();
+        validate(order);
+        long high = order.idHigh();
+        long low = order.idLow();
+        int word = OrderEncoding.encode(order) | OCCUPIED;
+        int existing = idIndex.find(high, low);
+        if (existing >= 0) {
+            segment(existing).putInt(offset(existing) + WORD_OFFSET, word);
+            return existing;
+        }
+        if (slotLimit == capacity) {
+            throw new IllegalStateException("Order store is full at " + capacity + " slots");
+        }
+        int slot = slotLimit;
+        int segmentIndex = slot >>> SEGMENT_SHIFT;
+        if (segments[segmentIndex] == null) {
+            int records = Math.min(SEGMENT_RECORDS, capacity - (segmentIndex << SEGMENT_SHIFT));
+            segments[segmentIndex] = ByteBuffer.allocateDirect(records * RECORD_BYTES)
+                    .order(ByteOrder.nativeOrder());
+        }
+        ByteBuffer segment = segments[segmentIndex];
+        int offset = offset(slot);
+        segment.putLong(offset, high);
+        segment.putLong(offset + ID_LOW_OFFSET, low);
+        segment.putInt(offset + WORD_OFFSET, word);
+        slotLimit++;
+        size++;
+        idIndex.insert(slot);
+        return slot;
+    }
+
+    /**
+     * Grows the ID index for the additional orders up front; record segments are
+     * still allocated as slots are handed out.
+     * 
+     * @param additionalOrders the number of orders about to be added
+     * @throws IllegalStateException if the store is closed
+     */
+    @Override
+    public void ensureCapacity(int additionalOrders) {
+        ensureOpen();
+        idIndex.ensureCapacity(Math.min(additionalOrders, capacity - slotLimit));
+    }
+
+    @Override
+    public int slotOf(String orderId) {
+        ensureOpen();
+        if (!OrderEncoding.isPackableId(orderId)) {
+            return -1;
+        }
+        return idIndex.find(OrderEncoding.idHigh(orderId), OrderEncoding.idLow(orderId));
+    }
+
+    @Override
+    public int slotOf(CoffeeOrder order) {
+        ensureOpen();
+        return order.hasPackedId() ? idIndex.find(order.idHigh(), order.idLow()) : -1;
+    }
+
+    @Override
+    public CoffeeOrder get(int slot) {
+        ensureOpen();
+        if (slot < 0 || slot >= slotLimit) {
+            return null;
+        }
+        ByteBuffer segment = segment(slot);
+        int offset = offset(slot);
+        int word = segment.getInt(offset + WORD_OFFSET);
+        if ((word & OCCUPIED) == 0) {
+            return null;
+        }
+        return OrderEncoding.decode(segment.getLong(offset),
+                segment.getLong(offset + ID_LOW_OFFSET), word & ~OCCUPIED);
+    }
+
+    @Override
+    public int attributes(int slot) {
+        ensureOpen();
+        if (slot < 0 || slot >= slotLimit) {
+            return -1;
+        }
+        int word = segment(slot).getInt(offset(slot) + WORD_OFFSET);
+        return (word & OCCUPIED) == 0 ? -1 : word & ~OCCUPIED;
+    }
+
+    @Override
+    public long idHigh(int slot) {
+        ensureOpen();
+        return segment(slot).getLong(offset(slot));
+    }
+
+    @Override
+    public long idLow(int slot) {
+        ensureOpen();
+        return segment(slot).getLong(offset(slot) + ID_LOW_OFFSET);
+    }
+
+    @Override
+    public CoffeeOrder remove(int slot) {
+        CoffeeOrder order = get(slot);
+        if (order == null) {
+            return null;
+        }
+        segment(slot).putInt(offset(slot) + WORD_OFFSET, 0);
+        size--;
+        idIndex.delete(slot);
+        return order;
+    }
+
+    @Override
+    public boolean supportsCompaction() {
+        return true;
+    }
+
+    @Override
+    public void moveSlot(int from, int to) {
+        ensureOpen();
+        ByteBuffer source = segment(from);
+        ByteBuffer target = segment(to);
+        int fromOffset = offset(from);
+        int toOffset = offset(to);
+        target.putLong(toOffset, source.getLong(fromOffset));
+        target.putLong(toOffset + ID_LOW_OFFSET, source.getLong(fromOffset + ID_LOW_OFFSET));
+        target.putInt(toOffset + WORD_OFFSET, source.getInt(fromOffset + WORD_OFFSET));
+        idIndex.move(from, to);
+        source.putInt(fromOffset + WORD_OFFSET, 0);
+    }
+
+    /**
+     * Lowers the slot limit, making the released slots available again, and drops the
+     * segments that lie entirely above it.
+     * 
+     * @param slotLimit the new slot limit
+     * @throws IllegalStateException if the store is closed
+     */
+    @Override
+    public void truncate(int slotLimit) {
+        ensureOpen();
+        for (int segment = (slotLimit + SEGMENT_MASK) >>> SEGMENT_SHIFT; segment < segments.length; segment++) {
+            segments[segment] = null;
+        }
+        this.slotLimit = slotLimit;
+    }
+
+    @Override
+    public int slotLimit() {
+        ensureOpen();
+        return slotLimit;
+    }
+
+    @Override
+    public int size() {
+        ensureOpen();
+        return size;
+    }
+
+    /**
+     * Removes all stored orders and releases their segments, making the full
+     * capacity available again.
+     * 
+     * @throws IllegalStateException if the store is closed
+     */
+    @Override
+    public void clear() {
+        ensureOpen();
+        segments = new ByteBuffer[segments.length];
+        slotLimit = 0;
+        size = 0;
+        idIndex.clear();
+    }
+
+    /**
+     * Gets the maximum number of slots the store can hand out between clears.
+     * 
+     * @return the capacity in slots
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Gets the number of slots that can still be handed out before the store is full.
+     * 
+     * @return the remaining capacity in slots
+     * @throws IllegalStateException if the store is closed
+     */
+    public int remainingCapacity() {
+        ensureOpen();
+        return capacity - slotLimit;
+    }
+
+    /**
+     * Gets the amount of direct memory currently allocated for records and the ID index.
+     * 
+     * @return the allocated size in bytes
+     * @throws IllegalStateException if the store is closed
+     */
+    public long allocatedBytes() {
+        ensureOpen();
+        long bytes = (long) idIndex.tableLength() * Integer.BYTES;
+        for (ByteBuffer segment : segments) {
+            if (segment != null) {
+                bytes += segment.capacity();
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Checks whether the store has been closed.
+     * 
+     * @return true if {@link #close()} has been called
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Releases the store's direct memory. Closing an already closed store has no effect.
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            segments = new ByteBuffer[0];
+            slotLimit = 0;
+            size = 0;
+            idIndex.release();
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Order store is closed");
+        }
+    }
+
+    private ByteBuffer segment(int slot) {
+        return segments[slot >>> SEGMENT_SHIFT];
+    }
+
+    private static int offset(int slot) {
+        return (slot & SEGMENT_MASK) * RECORD_BYTES;
+    }
+
+    private static IntBuffer allocateTable(int length) {
+        long bytes = (long) length * Integer.BYTES;
+        if (bytes > Integer.MAX_VALUE) {
+            // A direct buffer holds at most Integer.MAX_VALUE bytes, a byte short of the largest table.
+            throw new IllegalStateException("Order store is full: an ID index of " + length
+                    + " entries does not fit in one direct buffer");
+        }
+        return ByteBuffer.allocateDirect((int) bytes)
+                .order(ByteOrder.nativeOrder())
+                .asIntBuffer();
+    }
+}
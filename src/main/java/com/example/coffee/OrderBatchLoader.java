@@ -0,0 +1,303 @@
+package com.example.coffee;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Bulk loader for orders written one per line in a compact text form, such as
+ * register exports.
+ * <p>
+ * Each line holds a size, a beverage type, a grind type and optionally additions,
+ * separated by commas, for example {@code LARGE,ESPRESSO,FINE,MILK|SUGAR}. Values are
+ * the enum constant names, matched case-insensitively; additions are separated by
+ * {@code |} and may be left out or empty. Soda orders get {@link GrindType#NONE} as in
+ * the terminal, and the grind field of a soda line may be empty. Blank lines and lines
+ * starting with {@code #} are skipped; any other line that does not parse is counted
+ * as rejected.
+ * </p>
+ * <p>
+ * Input is read as ASCII bytes through one reused buffer and tokens are matched
+ * against the constant names in place, so parsing creates no strings or line objects.
+ * Parsed orders are added to the collection with
+ * {@link OrderCollection#addOrders(java.util.Collection)} in batches of
+ * {@value #BATCH_SIZE}.
+ * </p>
+ */
+public final class OrderBatchLoader {
+    /** Number of orders added to the collection at a time. */
+    public static final int BATCH_SIZE = 8192;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_REJECT_SAMPLES = 10;
+    private static final Size[] SIZES = Size.values();
+    private static final GrindType[] GRIND_TYPES = GrindType.values();
+    private static final Addition[] ADDITIONS = Addition.values();
+    private static final BeverageType[] BEVERAGE_TYPES = new BeverageType[OrderEncoding.BEVERAGE_TYPES];
+    private static final byte[][] SIZE_NAMES = names(SIZES);
+    private static final byte[][] GRIND_NAMES = names(GRIND_TYPES);
+    private static final byte[][] ADDITION_NAMES = names(ADDITIONS);
+    private static final byte[][] BEVERAGE_NAMES;
+
+    static {
+        for (int code = 0; code < BEVERAGE_TYPES.length; code++) {
+            BEVERAGE_TYPES[code] = OrderEncoding.beverageType(code);
+        }
+        BEVERAGE_NAMES = new byte[BEVERAGE_TYPES.length][];
+        for (int code = 0; code < BEVERAGE_TYPES.length; code++) {
+            BEVERAGE_NAMES[code] = ((Enum<?>) BEVERAGE_TYPES[code]).name().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    /**
+     * The outcome of a load.
+     *
+     * @param imported the number of orders added
+     * @param rejected the number of lines that could not be parsed
+     * @param rejectSamples descriptions of the first few rejected lines
+     * @param elapsed the time the load took
+     */
+    public record Summary(long imported, long rejected, List<String> rejectSamples, Duration elapsed) {
+        /**
+         * Copies the reject samples into an unmodifiable list.
+         *
+         * @param imported the number of orders added
+         * @param rejected the number of lines that could not be parsed
+         * @param rejectSamples descriptions of the first few rejected lines
+         * @param elapsed the time the load took
+         */
+        public Summary {
+            rejectSamples = List.copyOf(rejectSamples);
+        }
+
+        /**
+         * Gets the average number of orders imported per second.
+         *
+         * @return the import throughput
+         */
+        public double ordersPerSecond() {
+            long nanos = Math.max(1, elapsed.toNanos());
+            return imported * 1_000_000_000.0 / nanos;
+        }
+    }
+
+    private final OrderCollection orderCollection;
+    private final List<CoffeeOrder> batch = new ArrayList<>(BATCH_SIZE);
+    private final List<String> rejectSamples = new ArrayList<>();
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private long lineNumber;
+    private long imported;
+    private long rejected;
+
+    private OrderBatchLoader(OrderCollection orderCollection) {
+        this.orderCollection = orderCollection;
+    }
+
+    /**
+     * Reads order lines until the end of the stream and adds them to a collection. The
+     * stream is not closed.
+     *
+     * @param in the order lines
+     * @param orderCollection the collection to add the orders to
+     * @return the numbers of imported and rejected lines
+     * @throws IOException if the stream cannot be read; orders parsed before the error
+     *         have been added
+     * @throws NullPointerException if in or orderCollection is null
+     */
+    public static Summary load(InputStream in, OrderCollection orderCollection) throws IOException {
+        Objects.requireNonNull(in, "Input cannot be null");
+        Objects.requireNonNull(orderCollection, "Order collection cannot be null");
+        return new OrderBatchLoader(orderCollection).run(in);
+    }
+
+    private Summary run(InputStream in) throws IOException {
+        long start = System.nanoTime();
+        try {
+            int length = 0;
+            boolean overlong = false;
+            int read;
+            while ((read = in.read(buffer, length, buffer.length - length)) >= 0) {
+                int end = length + read;
+                int lineStart = 0;
+                for (int i = length; i < end; i++) {
+                    if (buffer[i] == '\n') {
+                        if (overlong) {
+                            rejectOverlong();
+                            overlong = false;
+                        } else {
+                            parseLine(lineStart, i);
+                        }
+                        lineStart = i + 1;
+                    }
+                }
+                length = end - lineStart;
+                if (length == buffer.length) {
+                    overlong = true;
+                    length = 0;
+                } else {
+                    System.arraycopy(buffer, lineStart, buffer, 0, length);
+                }
+            }
+            if (overlong) {
+                rejectOverlong();
+            } else if (length > 0) {
+                parseLine(0, length);
+            }
+        } finally {
+            flush();
+        }
+        return new Summary(imported, rejected, rejectSamples, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    private void parseLine(int from, int to) {
+        lineNumber++;
+        if (to > from && buffer[to - 1] == '\r') {
+            to--;
+        }
+        from = skipBlanks(from, to);
+        if (from == to || buffer[from] == '#') {
+            return;
+        }
+        int sizeEnd = fieldEnd(from, to, ',');
+        int beverageEnd = sizeEnd < to ? fieldEnd(sizeEnd + 1, to, ',') : to;
+        if (beverageEnd == to) {
+            reject("expected size, beverage, grind and optional additions");
+            return;
+        }
+        int grindEnd = fieldEnd(beverageEnd + 1, to, ',');
+        int sizeCode = match(SIZE_NAMES, from, sizeEnd);
+        if (sizeCode < 0) {
+            reject("unknown size '" + text(from, sizeEnd) + "'");
+            return;
+        }
+        int beverageCode = match(BEVERAGE_NAMES, sizeEnd + 1, beverageEnd);
+        if (beverageCode < 0) {
+            reject("unknown beverage '" + text(sizeEnd + 1, beverageEnd) + "'");
+            return;
+        }
+        BeverageType beverageType = BEVERAGE_TYPES[beverageCode];
+        GrindType grindType;
+        if (beverageType instanceof SodaType) {
+            grindType = GrindType.NONE;
+        } else {
+            int grindCode = match(GRIND_NAMES, beverageEnd + 1, grindEnd);
+            if (grindCode < 0) {
+                reject("unknown grind type '" + text(beverageEnd + 1, grindEnd) + "'");
+                return;
+            }
+            grindType = GRIND_TYPES[grindCode];
+        }
+        int additionsMask = 0;
+        if (grindEnd < to) {
+            int start = grindEnd + 1;
+            if (fieldEnd(start, to, ',') < to) {
+                reject("expected size, beverage, grind and optional additions");
+                return;
+            }
+            while (start <= to) {
+                int end = fieldEnd(start, to, '|');
+                if (skipBlanks(start, end) < end || end < to) {
+                    int additionCode = match(ADDITION_NAMES, start, end);
+                    if (additionCode < 0) {
+                        reject("unknown addition '" + text(start, end) + "'");
+                        return;
+                    }
+                    additionsMask |= 1 << additionCode;
+                }
+                start = end + 1;
+            }
+        }
+        batch.add(new CoffeeOrder(SIZES[sizeCode], grindType, beverageType,
+                OrderEncoding.additionSet(additionsMask)));
+        if (batch.size() == BATCH_SIZE) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        if (!batch.isEmpty()) {
+            try {
+                orderCollection.addOrders(batch);
+                imported += batch.size();
+            } finally {
+                // A failed batch must not be submitted again by the flush in load.
+                batch.clear();
+            }
+        }
+    }
+
+    private void reject(String reason) {
+        rejected++;
+        if (rejectSamples.size() < MAX_REJECT_SAMPLES) {
+            rejectSamples.add("Line " + lineNumber + ": " + reason);
+        }
+    }
+
+    private void rejectOverlong() {
+        lineNumber++;
+        reject("line is longer than " + buffer.length + " bytes");
+    }
+
+    private int fieldEnd(int from, int to, char separator) {
+        int i = from;
+        while (i < to && buffer[i] != separator) {
+            i++;
+        }
+        return i;
+    }
+
+    private int skipBlanks(int from, int to) {
+        while (from < to && (buffer[from] == ' ' || buffer[from] == '\t')) {
+            from++;
+        }
+        return from;
+    }
+
+    /**
+     * Finds the name matching the bytes between from and to, ignoring case and
+     * surrounding blanks.
+     *
+     * @return the index of the matching name, or -1
+     */
+    private int match(byte[][] names, int from, int to) {
+        from = skipBlanks(from, to);
+        while (to > from && (buffer[to - 1] == ' ' || buffer[to - 1] == '\t')) {
+            to--;
+        }
+        int length = to - from;
+        for (int n = 0; n < names.length; n++) {
+            byte[] name = names[n];
+            if (name.length != length) {
+                continue;
+            }
+            int i = 0;
+            while (i < length && upper(buffer[from + i]) == name[i]) {
+                i++;
+            }
+            if (i == length) {
+                return n;
+            }
+        }
+        return -1;
+    }
+
+    private String text(int from, int to) {
+        return new String(buffer, from, to - from, StandardCharsets.UTF_8).strip();
+    }
+
+    private static byte upper(byte b) {
+        return b >= 'a' && b <= 'z' ? (byte) (b - ('a' - 'A')) : b;
+    }
+
+    private static byte[][] names(Enum<?>[] values) {
+        byte[][] names = new byte[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            names[i] = values[i].name().getBytes(StandardCharsets.US_ASCII);
+        }
+        return names;
+    }
+}
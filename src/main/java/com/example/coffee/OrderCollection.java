@@ -1,26 +1,106 @@
 package com.example.coffee;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 /**
  * A collection that manages coffee orders, providing operations to add, 
  * retrieve, and manage orders.
+ * Orders are indexed by their ID, so lookups and removals take constant time
+ * while insertion order is preserved for {@link #getAllOrders()}. Bitmap indexes
+ * over the order attributes answer {@link #query()} without scanning the orders,
+ * and live counters answer {@link #statistics()}. Removing an order leaves a tombstone
+ * in its slot that reads skip; once tombstones make up more than the
+ * {@linkplain #setCompactionThreshold(double) compaction threshold} of the slots, the
+ * collection compacts its store a few hundred slots at a time alongside later adds and
+ * removals, so no single call pays for the whole collection. Every order also has an
+ * {@link OrderStatus} that worker threads advance with lock-free compare-and-set
+ * transitions, and the orders in one status are listed without scanning the others.
+ * When a collection is opened over a store that already holds orders, such as a
+ * {@link MappedOrderStore} snapshot, the indexes and counters are built on first use
+ * rather than up front. Storage is delegated to an {@link OrderStore}; the default store is not
+ * thread-safe, use {@link #concurrent()} to share a collection between threads.
  */
 public class OrderCollection {
-    private final List<CoffeeOrder> orders;
+    private static final double DEFAULT_COMPACTION_THRESHOLD = 0.5;
+    private static final int MIN_COMPACTION_SLOTS = 1024;
+    private static final int COMPACTION_STEP = 256;
+    private static final int DEFAULT_PARALLEL_QUERY_THRESHOLD = 1 << 18;
+
+    private final OrderStore store;
+    private final OrderIndex index;
+    private final OrderStatistics statistics;
+    private final OrderRateTracker intakeRates;
+    private final OrderLifecycle lifecycle;
+    private volatile boolean indexPending;
+    private volatile SnapshotSlots snapshotSlots;
+    private double compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+    private int compactionRead = -1;
+    private int compactionWrite;
+    private volatile int parallelQueryThreshold = DEFAULT_PARALLEL_QUERY_THRESHOLD;
 
     /**
      * Creates a new empty order collection.
      */
     public OrderCollection() {
-        this.orders = new ArrayList<>();
+        this(new InMemoryOrderStore());
+    }
+
+    /**
+     * Creates an order collection backed by the given store.
+     * Orders already in the store are indexed and counted on the first query or
+     * statistics read; until then the store should not be modified concurrently with
+     * that read.
+     * 
+     * @param store the store that holds the orders
+     * @throws NullPointerException if store is null
+     */
+    public OrderCollection(OrderStore store) {
+        this(store, Clock.systemUTC());
+    }
+
+    /**
+     * Creates an order collection backed by the given store, timing order intake
+     * with the given clock.
+     * 
+     * @param store the store that holds the orders
+     * @param clock the clock used for {@link #intakeRates()}
+     * @throws NullPointerException if store or clock is null
+     */
+    public OrderCollection(OrderStore store, Clock clock) {
+        this.store = Objects.requireNonNull(store, "Store cannot be null");
+        this.index = new OrderIndex();
+        this.statistics = new OrderStatistics();
+        this.intakeRates = new OrderRateTracker(clock);
+        this.lifecycle = new OrderLifecycle(clock);
+        this.indexPending = store.size() > 0;
+    }
+
+    /**
+     * Creates a new empty order collection that can be shared between threads.
+     * Its store does not support compaction, so removed orders leave empty slots that
+     * reads skip but that are only released by {@link #clear()}; see
+     * {@link ConcurrentOrderStore}.
+     * 
+     * @return a thread-safe order collection
+     */
+    public static OrderCollection concurrent() {
+        return new OrderCollection(new ConcurrentOrderStore());
     }
 
     /**
      * Adds a coffee order to the collection.
+     * Adding an order whose ID is already present replaces the stored order
+     * without changing its position.
      * 
      * @param order the coffee order to add
      * @throws IllegalArgumentException if order is null
@@ -29,18 +109,215 @@ public class OrderCollection {
         if (order == null) {
             throw new IllegalArgumentException("Order cannot be null");
         }
-        orders.add(order);
+        int previousSlot = store.slotOf(order);
+        CoffeeOrder previous = previousSlot < 0 ? null : store.get(previousSlot);
+        int slot = store.add(order);
+        SnapshotSlots slots = snapshotSlots;
+        if (slots != null) {
+            slots.set(slot, order);
+        }
+        int attributes = OrderEncoding.encode(order);
+        if (previous == null) {
+            intakeRates.record(OrderEncoding.beverageCode(attributes));
+            lifecycle.place(slot);
+        }
+        if (!indexPending) {
+            if (previous != null) {
+                int previousAttributes = OrderEncoding.encode(previous);
+                index.remove(slot, previousAttributes);
+                statistics.remove(previousAttributes);
+            }
+            index.add(slot, attributes);
+            statistics.add(attributes);
+        }
+        if (compactionRead >= 0) {
+            compactStep(COMPACTION_STEP);
+        }
     }
 
     /**
-     * Gets an immutable list of all orders in the collection.
+     * Adds several coffee orders as one batch, in order.
+     * The whole batch is validated, against the store as well, before any order is
+     * added, and storage is sized for it up front; stores that log or lock do so once
+     * per batch rather than once per order. Each order is otherwise added as by
+     * {@link #addOrder(CoffeeOrder)}. If the store still fails partway through, the
+     * orders it stored before failing are part of the collection.
+     * 
+     * @param orders the coffee orders to add
+     * @throws IllegalArgumentException if orders is null or contains null, or if the
+     *         store cannot hold one of the orders
+     */
+    public void addOrders(Collection<CoffeeOrder> orders) {
+        if (orders == null) {
+            throw new IllegalArgumentException("Orders cannot be null");
+        }
+        List<CoffeeOrder> batch = new ArrayList<>(orders);
+        if (batch.contains(null)) {
+            throw new IllegalArgumentException("Orders cannot contain null");
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        for (CoffeeOrder order : batch) {
+            store.validate(order);
+        }
+        store.ensureCapacity(batch.size());
+        int[] slots = new int[batch.size()];
+        Arrays.fill(slots, -1);
+        CoffeeOrder[] replaced = new CoffeeOrder[batch.size()];
+        try {
+            store.addAll(batch, slots, replaced);
+        } finally {
+            registerAdded(batch, slots, replaced);
+        }
+        if (compactionRead >= 0) {
+            compactStep(COMPACTION_STEP);
+        }
+    }
+
+    /**
+     * Brings the mirror, index, statistics and lifecycle up to date with a batch the
+     * store has added, skipping orders it did not store.
+     */
+    private void registerAdded(List<CoffeeOrder> batch, int[] slots, CoffeeOrder[] replaced) {
+        SnapshotSlots mirror = snapshotSlots;
+        if (mirror != null) {
+            mirror.setAll(slots, batch);
+        }
+        boolean updateIndex = !indexPending;
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] < 0) {
+                continue;
+            }
+            int attributes = OrderEncoding.encode(batch.get(i));
+            if (replaced[i] == null) {
+                intakeRates.record(OrderEncoding.beverageCode(attributes));
+                lifecycle.place(slots[i]);
+            }
+            if (updateIndex) {
+                if (replaced[i] != null) {
+                    int previousAttributes = OrderEncoding.encode(replaced[i]);
+                    index.remove(slots[i], previousAttributes);
+                    statistics.remove(previousAttributes);
+                }
+                index.add(slots[i], attributes);
+                statistics.add(attributes);
+            }
+        }
+    }
+
+    /**
+     * Gets an immutable list of all orders in the collection, in insertion order.
+     * The list is a copy; use {@link #snapshot()} to read the orders without copying.
      * 
      * @return an unmodifiable list of all orders
      */
     public List<CoffeeOrder> getAllOrders() {
+        List<CoffeeOrder> orders = new ArrayList<>(store.size());
+        for (int slot = 0, limit = store.slotLimit(); slot < limit; slot++) {
+            CoffeeOrder order = store.get(slot);
+            if (order != null) {
+                orders.add(order);
+            }
+        }
         return Collections.unmodifiableList(orders);
     }
 
+    /**
+     * Takes an immutable point-in-time view of the orders, in insertion order, that
+     * shares storage with the collection instead of copying it.
+     * <p>
+     * The first call mirrors the current orders, which takes time proportional to
+     * the collection size; from then on the collection keeps the mirror up to date as
+     * orders change and every further snapshot is cheap. Readers of a snapshot never
+     * block writers or each other.
+     * </p>
+     * 
+     * @return a snapshot of the current orders
+     */
+    public OrderSnapshot snapshot() {
+        SnapshotSlots slots = snapshotSlots;
+        return (slots != null && slots.isFilled() ? slots : enableSnapshots()).snapshot();
+    }
+
+    /**
+     * Reads the page of up to limit orders that follow a cursor, in insertion order.
+     * The bitmap of occupied slots skips removed orders a word at a time, so reading
+     * a page takes time and memory proportional to the page size, not the collection.
+     * Paging does not build the index of a collection over a store that already held
+     * orders; until something else does, the store finds the occupied slots itself.
+     * 
+     * @param cursor the position to read from, such as {@link OrderCursor#first()} or
+     *        the {@link OrderPage#next()} cursor of the previous page
+     * @param limit the maximum number of orders on the page
+     * @return the page
+     * @throws IllegalArgumentException if cursor is null or limit is not positive
+     */
+    public OrderPage pageAfter(OrderCursor cursor, int limit) {
+        validatePage(cursor, limit);
+        int start = cursor.resolve(store);
+        List<CoffeeOrder> orders = new ArrayList<>(Math.min(limit, store.size()));
+        int first = -1;
+        int last = -1;
+        int slot = nextLive(start);
+        for (; slot >= 0 && orders.size() < limit; slot = nextLive(slot + 1)) {
+            CoffeeOrder order = store.get(slot);
+            if (order != null) {
+                if (first < 0) {
+                    first = slot;
+                }
+                last = slot;
+                orders.add(order);
+            }
+        }
+        if (orders.isEmpty()) {
+            OrderCursor here = OrderCursor.at(start);
+            return new OrderPage(orders, here, here, hasOrderBelow(start), false);
+        }
+        return new OrderPage(orders,
+                OrderCursor.before(first, orders.get(0).getOrderId()),
+                OrderCursor.after(last, orders.get(orders.size() - 1).getOrderId()),
+                hasOrderBelow(first), hasOrderFrom(slot));
+    }
+
+    /**
+     * Reads the page of up to limit orders that precede a cursor, in insertion order.
+     * 
+     * @param cursor the position to read back from, such as {@link OrderCursor#last()}
+     *        or the {@link OrderPage#previous()} cursor of the following page
+     * @param limit the maximum number of orders on the page
+     * @return the page
+     * @throws IllegalArgumentException if cursor is null or limit is not positive
+     * @see #pageAfter(OrderCursor, int)
+     */
+    public OrderPage pageBefore(OrderCursor cursor, int limit) {
+        validatePage(cursor, limit);
+        int end = cursor.resolve(store);
+        List<CoffeeOrder> orders = new ArrayList<>(Math.min(limit, store.size()));
+        int first = -1;
+        int last = -1;
+        int slot = previousLive(end - 1);
+        for (; slot >= 0 && orders.size() < limit; slot = previousLive(slot - 1)) {
+            CoffeeOrder order = store.get(slot);
+            if (order != null) {
+                if (last < 0) {
+                    last = slot;
+                }
+                first = slot;
+                orders.add(order);
+            }
+        }
+        if (orders.isEmpty()) {
+            OrderCursor here = OrderCursor.at(end);
+            return new OrderPage(orders, here, here, false, hasOrderFrom(end));
+        }
+        Collections.reverse(orders);
+        return new OrderPage(orders,
+                OrderCursor.before(first, orders.get(0).getOrderId()),
+                OrderCursor.after(last, orders.get(orders.size() - 1).getOrderId()),
+                hasOrderBelow(slot + 1), hasOrderFrom(last + 1));
+    }
+
     /**
      * Finds an order by its unique identifier.
      * 
@@ -51,9 +328,7 @@ public class OrderCollection {
         if (orderId == null) {
             return Optional.empty();
         }
-        return orders.stream()
-                .filter(order -> order.getOrderId().equals(orderId))
-                .findFirst();
+        return Optional.ofNullable(store.get(store.slotOf(orderId)));
     }
 
     /**
@@ -62,7 +337,7 @@ public class OrderCollection {
      * @return the number of orders
      */
     public int getOrderCount() {
-        return orders.size();
+        return store.size();
     }
 
     /**
@@ -71,14 +346,23 @@ public class OrderCollection {
      * @return true if the collection contains no orders, false otherwise
      */
     public boolean isEmpty() {
-        return orders.isEmpty();
+        return store.size() == 0;
     }
 
     /**
      * Removes all orders from the collection.
      */
     public void clear() {
-        orders.clear();
+        store.clear();
+        SnapshotSlots slots = snapshotSlots;
+        if (slots != null) {
+            slots.clear();
+        }
+        index.clear();
+        statistics.clear();
+        lifecycle.clear();
+        indexPending = false;
+        compactionRead = -1;
     }
 
     /**
@@ -91,6 +375,443 @@ public class OrderCollection {
         if (orderId == null) {
             return false;
         }
-        return orders.removeIf(order -> order.getOrderId().equals(orderId));
+        int slot = store.slotOf(orderId);
+        CoffeeOrder removed = store.remove(slot);
+        if (removed == null) {
+            return false;
+        }
+        SnapshotSlots slots = snapshotSlots;
+        if (slots != null) {
+            slots.remove(slot);
+        }
+        lifecycle.remove(slot);
+        if (!indexPending) {
+            int attributes = OrderEncoding.encode(removed);
+            index.remove(slot, attributes);
+            statistics.remove(attributes);
+        }
+        compactIfNeeded();
+        return true;
+    }
+
+    /**
+     * Gets the live order counts, which are updated as orders are added and removed.
+     * Orders already in the store are counted first, on the first call.
+     * 
+     * @return the statistics of this collection
+     */
+    public OrderStatistics statistics() {
+        index();
+        return statistics;
+    }
+
+    /**
+     * Gets the recent order intake rates. Every order added that was not already in
+     * the collection counts as received when it is added; clearing the collection
+     * does not reset the rates.
+     * 
+     * @return the intake rates of this collection
+     */
+    public OrderRateTracker intakeRates() {
+        return intakeRates;
+    }
+
+    /**
+     * Writes the orders to a snapshot file that can be reopened with
+     * {@link MappedOrderStore#open(Path)}.
+     * 
+     * @param file the snapshot file
+     * @return the number of orders written
+     * @throws IOException if the file cannot be written
+     * @throws IllegalArgumentException if an order ID is not a canonical UUID
+     */
+    public int writeSnapshot(Path file) throws IOException {
+        return MappedOrderStore.write(this, file);
+    }
+
+    /**
+     * Removes several orders by ID as one batch. Null and unknown IDs are skipped.
+     * 
+     * @param orderIds the IDs of the orders to remove
+     * @return the number of orders removed
+     * @throws IllegalArgumentException if orderIds is null
+     */
+    public int removeOrders(Collection<String> orderIds) {
+        if (orderIds == null) {
+            throw new IllegalArgumentException("Order IDs cannot be null");
+        }
+        int[] slots = new int[orderIds.size()];
+        int count = 0;
+        for (String orderId : orderIds) {
+            slots[count++] = orderId == null ? -1 : store.slotOf(orderId);
+        }
+        CoffeeOrder[] removed = store.removeAll(slots);
+        SnapshotSlots mirror = snapshotSlots;
+        if (mirror != null) {
+            mirror.removeAll(slots, removed);
+        }
+        int removedCount = 0;
+        for (int i = 0; i < slots.length; i++) {
+            if (removed[i] == null) {
+                continue;
+            }
+            removedCount++;
+            lifecycle.remove(slots[i]);
+            if (!indexPending) {
+                int attributes = OrderEncoding.encode(removed[i]);
+                index.remove(slots[i], attributes);
+                statistics.remove(attributes);
+            }
+        }
+        if (removedCount > 0) {
+            compactIfNeeded();
+        }
+        return removedCount;
+    }
+
+    /**
+     * Gets the lifecycle status of an order. Orders start out as
+     * {@link OrderStatus#PLACED} when they are added; replacing an order keeps its status.
+     * 
+     * @param orderId the ID of the order
+     * @return the status, or empty if there is no such order
+     */
+    public Optional<OrderStatus> getStatus(String orderId) {
+        if (orderId == null) {
+            return Optional.empty();
+        }
+        index();
+        return Optional.ofNullable(lifecycle.status(store.slotOf(orderId)));
+    }
+
+    /**
+     * Moves an order to the next status if it is still in the expected one. The
+     * change is a single compare-and-set, so when several threads try the same
+     * transition exactly one of them succeeds.
+     * 
+     * @param orderId the ID of the order
+     * @param from the status the order is expected to be in
+     * @param to the status that directly follows from
+     * @return true if this call moved the order, false if there is no such order or it
+     *         is no longer in the expected status
+     * @throws IllegalArgumentException if from or to is null, or to does not directly
+     *         follow from
+     */
+    public boolean transition(String orderId, OrderStatus from, OrderStatus to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Status cannot be null");
+        }
+        if (orderId == null) {
+            return false;
+        }
+        index();
+        return lifecycle.transition(store.slotOf(orderId), from, to);
+    }
+
+    /**
+     * Checks whether the times orders enter each status are recorded.
+     * 
+     * @return true if status times are recorded
+     * @see #setStatusTimesRecorded(boolean)
+     */
+    public boolean isStatusTimesRecorded() {
+        return lifecycle.recordsTimes();
+    }
+
+    /**
+     * Sets whether the times orders enter each status are recorded for
+     * {@link #getStatusTime(String, OrderStatus)}. Recording is off by default: it
+     * takes five longs per order on the heap, which would outweigh the packed and
+     * off-heap stores. Turning it off drops the recorded times; orders already in the
+     * collection when it is turned on have no times for the statuses they entered
+     * before.
+     * 
+     * @param recorded whether to record status times
+     */
+    public void setStatusTimesRecorded(boolean recorded) {
+        lifecycle.recordTimes(recorded);
+    }
+
+    /**
+     * Gets when an order entered a status.
+     * 
+     * @param orderId the ID of the order
+     * @param status the status
+     * @return the time, or empty if there is no such order, it has not reached the
+     *         status yet, it was placed before this collection opened its store, or
+     *         status times were not {@linkplain #setStatusTimesRecorded(boolean) recorded}
+     *         when it entered the status
+     * @throws IllegalArgumentException if status is null
+     */
+    public Optional<Instant> getStatusTime(String orderId, OrderStatus status) {
+        if (status == null) {
+            throw new IllegalArgumentException("Status cannot be null");
+        }
+        if (orderId == null) {
+            return Optional.empty();
+        }
+        index();
+        long millis = lifecycle.time(store.slotOf(orderId), status);
+        return millis == 0 ? Optional.empty() : Optional.of(Instant.ofEpochMilli(millis));
+    }
+
+    /**
+     * Gets the orders currently in a status, in insertion order. The slots are found
+     * in a bitmap per status, so listing the few {@link OrderStatus#READY} orders of a
+     * large collection visits only those orders.
+     * 
+     * @param status the status
+     * @return an unmodifiable list of the orders in the status
+     * @throws IllegalArgumentException if status is null
+     */
+    public List<CoffeeOrder> getOrdersByStatus(OrderStatus status) {
+        if (status == null) {
+            throw new IllegalArgumentException("Status cannot be null");
+        }
+        index();
+        List<CoffeeOrder> orders = new ArrayList<>();
+        for (int slot : lifecycle.slots(status)) {
+            CoffeeOrder order = store.get(slot);
+            if (order != null) {
+                orders.add(order);
+            }
+        }
+        return Collections.unmodifiableList(orders);
+    }
+
+    /**
+     * Gets the number of orders currently in a status.
+     * 
+     * @param status the status
+     * @return the number of orders
+     * @throws IllegalArgumentException if status is null
+     */
+    public int getOrderCount(OrderStatus status) {
+        if (status == null) {
+            throw new IllegalArgumentException("Status cannot be null");
+        }
+        index();
+        return lifecycle.count(status);
+    }
+
+    /**
+     * Gets the fraction of slots that may hold tombstones before compaction starts.
+     * 
+     * @return the compaction threshold
+     */
+    public double getCompactionThreshold() {
+        return compactionThreshold;
+    }
+
+    /**
+     * Sets the fraction of slots that may hold tombstones of removed orders before the
+     * collection starts compacting its store. Lower thresholds keep iteration and
+     * memory tighter at the cost of moving orders more often; 1 disables automatic
+     * compaction. Collections spanning fewer than 1,024 slots, and stores that do
+     * not support compaction, are never compacted automatically.
+     * 
+     * @param compactionThreshold the tombstone fraction, greater than 0 and at most 1
+     * @throws IllegalArgumentException if the threshold is out of range
+     */
+    public void setCompactionThreshold(double compactionThreshold) {
+        if (!(compactionThreshold > 0 && compactionThreshold <= 1)) {
+            throw new IllegalArgumentException(
+                    "Compaction threshold must be greater than 0 and at most 1: " + compactionThreshold);
+        }
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    /**
+     * Reclaims every tombstone now, finishing any compaction in progress. Orders keep
+     * their insertion order. Does nothing if the store does not support compaction.
+     */
+    public void compact() {
+        if (!store.supportsCompaction()) {
+            return;
+        }
+        if (compactionRead < 0) {
+            compactionRead = 0;
+            compactionWrite = 0;
+        }
+        compactStep(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Starts an attribute query over the orders, answered from bitmap indexes.
+     * A new query matches every order until conditions are added.
+     * 
+     * @return a new query over this collection
+     */
+    public OrderQuery query() {
+        return new OrderQuery(this);
+    }
+
+    /**
+     * Gets the number of slots from which queries are evaluated in parallel.
+     * 
+     * @return the parallel query threshold in slots
+     */
+    public int getParallelQueryThreshold() {
+        return parallelQueryThreshold;
+    }
+
+    /**
+     * Sets the number of slots from which {@link #query()} results are computed in
+     * parallel on the common fork/join pool rather than on the calling thread. Below
+     * it, splitting the work costs more than it saves; {@link Integer#MAX_VALUE} keeps
+     * every query on the calling thread.
+     * 
+     * @param parallelQueryThreshold the threshold in slots, at least 0
+     * @throws IllegalArgumentException if the threshold is negative
+     */
+    public void setParallelQueryThreshold(int parallelQueryThreshold) {
+        if (parallelQueryThreshold < 0) {
+            throw new IllegalArgumentException(
+                    "Parallel query threshold cannot be negative: " + parallelQueryThreshold);
+        }
+        this.parallelQueryThreshold = parallelQueryThreshold;
+    }
+
+    OrderStore store() {
+        return store;
+    }
+
+    OrderIndex index() {
+        if (indexPending) {
+            buildIndex();
+        }
+        return index;
+    }
+
+    private synchronized SnapshotSlots enableSnapshots() {
+        SnapshotSlots slots = snapshotSlots;
+        if (slots == null) {
+            slots = new SnapshotSlots(store instanceof EncodedOrderStore);
+            // Publish before filling so that concurrent writers keep the mirror current.
+            snapshotSlots = slots;
+            slots.fill(store);
+        }
+        return slots;
+    }
+
+    private static void validatePage(OrderCursor cursor, int limit) {
+        if (cursor == null) {
+            throw new IllegalArgumentException("Cursor cannot be null");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page size must be positive: " + limit);
+        }
+    }
+
+    // Until the index is built the store finds occupied slots itself, so the first
+    // pages of a freshly opened store do not wait for every order to be indexed.
+    private int nextLive(int slot) {
+        return indexPending ? store.nextOccupied(slot) : index.bitmaps().live.nextSetBit(slot);
+    }
+
+    private int previousLive(int slot) {
+        return indexPending ? store.previousOccupied(slot) : index.bitmaps().live.previousSetBit(slot);
+    }
+
+    // A marked slot whose order is gone is being removed by another thread; skip it.
+    private boolean hasOrderBelow(int slot) {
+        for (int s = previousLive(slot - 1); s >= 0; s = previousLive(s - 1)) {
+            if (store.get(s) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasOrderFrom(int slot) {
+        if (slot < 0) {
+            return false;
+        }
+        for (int s = nextLive(slot); s >= 0; s = nextLive(s + 1)) {
+            if (store.get(s) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void compactIfNeeded() {
+        if (compactionRead < 0) {
+            int limit = store.slotLimit();
+            if (limit < MIN_COMPACTION_SLOTS
+                    || limit - store.size() <= compactionThreshold * limit
+                    || !store.supportsCompaction()) {
+                return;
+            }
+            compactionRead = 0;
+            compactionWrite = 0;
+        }
+        compactStep(COMPACTION_STEP);
+    }
+
+    /**
+     * Advances the compaction over at most the given number of slots, moving each order
+     * it passes down to the lowest slot not yet compacted, and truncates the store once
+     * it reaches the slot limit. Slots below the read position hold no tombstones past
+     * the write position, so orders keep their insertion order at every step.
+     */
+    private void compactStep(int budget) {
+        EncodedOrderStore encoded = store instanceof EncodedOrderStore e ? e : null;
+        SnapshotSlots slots = snapshotSlots;
+        int read = compactionRead;
+        int write = compactionWrite;
+        int limit = store.slotLimit();
+        for (; read < limit && budget > 0; read++, budget--) {
+            int attributes = attributes(encoded, read);
+            if (attributes < 0) {
+                continue;
+            }
+            if (read != write) {
+                store.moveSlot(read, write);
+                if (slots != null) {
+                    slots.move(read, write);
+                }
+                lifecycle.move(read, write);
+                if (!indexPending) {
+                    index.remove(read, attributes);
+                    index.add(write, attributes);
+                }
+            }
+            write++;
+        }
+        if (read < limit) {
+            compactionRead = read;
+            compactionWrite = write;
+            return;
+        }
+        store.truncate(write);
+        if (slots != null) {
+            slots.truncate(write);
+        }
+        compactionRead = -1;
+    }
+
+    private int attributes(EncodedOrderStore encoded, int slot) {
+        if (encoded != null) {
+            return encoded.attributes(slot);
+        }
+        CoffeeOrder order = store.get(slot);
+        return order == null ? -1 : OrderEncoding.encode(order);
+    }
+
+    private synchronized void buildIndex() {
+        if (!indexPending) {
+            return;
+        }
+        EncodedOrderStore encoded = store instanceof EncodedOrderStore e ? e : null;
+        for (int slot = 0, limit = store.slotLimit(); slot < limit; slot++) {
+            int attributes = attributes(encoded, slot);
+            if (attributes >= 0) {
+                index.add(slot, attributes);
+                statistics.add(attributes);
+                lifecycle.placeUntimed(slot);
+            }
+        }
+        indexPending = false;
     }
 }
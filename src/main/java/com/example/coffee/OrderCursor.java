@@ -0,0 +1,138 @@
+package com.example.coffee;
+
+/**
+ * A position between two orders of an {@link OrderCollection}, from which a page of
+ * orders can be read forwards with {@link OrderCollection#pageAfter(OrderCursor, int)}
+ * or backwards with {@link OrderCollection#pageBefore(OrderCursor, int)}.
+ * <p>
+ * Cursors are immutable. A cursor taken from an {@link OrderPage} remembers the order
+ * next to it, so it keeps its place while orders are appended, other orders are
+ * removed and the collection compacts its storage. If that order itself is removed,
+ * the cursor falls back to the slot the order was last seen in; after a compaction
+ * the next page may then skip or repeat a few orders.
+ * </p>
+ */
+public final class OrderCursor {
+    private static final OrderCursor FIRST = new OrderCursor(0, null, false);
+    private static final OrderCursor LAST = new OrderCursor(Integer.MAX_VALUE, null, false);
+
+    private final int slot;
+    private final String orderId;
+    private final boolean afterOrder;
+
+    private OrderCursor(int slot, String orderId, boolean afterOrder) {
+        this.slot = slot;
+        this.orderId = orderId;
+        this.afterOrder = afterOrder;
+    }
+
+    /**
+     * Gets the cursor before the first order.
+     * 
+     * @return the cursor at the start of every collection
+     */
+    public static OrderCursor first() {
+        return FIRST;
+    }
+
+    /**
+     * Gets the cursor after the last order, including orders appended later.
+     * 
+     * @return the cursor at the end of every collection
+     */
+    public static OrderCursor last() {
+        return LAST;
+    }
+
+    /**
+     * Creates the cursor just before an order.
+     * 
+     * @param slot the slot of the order
+     * @param orderId the ID of the order
+     * @return the cursor
+     */
+    static OrderCursor before(int slot, String orderId) {
+        return new OrderCursor(slot, orderId, false);
+    }
+
+    /**
+     * Creates the cursor just after an order.
+     * 
+     * @param slot the slot of the order
+     * @param orderId the ID of the order
+     * @return the cursor
+     */
+    static OrderCursor after(int slot, String orderId) {
+        return new OrderCursor(slot + 1, orderId, true);
+    }
+
+    /**
+     * Creates a cursor at a slot boundary that is not tied to an order.
+     * 
+     * @param slot the first slot after the cursor
+     * @return the cursor
+     */
+    static OrderCursor at(int slot) {
+        return slot == 0 ? FIRST : new OrderCursor(slot, null, false);
+    }
+
+    /**
+     * Gets a string form of the cursor that can be handed to a client and read back
+     * with {@link #parse(String)}.
+     * 
+     * @return the cursor token
+     */
+    String token() {
+        if (orderId == null) {
+            return Integer.toString(slot);
+        }
+        return (afterOrder ? slot - 1 : slot) + (afterOrder ? "a" : "b") + orderId;
+    }
+
+    /**
+     * Reads a cursor back from its {@link #token()}.
+     * 
+     * @param token the cursor token
+     * @return the cursor
+     * @throws IllegalArgumentException if token is not a cursor token
+     */
+    static OrderCursor parse(String token) {
+        int i = 0;
+        while (i < token.length() && i < 10 && Character.isDigit(token.charAt(i))) {
+            i++;
+        }
+        if (i == 0 || i < token.length() && token.charAt(i) != 'a' && token.charAt(i) != 'b') {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+        int slot;
+        try {
+            slot = Integer.parseInt(token, 0, i, 10);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+        if (i == token.length()) {
+            return slot == Integer.MAX_VALUE ? LAST : at(slot);
+        }
+        if (slot == Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+        String id = token.substring(i + 1);
+        return token.charAt(i) == 'a' ? after(slot, id) : before(slot, id);
+    }
+
+    /**
+     * Finds the first slot after the cursor in a store.
+     * 
+     * @param store the store of the collection being paged
+     * @return the first slot after the cursor, at most the store's slot limit
+     */
+    int resolve(OrderStore store) {
+        if (orderId != null) {
+            int current = store.slotOf(orderId);
+            if (current >= 0) {
+                return afterOrder ? current + 1 : current;
+            }
+        }
+        return Math.min(slot, store.slotLimit());
+    }
+}
@@ -0,0 +1,315 @@
+package com.example.coffee;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Maps order attributes to small integer codes used by indexes and compact storage.
+ * <p>
+ * An order's attributes pack into one attribute word: bits 0-1 hold the {@link Size},
+ * bits 2-4 the {@link GrindType}, bits 5-8 the beverage code and bits 9-13 the
+ * {@link Addition} mask, where bit {@code i} of the mask is the addition with
+ * ordinal {@code i}. Order IDs, which are UUID strings, pack into two longs.
+ * </p>
+ */
+final class OrderEncoding {
+    /** Number of distinct beverage types across coffee and soda. */
+    static final int BEVERAGE_TYPES = CoffeeType.values().length + SodaType.values().length;
+
+    /** Number of bits used by an attribute word. */
+    static final int ATTRIBUTE_BITS = 14;
+
+    private static final int SIZE_SHIFT = 0;
+    private static final int GRIND_SHIFT = 2;
+    private static final int BEVERAGE_SHIFT = 5;
+    private static final int ADDITIONS_SHIFT = 9;
+
+    private static final CoffeeType[] COFFEE_TYPES = CoffeeType.values();
+    private static final SodaType[] SODA_TYPES = SodaType.values();
+    private static final Addition[] ADDITIONS = Addition.values();
+    private static final byte[] HEX_VALUES = new byte[128];
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final int ID_LENGTH = 36;
+    private static final List<Set<Addition>> ADDITION_SETS;
+
+    static {
+        Arrays.fill(HEX_VALUES, (byte) -1);
+        for (int digit = 0; digit < 16; digit++) {
+            HEX_VALUES[Character.forDigit(digit, 16)] = (byte) digit;
+        }
+        List<Set<Addition>> additionSets = new ArrayList<>();
+        for (int mask = 0; mask < 1 << ADDITIONS.length; mask++) {
+            additionSets.add(Collections.unmodifiableSet(additions(mask)));
+        }
+        ADDITION_SETS = List.copyOf(additionSets);
+    }
+
+    private OrderEncoding() {
+    }
+
+    /**
+     * Gets the code of a beverage type: coffee types come first, followed by soda types.
+     * 
+     * @param beverageType the beverage type
+     * @return the code, between 0 and {@link #BEVERAGE_TYPES} - 1
+     */
+    static int beverageCode(BeverageType beverageType) {
+        return switch (beverageType) {
+            case CoffeeType coffeeType -> coffeeType.ordinal();
+            case SodaType sodaType -> COFFEE_TYPES.length + sodaType.ordinal();
+        };
+    }
+
+    /**
+     * Gets the beverage type for a code produced by {@link #beverageCode(BeverageType)}.
+     * 
+     * @param code the beverage code
+     * @return the beverage type
+     * @throws IllegalArgumentException if the code is out of range
+     */
+    static BeverageType beverageType(int code) {
+        if (code >= 0 && code < COFFEE_TYPES.length) {
+            return COFFEE_TYPES[code];
+        }
+        if (code >= COFFEE_TYPES.length && code < BEVERAGE_TYPES) {
+            return SODA_TYPES[code - COFFEE_TYPES.length];
+        }
+        throw new IllegalArgumentException("Invalid beverage code: " + code);
+    }
+
+    /**
+     * Packs a set of additions into a mask.
+     * 
+     * @param additions the additions
+     * @return the addition mask
+     */
+    static int additionsMask(Set<Addition> additions) {
+        int mask = 0;
+        for (Addition addition : additions) {
+            mask |= 1 << addition.ordinal();
+        }
+        return mask;
+    }
+
+    /**
+     * Unpacks an addition mask.
+     * 
+     * @param mask the addition mask
+     * @return a new mutable set of the additions in the mask
+     */
+    static Set<Addition> additions(int mask) {
+        Set<Addition> additions = EnumSet.noneOf(Addition.class);
+        for (int bits = mask; bits != 0; bits &= bits - 1) {
+            additions.add(ADDITIONS[Integer.numberOfTrailingZeros(bits)]);
+        }
+        return additions;
+    }
+
+    /**
+     * Gets the shared immutable set of the additions in a mask.
+     * 
+     * @param mask the addition mask
+     * @return an unmodifiable set of the additions in the mask, in declaration order
+     */
+    static Set<Addition> additionSet(int mask) {
+        return ADDITION_SETS.get(mask);
+    }
+
+    /**
+     * Packs an order's attributes into an attribute word.
+     * 
+     * @param order the order
+     * @return the attribute word
+     */
+    static int encode(CoffeeOrder order) {
+        return order.getShape().attributes();
+    }
+
+    /**
+     * Packs order attributes into an attribute word.
+     * 
+     * @param size the size
+     * @param grindType the grind type
+     * @param beverageType the beverage type
+     * @param additions the additions
+     * @return the attribute word
+     */
+    static int encode(Size size, GrindType grindType, BeverageType beverageType,
+                      Set<Addition> additions) {
+        return size.ordinal() << SIZE_SHIFT
+                | grindType.ordinal() << GRIND_SHIFT
+                | beverageCode(beverageType) << BEVERAGE_SHIFT
+                | additionsMask(additions) << ADDITIONS_SHIFT;
+    }
+
+    /**
+     * Gets the size ordinal of an attribute word.
+     * 
+     * @param attributes the attribute word
+     * @return the size ordinal
+     */
+    static int sizeCode(int attributes) {
+        return attributes >>> SIZE_SHIFT & 0x3;
+    }
+
+    /**
+     * Gets the grind type ordinal of an attribute word.
+     * 
+     * @param attributes the attribute word
+     * @return the grind type ordinal
+     */
+    static int grindCode(int attributes) {
+        return attributes >>> GRIND_SHIFT & 0x7;
+    }
+
+    /**
+     * Gets the beverage code of an attribute word.
+     * 
+     * @param attributes the attribute word
+     * @return the beverage code
+     */
+    static int beverageCode(int attributes) {
+        return attributes >>> BEVERAGE_SHIFT & 0xF;
+    }
+
+    /**
+     * Gets the addition mask of an attribute word.
+     * 
+     * @param attributes the attribute word
+     * @return the addition mask
+     */
+    static int additionsMask(int attributes) {
+        return attributes >>> ADDITIONS_SHIFT & 0x1F;
+    }
+
+    /**
+     * Creates an order with the given ID from an attribute word.
+     * 
+     * @param orderId the order ID
+     * @param attributes the attribute word
+     * @return the decoded order
+     * @throws IllegalArgumentException if the attribute word is invalid
+     */
+    static CoffeeOrder decode(String orderId, int attributes) {
+        return new CoffeeOrder(orderId, OrderShape.of(attributes));
+    }
+
+    /**
+     * Creates an order with a packed ID from an attribute word. The ID string is not
+     * formatted until it is asked for.
+     * 
+     * @param high the high bits of the order ID
+     * @param low the low bits of the order ID
+     * @param attributes the attribute word
+     * @return the decoded order
+     * @throws IllegalArgumentException if the attribute word is invalid
+     */
+    static CoffeeOrder decode(long high, long low, int attributes) {
+        return new CoffeeOrder(high, low, OrderShape.of(attributes));
+    }
+
+    /**
+     * Checks whether an order ID is a canonical lowercase UUID string and can
+     * therefore be packed into two longs without loss.
+     * 
+     * @param orderId the order ID
+     * @return true if the ID can be packed
+     */
+    static boolean isPackableId(String orderId) {
+        if (orderId.length() != 36) {
+            return false;
+        }
+        for (int i = 0; i < 36; i++) {
+            char c = orderId.charAt(i);
+            boolean valid = i == 8 || i == 13 || i == 18 || i == 23
+                    ? c == '-'
+                    : c < 128 && HEX_VALUES[c] >= 0;
+            if (!valid) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the high 64 bits of a packable order ID.
+     * 
+     * @param orderId an ID accepted by {@link #isPackableId(String)}
+     * @return the high bits
+     */
+    static long idHigh(String orderId) {
+        return hex(orderId, 0, 8) << 32 | hex(orderId, 9, 13) << 16 | hex(orderId, 14, 18);
+    }
+
+    /**
+     * Gets the low 64 bits of a packable order ID.
+     * 
+     * @param orderId an ID accepted by {@link #isPackableId(String)}
+     * @return the low bits
+     */
+    static long idLow(String orderId) {
+        return hex(orderId, 19, 23) << 48 | hex(orderId, 24, 36);
+    }
+
+    /**
+     * Formats a packed order ID back into its string form.
+     * 
+     * @param high the high bits
+     * @param low the low bits
+     * @return the order ID
+     */
+    static String formatId(long high, long low) {
+        return new UUID(high, low).toString();
+    }
+
+    /**
+     * Appends a packed order ID in its string form without creating the string.
+     * 
+     * @param high the high bits
+     * @param low the low bits
+     * @param out the builder to append to
+     */
+    static void appendId(long high, long low, StringBuilder out) {
+        for (int i = 0; i < ID_LENGTH; i++) {
+            out.append(idChar(high, low, i));
+        }
+    }
+
+    /**
+     * Writes a packed order ID in its string form as ASCII bytes at an absolute index.
+     * 
+     * @param high the high bits
+     * @param low the low bits
+     * @param buffer the buffer to write to, with at least 36 bytes from the index
+     * @param index the index of the first byte
+     */
+    static void putId(long high, long low, ByteBuffer buffer, int index) {
+        for (int i = 0; i < ID_LENGTH; i++) {
+            buffer.put(index + i, (byte) idChar(high, low, i));
+        }
+    }
+
+    private static char idChar(long high, long low, int i) {
+        if (i == 8 || i == 13 || i == 18 || i == 23) {
+            return '-';
+        }
+        // Character i of the string is hex digit (i - dashes before it) of the 32-digit ID.
+        int digit = i - (i > 23 ? 4 : i > 18 ? 3 : i > 13 ? 2 : i > 8 ? 1 : 0);
+        long bits = digit < 16 ? high : low;
+        return HEX_DIGITS[(int) (bits >>> 60 - 4 * (digit & 15)) & 0xF];
+    }
+
+    private static long hex(String text, int from, int to) {
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            value = value << 4 | HEX_VALUES[text.charAt(i)];
+        }
+        return value;
+    }
+}
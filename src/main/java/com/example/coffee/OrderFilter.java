@@ -0,0 +1,329 @@
+package com.example.coffee;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * A compiled order filter written in a small query language, for example
+ * {@code size=LARGE and beverage in (ESPRESSO, ARABICA) and additions contains MILK}.
+ * <p>
+ * A filter is made of conditions joined with {@code and}, {@code or} and {@code not},
+ * grouped with parentheses. The conditions are:
+ * </p>
+ * <ul>
+ *   <li>{@code size}, {@code grind} or {@code beverage} followed by {@code = value},
+ *       {@code != value}, {@code in (value, ...)} or {@code not in (value, ...)}</li>
+ *   <li>{@code additions contains value}, {@code additions contains any (value, ...)},
+ *       {@code additions contains all (value, ...)} and the same with
+ *       {@code not contains}</li>
+ * </ul>
+ * <p>
+ * Values are the enum constant names, such as {@code LARGE}, {@code EXTRA_FINE},
+ * {@code DR_PEPPER} or {@code VANILLA}; keywords and values are case-insensitive.
+ * </p>
+ * <p>
+ * Compiling evaluates the expression once for every possible attribute word and keeps
+ * the result as a bit table, so matching an order afterwards is a single bit test on
+ * its encoded size, grind type, beverage type and additions, whatever the expression.
+ * Filters are immutable and thread-safe, and {@link #compile(String)} caches them by
+ * their text.
+ * </p>
+ */
+public final class OrderFilter implements Predicate<CoffeeOrder> {
+    private static final int CACHE_SIZE = 256;
+    private static final Map<String, OrderFilter> CACHE = new ConcurrentHashMap<>();
+
+    private final String expression;
+    private final long[] matches;
+
+    private OrderFilter(String expression, long[] matches) {
+        this.expression = expression;
+        this.matches = matches;
+    }
+
+    /**
+     * Compiles a filter expression, reusing the filter compiled earlier for the same
+     * text if there is one.
+     *
+     * @param expression the filter expression
+     * @return the compiled filter
+     * @throws IllegalArgumentException if expression is null or not a valid filter
+     */
+    public static OrderFilter compile(String expression) {
+        if (expression == null) {
+            throw new IllegalArgumentException("Filter expression cannot be null");
+        }
+        String key = expression.strip();
+        OrderFilter filter = CACHE.get(key);
+        if (filter == null) {
+            filter = new Parser(key).parse();
+            if (CACHE.size() >= CACHE_SIZE) {
+                CACHE.clear();
+            }
+            CACHE.putIfAbsent(key, filter);
+        }
+        return filter;
+    }
+
+    /**
+     * Tests whether an order matches the filter.
+     *
+     * @param order the order to test
+     * @return true if the order matches
+     * @throws IllegalArgumentException if order is null
+     */
+    @Override
+    public boolean test(CoffeeOrder order) {
+        if (order == null) {
+            throw new IllegalArgumentException("Order cannot be null");
+        }
+        return matches(OrderEncoding.encode(order));
+    }
+
+    /**
+     * Tests whether an attribute word matches the filter.
+     *
+     * @param attributes the attribute word
+     * @return true if orders with these attributes match
+     */
+    boolean matches(int attributes) {
+        return (matches[attributes >>> 6] & 1L << attributes) != 0;
+    }
+
+    /**
+     * Gets the expression the filter was compiled from.
+     *
+     * @return the expression, without surrounding whitespace
+     */
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    /**
+     * Recursive-descent parser that turns the expression into a predicate on attribute
+     * words and tabulates it.
+     */
+    private static final class Parser {
+        private final String text;
+        private final List<String> tokens = new ArrayList<>();
+        private final List<Integer> positions = new ArrayList<>();
+        private int next;
+
+        private Parser(String text) {
+            this.text = text;
+            tokenize();
+        }
+
+        private OrderFilter parse() {
+            IntPredicate predicate = or();
+            if (next < tokens.size()) {
+                throw error("Unexpected '" + tokens.get(next) + "'");
+            }
+            long[] table = new long[(1 << OrderEncoding.ATTRIBUTE_BITS) >>> 6];
+            for (int word = 0; word < 1 << OrderEncoding.ATTRIBUTE_BITS; word++) {
+                if (predicate.test(word)) {
+                    table[word >>> 6] |= 1L << word;
+                }
+            }
+            return new OrderFilter(text, table);
+        }
+
+        private IntPredicate or() {
+            IntPredicate predicate = and();
+            while (accept("or")) {
+                predicate = predicate.or(and());
+            }
+            return predicate;
+        }
+
+        private IntPredicate and() {
+            IntPredicate predicate = unary();
+            while (accept("and")) {
+                predicate = predicate.and(unary());
+            }
+            return predicate;
+        }
+
+        private IntPredicate unary() {
+            if (accept("not")) {
+                return unary().negate();
+            }
+            if (accept("(")) {
+                IntPredicate predicate = or();
+                expect(")");
+                return predicate;
+            }
+            return condition();
+        }
+
+        private IntPredicate condition() {
+            String field = take("a field");
+            return switch (field) {
+                case "size" -> compare(values -> codes(values, Size.class, Size::ordinal),
+                        OrderEncoding::sizeCode);
+                case "grind" -> compare(values -> codes(values, GrindType.class, GrindType::ordinal),
+                        OrderEncoding::grindCode);
+                case "beverage" -> compare(this::beverageCodes, OrderEncoding::beverageCode);
+                case "additions" -> additions();
+                default -> throw error("Unknown field '" + field + "'", next - 1);
+            };
+        }
+
+        private IntPredicate compare(ToIntFunction<List<Integer>> mask,
+                                     IntUnaryOperator code) {
+            boolean negate;
+            int accepted;
+            if (accept("=")) {
+                negate = false;
+                accepted = mask.applyAsInt(List.of(value()));
+            } else if (accept("!=")) {
+                negate = true;
+                accepted = mask.applyAsInt(List.of(value()));
+            } else {
+                negate = accept("not");
+                expect("in");
+                accepted = mask.applyAsInt(list());
+            }
+            IntPredicate predicate = word -> (accepted >>> code.applyAsInt(word) & 1) != 0;
+            return negate ? predicate.negate() : predicate;
+        }
+
+        private IntPredicate additions() {
+            boolean negate = accept("not");
+            expect("contains");
+            IntPredicate predicate;
+            if (accept("any")) {
+                int mask = codes(list(), Addition.class, Addition::ordinal);
+                predicate = word -> (OrderEncoding.additionsMask(word) & mask) != 0;
+            } else {
+                int mask = accept("all")
+                        ? codes(list(), Addition.class, Addition::ordinal)
+                        : codes(List.of(value()), Addition.class, Addition::ordinal);
+                predicate = word -> (OrderEncoding.additionsMask(word) & mask) == mask;
+            }
+            return negate ? predicate.negate() : predicate;
+        }
+
+        private List<Integer> list() {
+            expect("(");
+            List<Integer> values = new ArrayList<>();
+            do {
+                values.add(value());
+            } while (accept(","));
+            expect(")");
+            return values;
+        }
+
+        private <E extends Enum<E>> int codes(List<Integer> values, Class<E> type,
+                                              ToIntFunction<E> code) {
+            int mask = 0;
+            for (int token : values) {
+                String value = tokens.get(token);
+                try {
+                    mask |= 1 << code.applyAsInt(Enum.valueOf(type, value.toUpperCase(Locale.ROOT)));
+                } catch (IllegalArgumentException e) {
+                    throw error("Unknown " + type.getSimpleName() + " '" + value + "'", token);
+                }
+            }
+            return mask;
+        }
+
+        private int beverageCodes(List<Integer> values) {
+            int mask = 0;
+            for (int token : values) {
+                String value = tokens.get(token);
+                String name = value.toUpperCase(Locale.ROOT);
+                BeverageType beverageType = null;
+                for (CoffeeType coffeeType : CoffeeType.values()) {
+                    if (coffeeType.name().equals(name)) {
+                        beverageType = coffeeType;
+                    }
+                }
+                for (SodaType sodaType : SodaType.values()) {
+                    if (sodaType.name().equals(name)) {
+                        beverageType = sodaType;
+                    }
+                }
+                if (beverageType == null) {
+                    throw error("Unknown beverage '" + value + "'", token);
+                }
+                mask |= 1 << OrderEncoding.beverageCode(beverageType);
+            }
+            return mask;
+        }
+
+        private boolean accept(String token) {
+            if (next < tokens.size() && tokens.get(next).equalsIgnoreCase(token)) {
+                next++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(String token) {
+            if (!accept(token)) {
+                throw error("Expected '" + token + "'");
+            }
+        }
+
+        private String take(String what) {
+            if (next == tokens.size() || !Character.isLetter(tokens.get(next).charAt(0))) {
+                throw error("Expected " + what);
+            }
+            return tokens.get(next++).toLowerCase(Locale.ROOT);
+        }
+
+        private int value() {
+            take("a value");
+            return next - 1;
+        }
+
+        private void tokenize() {
+            int i = 0;
+            while (i < text.length()) {
+                char c = text.charAt(i);
+                int start = i;
+                if (Character.isWhitespace(c)) {
+                    i++;
+                    continue;
+                }
+                if (Character.isLetter(c)) {
+                    while (i < text.length()
+                            && (Character.isLetterOrDigit(text.charAt(i)) || text.charAt(i) == '_')) {
+                        i++;
+                    }
+                } else if (c == '!' && i + 1 < text.length() && text.charAt(i + 1) == '=') {
+                    i += 2;
+                } else if (c == '=' || c == '(' || c == ')' || c == ',') {
+                    i++;
+                } else {
+                    throw new IllegalArgumentException(
+                            "Unexpected character '" + c + "' at position " + (i + 1) + " in filter: " + text);
+                }
+                tokens.add(text.substring(start, i));
+                positions.add(start);
+            }
+            if (tokens.isEmpty()) {
+                throw new IllegalArgumentException("Filter expression cannot be empty");
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return error(message, next);
+        }
+
+        private IllegalArgumentException error(String message, int token) {
+            int position = token < positions.size() ? positions.get(token) : text.length();
+            return new IllegalArgumentException(
+                    message + " at position " + (position + 1) + " in filter: " + text);
+        }
+    }
+}
@@ -0,0 +1,539 @@
+package com.example.coffee;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serial;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * JSON order API over an {@link OrderCollection}, served by the JDK's built-in HTTP
+ * server with one virtual thread per request.
+ * <p>
+ * The API has these endpoints:
+ * </p>
+ * <ul>
+ *   <li>{@code POST /orders} with a body such as
+ *       {@code {"size": "LARGE", "beverage": "ESPRESSO", "grind": "FINE", "additions": ["MILK"]}}
+ *       creates an order and answers {@code 201 Created} with the order and its
+ *       {@code Location}. Values are the enum constant names, matched
+ *       case-insensitively; {@code additions} may be left out, and so may {@code grind}
+ *       for sodas, which always get {@link GrindType#NONE}.</li>
+ *   <li>{@code GET /orders/{id}} answers the order, or {@code 404 Not Found}.</li>
+ *   <li>{@code DELETE /orders/{id}} removes the order and answers
+ *       {@code 204 No Content}, or {@code 404 Not Found}.</li>
+ *   <li>{@code GET /orders?limit=20&after=cursor} answers a page of orders in insertion
+ *       order, with the {@code previous} and {@code next} cursors to pass as
+ *       {@code before} or {@code after} for the neighbouring pages. Without a cursor
+ *       the first page is read. Paging keeps its place while orders are added and
+ *       removed, as with {@link OrderCollection#pageAfter(OrderCursor, int)}.</li>
+ * </ul>
+ * <p>
+ * Orders are rendered as {@code {"orderId": ..., "size": ..., "grind": ...,
+ * "beverage": ..., "additions": [...], "status": ...}}; malformed requests get
+ * {@code 400 Bad Request} with an {@code {"error": ...}} body, and any other failure
+ * {@code 500 Internal Server Error} with the same kind of body. The collection is
+ * shared by all requests and should be thread-safe, such as
+ * {@link OrderCollection#concurrent()}.
+ * </p>
+ * <p>
+ * The JDK server is tuned through system properties that apply to the whole JVM, so
+ * this class sets none; {@code --http} sets the ones that matter under many
+ * keep-alive clients, see {@link CoffeeOrderTerminal#main(String[])}.
+ * </p>
+ */
+public final class OrderHttpServer implements AutoCloseable {
+    /** Port used by {@code --http} when none is given. */
+    public static final int DEFAULT_PORT = 8080;
+    /** Number of orders on a page when the request gives no limit. */
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    /** Largest number of orders on a page. */
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private static final String ORDERS_PATH = "/orders";
+    private static final int BACKLOG = 1024;
+    private static final int MAX_BODY_SIZE = 1 << 16;
+    private static final String JSON = "application/json; charset=utf-8";
+    private static final Size[] SIZES = Size.values();
+    private static final GrindType[] GRIND_TYPES = GrindType.values();
+    private static final Addition[] ADDITIONS = Addition.values();
+
+    private final OrderCollection orderCollection;
+    private final HttpServer server;
+    private final ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor();
+
+    private OrderHttpServer(OrderCollection orderCollection, HttpServer server) {
+        this.orderCollection = orderCollection;
+        this.server = server;
+        server.createContext(ORDERS_PATH, this::handle);
+        server.setExecutor(requests);
+        server.start();
+    }
+
+    /**
+     * Starts a server on a loopback port.
+     *
+     * @param orderCollection the thread-safe collection served
+     * @param port the port to listen on, or 0 for any free port
+     * @return the running server
+     * @throws IOException if the port cannot be bound
+     * @throws NullPointerException if orderCollection is null
+     */
+    public static OrderHttpServer start(OrderCollection orderCollection, int port) throws IOException {
+        return start(orderCollection, new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    }
+
+    /**
+     * Starts a server on an address, such as the wildcard address for clients on
+     * other machines.
+     *
+     * @param orderCollection the thread-safe collection served
+     * @param address the address to listen on
+     * @return the running server
+     * @throws IOException if the address cannot be bound
+     * @throws NullPointerException if orderCollection or address is null
+     */
+    public static OrderHttpServer start(OrderCollection orderCollection, InetSocketAddress address)
+            throws IOException {
+        Objects.requireNonNull(orderCollection, "Order collection cannot be null");
+        Objects.requireNonNull(address, "Address cannot be null");
+        return new OrderHttpServer(orderCollection, HttpServer.create(address, BACKLOG));
+    }
+
+    /**
+     * Gets the port the server listens on.
+     *
+     * @return the local port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops accepting requests, closes open connections and waits for the request
+     * threads to finish.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        requests.close();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            route(exchange);
+        }
+    }
+
+    private void route(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getRawPath();
+        String method = exchange.getRequestMethod();
+        try {
+            if (path.equals(ORDERS_PATH) || path.equals(ORDERS_PATH + "/")) {
+                switch (method) {
+                    case "GET" -> list(exchange);
+                    case "POST" -> create(exchange);
+                    default -> notAllowed(exchange, "GET, POST");
+                }
+            } else if (path.startsWith(ORDERS_PATH + "/") && path.indexOf('/', ORDERS_PATH.length() + 1) < 0) {
+                // A path keeps '+' literally, unlike the form encoding URLDecoder reads.
+                String orderId = decode(path.substring(ORDERS_PATH.length() + 1).replace("+", "%2B"));
+                switch (method) {
+                    case "GET" -> get(exchange, orderId);
+                    case "DELETE" -> delete(exchange, orderId);
+                    default -> notAllowed(exchange, "GET, DELETE");
+                }
+            } else {
+                error(exchange, 404, "No such resource: " + path);
+            }
+        } catch (BadRequestException e) {
+            // Only thrown while reading the request, before any response was started;
+            // any other exception, even an IllegalArgumentException, is the server's fault.
+            error(exchange, 400, e.getMessage());
+        } catch (RuntimeException e) {
+            if (exchange.getResponseCode() != -1) {
+                // Too late for an error response; the server drops the connection.
+                throw e;
+            }
+            error(exchange, 500, "Internal server error");
+        }
+    }
+
+    private void create(HttpExchange exchange) throws IOException {
+        Map<String, Object> fields = Json.parseObject(readBody(exchange));
+        Size size = SIZES[code(SIZES, "size", required(fields, "size"))];
+        BeverageType beverageType = beverageType(required(fields, "beverage"));
+        GrindType grindType = beverageType instanceof SodaType ? GrindType.NONE
+                : GRIND_TYPES[code(GRIND_TYPES, "grind", required(fields, "grind"))];
+        int additionsMask = 0;
+        Object additions = fields.get("additions");
+        if (additions instanceof List<?> names) {
+            for (Object name : names) {
+                if (!(name instanceof String)) {
+                    throw new BadRequestException("Field 'additions' must be a list of strings");
+                }
+                additionsMask |= 1 << code(ADDITIONS, "addition", (String) name);
+            }
+        } else if (additions != null) {
+            throw new BadRequestException("Field 'additions' must be a list of strings");
+        }
+        CoffeeOrder order = new CoffeeOrder(size, grindType, beverageType,
+                OrderEncoding.additionSet(additionsMask));
+        orderCollection.addOrder(order);
+        exchange.getResponseHeaders().set("Location", ORDERS_PATH + "/"
+                + URLEncoder.encode(order.getOrderId(), StandardCharsets.UTF_8));
+        send(exchange, 201, appendOrder(new StringBuilder(), order, OrderStatus.PLACED));
+    }
+
+    private void get(HttpExchange exchange, String orderId) throws IOException {
+        Optional<CoffeeOrder> order = orderCollection.getOrderById(orderId);
+        if (order.isEmpty()) {
+            error(exchange, 404, "No order with ID " + orderId);
+            return;
+        }
+        send(exchange, 200, appendOrder(new StringBuilder(), order.get(),
+                orderCollection.getStatus(orderId).orElse(null)));
+    }
+
+    private void delete(HttpExchange exchange, String orderId) throws IOException {
+        if (!orderCollection.removeOrder(orderId)) {
+            error(exchange, 404, "No order with ID " + orderId);
+            return;
+        }
+        exchange.sendResponseHeaders(204, -1);
+    }
+
+    private void list(HttpExchange exchange) throws IOException {
+        Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+        int limit = DEFAULT_PAGE_SIZE;
+        String limitText = query.get("limit");
+        if (limitText != null) {
+            try {
+                limit = Integer.parseInt(limitText);
+            } catch (NumberFormatException e) {
+                limit = 0;
+            }
+            if (limit < 1 || limit > MAX_PAGE_SIZE) {
+                throw new BadRequestException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+            }
+        }
+        String after = query.get("after");
+        String before = query.get("before");
+        if (after != null && before != null) {
+            throw new BadRequestException("Only one of 'after' and 'before' can be given");
+        }
+        OrderPage page = before != null
+                ? orderCollection.pageBefore(cursor(before), limit)
+                : orderCollection.pageAfter(after != null ? cursor(after) : OrderCursor.first(), limit);
+        StringBuilder json = new StringBuilder(64 + 160 * page.orders().size()).append("{\"orders\":[");
+        for (int i = 0; i < page.orders().size(); i++) {
+            CoffeeOrder order = page.orders().get(i);
+            if (i > 0) {
+                json.append(',');
+            }
+            appendOrder(json, order, orderCollection.getStatus(order.getOrderId()).orElse(null));
+        }
+        json.append("],\"previous\":");
+        Json.appendString(json, page.previous().token());
+        json.append(",\"next\":");
+        Json.appendString(json, page.next().token());
+        json.append(",\"hasPrevious\":").append(page.hasPrevious())
+                .append(",\"hasNext\":").append(page.hasNext()).append('}');
+        send(exchange, 200, json);
+    }
+
+    private static StringBuilder appendOrder(StringBuilder json, CoffeeOrder order, OrderStatus status) {
+        OrderShape shape = order.getShape();
+        json.append("{\"orderId\":");
+        Json.appendString(json, order.getOrderId());
+        json.append(",\"size\":\"").append(shape.getSize().name())
+                .append("\",\"grind\":\"").append(shape.getGrindType().name())
+                .append("\",\"beverage\":\"").append(((Enum<?>) shape.getBeverageType()).name())
+                .append("\",\"additions\":[");
+        String separator = "\"";
+        for (Addition addition : ADDITIONS) {
+            if (shape.hasAddition(addition)) {
+                json.append(separator).append(addition.name());
+                separator = "\",\"";
+            }
+        }
+        if (shape.additionsMask() != 0) {
+            json.append('"');
+        }
+        json.append("],\"status\":");
+        if (status == null) {
+            json.append("null");
+        } else {
+            json.append('"').append(status.name()).append('"');
+        }
+        return json.append('}');
+    }
+
+    private static void notAllowed(HttpExchange exchange, String allowed) throws IOException {
+        exchange.getResponseHeaders().set("Allow", allowed);
+        error(exchange, 405, "Method " + exchange.getRequestMethod() + " is not allowed");
+    }
+
+    private static void error(HttpExchange exchange, int status, String message) throws IOException {
+        StringBuilder json = new StringBuilder("{\"error\":");
+        Json.appendString(json, message);
+        send(exchange, status, json.append('}'));
+    }
+
+    private static void send(HttpExchange exchange, int status, CharSequence json) throws IOException {
+        byte[] body = json.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readNBytes(MAX_BODY_SIZE + 1);
+            if (body.length > MAX_BODY_SIZE) {
+                throw new BadRequestException("Request body is larger than " + MAX_BODY_SIZE + " bytes");
+            }
+            return new String(body, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static Map<String, String> query(String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null) {
+            return parameters;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0) {
+                parameters.put(decode(pair.substring(0, equals)), decode(pair.substring(equals + 1)));
+            }
+        }
+        return parameters;
+    }
+
+    private static String decode(String text) {
+        try {
+            return URLDecoder.decode(text, StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Malformed escape in request URI: " + text);
+        }
+    }
+
+    private static OrderCursor cursor(String token) {
+        try {
+            return OrderCursor.parse(token);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(e.getMessage());
+        }
+    }
+
+    private static String required(Map<String, Object> fields, String name) {
+        Object value = fields.get(name);
+        if (!(value instanceof String text)) {
+            throw new BadRequestException(value == null
+                    ? "Field '" + name + "' is required"
+                    : "Field '" + name + "' must be a string");
+        }
+        return text;
+    }
+
+    private static int code(Enum<?>[] values, String what, String name) {
+        for (Enum<?> value : values) {
+            if (value.name().equalsIgnoreCase(name)) {
+                return value.ordinal();
+            }
+        }
+        throw new BadRequestException("Unknown " + what + " '" + name + "'");
+    }
+
+    private static BeverageType beverageType(String name) {
+        for (int code = 0; code < OrderEncoding.BEVERAGE_TYPES; code++) {
+            BeverageType beverageType = OrderEncoding.beverageType(code);
+            if (((Enum<?>) beverageType).name().equalsIgnoreCase(name)) {
+                return beverageType;
+            }
+        }
+        throw new BadRequestException("Unknown beverage '" + name + "'");
+    }
+
+    /**
+     * Thrown when a request cannot be read: a malformed body, query string, path or
+     * field. The server answers 400 to this exception alone.
+     */
+    static final class BadRequestException extends IllegalArgumentException {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        BadRequestException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * The small part of JSON the API needs: writing strings and reading one flat
+     * object whose values are strings, lists of strings or null.
+     */
+    static final class Json {
+        private final String text;
+        private int next;
+
+        private Json(String text) {
+            this.text = text;
+        }
+
+        /**
+         * Parses a JSON object with string, string list and null values.
+         *
+         * @param text the JSON text
+         * @return the fields of the object, lists as {@link List}s of strings
+         * @throws BadRequestException if text is not such an object
+         */
+        static Map<String, Object> parseObject(String text) {
+            Json json = new Json(text);
+            Map<String, Object> fields = new HashMap<>();
+            json.expect('{');
+            if (!json.accept('}')) {
+                do {
+                    String name = json.string();
+                    json.expect(':');
+                    fields.put(name, json.value());
+                } while (json.accept(','));
+                json.expect('}');
+            }
+            json.skipWhitespace();
+            if (json.next < text.length()) {
+                throw json.error("Unexpected text after the object");
+            }
+            return fields;
+        }
+
+        /**
+         * Appends a string as a quoted, escaped JSON string.
+         *
+         * @param json the builder to append to
+         * @param value the string
+         */
+        static void appendString(StringBuilder json, String value) {
+            json.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '"' -> json.append("\\\"");
+                    case '\\' -> json.append("\\\\");
+                    case '\n' -> json.append("\\n");
+                    case '\r' -> json.append("\\r");
+                    case '\t' -> json.append("\\t");
+                    default -> {
+                        if (c < 0x20) {
+                            json.append(String.format("\\u%04x", (int) c));
+                        } else {
+                            json.append(c);
+                        }
+                    }
+                }
+            }
+            json.append('"');
+        }
+
+        private Object value() {
+            skipWhitespace();
+            if (text.startsWith("null", next)) {
+                next += 4;
+                return null;
+            }
+            if (!accept('[')) {
+                return string();
+            }
+            List<String> values = new ArrayList<>();
+            if (!accept(']')) {
+                do {
+                    values.add(string());
+                } while (accept(','));
+                expect(']');
+            }
+            return values;
+        }
+
+        private String string() {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            while (next < text.length()) {
+                char c = text.charAt(next++);
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c != '\\') {
+                    value.append(c);
+                } else if (next < text.length()) {
+                    char escaped = text.charAt(next++);
+                    switch (escaped) {
+                        case '"', '\\', '/' -> value.append(escaped);
+                        case 'b' -> value.append('\b');
+                        case 'f' -> value.append('\f');
+                        case 'n' -> value.append('\n');
+                        case 'r' -> value.append('\r');
+                        case 't' -> value.append('\t');
+                        case 'u' -> value.append(unicodeEscape());
+                        default -> throw error("Invalid escape '\\" + escaped + "'");
+                    }
+                }
+            }
+            throw error("Unterminated string");
+        }
+
+        private char unicodeEscape() {
+            if (next + 4 > text.length()) {
+                throw error("Invalid unicode escape");
+            }
+            try {
+                char c = (char) Integer.parseInt(text, next, next + 4, 16);
+                next += 4;
+                return c;
+            } catch (NumberFormatException e) {
+                throw error("Invalid unicode escape");
+            }
+        }
+
+        private boolean accept(char c) {
+            skipWhitespace();
+            if (next < text.length() && text.charAt(next) == c) {
+                next++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!accept(c)) {
+                throw error("Expected '" + c + "'");
+            }
+        }
+
+        private void skipWhitespace() {
+            while (next < text.length() && Character.isWhitespace(text.charAt(next))) {
+                next++;
+            }
+        }
+
+        private BadRequestException error(String message) {
+            return new BadRequestException(message + " at position " + (next + 1) + " in request body");
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.coffee;
+
+import java.time.Clock;
+import java.util.UUID;
+
+/**
+ * Source of the 128-bit IDs given to new {@link CoffeeOrder}s.
+ * <p>
+ * Orders keep their ID as two longs and only format it as a UUID string when
+ * {@link CoffeeOrder#getOrderId()} is first called, so a generator never has to
+ * produce text. Generators must be safe to call from many threads at once.
+ * </p>
+ */
+@FunctionalInterface
+public interface OrderIdGenerator {
+    /**
+     * Generates a new order ID.
+     * 
+     * @return the ID, unique among all IDs this generator hands out
+     */
+    UUID nextId();
+
+    /**
+     * Gets the default generator, which hands out time-ordered IDs using the system
+     * clock.
+     * 
+     * @return the shared time-ordered generator
+     * @see #timeOrdered(Clock)
+     */
+    static OrderIdGenerator timeOrdered() {
+        return TimeOrderedIdGenerator.SYSTEM;
+    }
+
+    /**
+     * Creates a generator of time-ordered IDs in the UUID version 7 layout: a
+     * 48-bit millisecond timestamp, a 12-bit per-thread sequence and 62 random bits.
+     * IDs from one thread are strictly increasing; IDs from different threads are
+     * ordered by millisecond. Threads share no state, so generating never contends.
+     * 
+     * @param clock the clock supplying the timestamp
+     * @return a new time-ordered generator
+     * @throws NullPointerException if clock is null
+     */
+    static OrderIdGenerator timeOrdered(Clock clock) {
+        return new TimeOrderedIdGenerator(clock);
+    }
+
+    /**
+     * Gets a generator of random version 4 UUIDs from {@link UUID#randomUUID()}. It
+     * is considerably slower than {@link #timeOrdered()} because every ID is drawn
+     * from a shared cryptographically strong random number generator.
+     * 
+     * @return the random generator
+     */
+    static OrderIdGenerator random() {
+        return UUID::randomUUID;
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.coffee;
+
+/**
+ * Secondary bitmap indexes over the slots of an {@link OrderStore}.
+ * There is one bitmap per {@link Size}, {@link BeverageType}, {@link GrindType} and
+ * {@link Addition} value, plus one marking every occupied slot.
+ */
+final class OrderIndex {
+    private volatile Bitmaps bitmaps = new Bitmaps();
+
+    /**
+     * Marks a slot in the bitmaps matching an order's attributes.
+     * 
+     * @param slot the slot holding the order
+     * @param attributes the order's attribute word, see {@link OrderEncoding#encode}
+     */
+    void add(int slot, int attributes) {
+        Bitmaps current = bitmaps;
+        current.bySize[OrderEncoding.sizeCode(attributes)].set(slot);
+        current.byBeverage[OrderEncoding.beverageCode(attributes)].set(slot);
+        current.byGrind[OrderEncoding.grindCode(attributes)].set(slot);
+        for (int bits = OrderEncoding.additionsMask(attributes); bits != 0; bits &= bits - 1) {
+            current.byAddition[Integer.numberOfTrailingZeros(bits)].set(slot);
+        }
+        current.live.set(slot);
+    }
+
+    /**
+     * Unmarks a slot in the bitmaps matching an order's attributes.
+     * 
+     * @param slot the slot that held the order
+     * @param attributes the removed order's attribute word
+     */
+    void remove(int slot, int attributes) {
+        Bitmaps current = bitmaps;
+        current.live.clear(slot);
+        current.bySize[OrderEncoding.sizeCode(attributes)].clear(slot);
+        current.byBeverage[OrderEncoding.beverageCode(attributes)].clear(slot);
+        current.byGrind[OrderEncoding.grindCode(attributes)].clear(slot);
+        for (int bits = OrderEncoding.additionsMask(attributes); bits != 0; bits &= bits - 1) {
+            current.byAddition[Integer.numberOfTrailingZeros(bits)].clear(slot);
+        }
+    }
+
+    /**
+     * Drops every indexed slot.
+     */
+    void clear() {
+        bitmaps = new Bitmaps();
+    }
+
+    /**
+     * Gets the current set of bitmaps; queries read a single set throughout.
+     * 
+     * @return the bitmaps
+     */
+    Bitmaps bitmaps() {
+        return bitmaps;
+    }
+
+    /**
+     * One bitmap per attribute value, replaced as a whole by {@link #clear()}.
+     */
+    static final class Bitmaps {
+        final SlotBitmap live = new SlotBitmap();
+        final SlotBitmap[] bySize = newBitmaps(Size.values().length);
+        final SlotBitmap[] byBeverage = newBitmaps(OrderEncoding.BEVERAGE_TYPES);
+        final SlotBitmap[] byGrind = newBitmaps(GrindType.values().length);
+        final SlotBitmap[] byAddition = newBitmaps(Addition.values().length);
+
+        private static SlotBitmap[] newBitmaps(int count) {
+            SlotBitmap[] result = new SlotBitmap[count];
+            for (int i = 0; i < count; i++) {
+                result[i] = new SlotBitmap();
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,396 @@
+package com.example.coffee;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lifecycle status of the orders in the slots of an {@link OrderStore}, with an index
+ * of the slots in each status.
+ * <p>
+ * Each slot has a four-bit status code, sixteen slots to a word, so a transition is a
+ * single compare-and-set and threads moving different orders, or racing to move the
+ * same one, never lock. Every status has a {@link SlotBitmap} of its slots, so listing
+ * the orders in one status skips the words holding none of them rather than visiting
+ * the collection. Together that is about a byte per order. A slot briefly stays marked
+ * in the bitmap of the status it just left; readers check the status code and skip
+ * such slots. The times orders enter each status are only recorded when
+ * {@linkplain #recordTimes(boolean) enabled}, as they take five longs per order.
+ * </p>
+ */
+final class OrderLifecycle {
+    private static final int CODE_BITS = 4;
+    private static final int CODES_PER_WORD_SHIFT = 4;
+    private static final int CODE_INDEX_MASK = (1 << CODES_PER_WORD_SHIFT) - 1;
+    private static final long CODE_MASK = (1L << CODE_BITS) - 1;
+    private static final int TIME_CHUNK_SHIFT = 10;
+    private static final int TIME_CHUNK_MASK = (1 << TIME_CHUNK_SHIFT) - 1;
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+    private final Clock clock;
+    private volatile Table table = new Table(false);
+
+    /**
+     * Creates a lifecycle timed by the given clock.
+     * 
+     * @param clock the clock that stamps transitions
+     */
+    OrderLifecycle(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Starts or stops recording when orders enter each status. Stopping drops the
+     * recorded times; orders already tracked when recording starts have no times for
+     * the statuses they entered before.
+     * 
+     * @param enabled whether to record times
+     */
+    void recordTimes(boolean enabled) {
+        Table current = table;
+        if (!enabled) {
+            current.times = null;
+        } else if (current.times == null) {
+            current.times = newTimes();
+        }
+    }
+
+    /**
+     * Checks whether status times are recorded.
+     * 
+     * @return true if times are recorded
+     */
+    boolean recordsTimes() {
+        return table.times != null;
+    }
+
+    /**
+     * Marks a newly added order as {@link OrderStatus#PLACED} now.
+     * 
+     * @param slot the slot holding the order
+     */
+    void place(int slot) {
+        Table current = table;
+        if (current.place(slot)) {
+            setTime(current, slot, OrderStatus.PLACED, clock);
+        }
+    }
+
+    /**
+     * Marks an order that was stored before the collection tracked it as
+     * {@link OrderStatus#PLACED} at an unknown time, unless it already has a status.
+     * 
+     * @param slot the slot holding the order
+     */
+    void placeUntimed(int slot) {
+        table.place(slot);
+    }
+
+    /**
+     * Forgets the status of a removed order.
+     * 
+     * @param slot the slot that held the order
+     */
+    void remove(int slot) {
+        Table current = table;
+        int code = current.replaceCode(slot, 0);
+        if (code != 0) {
+            current.bySlot[code - 1].clear(slot);
+            current.counts.decrementAndGet(code - 1);
+            clearTimes(current, slot);
+        }
+    }
+
+    /**
+     * Moves the status of an order to another slot. Only called while no other thread
+     * modifies the collection.
+     * 
+     * @param from the slot the order leaves
+     * @param to the empty slot the order moves to
+     */
+    void move(int from, int to) {
+        Table current = table;
+        int code = current.replaceCode(from, 0);
+        if (code == 0) {
+            return;
+        }
+        current.replaceCode(to, code);
+        current.bySlot[code - 1].set(to);
+        current.bySlot[code - 1].clear(from);
+        Chunks times = current.times;
+        if (times != null) {
+            for (OrderStatus status : STATUSES) {
+                long millis = times.get(timeChunk(from), timeIndex(from, status));
+                times.set(timeChunk(to), timeIndex(to, status), millis);
+            }
+            clearTimes(current, from);
+        }
+    }
+
+    /**
+     * Forgets every status, keeping whether times are recorded.
+     */
+    void clear() {
+        table = new Table(recordsTimes());
+    }
+
+    /**
+     * Gets the status of the order in a slot.
+     * 
+     * @param slot the slot
+     * @return the status, or null if the slot holds no tracked order
+     */
+    OrderStatus status(int slot) {
+        int code = table.code(slot);
+        return code == 0 ? null : STATUSES[code - 1];
+    }
+
+    /**
+     * Moves the order in a slot from one status to the next, if it is still in the
+     * first one.
+     * 
+     * @param slot the slot holding the order
+     * @param from the status the order is expected to be in
+     * @param to the status to move it to, which must follow from
+     * @return true if this call moved the order
+     * @throws IllegalArgumentException if to does not directly follow from
+     */
+    boolean transition(int slot, OrderStatus from, OrderStatus to) {
+        if (from.next() != to) {
+            throw new IllegalArgumentException("Cannot move an order from " + from + " to " + to);
+        }
+        if (slot < 0) {
+            return false;
+        }
+        Table current = table;
+        if (!current.compareAndSetCode(slot, from.ordinal() + 1, to.ordinal() + 1)) {
+            return false;
+        }
+        setTime(current, slot, to, clock);
+        current.bySlot[to.ordinal()].set(slot);
+        current.bySlot[from.ordinal()].clear(slot);
+        current.counts.decrementAndGet(from.ordinal());
+        current.counts.incrementAndGet(to.ordinal());
+        return true;
+    }
+
+    /**
+     * Gets the time the order in a slot entered a status.
+     * 
+     * @param slot the slot
+     * @param status the status
+     * @return the epoch milliseconds, or 0 if the order has not reached the status or
+     *         the time is unknown or not recorded
+     */
+    long time(int slot, OrderStatus status) {
+        Table current = table;
+        Chunks times = current.times;
+        int code = current.code(slot);
+        if (times == null || code <= status.ordinal()) {
+            return 0;
+        }
+        return times.get(timeChunk(slot), timeIndex(slot, status));
+    }
+
+    /**
+     * Gets the slots of the orders in a status, in slot order.
+     * 
+     * @param status the status
+     * @return the slots
+     */
+    List<Integer> slots(OrderStatus status) {
+        Table current = table;
+        SlotBitmap slots = current.bySlot[status.ordinal()];
+        List<Integer> result = new ArrayList<>();
+        for (int slot = slots.nextSetBit(0); slot >= 0; slot = slots.nextSetBit(slot + 1)) {
+            // Skip slots left marked by a transition or removal still in progress.
+            if (current.code(slot) == status.ordinal() + 1) {
+                result.add(slot);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the number of orders in a status.
+     * 
+     * @param status the status
+     * @return the number of orders
+     */
+    int count(OrderStatus status) {
+        return (int) Math.max(0, table.counts.get(status.ordinal()));
+    }
+
+    private static void setTime(Table current, int slot, OrderStatus status, Clock clock) {
+        Chunks times = current.times;
+        if (times != null) {
+            times.set(timeChunk(slot), timeIndex(slot, status), clock.millis());
+        }
+    }
+
+    private static void clearTimes(Table current, int slot) {
+        Chunks times = current.times;
+        if (times != null) {
+            for (OrderStatus status : STATUSES) {
+                times.set(timeChunk(slot), timeIndex(slot, status), 0);
+            }
+        }
+    }
+
+    private static Chunks newTimes() {
+        return new Chunks(STATUSES.length << TIME_CHUNK_SHIFT);
+    }
+
+    private static int timeChunk(int slot) {
+        return slot >>> TIME_CHUNK_SHIFT;
+    }
+
+    private static int timeIndex(int slot, OrderStatus status) {
+        return (slot & TIME_CHUNK_MASK) * STATUSES.length + status.ordinal();
+    }
+
+    /**
+     * Status codes, per-status bitmaps, counts and optional times, replaced as a whole
+     * by {@link #clear()}.
+     */
+    private static final class Table {
+        private final Chunks codes = new Chunks(1 << 10);
+        private final SlotBitmap[] bySlot = new SlotBitmap[STATUSES.length];
+        private final AtomicLongArray counts = new AtomicLongArray(STATUSES.length);
+        private volatile Chunks times;
+
+        private Table(boolean timed) {
+            for (int i = 0; i < bySlot.length; i++) {
+                bySlot[i] = new SlotBitmap();
+            }
+            if (timed) {
+                times = newTimes();
+            }
+        }
+
+        private int code(int slot) {
+            if (slot < 0) {
+                return 0;
+            }
+            int wordIndex = slot >>> CODES_PER_WORD_SHIFT;
+            long word = codes.get(codes.chunkOf(wordIndex), codes.indexOf(wordIndex));
+            return (int) (word >>> shift(slot) & CODE_MASK);
+        }
+
+        private boolean place(int slot) {
+            if (compareAndSetCode(slot, 0, OrderStatus.PLACED.ordinal() + 1)) {
+                bySlot[OrderStatus.PLACED.ordinal()].set(slot);
+                counts.incrementAndGet(OrderStatus.PLACED.ordinal());
+                return true;
+            }
+            return false;
+        }
+
+        private boolean compareAndSetCode(int slot, int expected, int code) {
+            int wordIndex = slot >>> CODES_PER_WORD_SHIFT;
+            int chunk = codes.chunkOf(wordIndex);
+            int index = codes.indexOf(wordIndex);
+            int shift = shift(slot);
+            while (true) {
+                long word = codes.get(chunk, index);
+                if ((word >>> shift & CODE_MASK) != expected) {
+                    return false;
+                }
+                // Neighbouring slots share the word, so a failed exchange is retried
+                // until this slot's code itself differs.
+                if (codes.compareAndSet(chunk, index, word, word & ~(CODE_MASK << shift) | (long) code << shift)) {
+                    return true;
+                }
+            }
+        }
+
+        private int replaceCode(int slot, int code) {
+            int wordIndex = slot >>> CODES_PER_WORD_SHIFT;
+            int chunk = codes.chunkOf(wordIndex);
+            int index = codes.indexOf(wordIndex);
+            int shift = shift(slot);
+            while (true) {
+                long word = codes.get(chunk, index);
+                int previous = (int) (word >>> shift & CODE_MASK);
+                if (previous == code
+                        || codes.compareAndSet(chunk, index, word, word & ~(CODE_MASK << shift) | (long) code << shift)) {
+                    return previous;
+                }
+            }
+        }
+
+        private static int shift(int slot) {
+            return (slot & CODE_INDEX_MASK) * CODE_BITS;
+        }
+    }
+
+    /**
+     * Growable array of longs in fixed-size chunks that are never copied, read and
+     * written atomically.
+     */
+    private static final class Chunks {
+        private static final VarHandle LONG = MethodHandles.arrayElementVarHandle(long[].class);
+
+        private final int chunkLength;
+        private final int chunkShift;
+        private volatile long[][] chunks = new long[0][];
+
+        private Chunks(int chunkLength) {
+            this.chunkLength = chunkLength;
+            this.chunkShift = Integer.numberOfTrailingZeros(chunkLength);
+        }
+
+        private int chunkOf(int index) {
+            return index >>> chunkShift;
+        }
+
+        private int indexOf(int index) {
+            return index & chunkLength - 1;
+        }
+
+        private long get(int chunk, int index) {
+            long[][] directory = chunks;
+            if (chunk >= directory.length || directory[chunk] == null) {
+                return 0;
+            }
+            return (long) LONG.getAcquire(directory[chunk], index);
+        }
+
+        private void set(int chunk, int index, long value) {
+            if (value == 0 && get(chunk, index) == 0) {
+                return;
+            }
+            LONG.setRelease(chunkFor(chunk), index, value);
+        }
+
+        private boolean compareAndSet(int chunk, int index, long expected, long value) {
+            return LONG.compareAndSet(chunkFor(chunk), index, expected, value);
+        }
+
+        private long[] chunkFor(int chunk) {
+            long[][] directory = chunks;
+            if (chunk < directory.length && directory[chunk] != null) {
+                return directory[chunk];
+            }
+            return allocateChunk(chunk);
+        }
+
+        private synchronized long[] allocateChunk(int chunk) {
+            long[][] directory = chunks;
+            if (chunk >= directory.length) {
+                directory = Arrays.copyOf(directory, Math.max(chunk + 1, directory.length * 2));
+            } else if (directory[chunk] != null) {
+                return directory[chunk];
+            } else {
+                directory = directory.clone();
+            }
+            directory[chunk] = new long[chunkLength];
+            chunks = directory;
+            return directory[chunk];
+        }
+    }
+}
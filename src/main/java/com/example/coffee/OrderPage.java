@@ -0,0 +1,40 @@
+package com.example.coffee;
+
+import java.util.List;
+
+/**
+ * One page of orders read from an {@link OrderCollection}, in insertion order, with
+ * the cursors to continue paging in either direction.
+ *
+ * @param orders the orders on the page
+ * @param previous the cursor before the first order on the page, for reading the
+ *        page before it
+ * @param next the cursor after the last order on the page, for reading the page
+ *        after it
+ * @param hasPrevious whether the collection held orders before this page when it was read
+ * @param hasNext whether the collection held orders after this page when it was read
+ */
+public record OrderPage(List<CoffeeOrder> orders, OrderCursor previous, OrderCursor next,
+                        boolean hasPrevious, boolean hasNext) {
+    /**
+     * Copies the orders into an unmodifiable list.
+     *
+     * @param orders the orders on the page
+     * @param previous the cursor before the first order
+     * @param next the cursor after the last order
+     * @param hasPrevious whether there are orders before the page
+     * @param hasNext whether there are orders after the page
+     */
+    public OrderPage {
+        orders = List.copyOf(orders);
+    }
+
+    /**
+     * Checks if the page holds no orders.
+     *
+     * @return true if the page is empty
+     */
+    public boolean isEmpty() {
+        return orders.isEmpty();
+    }
+}
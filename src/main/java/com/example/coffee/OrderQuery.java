@@ -0,0 +1,484 @@
+package com.example.coffee;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Attribute query over the orders of an {@link OrderCollection}, answered from the
+ * collection's bitmap indexes without looking at individual orders.
+ * <p>
+ * Conditions added to a query must all hold; several values passed to one condition
+ * match any of them. {@link #or()} starts an alternative set of conditions, so
+ * {@code query().size(LARGE).beverage(ESPRESSO).or().withAdditions(MILK)} matches
+ * large espressos as well as any order with milk. Queries can be evaluated repeatedly
+ * and always reflect the collection's current contents.
+ * </p>
+ * <p>
+ * Results are computed a 64-slot bitmap word at a time. Once the collection spans at
+ * least its {@linkplain OrderCollection#setParallelQueryThreshold(int) parallel query
+ * threshold} of slots, the words are split into ranges that are evaluated in parallel
+ * on the common {@link ForkJoinPool} and merged in slot order, so results are the
+ * same either way. The collection must not be modified while a query runs unless its
+ * store is thread-safe.
+ * </p>
+ */
+public final class OrderQuery {
+    private static final int SPLIT_WORDS = 4096;
+    private static final Size[] SIZES = Size.values();
+    private static final GrindType[] GRIND_TYPES = GrindType.values();
+    private static final Addition[] ADDITIONS = Addition.values();
+
+    private final OrderCollection orderCollection;
+    private final List<Clause> clauses = new ArrayList<>();
+    private OrderFilter where;
+    private Predicate<? super CoffeeOrder> filter;
+
+    /**
+     * Creates a query matching every order in the collection.
+     *
+     * @param orderCollection the collection to query
+     */
+    OrderQuery(OrderCollection orderCollection) {
+        this.orderCollection = orderCollection;
+        clauses.add(new Clause());
+    }
+
+    /**
+     * Restricts the query to orders of any of the given sizes.
+     *
+     * @param sizes the accepted sizes
+     * @return this query
+     * @throws IllegalArgumentException if no size is given
+     */
+    public OrderQuery size(Size... sizes) {
+        current().sizes = and(current().sizes, mask(sizes, Size::ordinal));
+        return this;
+    }
+
+    /**
+     * Restricts the query to orders of any of the given beverage types.
+     *
+     * @param beverageTypes the accepted coffee or soda types
+     * @return this query
+     * @throws IllegalArgumentException if no beverage type is given
+     */
+    public OrderQuery beverage(BeverageType... beverageTypes) {
+        current().beverages = and(current().beverages,
+                mask(beverageTypes, OrderEncoding::beverageCode));
+        return this;
+    }
+
+    /**
+     * Restricts the query to orders of any of the given grind types.
+     *
+     * @param grindTypes the accepted grind types
+     * @return this query
+     * @throws IllegalArgumentException if no grind type is given
+     */
+    public OrderQuery grind(GrindType... grindTypes) {
+        current().grinds = and(current().grinds, mask(grindTypes, GrindType::ordinal));
+        return this;
+    }
+
+    /**
+     * Restricts the query to orders that include all of the given additions.
+     *
+     * @param additions the required additions
+     * @return this query
+     * @throws IllegalArgumentException if no addition is given
+     */
+    public OrderQuery withAdditions(Addition... additions) {
+        current().allAdditions |= mask(additions, Addition::ordinal);
+        return this;
+    }
+
+    /**
+     * Restricts the query to orders that include at least one of the given additions.
+     *
+     * @param additions the candidate additions
+     * @return this query
+     * @throws IllegalArgumentException if no addition is given
+     */
+    public OrderQuery withAnyAddition(Addition... additions) {
+        current().anyAdditions.add(mask(additions, Addition::ordinal));
+        return this;
+    }
+
+    /**
+     * Starts an alternative set of conditions; an order matches the query if it
+     * satisfies every condition of at least one set.
+     *
+     * @return this query
+     */
+    public OrderQuery or() {
+        clauses.add(new Clause());
+        return this;
+    }
+
+    /**
+     * Restricts the query, across all sets of conditions, to orders matching a compiled
+     * filter. The filter is tested on each candidate's encoded attributes, without
+     * building the order; calling this again replaces the previous filter.
+     *
+     * @param filter the compiled filter
+     * @return this query
+     * @throws NullPointerException if filter is null
+     */
+    public OrderQuery where(OrderFilter filter) {
+        where = Objects.requireNonNull(filter, "Filter cannot be null");
+        return this;
+    }
+
+    /**
+     * Restricts the query, across all sets of conditions, to orders matching a filter
+     * expression, compiled with {@link OrderFilter#compile(String)}.
+     *
+     * @param expression the filter expression
+     * @return this query
+     * @throws IllegalArgumentException if expression is null or not a valid filter
+     */
+    public OrderQuery where(String expression) {
+        return where(OrderFilter.compile(expression));
+    }
+
+    /**
+     * Restricts the query, across all sets of conditions, to orders that also satisfy
+     * a predicate. The predicate is tested only on orders that pass the indexed
+     * conditions, possibly from several threads at once; calling this again replaces
+     * the previous predicate.
+     *
+     * @param predicate the condition orders must satisfy
+     * @return this query
+     * @throws NullPointerException if predicate is null
+     */
+    public OrderQuery filter(Predicate<? super CoffeeOrder> predicate) {
+        filter = Objects.requireNonNull(predicate, "Predicate cannot be null");
+        return this;
+    }
+
+    /**
+     * Counts the matching orders.
+     *
+     * @return the number of orders matching the query
+     */
+    public int count() {
+        OrderIndex.Bitmaps bitmaps = orderCollection.index().bitmaps();
+        OrderStore store = orderCollection.store();
+        return evaluate(bitmaps, (from, to) -> {
+            int count = 0;
+            for (int w = from; w < to; w++) {
+                long word = matchWord(bitmaps, store, w);
+                count += Long.bitCount(word);
+            }
+            return count;
+        }, Integer::sum);
+    }
+
+    /**
+     * Gets the matching orders in insertion order.
+     *
+     * @return an unmodifiable list of the orders matching the query
+     */
+    public List<CoffeeOrder> orders() {
+        OrderIndex.Bitmaps bitmaps = orderCollection.index().bitmaps();
+        OrderStore store = orderCollection.store();
+        List<CoffeeOrder> result = evaluate(bitmaps, (from, to) -> {
+            List<CoffeeOrder> orders = new ArrayList<>();
+            for (int w = from; w < to; w++) {
+                long word = matchWord(bitmaps, store, w);
+                while (word != 0) {
+                    CoffeeOrder order = store.get((w << 6) + Long.numberOfTrailingZeros(word));
+                    if (order != null) {
+                        orders.add(order);
+                    }
+                    word &= word - 1;
+                }
+            }
+            return orders;
+        }, (left, right) -> {
+            left.addAll(right);
+            return left;
+        });
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Gets the first matching orders in insertion order. The scan stops as soon as
+     * limit orders are found, so the cost follows the limit rather than the number of
+     * matches.
+     *
+     * @param limit the maximum number of orders to return
+     * @return an unmodifiable list of at most limit orders matching the query
+     * @throws IllegalArgumentException if limit is not positive
+     */
+    public List<CoffeeOrder> orders(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive: " + limit);
+        }
+        OrderIndex.Bitmaps bitmaps = orderCollection.index().bitmaps();
+        OrderStore store = orderCollection.store();
+        List<CoffeeOrder> orders = new ArrayList<>(Math.min(limit, store.size()));
+        for (int w = 0, words = bitmaps.live.wordCount(); w < words && orders.size() < limit; w++) {
+            long word = matchWord(bitmaps, store, w);
+            for (; word != 0 && orders.size() < limit; word &= word - 1) {
+                CoffeeOrder order = store.get((w << 6) + Long.numberOfTrailingZeros(word));
+                if (order != null) {
+                    orders.add(order);
+                }
+            }
+        }
+        return Collections.unmodifiableList(orders);
+    }
+
+    /**
+     * Counts the matching orders per size.
+     *
+     * @return the number of matching orders of each size, in declaration order
+     */
+    public Map<Size, Long> countBySize() {
+        long[] counts = countBy(bitmaps -> bitmaps.bySize);
+        Map<Size, Long> result = new EnumMap<>(Size.class);
+        for (Size size : SIZES) {
+            result.put(size, counts[size.ordinal()]);
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Counts the matching orders per beverage type.
+     *
+     * @return the number of matching orders of each beverage type, coffee types first
+     */
+    public Map<BeverageType, Long> countByBeverage() {
+        long[] counts = countBy(bitmaps -> bitmaps.byBeverage);
+        Map<BeverageType, Long> result = new LinkedHashMap<>();
+        for (int code = 0; code < counts.length; code++) {
+            result.put(OrderEncoding.beverageType(code), counts[code]);
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Counts the matching orders per grind type.
+     *
+     * @return the number of matching orders of each grind type, in declaration order
+     */
+    public Map<GrindType, Long> countByGrind() {
+        long[] counts = countBy(bitmaps -> bitmaps.byGrind);
+        Map<GrindType, Long> result = new EnumMap<>(GrindType.class);
+        for (GrindType grindType : GRIND_TYPES) {
+            result.put(grindType, counts[grindType.ordinal()]);
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Counts the matching orders that include each addition; an order with several
+     * additions is counted once for each.
+     *
+     * @return the number of matching orders with each addition, in declaration order
+     */
+    public Map<Addition, Long> countByAddition() {
+        long[] counts = countBy(bitmaps -> bitmaps.byAddition);
+        Map<Addition, Long> result = new EnumMap<>(Addition.class);
+        for (Addition addition : ADDITIONS) {
+            result.put(addition, counts[addition.ordinal()]);
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    private long[] countBy(Function<OrderIndex.Bitmaps, SlotBitmap[]> groups) {
+        OrderIndex.Bitmaps bitmaps = orderCollection.index().bitmaps();
+        OrderStore store = orderCollection.store();
+        SlotBitmap[] groupBitmaps = groups.apply(bitmaps);
+        return evaluate(bitmaps, (from, to) -> {
+            long[] counts = new long[groupBitmaps.length];
+            for (int w = from; w < to; w++) {
+                long word = matchWord(bitmaps, store, w);
+                if (word == 0) {
+                    continue;
+                }
+                for (int group = 0; group < groupBitmaps.length; group++) {
+                    counts[group] += Long.bitCount(word & groupBitmaps[group].word(w));
+                }
+            }
+            return counts;
+        }, (left, right) -> {
+            for (int i = 0; i < left.length; i++) {
+                left[i] += right[i];
+            }
+            return left;
+        });
+    }
+
+    /**
+     * Computes a result over every bitmap word, splitting the words into ranges that
+     * are evaluated in parallel when the collection is large enough.
+     */
+    private <R> R evaluate(OrderIndex.Bitmaps bitmaps, WordRange<R> range, BinaryOperator<R> merge) {
+        int words = bitmaps.live.wordCount();
+        if ((long) words << 6 < orderCollection.getParallelQueryThreshold()) {
+            return range.apply(0, words);
+        }
+        return ForkJoinPool.commonPool().invoke(new RangeTask<>(0, words, range, merge));
+    }
+
+    private long matchWord(OrderIndex.Bitmaps bitmaps, OrderStore store, int wordIndex) {
+        long word = matchWord(bitmaps, wordIndex);
+        if (where != null && word != 0) {
+            EncodedOrderStore encoded = store instanceof EncodedOrderStore e ? e : null;
+            for (long bits = word; bits != 0; bits &= bits - 1) {
+                int bit = Long.numberOfTrailingZeros(bits);
+                int slot = (wordIndex << 6) + bit;
+                int attributes;
+                if (encoded != null) {
+                    attributes = encoded.attributes(slot);
+                } else {
+                    CoffeeOrder order = store.get(slot);
+                    attributes = order == null ? -1 : OrderEncoding.encode(order);
+                }
+                if (attributes < 0 || !where.matches(attributes)) {
+                    word &= ~(1L << bit);
+                }
+            }
+        }
+        if (filter == null) {
+            return word;
+        }
+        for (long bits = word; bits != 0; bits &= bits - 1) {
+            int bit = Long.numberOfTrailingZeros(bits);
+            CoffeeOrder order = store.get((wordIndex << 6) + bit);
+            if (order == null || !filter.test(order)) {
+                word &= ~(1L << bit);
+            }
+        }
+        return word;
+    }
+
+    private long matchWord(OrderIndex.Bitmaps bitmaps, int wordIndex) {
+        long live = bitmaps.live.word(wordIndex);
+        if (live == 0) {
+            return 0L;
+        }
+        long matches = 0L;
+        for (Clause clause : clauses) {
+            matches |= clause.matchWord(bitmaps, wordIndex, live);
+        }
+        return matches;
+    }
+
+    private Clause current() {
+        return clauses.get(clauses.size() - 1);
+    }
+
+    private static int and(int existing, int mask) {
+        return existing == Clause.ANY ? mask : existing & mask;
+    }
+
+    private static <T> int mask(T[] values, ToIntFunction<T> code) {
+        Objects.requireNonNull(values, "Values cannot be null");
+        if (values.length == 0) {
+            throw new IllegalArgumentException("At least one value is required");
+        }
+        int mask = 0;
+        for (T value : values) {
+            mask |= 1 << code.applyAsInt(Objects.requireNonNull(value, "Value cannot be null"));
+        }
+        return mask;
+    }
+
+    /**
+     * Computes a partial result over a range of bitmap words.
+     *
+     * @param <R> the result type
+     */
+    @FunctionalInterface
+    private interface WordRange<R> {
+        R apply(int fromWord, int toWord);
+    }
+
+    /**
+     * Splits a range of words in halves until it is small enough to compute directly,
+     * then merges the halves left to right so results stay in slot order.
+     *
+     * @param <R> the result type
+     */
+    // ForkJoinTask is Serializable, but these tasks only ever run in the common pool
+    // and are never serialized, so the lambda fields need not be serializable.
+    @SuppressWarnings("serial")
+    private static final class RangeTask<R> extends RecursiveTask<R> {
+        private final int from;
+        private final int to;
+        private final WordRange<R> range;
+        private final BinaryOperator<R> merge;
+
+        private RangeTask(int from, int to, WordRange<R> range, BinaryOperator<R> merge) {
+            this.from = from;
+            this.to = to;
+            this.range = range;
+            this.merge = merge;
+        }
+
+        @Override
+        protected R compute() {
+            if (to - from <= SPLIT_WORDS) {
+                return range.apply(from, to);
+            }
+            int middle = (from + to) >>> 1;
+            RangeTask<R> left = new RangeTask<>(from, middle, range, merge);
+            left.fork();
+            R right = new RangeTask<>(middle, to, range, merge).compute();
+            return merge.apply(left.join(), right);
+        }
+    }
+
+    /**
+     * A set of conditions that must all hold; attribute masks hold one bit per
+     * accepted value code.
+     */
+    private static final class Clause {
+        private static final int ANY = -1;
+
+        private int sizes = ANY;
+        private int beverages = ANY;
+        private int grinds = ANY;
+        private int allAdditions;
+        private final List<Integer> anyAdditions = new ArrayList<>();
+
+        private long matchWord(OrderIndex.Bitmaps bitmaps, int wordIndex, long live) {
+            long word = live;
+            word &= union(bitmaps.bySize, sizes, wordIndex);
+            word &= union(bitmaps.byBeverage, beverages, wordIndex);
+            word &= union(bitmaps.byGrind, grinds, wordIndex);
+            for (int bits = allAdditions; bits != 0 && word != 0; bits &= bits - 1) {
+                word &= bitmaps.byAddition[Integer.numberOfTrailingZeros(bits)].word(wordIndex);
+            }
+            for (int i = 0; i < anyAdditions.size() && word != 0; i++) {
+                word &= union(bitmaps.byAddition, anyAdditions.get(i), wordIndex);
+            }
+            return word;
+        }
+
+        private static long union(SlotBitmap[] bitmaps, int mask, int wordIndex) {
+            if (mask == ANY) {
+                return -1L;
+            }
+            long word = 0L;
+            for (int bits = mask; bits != 0; bits &= bits - 1) {
+                word |= bitmaps[Integer.numberOfTrailingZeros(bits)].word(wordIndex);
+            }
+            return word;
+        }
+    }
+}
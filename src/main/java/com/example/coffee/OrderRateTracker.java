@@ -0,0 +1,197 @@
+package com.example.coffee;
+
+import java.time.Clock;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Sliding-window order intake rates over the last one, five and fifteen minutes,
+ * broken down by {@link BeverageType}.
+ * <p>
+ * Orders are counted in one-second buckets held in a fixed ring of
+ * {@link Window#FIFTEEN_MINUTES} seconds per beverage type. Each bucket is a single
+ * long packing the second it belongs to with its count, so a bucket left over from an
+ * earlier lap of the ring is recognized and restarted by the next order instead of
+ * being cleared by a background task. Recording an order is one compare-and-set on
+ * the bucket of its beverage type and allocates nothing; reading a rate adds up the
+ * buckets of the window. A bucket counts at most 16,777,215 orders per second.
+ * </p>
+ */
+public final class OrderRateTracker {
+    private static final int COUNT_BITS = 24;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+    private static final int RING_SECONDS = 15 * 60;
+
+    /**
+     * The time windows rates are reported over.
+     */
+    public enum Window {
+        /** The last minute. */
+        ONE_MINUTE(60),
+        /** The last five minutes. */
+        FIVE_MINUTES(5 * 60),
+        /** The last fifteen minutes. */
+        FIFTEEN_MINUTES(RING_SECONDS);
+
+        private final int seconds;
+
+        Window(int seconds) {
+            this.seconds = seconds;
+        }
+
+        /**
+         * Gets the length of the window.
+         *
+         * @return the window length in seconds
+         */
+        public int seconds() {
+            return seconds;
+        }
+    }
+
+    private final Clock clock;
+    private final AtomicLongArray buckets =
+            new AtomicLongArray(OrderEncoding.BEVERAGE_TYPES * RING_SECONDS);
+
+    /**
+     * Creates a tracker using the system clock.
+     */
+    public OrderRateTracker() {
+        this(Clock.systemUTC());
+    }
+
+    /**
+     * Creates a tracker using the given clock.
+     *
+     * @param clock the clock that decides which second an order falls into
+     * @throws NullPointerException if clock is null
+     */
+    public OrderRateTracker(Clock clock) {
+        this.clock = Objects.requireNonNull(clock, "Clock cannot be null");
+    }
+
+    /**
+     * Counts an order of the given beverage type at the current time.
+     *
+     * @param beverageType the beverage type of the order
+     * @throws NullPointerException if beverageType is null
+     */
+    public void record(BeverageType beverageType) {
+        record(OrderEncoding.beverageCode(
+                Objects.requireNonNull(beverageType, "Beverage type cannot be null")));
+    }
+
+    /**
+     * Counts an order with the given beverage code at the current time.
+     *
+     * @param beverageCode the beverage code of the order
+     */
+    void record(int beverageCode) {
+        long second = currentSecond();
+        int index = beverageCode * RING_SECONDS + (int) Math.floorMod(second, (long) RING_SECONDS);
+        while (true) {
+            long bucket = buckets.get(index);
+            long next;
+            if (bucket >>> COUNT_BITS == second) {
+                if ((bucket & COUNT_MASK) == COUNT_MASK) {
+                    return;
+                }
+                next = bucket + 1;
+            } else {
+                next = second << COUNT_BITS | 1;
+            }
+            if (buckets.compareAndSet(index, bucket, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of orders received within a window, including the current second.
+     *
+     * @param window the window
+     * @return the number of orders
+     */
+    public long count(Window window) {
+        Objects.requireNonNull(window, "Window cannot be null");
+        long second = currentSecond();
+        long count = 0;
+        for (int code = 0; code < OrderEncoding.BEVERAGE_TYPES; code++) {
+            count += count(code, window, second);
+        }
+        return count;
+    }
+
+    /**
+     * Gets the number of orders of a beverage type received within a window, including
+     * the current second.
+     *
+     * @param window the window
+     * @param beverageType the beverage type
+     * @return the number of orders
+     */
+    public long count(Window window, BeverageType beverageType) {
+        Objects.requireNonNull(window, "Window cannot be null");
+        return count(OrderEncoding.beverageCode(
+                Objects.requireNonNull(beverageType, "Beverage type cannot be null")),
+                window, currentSecond());
+    }
+
+    /**
+     * Gets the average number of orders per second over a window.
+     *
+     * @param window the window
+     * @return the orders per second
+     */
+    public double perSecond(Window window) {
+        return (double) count(window) / window.seconds();
+    }
+
+    /**
+     * Gets the average number of orders of a beverage type per second over a window.
+     *
+     * @param window the window
+     * @param beverageType the beverage type
+     * @return the orders per second
+     */
+    public double perSecond(Window window, BeverageType beverageType) {
+        return (double) count(window, beverageType) / window.seconds();
+    }
+
+    /**
+     * Gets the average number of orders per minute over a window.
+     *
+     * @param window the window
+     * @return the orders per minute
+     */
+    public double perMinute(Window window) {
+        return perSecond(window) * 60;
+    }
+
+    /**
+     * Gets the average number of orders of a beverage type per minute over a window.
+     *
+     * @param window the window
+     * @param beverageType the beverage type
+     * @return the orders per minute
+     */
+    public double perMinute(Window window, BeverageType beverageType) {
+        return perSecond(window, beverageType) * 60;
+    }
+
+    private long count(int beverageCode, Window window, long second) {
+        int offset = beverageCode * RING_SECONDS;
+        long count = 0;
+        for (long s = second - window.seconds() + 1; s <= second; s++) {
+            long bucket = buckets.get(offset + (int) Math.floorMod(s, (long) RING_SECONDS));
+            if (bucket >>> COUNT_BITS == s) {
+                count += bucket & COUNT_MASK;
+            }
+        }
+        return count;
+    }
+
+    private long currentSecond() {
+        return Math.floorDiv(clock.millis(), 1000L);
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.coffee;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The configuration of an order without its ID: size, grind type, beverage type and
+ * additions.
+ * <p>
+ * There are only a few thousand distinct shapes, so each one exists exactly once.
+ * {@link #of(Size, GrindType, BeverageType, Set)} returns the shared instance, orders
+ * hold a reference to it instead of their own copies of the attributes, and shapes can
+ * be compared with {@code ==} and used as grouping keys. Anything derived from the
+ * attributes alone, such as an order's rendered description, is computed once per
+ * shape and shared by every order having it.
+ * </p>
+ */
+public final class OrderShape {
+    private static final Size[] SIZES = Size.values();
+    private static final GrindType[] GRIND_TYPES = GrindType.values();
+    private static final OrderShape[] SHAPES = new OrderShape[1 << OrderEncoding.ATTRIBUTE_BITS];
+
+    static {
+        for (int attributes = 0; attributes < SHAPES.length; attributes++) {
+            int beverageCode = OrderEncoding.beverageCode(attributes);
+            if (OrderEncoding.sizeCode(attributes) < SIZES.length
+                    && OrderEncoding.grindCode(attributes) < GRIND_TYPES.length
+                    && beverageCode < OrderEncoding.BEVERAGE_TYPES) {
+                SHAPES[attributes] = new OrderShape(attributes);
+            }
+        }
+    }
+
+    private final int attributes;
+    private final Size size;
+    private final GrindType grindType;
+    private final BeverageType beverageType;
+    private String description;
+    private byte[] descriptionBytes;
+
+    private OrderShape(int attributes) {
+        this.attributes = attributes;
+        this.size = SIZES[OrderEncoding.sizeCode(attributes)];
+        this.grindType = GRIND_TYPES[OrderEncoding.grindCode(attributes)];
+        this.beverageType = OrderEncoding.beverageType(OrderEncoding.beverageCode(attributes));
+    }
+
+    /**
+     * Gets the shared shape with the given attributes.
+     *
+     * @param size the size (cannot be null)
+     * @param grindType the grind type (cannot be null)
+     * @param beverageType the beverage type (cannot be null)
+     * @param additions the additions; null is treated as empty
+     * @return the canonical shape
+     * @throws NullPointerException if size, grindType, beverageType or an addition is null
+     */
+    public static OrderShape of(Size size, GrindType grindType, BeverageType beverageType,
+                                Set<Addition> additions) {
+        return SHAPES[OrderEncoding.encode(
+                Objects.requireNonNull(size, "Size cannot be null"),
+                Objects.requireNonNull(grindType, "Grind type cannot be null"),
+                Objects.requireNonNull(beverageType, "Beverage type cannot be null"),
+                additions == null ? Set.of() : additions)];
+    }
+
+    /**
+     * Gets the shared shape with the given attribute word.
+     *
+     * @param attributes the attribute word
+     * @return the canonical shape
+     * @throws IllegalArgumentException if the attribute word is invalid
+     */
+    static OrderShape of(int attributes) {
+        OrderShape shape = attributes >= 0 && attributes < SHAPES.length ? SHAPES[attributes] : null;
+        if (shape == null) {
+            throw new IllegalArgumentException("Invalid attribute word: " + attributes);
+        }
+        return shape;
+    }
+
+    /**
+     * Gets the size.
+     *
+     * @return the size
+     */
+    public Size getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the grind type.
+     *
+     * @return the grind type
+     */
+    public GrindType getGrindType() {
+        return grindType;
+    }
+
+    /**
+     * Gets the beverage type.
+     *
+     * @return the beverage type (either CoffeeType or SodaType)
+     */
+    public BeverageType getBeverageType() {
+        return beverageType;
+    }
+
+    /**
+     * Gets the additions as a shared immutable set.
+     *
+     * @return an unmodifiable set of additions
+     */
+    public Set<Addition> getAdditions() {
+        return OrderEncoding.additionSet(additionsMask());
+    }
+
+    /**
+     * Checks whether the shape includes an addition.
+     *
+     * @param addition the addition
+     * @return true if the shape includes it
+     * @throws NullPointerException if addition is null
+     */
+    public boolean hasAddition(Addition addition) {
+        return (additionsMask() & 1 << Objects.requireNonNull(addition, "Addition cannot be null").ordinal()) != 0;
+    }
+
+    /**
+     * Gets the additions as a bitmask, bit {@code i} being set when the addition with
+     * ordinal {@code i} is included.
+     *
+     * @return the additions bitmask
+     */
+    public int additionsMask() {
+        return OrderEncoding.additionsMask(attributes);
+    }
+
+    /**
+     * Gets the attribute word of the shape.
+     *
+     * @return the attribute word
+     */
+    int attributes() {
+        return attributes;
+    }
+
+    /**
+     * Gets the lines describing the shape in an order's string form, built on first use.
+     *
+     * @return the size, grind type, beverage and additions lines
+     */
+    String description() {
+        String text = description;
+        if (text == null) {
+            // Racing threads build equal strings, so the unsynchronized cache is safe.
+            text = describe();
+            description = text;
+        }
+        return text;
+    }
+
+    /**
+     * Gets the UTF-8 bytes of {@link #description()}, encoded on first use.
+     *
+     * @return the description bytes; callers must not modify them
+     */
+    byte[] descriptionBytes() {
+        byte[] bytes = descriptionBytes;
+        if (bytes == null) {
+            bytes = description().getBytes(StandardCharsets.UTF_8);
+            descriptionBytes = bytes;
+        }
+        return bytes;
+    }
+
+    private String describe() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("  Size: ").append(size).append("\n");
+        if (grindType != GrindType.NONE) {
+            sb.append("  Grind Type: ").append(grindType).append("\n");
+        }
+        String beverageLabel = beverageType instanceof CoffeeType ? "Coffee Type" : "Soda Type";
+        sb.append("  ").append(beverageLabel).append(": ").append(beverageType).append("\n");
+        if (additionsMask() != 0) {
+            sb.append("  Additions: ");
+            String separator = "";
+            for (Addition addition : Addition.values()) {
+                if (hasAddition(addition)) {
+                    sb.append(separator).append(addition.getDisplayName());
+                    separator = ", ";
+                }
+            }
+            sb.append("\n");
+        } else {
+            sb.append("  Additions: None\n");
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder().append(size).append(' ');
+        if (grindType != GrindType.NONE) {
+            sb.append(grindType).append(' ');
+        }
+        sb.append(beverageType);
+        String separator = " with ";
+        for (Addition addition : Addition.values()) {
+            if (hasAddition(addition)) {
+                sb.append(separator).append(addition.getDisplayName());
+                separator = ", ";
+            }
+        }
+        return sb.toString();
+    }
+}
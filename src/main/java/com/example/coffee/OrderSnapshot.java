@@ -0,0 +1,127 @@
+package com.example.coffee;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Immutable point-in-time view of the orders of an {@link OrderCollection}, in
+ * insertion order.
+ * <p>
+ * A snapshot shares its storage with the collection and with other snapshots instead
+ * of copying the orders, so taking one is cheap at any collection size. Snapshots of a
+ * collection over an encoded store decode each order as it is read, like the store
+ * itself. Orders added, replaced or removed after the snapshot was taken are not
+ * visible through it, and reading a snapshot never blocks or is blocked by writers.
+ * </p>
+ */
+public final class OrderSnapshot implements Iterable<CoffeeOrder> {
+    private final SnapshotSlots.Chunk[] chunks;
+    private final int limit;
+    private final int size;
+
+    /**
+     * Creates a snapshot over chunks that are never written again.
+     * 
+     * @param chunks the slot chunks
+     * @param limit one past the highest occupied slot
+     * @param size the number of orders
+     */
+    OrderSnapshot(SnapshotSlots.Chunk[] chunks, int limit, int size) {
+        this.chunks = chunks;
+        this.limit = limit;
+        this.size = size;
+    }
+
+    /**
+     * Gets the number of orders in the snapshot.
+     * 
+     * @return the number of orders
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the snapshot holds no orders.
+     * 
+     * @return true if the snapshot is empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Iterates over the orders in insertion order.
+     * 
+     * @return an iterator that does not support removal
+     */
+    @Override
+    public Iterator<CoffeeOrder> iterator() {
+        return new Iterator<>() {
+            private int slot = advance(0);
+
+            @Override
+            public boolean hasNext() {
+                return slot < limit;
+            }
+
+            @Override
+            public CoffeeOrder next() {
+                if (slot >= limit) {
+                    throw new NoSuchElementException();
+                }
+                CoffeeOrder order = get(slot);
+                slot = advance(slot + 1);
+                return order;
+            }
+        };
+    }
+
+    @Override
+    public Spliterator<CoffeeOrder> spliterator() {
+        return Spliterators.spliterator(iterator(), size,
+                Spliterator.ORDERED | Spliterator.IMMUTABLE | Spliterator.NONNULL);
+    }
+
+    /**
+     * Streams the orders in insertion order.
+     * 
+     * @return a sequential stream of the orders
+     */
+    public Stream<CoffeeOrder> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Copies the orders into a list.
+     * 
+     * @return an unmodifiable list of the orders in insertion order
+     */
+    public List<CoffeeOrder> toList() {
+        List<CoffeeOrder> orders = new ArrayList<>(size);
+        forEach(orders::add);
+        return List.copyOf(orders);
+    }
+
+    private CoffeeOrder get(int slot) {
+        return chunks[slot >>> SnapshotSlots.CHUNK_SHIFT].get(slot & SnapshotSlots.CHUNK_MASK);
+    }
+
+    private boolean occupied(int slot) {
+        SnapshotSlots.Chunk chunk = chunks[slot >>> SnapshotSlots.CHUNK_SHIFT];
+        return chunk != null && chunk.occupied(slot & SnapshotSlots.CHUNK_MASK);
+    }
+
+    private int advance(int slot) {
+        while (slot < limit && !occupied(slot)) {
+            slot++;
+        }
+        return slot;
+    }
+}
@@ -0,0 +1,235 @@
+package com.example.coffee;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Live order counts of an {@link OrderCollection}, kept up to date as orders are
+ * added and removed so that reading them never looks at individual orders.
+ * <p>
+ * There is a counter per {@link Size}, {@link BeverageType}, {@link GrindType} and
+ * {@link Addition}, and one per combination of all four, indexed by the order's
+ * attribute word. Updating takes a fixed number of atomic increments per order.
+ * Counts read while other threads modify the collection may be momentarily
+ * inconsistent with each other.
+ * </p>
+ */
+public final class OrderStatistics {
+    private static final Size[] SIZES = Size.values();
+    private static final GrindType[] GRIND_TYPES = GrindType.values();
+    private static final Addition[] ADDITIONS = Addition.values();
+
+    private volatile Counters counters = new Counters();
+
+    /**
+     * A distinct order combination and the number of orders having it.
+     *
+     * @param size the size
+     * @param grindType the grind type
+     * @param beverageType the beverage type
+     * @param additions the additions
+     * @param count the number of orders
+     */
+    public record Combination(Size size, GrindType grindType, BeverageType beverageType,
+                              Set<Addition> additions, long count) {
+        /**
+         * Copies the additions into an unmodifiable set.
+         *
+         * @param size the size
+         * @param grindType the grind type
+         * @param beverageType the beverage type
+         * @param additions the additions
+         * @param count the number of orders
+         */
+        public Combination {
+            additions = Set.copyOf(additions);
+        }
+    }
+
+    /**
+     * Creates statistics with every count at zero; the collection builds the counts of
+     * orders already in its store before handing the statistics out.
+     */
+    OrderStatistics() {
+    }
+
+    /**
+     * Gets the total number of counted orders.
+     *
+     * @return the number of orders
+     */
+    public long total() {
+        return counters.total.get();
+    }
+
+    /**
+     * Gets the number of orders of a size.
+     *
+     * @param size the size
+     * @return the number of orders
+     */
+    public long count(Size size) {
+        return counters.bySize.get(Objects.requireNonNull(size, "Size cannot be null").ordinal());
+    }
+
+    /**
+     * Gets the number of orders of a beverage type.
+     *
+     * @param beverageType the coffee or soda type
+     * @return the number of orders
+     */
+    public long count(BeverageType beverageType) {
+        return counters.byBeverage.get(OrderEncoding.beverageCode(
+                Objects.requireNonNull(beverageType, "Beverage type cannot be null")));
+    }
+
+    /**
+     * Gets the number of orders of a grind type.
+     *
+     * @param grindType the grind type
+     * @return the number of orders
+     */
+    public long count(GrindType grindType) {
+        return counters.byGrind.get(
+                Objects.requireNonNull(grindType, "Grind type cannot be null").ordinal());
+    }
+
+    /**
+     * Gets the number of orders that include an addition.
+     *
+     * @param addition the addition
+     * @return the number of orders
+     */
+    public long count(Addition addition) {
+        return counters.byAddition.get(
+                Objects.requireNonNull(addition, "Addition cannot be null").ordinal());
+    }
+
+    /**
+     * Gets the number of orders with exactly the given attributes.
+     *
+     * @param size the size
+     * @param grindType the grind type
+     * @param beverageType the beverage type
+     * @param additions the exact set of additions; null is treated as empty
+     * @return the number of orders
+     */
+    public long count(Size size, GrindType grindType, BeverageType beverageType,
+                      Set<Addition> additions) {
+        int attributes = OrderEncoding.encode(
+                Objects.requireNonNull(size, "Size cannot be null"),
+                Objects.requireNonNull(grindType, "Grind type cannot be null"),
+                Objects.requireNonNull(beverageType, "Beverage type cannot be null"),
+                additions == null ? Set.of() : additions);
+        return counters.byCombination.get(attributes);
+    }
+
+    /**
+     * Gets the number of orders having a shape.
+     *
+     * @param shape the shape
+     * @return the number of orders
+     */
+    public long count(OrderShape shape) {
+        return counters.byCombination.get(
+                Objects.requireNonNull(shape, "Shape cannot be null").attributes());
+    }
+
+    /**
+     * Gets the number of orders matching a compiled filter. The count is read from the
+     * per-combination counters, so it takes the same time at any collection size.
+     *
+     * @param filter the filter
+     * @return the number of matching orders
+     */
+    public long count(OrderFilter filter) {
+        Objects.requireNonNull(filter, "Filter cannot be null");
+        AtomicLongArray byCombination = counters.byCombination;
+        long count = 0;
+        for (int word = 0, length = byCombination.length(); word < length; word++) {
+            if (filter.matches(word)) {
+                count += byCombination.get(word);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the most frequent order combinations, most frequent first. Combinations
+     * with the same count are ordered by their attributes.
+     *
+     * @param limit the maximum number of combinations
+     * @return the combinations with at least one order, at most limit of them
+     * @throws IllegalArgumentException if limit is negative
+     */
+    public List<Combination> topCombinations(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit cannot be negative: " + limit);
+        }
+        AtomicLongArray byCombination = counters.byCombination;
+        List<Combination> combinations = new ArrayList<>();
+        for (int word = 0, length = byCombination.length(); word < length; word++) {
+            long count = byCombination.get(word);
+            if (count > 0) {
+                OrderShape shape = OrderShape.of(word);
+                combinations.add(new Combination(shape.getSize(), shape.getGrindType(),
+                        shape.getBeverageType(), shape.getAdditions(), count));
+            }
+        }
+        combinations.sort(Comparator.comparingLong(Combination::count).reversed());
+        return List.copyOf(combinations.subList(0, Math.min(limit, combinations.size())));
+    }
+
+    /**
+     * Counts an order.
+     *
+     * @param attributes the order's attribute word
+     */
+    void add(int attributes) {
+        update(counters, attributes, 1);
+    }
+
+    /**
+     * Uncounts an order.
+     *
+     * @param attributes the order's attribute word
+     */
+    void remove(int attributes) {
+        update(counters, attributes, -1);
+    }
+
+    /**
+     * Resets every count to zero.
+     */
+    void clear() {
+        counters = new Counters();
+    }
+
+    private static void update(Counters counters, int attributes, int delta) {
+        counters.total.getAndAdd(delta);
+        counters.bySize.getAndAdd(OrderEncoding.sizeCode(attributes), delta);
+        counters.byBeverage.getAndAdd(OrderEncoding.beverageCode(attributes), delta);
+        counters.byGrind.getAndAdd(OrderEncoding.grindCode(attributes), delta);
+        for (int bits = OrderEncoding.additionsMask(attributes); bits != 0; bits &= bits - 1) {
+            counters.byAddition.getAndAdd(Integer.numberOfTrailingZeros(bits), delta);
+        }
+        counters.byCombination.getAndAdd(attributes, delta);
+    }
+
+    /**
+     * One set of counters, replaced as a whole by {@link #clear()}.
+     */
+    private static final class Counters {
+        private final AtomicLong total = new AtomicLong();
+        private final AtomicLongArray bySize = new AtomicLongArray(SIZES.length);
+        private final AtomicLongArray byBeverage = new AtomicLongArray(OrderEncoding.BEVERAGE_TYPES);
+        private final AtomicLongArray byGrind = new AtomicLongArray(GRIND_TYPES.length);
+        private final AtomicLongArray byAddition = new AtomicLongArray(ADDITIONS.length);
+        private final AtomicLongArray byCombination = new AtomicLongArray(1 << OrderEncoding.ATTRIBUTE_BITS);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.coffee;
+
+/**
+ * Represents the stages an order goes through, in order, from being placed to being
+ * picked up.
+ */
+public enum OrderStatus {
+    /** The order has been placed and is waiting to be prepared. */
+    PLACED("Placed"),
+    /** The beans are being ground. */
+    GRINDING("Grinding"),
+    /** The beverage is being brewed or poured. */
+    BREWING("Brewing"),
+    /** The beverage is ready to be picked up. */
+    READY("Ready"),
+    /** The customer has picked up the beverage. */
+    PICKED_UP("Picked Up");
+
+    private static final OrderStatus[] VALUES = values();
+
+    private final String displayName;
+
+    /**
+     * Creates an order status with the specified display name.
+     * 
+     * @param displayName the human-readable name for this status
+     */
+    OrderStatus(String displayName) {
+        this.displayName = displayName;
+    }
+
+    /**
+     * Gets the display name for this status.
+     * 
+     * @return the human-readable name
+     */
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * Gets the status an order moves to from this one.
+     * 
+     * @return the next status, or null for {@link #PICKED_UP}
+     */
+    public OrderStatus next() {
+        return ordinal() + 1 < VALUES.length ? VALUES[ordinal() + 1] : null;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.coffee;
+
+import java.util.List;
+
+/**
+ * Storage backend for an {@link OrderCollection}.
+ * A store places each order in a numbered slot; slots are handed out in insertion
+ * order and keep their number until the store is cleared, so indexes can refer to
+ * orders by slot. Removing an order leaves its slot empty, as a tombstone that readers
+ * skip; stores that support compaction let their owner reclaim tombstones by moving
+ * orders down with {@link #moveSlot(int, int)} and then calling {@link #truncate(int)}.
+ * Callers validate arguments, so implementations never receive null orders or IDs.
+ */
+public interface OrderStore {
+    /**
+     * Stores an order. Storing an order whose ID is already present replaces the
+     * stored order in its existing slot.
+     * 
+     * @param order the order to store
+     * @return the slot holding the order
+     */
+    int add(CoffeeOrder order);
+
+    /**
+     * Finds the slot holding the order with the given ID.
+     * 
+     * @param orderId the order ID to look up
+     * @return the slot of the order, or -1 if no order has this ID
+     */
+    int slotOf(String orderId);
+
+    /**
+     * Finds the slot holding an order with the same ID as the given one. Stores that
+     * key orders by packed ID override this to look the ID up without formatting it.
+     * 
+     * @param order the order whose ID to look up
+     * @return the slot of the order with that ID, or -1 if no order has it
+     */
+    default int slotOf(CoffeeOrder order) {
+        return slotOf(order.getOrderId());
+    }
+
+    /**
+     * Gets the order in a slot.
+     * 
+     * @param slot the slot to read
+     * @return the order in the slot, or null if the slot is empty or out of range
+     */
+    CoffeeOrder get(int slot);
+
+    /**
+     * Removes the order in a slot, leaving the slot empty.
+     * 
+     * @param slot the slot to empty
+     * @return the removed order, or null if the slot was already empty
+     */
+    CoffeeOrder remove(int slot);
+
+    /**
+     * Checks that an order could be stored, without storing it, so that a batch can be
+     * rejected as a whole before any of it is stored. Stores that accept any order
+     * accept this one.
+     * 
+     * @param order the order to check
+     * @throws IllegalArgumentException if the store cannot hold orders like this one
+     */
+    default void validate(CoffeeOrder order) {
+    }
+
+    /**
+     * Stores several orders as one operation, in order. Each order is stored as by
+     * {@link #add(CoffeeOrder)}, so a later order with the same ID as an earlier one in
+     * the batch replaces it. If an order cannot be stored, the orders before it stay
+     * stored with their entries filled in, and the entries of the rest are left as
+     * they were.
+     * 
+     * @param orders the orders to store
+     * @param slots receives, at each order's index, the slot holding it; must be at
+     *        least as long as orders
+     * @param replaced receives, at each order's index, the order it replaced, or null
+     *        if its ID was not present; must be at least as long as orders
+     */
+    default void addAll(List<CoffeeOrder> orders, int[] slots, CoffeeOrder[] replaced) {
+        for (int i = 0; i < orders.size(); i++) {
+            CoffeeOrder order = orders.get(i);
+            int existing = slotOf(order);
+            CoffeeOrder previous = existing < 0 ? null : get(existing);
+            slots[i] = add(order);
+            replaced[i] = previous;
+        }
+    }
+
+    /**
+     * Finds the first occupied slot at or above a slot, checking slots one at a time.
+     * Stores that can tell an occupied slot without building its order override this.
+     * 
+     * @param slot the slot to start at
+     * @return the first occupied slot not below slot, or -1 if there is none
+     */
+    default int nextOccupied(int slot) {
+        for (int s = Math.max(slot, 0), limit = slotLimit(); s < limit; s++) {
+            if (get(s) != null) {
+                return s;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the last occupied slot at or below a slot, checking slots one at a time.
+     * 
+     * @param slot the slot to start at
+     * @return the last occupied slot not above slot, or -1 if there is none
+     * @see #nextOccupied(int)
+     */
+    default int previousOccupied(int slot) {
+        for (int s = Math.min(slot, slotLimit() - 1); s >= 0; s--) {
+            if (get(s) != null) {
+                return s;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Removes the orders in several slots as one operation.
+     * 
+     * @param slots the slots to empty; negative slots are skipped
+     * @return the removed order for each slot, by index, or null where the slot was
+     *         already empty
+     */
+    default CoffeeOrder[] removeAll(int[] slots) {
+        CoffeeOrder[] removed = new CoffeeOrder[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            removed[i] = remove(slots[i]);
+        }
+        return removed;
+    }
+
+    /**
+     * Prepares the store to receive more orders, so that adding them does not
+     * repeatedly grow its storage. Stores that cannot pre-size ignore the hint.
+     * 
+     * @param additionalOrders the number of orders about to be added
+     */
+    default void ensureCapacity(int additionalOrders) {
+    }
+
+    /**
+     * Tells whether empty slots can be reclaimed with {@link #moveSlot(int, int)} and
+     * {@link #truncate(int)}.
+     * 
+     * @return true if the store supports compaction
+     */
+    default boolean supportsCompaction() {
+        return false;
+    }
+
+    /**
+     * Moves the order in a slot to a lower, empty slot. Lookups by ID find the order in
+     * its new slot and the old slot becomes empty.
+     * 
+     * @param from the occupied slot to move the order out of
+     * @param to the empty slot to move the order into, below from
+     * @throws UnsupportedOperationException if the store does not support compaction
+     */
+    default void moveSlot(int from, int to) {
+        throw new UnsupportedOperationException("Store does not support compaction");
+    }
+
+    /**
+     * Lowers the slot limit, releasing the slots above it; the next new order is
+     * placed in slot {@code slotLimit}.
+     * 
+     * @param slotLimit the new slot limit; every slot from it upwards must be empty
+     * @throws UnsupportedOperationException if the store does not support compaction
+     */
+    default void truncate(int slotLimit) {
+        throw new UnsupportedOperationException("Store does not support compaction");
+    }
+
+    /**
+     * Gets the number of slots handed out so far; every occupied slot is below it.
+     * 
+     * @return the exclusive upper bound of occupied slots
+     */
+    int slotLimit();
+
+    /**
+     * Gets the number of stored orders.
+     * 
+     * @return the number of orders
+     */
+    int size();
+
+    /**
+     * Removes all stored orders and starts numbering slots from zero again.
+     */
+    void clear();
+}
@@ -0,0 +1,578 @@
+package com.example.coffee;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only binary log of order mutations, written through a {@link FileChannel}.
+ * <p>
+ * The file starts with an 8-byte header (magic number and format version) followed by
+ * records of one type byte, a fixed-size payload and a CRC32C of type and payload:
+ * an added order is encoded with {@link CoffeeOrderCodec}, a removal carries the
+ * packed ID, and a clear has no payload. {@link #replay(Path, Listener)} stops at a
+ * torn final record, which is what a crash in the middle of a write leaves behind, and
+ * {@link #open(Path, SyncPolicy)} cuts the file there before appending. A damaged
+ * record with data after it cannot come from a crash, so both fail rather than
+ * silently drop the records that follow.
+ * </p>
+ * <p>
+ * Records are encoded into an in-memory buffer and written to the file before the
+ * append returns, so an acknowledged mutation survives a crash of the process; the
+ * {@link SyncPolicy} decides when the file is forced to disk. The log is thread-safe.
+ * </p>
+ */
+public final class OrderWriteAheadLog implements AutoCloseable {
+    private static final int MAGIC = 0x43574C31;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+    private static final byte ADD = 1;
+    private static final byte REMOVE = 2;
+    private static final byte CLEAR = 3;
+    private static final int ID_BYTES = 16;
+    private static final int CRC_BYTES = 4;
+    private static final int MAX_RECORD_BYTES = 1 + CoffeeOrderCodec.ENCODED_BYTES + CRC_BYTES;
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    /**
+     * When appended records are handed to the operating system and forced to disk.
+     */
+    public sealed interface SyncPolicy {
+        /**
+         * Writes and forces every record before the append returns, so an
+         * acknowledged mutation survives a power failure.
+         */
+        record EveryWrite() implements SyncPolicy {
+        }
+
+        /**
+         * Writes every record as it is appended and forces the file once per interval
+         * from a background thread, so appends do not wait for the disk and a power
+         * failure loses at most the last interval.
+         *
+         * @param interval the time between forced writes
+         */
+        record GroupCommit(Duration interval) implements SyncPolicy {
+            /**
+             * Validates the interval.
+             *
+             * @param interval the time between forced writes
+             * @throws IllegalArgumentException if interval is not positive
+             */
+            public GroupCommit {
+                Objects.requireNonNull(interval, "Interval cannot be null");
+                if (interval.isNegative() || interval.isZero()) {
+                    throw new IllegalArgumentException("Interval must be positive: " + interval);
+                }
+            }
+        }
+
+        /**
+         * Writes every record as it is appended but only forces the file on
+         * {@link #flush()} and on close, leaving it to the operating system when records
+         * reach the disk. This is the fastest policy; a power failure or operating
+         * system crash loses whatever the system had not written out yet.
+         */
+        record OsBuffered() implements SyncPolicy {
+        }
+
+        /**
+         * Gets the policy that forces every record to disk.
+         *
+         * @return the every-write policy
+         */
+        static SyncPolicy everyWrite() {
+            return new EveryWrite();
+        }
+
+        /**
+         * Gets a policy that forces buffered records to disk once per interval.
+         *
+         * @param interval the time between forced writes
+         * @return the group-commit policy
+         */
+        static SyncPolicy groupCommit(Duration interval) {
+            return new GroupCommit(interval);
+        }
+
+        /**
+         * Gets the policy that leaves flushing to the operating system.
+         *
+         * @return the OS-buffered policy
+         */
+        static SyncPolicy osBuffered() {
+            return new OsBuffered();
+        }
+    }
+
+    /**
+     * Receives the mutations read back by {@link #replay(Path, Listener)}.
+     */
+    public interface Listener {
+        /**
+         * Called for a logged add.
+         *
+         * @param order the added order
+         */
+        void added(CoffeeOrder order);
+
+        /**
+         * Called for a logged removal.
+         *
+         * @param orderId the ID of the removed order
+         */
+        void removed(String orderId);
+
+        /**
+         * Called for a logged clear.
+         */
+        void cleared();
+    }
+
+    private final FileChannel channel;
+    private final SyncPolicy syncPolicy;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    private final CRC32C crc = new CRC32C();
+    private final ScheduledExecutorService syncer;
+    private volatile IOException failure;
+    private volatile boolean closed;
+
+    private OrderWriteAheadLog(FileChannel channel, SyncPolicy syncPolicy) {
+        this.channel = channel;
+        this.syncPolicy = syncPolicy;
+        if (syncPolicy instanceof SyncPolicy.GroupCommit groupCommit) {
+            long nanos = groupCommit.interval().toNanos();
+            syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "order-wal-sync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            syncer.scheduleAtFixedRate(this::backgroundSync, nanos, nanos, TimeUnit.NANOSECONDS);
+        } else {
+            syncer = null;
+        }
+    }
+
+    /**
+     * Opens a log for appending, creating the file if needed and cutting off a torn
+     * final record. Call {@link #replay(Path, Listener)} first to recover the logged
+     * mutations.
+     *
+     * @param path the log file
+     * @param syncPolicy when records are forced to disk
+     * @return the open log
+     * @throws IOException if the file cannot be opened, is not an order log or is
+     *         corrupt before its final record
+     */
+    public static OrderWriteAheadLog open(Path path, SyncPolicy syncPolicy) throws IOException {
+        Objects.requireNonNull(syncPolicy, "Sync policy cannot be null");
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long end = scan(channel, null);
+            channel.truncate(end);
+            if (end == 0) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION);
+                channel.write(header.flip(), 0);
+                channel.force(true);
+                end = HEADER_BYTES;
+            }
+            channel.position(end);
+            return new OrderWriteAheadLog(channel, syncPolicy);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads every record of a log in order, skipping a torn final record. A missing
+     * file holds no records.
+     *
+     * @param path the log file
+     * @param listener receives the logged mutations
+     * @return the number of records read
+     * @throws IOException if the file cannot be read, is not an order log or is corrupt
+     *         before its final record; the records before the damage have been passed
+     *         to the listener then
+     */
+    public static long replay(Path path, Listener listener) throws IOException {
+        Objects.requireNonNull(listener, "Listener cannot be null");
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long[] records = new long[1];
+            scan(channel, new Listener() {
+                @Override
+                public void added(CoffeeOrder order) {
+                    records[0]++;
+                    listener.added(order);
+                }
+
+                @Override
+                public void removed(String orderId) {
+                    records[0]++;
+                    listener.removed(orderId);
+                }
+
+                @Override
+                public void cleared() {
+                    records[0]++;
+                    listener.cleared();
+                }
+            });
+            return records[0];
+        }
+    }
+
+    /**
+     * Appends an added order.
+     *
+     * @param order the added order; its ID must be a canonical UUID
+     * @throws IllegalArgumentException if the order ID is not a canonical UUID
+     * @throws UncheckedIOException if the log cannot be written
+     */
+    public synchronized void appendAdd(CoffeeOrder order) {
+        writeAdd(order);
+        commit();
+    }
+
+    /**
+     * Appends several added orders, forcing them to disk together when the sync policy
+     * forces every write. Nothing is appended if any order cannot be logged.
+     *
+     * @param orders the added orders; their IDs must be canonical UUIDs
+     * @throws IllegalArgumentException if an order ID is not a canonical UUID
+     * @throws UncheckedIOException if the log cannot be written
+     */
+    public synchronized void appendAdds(List<CoffeeOrder> orders) {
+        for (CoffeeOrder order : orders) {
+            if (!order.hasPackedId()) {
+                throw new IllegalArgumentException(
+                        "Order ID is not a canonical UUID: " + order.getOrderId());
+            }
+        }
+        for (CoffeeOrder order : orders) {
+            writeAdd(order);
+        }
+        commit();
+    }
+
+    /**
+     * Appends a removal. IDs that are not canonical UUIDs cannot have been logged as
+     * added and are ignored.
+     *
+     * @param orderId the ID of the removed order
+     * @throws UncheckedIOException if the log cannot be written
+     */
+    public synchronized void appendRemove(String orderId) {
+        writeRemove(orderId);
+        commit();
+    }
+
+    /**
+     * Appends several removals, forcing them to disk together when the sync policy
+     * forces every write. IDs that are not canonical UUIDs are ignored.
+     *
+     * @param orderIds the IDs of the removed orders
+     * @throws UncheckedIOException if the log cannot be written
+     */
+    public synchronized void appendRemoves(List<String> orderIds) {
+        for (String orderId : orderIds) {
+            writeRemove(orderId);
+        }
+        commit();
+    }
+
+    /**
+     * Appends a clear.
+     *
+     * @throws UncheckedIOException if the log cannot be written
+     */
+    public synchronized void appendClear() {
+        endRecord(beginRecord(CLEAR));
+        commit();
+    }
+
+    /**
+     * Forces every appended record to disk.
+     *
+     * @throws UncheckedIOException if the log cannot be written
+     */
+    public synchronized void flush() {
+        ensureOpen();
+        try {
+            drain();
+            channel.force(false);
+        } catch (IOException e) {
+            failure = e;
+            throw new UncheckedIOException("Failed to flush order log", e);
+        }
+    }
+
+    /**
+     * Gets the policy deciding when records are forced to disk.
+     *
+     * @return the sync policy
+     */
+    public SyncPolicy syncPolicy() {
+        return syncPolicy;
+    }
+
+    /**
+     * Flushes buffered records and closes the file. Closing a closed log has no effect.
+     *
+     * @throws IOException if the final flush or close fails
+     */
+    @Override
+    public void close() throws IOException {
+        if (syncer != null) {
+            // Interrupting a sync in progress would close the channel under it.
+            syncer.shutdown();
+        }
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                drain();
+                channel.force(false);
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    private void writeAdd(CoffeeOrder order) {
+        int start = beginRecord(ADD);
+        try {
+            CoffeeOrderCodec.encode(order, buffer);
+        } catch (IllegalArgumentException e) {
+            buffer.position(start);
+            throw e;
+        }
+        endRecord(start);
+    }
+
+    private void writeRemove(String orderId) {
+        if (!OrderEncoding.isPackableId(orderId)) {
+            return;
+        }
+        int start = beginRecord(REMOVE);
+        buffer.putLong(OrderEncoding.idHigh(orderId)).putLong(OrderEncoding.idLow(orderId));
+        endRecord(start);
+    }
+
+    /**
+     * Writes the records of the current append to the file, forcing it if the sync
+     * policy forces every write.
+     */
+    private void commit() {
+        try {
+            drain();
+            if (syncPolicy instanceof SyncPolicy.EveryWrite) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            failure = e;
+            throw new UncheckedIOException("Failed to write order log", e);
+        }
+    }
+
+    private int beginRecord(byte type) {
+        ensureOpen();
+        if (buffer.remaining() < MAX_RECORD_BYTES) {
+            try {
+                drain();
+            } catch (IOException e) {
+                failure = e;
+                throw new UncheckedIOException("Failed to write order log", e);
+            }
+        }
+        int start = buffer.position();
+        buffer.put(type);
+        return start;
+    }
+
+    private void endRecord(int start) {
+        crc.reset();
+        crc.update(buffer.duplicate().position(start).limit(buffer.position()));
+        buffer.putInt((int) crc.getValue());
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    // Records are already in the file, so forcing needs no lock and appends go on
+    // while the disk catches up.
+    private void backgroundSync() {
+        if (closed || failure != null) {
+            return;
+        }
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            if (!closed) {
+                failure = e;
+            }
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Order log is closed");
+        }
+        if (failure != null) {
+            throw new UncheckedIOException("Order log failed to write earlier", failure);
+        }
+    }
+
+    /**
+     * Reads records from the start of a channel, passing them to a listener if given.
+     *
+     * @return the file position after the last intact record, or 0 for an empty file
+     */
+    private static long scan(FileChannel channel, Listener listener) throws IOException {
+        long size = channel.size();
+        if (size == 0) {
+            return 0;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+            // Keep reading until the header is complete or the file ends.
+        }
+        if (header.hasRemaining()) {
+            return 0;
+        }
+        header.flip();
+        if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+            throw new IOException("Not an order log: " + channel);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+        CRC32C crc = new CRC32C();
+        long position = HEADER_BYTES;
+        long readPosition = HEADER_BYTES;
+        buffer.limit(0);
+        while (true) {
+            if (buffer.remaining() < MAX_RECORD_BYTES && readPosition < size) {
+                buffer.compact();
+                int read = channel.read(buffer, readPosition);
+                if (read > 0) {
+                    readPosition += read;
+                }
+                buffer.flip();
+            }
+            if (!buffer.hasRemaining()) {
+                return position;
+            }
+            int start = buffer.position();
+            byte type = buffer.get(start);
+            int payload = switch (type) {
+                case ADD -> CoffeeOrderCodec.ENCODED_BYTES;
+                case REMOVE -> ID_BYTES;
+                case CLEAR -> 0;
+                default -> -1;
+            };
+            if (payload < 0) {
+                return tornTail(channel, position, -1, size);
+            }
+            long recordEnd = position + 1 + payload + CRC_BYTES;
+            if (buffer.remaining() < 1 + payload + CRC_BYTES) {
+                return tornTail(channel, position, recordEnd, size);
+            }
+            crc.reset();
+            crc.update(buffer.duplicate().position(start).limit(start + 1 + payload));
+            if (buffer.getInt(start + 1 + payload) != (int) crc.getValue()) {
+                return tornTail(channel, position, recordEnd, size);
+            }
+            if (!deliver(buffer, start + 1, type, listener)) {
+                throw new IOException("Order log holds an invalid order at offset " + position
+                        + ": " + channel);
+            }
+            buffer.position(start + 1 + payload + CRC_BYTES);
+            position += 1 + payload + CRC_BYTES;
+        }
+    }
+
+    /**
+     * Checks that an unreadable record is the torn tail of an interrupted append: a
+     * record cut short by the end of the file, the last record in the file, or the
+     * start of a run of zeros up to the end of the file, which a crash can leave behind
+     * after the file grew.
+     *
+     * @param recordEnd the end of the record, or -1 if its type is unknown
+     * @return the position, where the intact log ends
+     * @throws IOException if the record is followed by other data, so the log is corrupt
+     *         in the middle and cutting it there would lose acknowledged records
+     */
+    private static long tornTail(FileChannel channel, long position, long recordEnd, long size)
+            throws IOException {
+        if (recordEnd >= size) {
+            return position;
+        }
+        ByteBuffer rest = ByteBuffer.allocate(BUFFER_BYTES);
+        for (long offset = position; offset < size; ) {
+            int read = channel.read(rest.clear(), offset);
+            if (read < 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (rest.get(i) != 0) {
+                    throw new IOException("Order log is corrupt at offset " + position
+                            + ": " + channel);
+                }
+            }
+            offset += read;
+        }
+        return position;
+    }
+
+    /**
+     * Decodes a record and passes it to the listener, if any.
+     *
+     * @return false if the record holds an invalid order
+     */
+    private static boolean deliver(ByteBuffer buffer, int offset, byte type, Listener listener) {
+        if (type == CLEAR) {
+            if (listener != null) {
+                listener.cleared();
+            }
+            return true;
+        }
+        if (type == REMOVE) {
+            if (listener != null) {
+                listener.removed(OrderEncoding.formatId(buffer.getLong(offset),
+                        buffer.getLong(offset + Long.BYTES)));
+            }
+            return true;
+        }
+        CoffeeOrder order;
+        try {
+            order = CoffeeOrderCodec.decode(buffer, offset);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        if (listener != null) {
+            listener.added(order);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.coffee;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Compact single-threaded {@link OrderStore} that keeps orders in primitive arrays
+ * instead of {@link CoffeeOrder} objects.
+ * <p>
+ * Each slot takes two longs for the order ID and one int for the attribute word
+ * (size, grind type, beverage type and addition mask), about 20 bytes per order
+ * plus the ID index. Arrays are allocated in fixed-size chunks, so growing the store
+ * never copies existing orders. {@link #get(int)} builds a new {@link CoffeeOrder}
+ * view on every call; views of the same slot are equal to each other and to the
+ * order that was stored.
+ * </p>
+ * <p>
+ * Only order IDs in canonical UUID form, as generated by {@link CoffeeOrder}, can be
+ * stored.
+ * </p>
+ */
+public class PackedOrderStore implements EncodedOrderStore {
+    private static final int CHUNK_SHIFT = 16;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int OCCUPIED = 1 << 31;
+
+    private long[][] idHighs;
+    private long[][] idLows;
+    private int[][] attributes;
+    private int slotLimit;
+    private int size;
+    private final SlotIdIndex idIndex = new SlotIdIndex(new SlotIdIndex.Keys() {
+        @Override
+        public long high(int slot) {
+            return idHighs[slot >>> CHUNK_SHIFT][slot & CHUNK_MASK];
+        }
+
+        @Override
+        public long low(int slot) {
+            return idLows[slot >>> CHUNK_SHIFT][slot & CHUNK_MASK];
+        }
+    }, IntBuffer::allocate);
+
+    /**
+     * Creates an empty packed store.
+     */
+    public PackedOrderStore() {
+        reset();
+    }
+
+    @Override
+    public int add(CoffeeOrder order) {
+        validate(order);
+        long high = order.idHigh();
+        long low = order.idLow();
+        int word = OrderEncoding.encode(order) | OCCUPIED;
+        int existing = idIndex.find(high, low);
+        if (existing >= 0) {
+            attributes[existing >>> CHUNK_SHIFT][existing & CHUNK_MASK] = word;
+            return existing;
+        }
+        if (slotLimit == Integer.MAX_VALUE) {
+            throw new IllegalStateException("Order store is full");
+        }
+        int slot = slotLimit++;
+        int chunk = slot >>> CHUNK_SHIFT;
+        if (chunk == idHighs.length) {
+            growDirectory();
+        }
+        if (idHighs[chunk] == null) {
+            idHighs[chunk] = new long[CHUNK_SIZE];
+            idLows[chunk] = new long[CHUNK_SIZE];
+            attributes[chunk] = new int[CHUNK_SIZE];
+        }
+        idHighs[chunk][slot & CHUNK_MASK] = high;
+        idLows[chunk][slot & CHUNK_MASK] = low;
+        attributes[chunk][slot & CHUNK_MASK] = word;
+        size++;
+        idIndex.insert(slot);
+        return slot;
+    }
+
+    /**
+     * Allocates the chunks and ID index entries for the additional orders up front.
+     * 
+     * @param additionalOrders the number of orders about to be added
+     */
+    @Override
+    public void ensureCapacity(int additionalOrders) {
+        if (additionalOrders <= 0) {
+            return;
+        }
+        long lastSlot = Math.min((long) slotLimit + additionalOrders, Integer.MAX_VALUE) - 1;
+        for (int chunk = slotLimit >>> CHUNK_SHIFT; chunk <= (int) (lastSlot >>> CHUNK_SHIFT); chunk++) {
+            if (chunk == idHighs.length) {
+                growDirectory();
+            }
+            if (idHighs[chunk] == null) {
+                idHighs[chunk] = new long[CHUNK_SIZE];
+                idLows[chunk] = new long[CHUNK_SIZE];
+                attributes[chunk] = new int[CHUNK_SIZE];
+            }
+        }
+        idIndex.ensureCapacity(additionalOrders);
+    }
+
+    @Override
+    public int slotOf(String orderId) {
+        if (!OrderEncoding.isPackableId(orderId)) {
+            return -1;
+        }
+        return idIndex.find(OrderEncoding.idHigh(orderId), OrderEncoding.idLow(orderId));
+    }
+
+    @Override
+    public int slotOf(CoffeeOrder order) {
+        return order.hasPackedId() ? idIndex.find(order.idHigh(), order.idLow()) : -1;
+    }
+
+    @Override
+    public CoffeeOrder get(int slot) {
+        int word = word(slot);
+        if ((word & OCCUPIED) == 0) {
+            return null;
+        }
+        int chunk = slot >>> CHUNK_SHIFT;
+        return OrderEncoding.decode(idHighs[chunk][slot & CHUNK_MASK],
+                idLows[chunk][slot & CHUNK_MASK], word & ~OCCUPIED);
+    }
+
+    @Override
+    public int attributes(int slot) {
+        int word = word(slot);
+        return (word & OCCUPIED) == 0 ? -1 : word & ~OCCUPIED;
+    }
+
+    @Override
+    public long idHigh(int slot) {
+        return idHighs[slot >>> CHUNK_SHIFT][slot & CHUNK_MASK];
+    }
+
+    @Override
+    public long idLow(int slot) {
+        return idLows[slot >>> CHUNK_SHIFT][slot & CHUNK_MASK];
+    }
+
+    @Override
+    public CoffeeOrder remove(int slot) {
+        CoffeeOrder order = get(slot);
+        if (order == null) {
+            return null;
+        }
+        attributes[slot >>> CHUNK_SHIFT][slot & CHUNK_MASK] = 0;
+        size--;
+        idIndex.delete(slot);
+        return order;
+    }
+
+    @Override
+    public boolean supportsCompaction() {
+        return true;
+    }
+
+    @Override
+    public void moveSlot(int from, int to) {
+        int fromChunk = from >>> CHUNK_SHIFT;
+        int toChunk = to >>> CHUNK_SHIFT;
+        idHighs[toChunk][to & CHUNK_MASK] = idHighs[fromChunk][from & CHUNK_MASK];
+        idLows[toChunk][to & CHUNK_MASK] = idLows[fromChunk][from & CHUNK_MASK];
+        attributes[toChunk][to & CHUNK_MASK] = attributes[fromChunk][from & CHUNK_MASK];
+        idIndex.move(from, to);
+        attributes[fromChunk][from & CHUNK_MASK] = 0;
+    }
+
+    /**
+     * Lowers the slot limit and drops the chunks that lie entirely above it.
+     * 
+     * @param slotLimit the new slot limit
+     */
+    @Override
+    public void truncate(int slotLimit) {
+        for (int chunk = (slotLimit + CHUNK_MASK) >>> CHUNK_SHIFT; chunk < idHighs.length; chunk++) {
+            idHighs[chunk] = null;
+            idLows[chunk] = null;
+            attributes[chunk] = null;
+        }
+        this.slotLimit = slotLimit;
+    }
+
+    @Override
+    public int slotLimit() {
+        return slotLimit;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        reset();
+    }
+
+    // Not overridable, so the constructor can share it with clear() safely.
+    private void reset() {
+        idHighs = new long[1][];
+        idLows = new long[1][];
+        attributes = new int[1][];
+        slotLimit = 0;
+        size = 0;
+        idIndex.clear();
+    }
+
+    private int word(int slot) {
+        if (slot < 0 || slot >= slotLimit) {
+            return 0;
+        }
+        return attributes[slot >>> CHUNK_SHIFT][slot & CHUNK_MASK];
+    }
+
+    private void growDirectory() {
+        int length = idHighs.length * 2;
+        idHighs = Arrays.copyOf(idHighs, length);
+        idLows = Arrays.copyOf(idLows, length);
+        attributes = Arrays.copyOf(attributes, length);
+    }
+}
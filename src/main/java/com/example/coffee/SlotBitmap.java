@@ -0,0 +1,181 @@
+package com.example.coffee;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * Growable bitmap over store slots.
+ * Bits are kept in fixed-size chunks of words that are never copied, and are set and
+ * cleared with atomic bitwise operations so writers on different threads do not lose
+ * each other's updates.
+ */
+final class SlotBitmap {
+    private static final int CHUNK_SHIFT = 10;
+    private static final int CHUNK_WORDS = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_WORDS - 1;
+    private static final VarHandle WORD = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private volatile long[][] chunks = new long[0][];
+
+    /**
+     * Sets the bit of a slot.
+     * 
+     * @param slot the slot to mark
+     */
+    void set(int slot) {
+        int wordIndex = slot >>> 6;
+        WORD.getAndBitwiseOr(chunkFor(wordIndex), wordIndex & CHUNK_MASK, 1L << slot);
+    }
+
+    /**
+     * Clears the bit of a slot.
+     * 
+     * @param slot the slot to unmark
+     */
+    void clear(int slot) {
+        int wordIndex = slot >>> 6;
+        long[][] directory = chunks;
+        int chunkIndex = wordIndex >>> CHUNK_SHIFT;
+        if (chunkIndex < directory.length && directory[chunkIndex] != null) {
+            WORD.getAndBitwiseAnd(directory[chunkIndex], wordIndex & CHUNK_MASK, ~(1L << slot));
+        }
+    }
+
+    /**
+     * Checks whether the bit of a slot is set.
+     * 
+     * @param slot the slot to check
+     * @return true if the slot is marked
+     */
+    boolean get(int slot) {
+        return (word(slot >>> 6) & (1L << slot)) != 0;
+    }
+
+    /**
+     * Gets a 64-bit word of the bitmap; bit {@code i} of word {@code w} is slot
+     * {@code w * 64 + i}.
+     * 
+     * @param wordIndex the index of the word
+     * @return the word, or zero if it lies beyond the allocated bits
+     */
+    long word(int wordIndex) {
+        long[][] directory = chunks;
+        int chunkIndex = wordIndex >>> CHUNK_SHIFT;
+        if (chunkIndex >= directory.length || directory[chunkIndex] == null) {
+            return 0L;
+        }
+        return (long) WORD.getAcquire(directory[chunkIndex], wordIndex & CHUNK_MASK);
+    }
+
+    /**
+     * Gets the number of words that may hold set bits.
+     * 
+     * @return the allocated word count
+     */
+    int wordCount() {
+        return chunks.length << CHUNK_SHIFT;
+    }
+
+    /**
+     * Finds the first set bit at or after a slot. Unallocated chunks are skipped whole.
+     * 
+     * @param from the slot to start at
+     * @return the first marked slot not below from, or -1 if there is none
+     */
+    int nextSetBit(int from) {
+        if (from < 0) {
+            from = 0;
+        }
+        long[][] directory = chunks;
+        int wordIndex = from >>> 6;
+        long mask = -1L << from;
+        for (int chunkIndex = wordIndex >>> CHUNK_SHIFT; chunkIndex < directory.length; chunkIndex++) {
+            long[] chunk = directory[chunkIndex];
+            if (chunk != null) {
+                for (int w = wordIndex & CHUNK_MASK; w < CHUNK_WORDS; w++) {
+                    long word = (long) WORD.getAcquire(chunk, w) & mask;
+                    if (word != 0) {
+                        return (chunkIndex << CHUNK_SHIFT | w) << 6 | Long.numberOfTrailingZeros(word);
+                    }
+                    mask = -1L;
+                }
+            }
+            wordIndex = (chunkIndex + 1) << CHUNK_SHIFT;
+            mask = -1L;
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the last set bit at or before a slot. Unallocated chunks are skipped whole.
+     * 
+     * @param from the slot to start at
+     * @return the last marked slot not above from, or -1 if there is none
+     */
+    int previousSetBit(int from) {
+        if (from < 0) {
+            return -1;
+        }
+        long[][] directory = chunks;
+        int wordIndex = from >>> 6;
+        long mask = -1L >>> (63 - (from & 63));
+        int chunkIndex = wordIndex >>> CHUNK_SHIFT;
+        if (chunkIndex >= directory.length) {
+            chunkIndex = directory.length - 1;
+            wordIndex = CHUNK_WORDS - 1;
+            mask = -1L;
+        }
+        for (; chunkIndex >= 0; chunkIndex--) {
+            long[] chunk = directory[chunkIndex];
+            if (chunk != null) {
+                for (int w = wordIndex & CHUNK_MASK; w >= 0; w--) {
+                    long word = (long) WORD.getAcquire(chunk, w) & mask;
+                    if (word != 0) {
+                        return (chunkIndex << CHUNK_SHIFT | w) << 6 | 63 - Long.numberOfLeadingZeros(word);
+                    }
+                    mask = -1L;
+                }
+            }
+            wordIndex = CHUNK_WORDS - 1;
+            mask = -1L;
+        }
+        return -1;
+    }
+
+    /**
+     * Counts the set bits.
+     * 
+     * @return the number of marked slots
+     */
+    int cardinality() {
+        int count = 0;
+        for (int w = 0, words = wordCount(); w < words; w++) {
+            count += Long.bitCount(word(w));
+        }
+        return count;
+    }
+
+    private long[] chunkFor(int wordIndex) {
+        int chunkIndex = wordIndex >>> CHUNK_SHIFT;
+        long[][] directory = chunks;
+        if (chunkIndex < directory.length && directory[chunkIndex] != null) {
+            return directory[chunkIndex];
+        }
+        return allocateChunk(chunkIndex);
+    }
+
+    private synchronized long[] allocateChunk(int chunkIndex) {
+        long[][] directory = chunks;
+        if (chunkIndex >= directory.length) {
+            directory = Arrays.copyOf(directory, Math.max(chunkIndex + 1, directory.length * 2));
+        } else if (directory[chunkIndex] != null) {
+            return directory[chunkIndex];
+        } else {
+            directory = directory.clone();
+        }
+        directory[chunkIndex] = new long[CHUNK_WORDS];
+        chunks = directory;
+        return directory[chunkIndex];
+    }
+}
@@ -0,0 +1,234 @@
+package com.example.coffee;
+
+import java.nio.IntBuffer;
+import java.util.function.IntFunction;
+
+/**
+ * Open-addressing hash index from packed order IDs to store slots, used by stores
+ * that keep IDs as two longs rather than strings.
+ * <p>
+ * The table uses linear probing and holds {@code slot + 1} per entry, with zero
+ * marking an empty entry; removals use backward-shift deletion, so no tombstones
+ * build up. The table lives in an {@link IntBuffer} from the given allocator, which
+ * lets the owning store choose heap or direct memory. Tables are also persisted in
+ * snapshot files, so the hash function and probing scheme must not change.
+ * </p>
+ */
+final class SlotIdIndex {
+    private static final int MIN_LENGTH = 16;
+    private static final int MAX_LENGTH = 1 << 29;
+
+    /**
+     * Reads the packed ID stored in a slot.
+     */
+    interface Keys {
+        /**
+         * Gets the high bits of the ID in a slot.
+         * 
+         * @param slot an occupied slot
+         * @return the high ID bits
+         */
+        long high(int slot);
+
+        /**
+         * Gets the low bits of the ID in a slot.
+         * 
+         * @param slot an occupied slot
+         * @return the low ID bits
+         */
+        long low(int slot);
+    }
+
+    private final Keys keys;
+    private final IntFunction<IntBuffer> allocator;
+    private IntBuffer table;
+    private int size;
+
+    /**
+     * Creates an empty index.
+     * 
+     * @param keys reads IDs from slots
+     * @param allocator allocates zero-filled tables of the requested length
+     */
+    SlotIdIndex(Keys keys, IntFunction<IntBuffer> allocator) {
+        this.keys = keys;
+        this.allocator = allocator;
+        clear();
+    }
+
+    /**
+     * Creates an index over an existing table, such as one read from a snapshot file.
+     * 
+     * @param keys reads IDs from slots
+     * @param table the table, whose capacity must be a power of two
+     * @param size the number of entries in the table
+     * @param allocator allocates zero-filled tables when the index grows or is cleared
+     */
+    SlotIdIndex(Keys keys, IntBuffer table, int size, IntFunction<IntBuffer> allocator) {
+        this.keys = keys;
+        this.allocator = allocator;
+        this.table = table;
+        this.size = size;
+    }
+
+    /**
+     * Gets the table length that holds the given number of entries without growing.
+     * 
+     * @param entries the number of entries
+     * @return the table length, a power of two
+     * @throws IllegalArgumentException if the entries do not fit in the largest table
+     */
+    static int tableLengthFor(int entries) {
+        int length = MIN_LENGTH;
+        while (entries * 4L > length * 3L) {
+            if (length == MAX_LENGTH) {
+                throw new IllegalArgumentException("Too many entries for an ID index: " + entries);
+            }
+            length <<= 1;
+        }
+        return length;
+    }
+
+    /**
+     * Finds the slot holding an ID.
+     * 
+     * @param high the high ID bits
+     * @param low the low ID bits
+     * @return the slot, or -1 if the ID is not indexed
+     */
+    int find(long high, long low) {
+        int mask = table.capacity() - 1;
+        for (int i = hash(high, low) & mask; ; i = (i + 1) & mask) {
+            int entry = table.get(i);
+            if (entry == 0) {
+                return -1;
+            }
+            int slot = entry - 1;
+            if (keys.high(slot) == high && keys.low(slot) == low) {
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * Indexes an occupied slot whose ID is not indexed yet.
+     * 
+     * @param slot the slot to index
+     */
+    void insert(int slot) {
+        if ((size + 1) * 4L > table.capacity() * 3L) {
+            if (table.capacity() == MAX_LENGTH) {
+                throw new IllegalStateException("Order ID index is full");
+            }
+            resize(table.capacity() * 2);
+        }
+        place(slot);
+        size++;
+    }
+
+    /**
+     * Removes an indexed slot.
+     * 
+     * @param slot the slot to remove; its ID must still be readable
+     */
+    void delete(int slot) {
+        int mask = table.capacity() - 1;
+        int i = home(slot, mask);
+        while (table.get(i) != slot + 1) {
+            i = (i + 1) & mask;
+        }
+        for (int next = (i + 1) & mask; table.get(next) != 0; next = (next + 1) & mask) {
+            int entry = table.get(next);
+            if (((next - home(entry - 1, mask)) & mask) >= ((next - i) & mask)) {
+                table.put(i, entry);
+                i = next;
+            }
+        }
+        table.put(i, 0);
+        size--;
+    }
+
+    /**
+     * Points the entry of an indexed slot at another slot holding the same ID.
+     * 
+     * @param from the indexed slot; its ID must still be readable
+     * @param to the slot that now holds the ID
+     */
+    void move(int from, int to) {
+        int mask = table.capacity() - 1;
+        int i = home(from, mask);
+        while (table.get(i) != from + 1) {
+            i = (i + 1) & mask;
+        }
+        table.put(i, to + 1);
+    }
+
+    /**
+     * Grows the table ahead of time so that the given number of additional entries
+     * can be inserted without resizing.
+     * 
+     * @param additionalEntries the number of entries about to be inserted
+     */
+    void ensureCapacity(int additionalEntries) {
+        long entries = Math.min((long) size + additionalEntries, MAX_LENGTH / 4 * 3);
+        int length = tableLengthFor((int) entries);
+        if (length > table.capacity()) {
+            resize(length);
+        }
+    }
+
+    /**
+     * Gets the number of entries the current table can hold, including free ones.
+     * 
+     * @return the table length
+     */
+    int tableLength() {
+        return table.capacity();
+    }
+
+    /**
+     * Removes every entry and shrinks the table to its minimum length.
+     */
+    void clear() {
+        table = allocator.apply(MIN_LENGTH);
+        size = 0;
+    }
+
+    /**
+     * Drops the table without allocating a new one, so that its memory can be
+     * reclaimed. The index must not be used afterwards.
+     */
+    void release() {
+        table = null;
+        size = 0;
+    }
+
+    private void place(int slot) {
+        int mask = table.capacity() - 1;
+        int i = home(slot, mask);
+        while (table.get(i) != 0) {
+            i = (i + 1) & mask;
+        }
+        table.put(i, slot + 1);
+    }
+
+    private void resize(int length) {
+        IntBuffer old = table;
+        table = allocator.apply(length);
+        for (int i = 0, capacity = old.capacity(); i < capacity; i++) {
+            int entry = old.get(i);
+            if (entry != 0) {
+                place(entry - 1);
+            }
+        }
+    }
+
+    private int home(int slot, int mask) {
+        return hash(keys.high(slot), keys.low(slot)) & mask;
+    }
+
+    private static int hash(long high, long low) {
+        long h = (high ^ low) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,545 @@
+package com.example.coffee;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Copy-on-write mirror of a store's slots from which {@link OrderSnapshot}s are taken.
+ * <p>
+ * Slots live in fixed-size chunks. Taking a snapshot freezes the current chunks and
+ * hands them to the snapshot; the first write to a frozen chunk afterwards copies that
+ * one chunk, so snapshots never see later writes and never copy the orders as a whole.
+ * Nothing takes a lock: each chunk has a state word counting the writers inside it.
+ * Freezing a chunk turns new writers away to a copy and waits only for the writers
+ * already inside, each of which is storing a single slot. Writers to different chunks
+ * never contend, and the chunk directory is published through volatile fields.
+ * </p>
+ * <p>
+ * The mirror of an {@link EncodedOrderStore} keeps the two halves of each order ID and
+ * its attribute word in primitive arrays, as the store does, and snapshots decode
+ * orders as they are read; other stores already hold their orders as objects, which
+ * the mirror shares.
+ * </p>
+ * <p>
+ * A mirror of a store that already holds orders is filled by {@link #fill(OrderStore)}
+ * while writers keep updating it. Each chunk is filled from the store's current
+ * contents while writers to that chunk wait, so a writer's update, which always
+ * follows its change to the store, is never overwritten by an older value.
+ * </p>
+ */
+final class SnapshotSlots {
+    static final int CHUNK_SHIFT = 12;
+    static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final boolean packed;
+    private volatile Table table = new Table();
+    private volatile boolean filled;
+
+    /**
+     * Creates an empty mirror.
+     *
+     * @param packed whether to keep orders as IDs and attribute words rather than
+     *        objects
+     */
+    SnapshotSlots(boolean packed) {
+        this.packed = packed;
+    }
+
+    /**
+     * Copies the orders of a store into the mirror. Must be called exactly once, after
+     * the mirror is visible to writers and before any snapshot is taken.
+     *
+     * @param store the store being mirrored
+     */
+    void fill(OrderStore store) {
+        Table current = table;
+        EncodedOrderStore encoded = packed ? (EncodedOrderStore) store : null;
+        for (int start = 0, end = store.slotLimit(); start < end; start += CHUNK_SIZE) {
+            AtomicReference<Chunk> holder = current.holder(start >>> CHUNK_SHIFT);
+            Chunk chunk = holder.get();
+            if (chunk == null) {
+                holder.compareAndSet(null, newChunk());
+                chunk = holder.get();
+            }
+            chunk.beginFill();
+            try {
+                int count = Math.min(CHUNK_SIZE, end - start);
+                for (int i = 0; i < count; i++) {
+                    int slot = start + i;
+                    int attributes;
+                    if (encoded == null) {
+                        chunk.set(i, store.get(slot));
+                    } else if ((attributes = encoded.attributes(slot)) < 0) {
+                        chunk.set(i, null);
+                    } else {
+                        ((PackedChunk) chunk).set(i, encoded.idHigh(slot), encoded.idLow(slot),
+                                attributes);
+                    }
+                }
+                chunk.recount();
+            } finally {
+                chunk.endFill();
+            }
+        }
+        filled = true;
+    }
+
+    /**
+     * Checks whether {@link #fill(OrderStore)} has finished, so snapshots can be taken.
+     *
+     * @return true once the mirror is filled
+     */
+    boolean isFilled() {
+        return filled;
+    }
+
+    /**
+     * Records an added or replaced order.
+     *
+     * @param slot the order's slot
+     * @param order the order
+     */
+    void set(int slot, CoffeeOrder order) {
+        Chunk chunk = enter(table, slot >>> CHUNK_SHIFT);
+        try {
+            chunk.write(slot & CHUNK_MASK, order);
+        } finally {
+            chunk.exit();
+        }
+    }
+
+    /**
+     * Records several added or replaced orders.
+     *
+     * @param slots the orders' slots, by index, or -1 for orders that were not stored
+     * @param orders the orders
+     */
+    void setAll(int[] slots, List<CoffeeOrder> orders) {
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] >= 0) {
+                set(slots[i], orders.get(i));
+            }
+        }
+    }
+
+    /**
+     * Records several removals.
+     *
+     * @param slots the slots, by index
+     * @param removed the removed orders, null where nothing was removed
+     */
+    void removeAll(int[] slots, CoffeeOrder[] removed) {
+        for (int i = 0; i < slots.length; i++) {
+            if (removed[i] != null) {
+                remove(slots[i]);
+            }
+        }
+    }
+
+    /**
+     * Records a removal.
+     *
+     * @param slot the removed order's slot
+     */
+    void remove(int slot) {
+        set(slot, null);
+    }
+
+    /**
+     * Records an order moved to a lower, empty slot by compaction, which runs while no
+     * other thread modifies the collection.
+     *
+     * @param from the slot the order left
+     * @param to the slot now holding the order
+     */
+    void move(int from, int to) {
+        Table current = table;
+        Chunk source = enter(current, from >>> CHUNK_SHIFT);
+        try {
+            // Entering the same chunk twice would wait on itself if a snapshot froze it.
+            Chunk target = (to >>> CHUNK_SHIFT) == (from >>> CHUNK_SHIFT)
+                    ? source : enter(current, to >>> CHUNK_SHIFT);
+            try {
+                target.transfer(to & CHUNK_MASK, source, from & CHUNK_MASK);
+            } finally {
+                if (target != source) {
+                    target.exit();
+                }
+            }
+            source.write(from & CHUNK_MASK, null);
+        } finally {
+            source.exit();
+        }
+    }
+
+    /**
+     * Records that the store dropped the slots above a new slot limit, all of which
+     * are empty, releasing the chunks that lie entirely above it.
+     *
+     * @param slotLimit the new slot limit
+     */
+    void truncate(int slotLimit) {
+        AtomicReference<Chunk>[] holders = table.holders;
+        for (int i = (slotLimit + CHUNK_MASK) >>> CHUNK_SHIFT; i < holders.length; i++) {
+            if (holders[i] != null) {
+                holders[i].set(null);
+            }
+        }
+    }
+
+    /**
+     * Drops every slot; existing snapshots keep their orders. Writes that overlap the
+     * call may apply to either the old or the new slots.
+     */
+    void clear() {
+        table = new Table();
+    }
+
+    /**
+     * Takes a snapshot of the current slots without blocking writers or waiting for
+     * them.
+     *
+     * @return the snapshot
+     */
+    OrderSnapshot snapshot() {
+        AtomicReference<Chunk>[] holders = table.holders;
+        Chunk[] chunks = new Chunk[holders.length];
+        int last = -1;
+        int size = 0;
+        for (int i = 0; i < holders.length; i++) {
+            Chunk chunk = holders[i] == null ? null : holders[i].get();
+            if (chunk == null) {
+                continue;
+            }
+            chunk.freeze();
+            int count = chunk.count();
+            if (count > 0) {
+                chunks[i] = chunk;
+                size += count;
+                last = i;
+            }
+        }
+        int limit = 0;
+        if (last >= 0) {
+            limit = (last << CHUNK_SHIFT) + CHUNK_SIZE;
+            while (!chunks[last].occupied((limit - 1) & CHUNK_MASK)) {
+                limit--;
+            }
+        }
+        return new OrderSnapshot(Arrays.copyOf(chunks, last + 1), limit, size);
+    }
+
+    /**
+     * Enters the chunk holding a slot for writing, creating it, or replacing it with a
+     * private copy if a snapshot has frozen it.
+     */
+    private Chunk enter(Table current, int chunkIndex) {
+        AtomicReference<Chunk> holder = current.holder(chunkIndex);
+        while (true) {
+            Chunk chunk = holder.get();
+            if (chunk == null) {
+                holder.compareAndSet(null, newChunk());
+            } else if (chunk.enter()) {
+                return chunk;
+            } else {
+                holder.compareAndSet(chunk, chunk.copy());
+            }
+        }
+    }
+
+    private Chunk newChunk() {
+        return packed ? new PackedChunk() : new ObjectChunk();
+    }
+
+    /**
+     * The chunk directory, replaced as a whole by {@link #clear()}. Each directory entry
+     * is a holder that is never replaced, so growing the directory cannot lose a chunk
+     * swapped in concurrently.
+     */
+    private static final class Table {
+        private volatile AtomicReference<Chunk>[] holders = newHolders(1);
+
+        private AtomicReference<Chunk> holder(int chunkIndex) {
+            AtomicReference<Chunk>[] current = holders;
+            if (chunkIndex < current.length && current[chunkIndex] != null) {
+                return current[chunkIndex];
+            }
+            return allocateHolder(chunkIndex);
+        }
+
+        // Only runs once per chunk, so the lock is rarely taken.
+        private synchronized AtomicReference<Chunk> allocateHolder(int chunkIndex) {
+            AtomicReference<Chunk>[] current = holders;
+            if (chunkIndex < current.length && current[chunkIndex] != null) {
+                return current[chunkIndex];
+            }
+            if (chunkIndex >= current.length) {
+                current = Arrays.copyOf(current, Math.max(chunkIndex + 1, current.length * 2));
+            } else {
+                current = current.clone();
+            }
+            current[chunkIndex] = new AtomicReference<>();
+            holders = current;
+            return current[chunkIndex];
+        }
+
+        @SuppressWarnings("unchecked")
+        private static AtomicReference<Chunk>[] newHolders(int length) {
+            return (AtomicReference<Chunk>[]) new AtomicReference<?>[length];
+        }
+    }
+
+    /**
+     * One chunk of slots with its order count and a state word: the number of writers
+     * inside it, plus flags for a frozen chunk and one being filled.
+     */
+    abstract static sealed class Chunk permits ObjectChunk, PackedChunk {
+        private static final int FROZEN = 1 << 30;
+        private static final int FILLING = 1 << 29;
+        private static final int WRITERS = FILLING - 1;
+
+        private final AtomicInteger state = new AtomicInteger();
+        private final AtomicInteger count = new AtomicInteger();
+
+        /**
+         * Gets the order in a slot of the chunk.
+         *
+         * @param index the slot within the chunk
+         * @return the order, or null if the slot is empty
+         */
+        abstract CoffeeOrder get(int index);
+
+        /**
+         * Checks whether a slot of the chunk holds an order.
+         *
+         * @param index the slot within the chunk
+         * @return true if the slot is occupied
+         */
+        abstract boolean occupied(int index);
+
+        abstract void set(int index, CoffeeOrder order);
+
+        abstract void copySlot(int index, Chunk source, int sourceIndex);
+
+        abstract Chunk newCopy();
+
+        private void write(int index, CoffeeOrder order) {
+            boolean wasOccupied = occupied(index);
+            set(index, order);
+            adjust(wasOccupied, order != null);
+        }
+
+        private void transfer(int index, Chunk source, int sourceIndex) {
+            boolean wasOccupied = occupied(index);
+            copySlot(index, source, sourceIndex);
+            adjust(wasOccupied, occupied(index));
+        }
+
+        private void adjust(boolean wasOccupied, boolean isOccupied) {
+            if (isOccupied && !wasOccupied) {
+                count.incrementAndGet();
+            } else if (wasOccupied && !isOccupied) {
+                count.decrementAndGet();
+            }
+        }
+
+        private int count() {
+            return count.get();
+        }
+
+        private Chunk copy() {
+            Chunk copy = newCopy();
+            copy.recount();
+            return copy;
+        }
+
+        private void recount() {
+            int occupied = 0;
+            for (int i = 0; i < CHUNK_SIZE; i++) {
+                if (occupied(i)) {
+                    occupied++;
+                }
+            }
+            count.set(occupied);
+        }
+
+        /**
+         * Enters the chunk as a writer. Fails once the chunk is frozen, after the
+         * writers already inside have left, so the caller can copy it.
+         */
+        private boolean enter() {
+            while (true) {
+                int current = state.get();
+                if ((current & FROZEN) != 0) {
+                    awaitWriters();
+                    return false;
+                }
+                if ((current & FILLING) != 0) {
+                    Thread.onSpinWait();
+                } else if (state.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        private void exit() {
+            state.decrementAndGet();
+        }
+
+        /**
+         * Freezes the chunk against new writers and waits out the ones already inside,
+         * each of which is in the middle of a single slot update.
+         */
+        private void freeze() {
+            while (true) {
+                int current = state.get();
+                if ((current & FROZEN) != 0) {
+                    break;
+                }
+                if ((current & FILLING) != 0) {
+                    Thread.onSpinWait();
+                } else if (state.compareAndSet(current, current | FROZEN)) {
+                    break;
+                }
+            }
+            awaitWriters();
+        }
+
+        private void awaitWriters() {
+            while ((state.get() & WRITERS) != 0) {
+                Thread.onSpinWait();
+            }
+        }
+
+        private void beginFill() {
+            while (!state.compareAndSet(0, FILLING)) {
+                Thread.onSpinWait();
+            }
+        }
+
+        private void endFill() {
+            state.set(0);
+        }
+    }
+
+    /**
+     * Chunk sharing the order objects of a store that keeps them.
+     */
+    private static final class ObjectChunk extends Chunk {
+        private static final VarHandle ORDER = MethodHandles.arrayElementVarHandle(CoffeeOrder[].class);
+
+        private final CoffeeOrder[] orders;
+
+        private ObjectChunk() {
+            this(new CoffeeOrder[CHUNK_SIZE]);
+        }
+
+        private ObjectChunk(CoffeeOrder[] orders) {
+            this.orders = orders;
+        }
+
+        @Override
+        CoffeeOrder get(int index) {
+            return (CoffeeOrder) ORDER.getAcquire(orders, index);
+        }
+
+        @Override
+        boolean occupied(int index) {
+            return get(index) != null;
+        }
+
+        @Override
+        void set(int index, CoffeeOrder order) {
+            ORDER.setRelease(orders, index, order);
+        }
+
+        @Override
+        void copySlot(int index, Chunk source, int sourceIndex) {
+            set(index, source.get(sourceIndex));
+        }
+
+        @Override
+        Chunk newCopy() {
+            return new ObjectChunk(orders.clone());
+        }
+    }
+
+    /**
+     * Chunk holding order IDs and attribute words, decoded as they are read. The word
+     * is written after the ID, so a reader that finds it sees the matching ID.
+     */
+    private static final class PackedChunk extends Chunk {
+        private static final VarHandle WORD = MethodHandles.arrayElementVarHandle(int[].class);
+        private static final int OCCUPIED = 1 << 31;
+
+        private final long[] idHighs;
+        private final long[] idLows;
+        private final int[] words;
+
+        private PackedChunk() {
+            this(new long[CHUNK_SIZE], new long[CHUNK_SIZE], new int[CHUNK_SIZE]);
+        }
+
+        private PackedChunk(long[] idHighs, long[] idLows, int[] words) {
+            this.idHighs = idHighs;
+            this.idLows = idLows;
+            this.words = words;
+        }
+
+        @Override
+        CoffeeOrder get(int index) {
+            int word = (int) WORD.getAcquire(words, index);
+            if (word == 0) {
+                return null;
+            }
+            return OrderEncoding.decode(idHighs[index], idLows[index], word & ~OCCUPIED);
+        }
+
+        @Override
+        boolean occupied(int index) {
+            return (int) WORD.getAcquire(words, index) != 0;
+        }
+
+        @Override
+        void set(int index, CoffeeOrder order) {
+            if (order == null) {
+                WORD.setRelease(words, index, 0);
+            } else {
+                set(index, order.idHigh(), order.idLow(), OrderEncoding.encode(order));
+            }
+        }
+
+        /**
+         * Stores an order given as an ID and attribute word.
+         *
+         * @param attributes the attribute word, or -1 to empty the slot
+         */
+        private void set(int index, long idHigh, long idLow, int attributes) {
+            if (attributes < 0) {
+                WORD.setRelease(words, index, 0);
+                return;
+            }
+            idHighs[index] = idHigh;
+            idLows[index] = idLow;
+            WORD.setRelease(words, index, attributes | OCCUPIED);
+        }
+
+        @Override
+        void copySlot(int index, Chunk source, int sourceIndex) {
+            PackedChunk packedSource = (PackedChunk) source;
+            int word = (int) WORD.getAcquire(packedSource.words, sourceIndex);
+            set(index, packedSource.idHighs[sourceIndex], packedSource.idLows[sourceIndex],
+                    word == 0 ? -1 : word & ~OCCUPIED);
+        }
+
+        @Override
+        Chunk newCopy() {
+            return new PackedChunk(idHighs.clone(), idLows.clone(), words.clone());
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.coffee;
+
+import java.time.Clock;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * {@link OrderIdGenerator} of UUID version 7 IDs with a per-thread sequence.
+ * <p>
+ * Each thread remembers the last millisecond it generated an ID in and a 12-bit
+ * sequence within it. A new millisecond restarts the sequence at a random value in its
+ * lower half; when the sequence runs out within one millisecond, the thread moves its
+ * timestamp one millisecond ahead. The remaining 62 bits come from
+ * {@link ThreadLocalRandom}.
+ * </p>
+ */
+final class TimeOrderedIdGenerator implements OrderIdGenerator {
+    static final TimeOrderedIdGenerator SYSTEM = new TimeOrderedIdGenerator(Clock.systemUTC());
+
+    private static final long VERSION = 0x7000L;
+    private static final long VARIANT = 0x8000_0000_0000_0000L;
+    private static final int SEQUENCE_MASK = 0xFFF;
+
+    private final Clock clock;
+    private final ThreadLocal<long[]> state = ThreadLocal.withInitial(() -> new long[2]);
+
+    TimeOrderedIdGenerator(Clock clock) {
+        this.clock = Objects.requireNonNull(clock, "Clock cannot be null");
+    }
+
+    @Override
+    public UUID nextId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long[] last = state.get();
+        long millis = clock.millis();
+        long sequence;
+        if (millis > last[0]) {
+            sequence = random.nextInt(SEQUENCE_MASK + 1 >>> 1);
+        } else {
+            millis = last[0];
+            sequence = last[1] + 1;
+            if (sequence > SEQUENCE_MASK) {
+                millis++;
+                sequence = 0;
+            }
+        }
+        last[0] = millis;
+        last[1] = sequence;
+        long high = (millis & 0xFFFF_FFFF_FFFFL) << 16 | VERSION | sequence;
+        long low = VARIANT | random.nextLong() >>> 2;
+        return new UUID(high, low);
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.coffee;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoffeeOrderCodecTest {
+
+    @Test
+    @DisplayName("Should round-trip every attribute combination")
+    void shouldRoundTripEveryCombination() {
+        List<BeverageType> beverageTypes = new ArrayList<>(List.of(CoffeeType.values()));
+        beverageTypes.addAll(List.of(SodaType.values()));
+        ByteBuffer buffer = ByteBuffer.allocate(CoffeeOrderCodec.ENCODED_BYTES);
+        for (Size size : Size.values()) {
+            for (GrindType grindType : GrindType.values()) {
+                for (BeverageType beverageType : beverageTypes) {
+                    for (int mask = 0; mask < 1 << Addition.values().length; mask++) {
+                        Set<Addition> additions = EnumSet.noneOf(Addition.class);
+                        for (Addition addition : Addition.values()) {
+                            if ((mask & 1 << addition.ordinal()) != 0) {
+                                additions.add(addition);
+                            }
+                        }
+                        CoffeeOrder order = new CoffeeOrder(size, grindType, beverageType, additions);
+
+                        CoffeeOrderCodec.encode(order, buffer.clear());
+                        CoffeeOrder decoded = CoffeeOrderCodec.decode(buffer.flip());
+
+                        assertEquals(order.getOrderId(), decoded.getOrderId());
+                        assertEquals(size, decoded.getSize());
+                        assertEquals(grindType, decoded.getGrindType());
+                        assertEquals(beverageType, decoded.getBeverageType());
+                        assertEquals(additions, decoded.getAdditions());
+                        assertFalse(buffer.hasRemaining());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should write the ID as two big-endian longs followed by the attributes")
+    void shouldWriteDocumentedLayout() {
+        CoffeeOrder order = new CoffeeOrder(Size.LARGE, GrindType.FINE, CoffeeType.ARABICA,
+                EnumSet.of(Addition.values()[0]));
+        ByteBuffer buffer = ByteBuffer.allocate(CoffeeOrderCodec.ENCODED_BYTES);
+
+        CoffeeOrderCodec.encode(order, buffer);
+
+        UUID id = UUID.fromString(order.getOrderId());
+        assertEquals(id.getMostSignificantBits(), buffer.getLong(0));
+        assertEquals(id.getLeastSignificantBits(), buffer.getLong(8));
+        int word = buffer.getInt(16);
+        assertEquals(Size.LARGE.ordinal(), word & 0x3);
+        assertEquals(GrindType.FINE.ordinal(), word >>> 2 & 0x7);
+        assertEquals(OrderEncoding.beverageCode(CoffeeType.ARABICA), word >>> 5 & 0xF);
+        assertEquals(1, word >>> 9 & 0x1F);
+    }
+
+    @Test
+    @DisplayName("Should encode and decode batches in the buffer's byte order")
+    void shouldEncodeAndDecodeBatches() {
+        List<CoffeeOrder> orders = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            orders.add(new CoffeeOrder(Size.values()[i % 3], GrindType.COARSE,
+                    SodaType.values()[i % SodaType.values().length], Set.of()));
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(orders.size() * CoffeeOrderCodec.ENCODED_BYTES + 7)
+                .order(ByteOrder.LITTLE_ENDIAN);
+
+        assertEquals(orders.size() * CoffeeOrderCodec.ENCODED_BYTES, CoffeeOrderCodec.encodeAll(orders, buffer));
+        buffer.put((byte) 1).flip();
+
+        assertEquals(orders, CoffeeOrderCodec.decodeAll(buffer));
+        assertEquals(1, buffer.remaining());
+    }
+
+    @Test
+    @DisplayName("Should read and write at absolute indexes without moving the position")
+    void shouldUseAbsoluteIndexes() {
+        CoffeeOrder order = new CoffeeOrder(Size.SMALL, GrindType.MEDIUM, CoffeeType.ROBUSTA, Set.of());
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+
+        CoffeeOrderCodec.encode(order, buffer, 30);
+
+        assertEquals(0, buffer.position());
+        assertEquals(order, CoffeeOrderCodec.decode(buffer, 30));
+        assertThrows(IndexOutOfBoundsException.class, () -> CoffeeOrderCodec.decode(buffer, 50));
+        assertThrows(IndexOutOfBoundsException.class, () -> CoffeeOrderCodec.encode(order, buffer, -1));
+    }
+
+    @Test
+    @DisplayName("Should reject orders that cannot be encoded or buffers that are too small")
+    void shouldRejectInvalidInput() {
+        ByteBuffer buffer = ByteBuffer.allocate(CoffeeOrderCodec.ENCODED_BYTES);
+        CoffeeOrder order = new CoffeeOrder(Size.SMALL, GrindType.MEDIUM, CoffeeType.ROBUSTA, Set.of());
+
+        assertThrows(IllegalArgumentException.class, () -> CoffeeOrderCodec.encode(null, buffer));
+        assertThrows(IllegalArgumentException.class, () -> CoffeeOrderCodec.encode(
+                new CoffeeOrder("custom-id", Size.SMALL, GrindType.FINE, CoffeeType.ARABICA, Set.of()), buffer));
+        assertThrows(BufferOverflowException.class,
+                () -> CoffeeOrderCodec.encodeAll(List.of(order, order), buffer));
+        assertEquals(0, buffer.position());
+        assertThrows(BufferUnderflowException.class, () -> CoffeeOrderCodec.decode(buffer.limit(4)));
+
+        ByteBuffer invalid = ByteBuffer.allocate(CoffeeOrderCodec.ENCODED_BYTES).putInt(16, 0x3);
+        assertThrows(IllegalArgumentException.class, () -> CoffeeOrderCodec.decode(invalid));
+    }
+}
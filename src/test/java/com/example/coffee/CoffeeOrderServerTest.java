@@ -0,0 +1,92 @@
+package com.example.coffee;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoffeeOrderServerTest {
+
+    private OrderCollection orderCollection;
+    private CoffeeOrderServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        orderCollection = OrderCollection.concurrent();
+        server = CoffeeOrderServer.start(orderCollection, 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    @DisplayName("Should serve concurrent sessions sharing one collection")
+    void shouldServeConcurrentSessions() throws Exception {
+        int clients = 50;
+        List<Future<String>> sessions = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                sessions.add(executor.submit(() -> converse("1\n1\n1\n1\n1\n\n6\n")));
+            }
+            for (Future<String> session : sessions) {
+                String output = session.get();
+                assertTrue(output.contains("Order created successfully"));
+                assertTrue(output.contains("Thank you for using the Coffee Order System!"));
+            }
+        }
+
+        assertEquals(clients, orderCollection.getOrderCount());
+    }
+
+    @Test
+    @DisplayName("Should disconnect idle sessions when closed")
+    void shouldDisconnectSessionsWhenClosed() throws Exception {
+        try (Socket socket = connect()) {
+            InputStream in = socket.getInputStream();
+            while (server.getActiveSessions() == 0) {
+                Thread.sleep(1);
+            }
+
+            server.close();
+
+            while (in.read() >= 0) {
+                // Drain the menu until the server closes the connection.
+            }
+        }
+        assertEquals(0, server.getActiveSessions());
+        assertThrows(IOException.class, this::connect);
+    }
+
+    @Test
+    @DisplayName("Should reject a null collection")
+    void shouldRejectNullCollection() {
+        assertThrows(NullPointerException.class, () -> CoffeeOrderServer.start(null, 0));
+    }
+
+    private String converse(String input) throws IOException {
+        try (Socket socket = connect()) {
+            socket.getOutputStream().write(input.getBytes(StandardCharsets.UTF_8));
+            socket.getOutputStream().flush();
+            return new String(socket.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private Socket connect() throws IOException {
+        return new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+    }
+}
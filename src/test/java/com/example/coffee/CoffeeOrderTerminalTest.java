@@ -6,8 +6,11 @@ import org.junit.jupiter.api.DisplayName;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
 import java.io.PrintStream;
+import java.time.Duration;
 import java.util.Scanner;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -36,7 +39,7 @@ class CoffeeOrderTerminalTest {
     @Test
     @DisplayName("Should create terminal with provided dependencies")
     void shouldCreateTerminalWithProvidedDependencies() {
-        Scanner scanner = new Scanner("3\n");
+        Scanner scanner = new Scanner("6\n");
         CoffeeOrderTerminal terminal = new CoffeeOrderTerminal(orderCollection, scanner);
         
         assertNotNull(terminal);
@@ -44,9 +47,9 @@ class CoffeeOrderTerminalTest {
     }
 
     @Test
-    @DisplayName("Should exit when option 3 is selected")
-    void shouldExitWhenOption3IsSelected() {
-        String input = "3\n";
+    @DisplayName("Should exit when option 6 is selected")
+    void shouldExitWhenOption6IsSelected() {
+        String input = "6\n";
         Scanner scanner = new Scanner(input);
         CoffeeOrderTerminal terminal = new CoffeeOrderTerminal(orderCollection, scanner);
         
@@ -59,7 +62,7 @@ class CoffeeOrderTerminalTest {
     @Test
     @DisplayName("Should handle invalid menu choice")
     void shouldHandleInvalidMenuChoice() {
-        String input = "invalid\n3\n";
+        String input = "invalid\n6\n";
         Scanner scanner = new Scanner(input);
         CoffeeOrderTerminal terminal = new CoffeeOrderTerminal(orderCollection, scanner);
         
@@ -73,7 +76,7 @@ class CoffeeOrderTerminalTest {
     @DisplayName("Should create new order with valid inputs")
     void shouldCreateNewOrderWithValidInputs() {
         // Input: Main menu option 1, Size 1, Beverage category 1 (Coffee), Coffee type 1, Grind type 1, No additions, Exit
-        String input = "1\n1\n1\n1\n1\n\n3\n";
+        String input = "1\n1\n1\n1\n1\n\n6\n";
         Scanner scanner = new Scanner(input);
         CoffeeOrderTerminal terminal = new CoffeeOrderTerminal(orderCollection, scanner);
         
@@ -88,7 +91,7 @@ class CoffeeOrderTerminalTest {
     @DisplayName("Should create order with multiple additions")
     void shouldCreateOrderWithMultipleAdditions() {
         // Input: Create order, Size 2, Beverage category 1 (Coffee), Coffee type 3, Grind type 2, Additions 1,2,3, Exit
-        String input = "1\n2\n1\n3\n2\n1,2,3\n3\n";
+        String input = "1\n2\n1\n3\n2\n1,2,3\n6\n";
         Scanner scanner = new Scanner(input);
         CoffeeOrderTerminal terminal = new CoffeeOrderTerminal(orderCollection, scanner);
         
@@ -103,7 +106,7 @@ class CoffeeOrderTerminalTest {
     @DisplayName("Should create order with no additions")
     void shouldCreateOrderWithNoAdditions() {
         // Input: Create order, Size 1, Beverage category 1 (Coffee), Coffee type 1, Grind type 1, No additions, Exit
-        String input = "1\n1\n1\n1\n1\n\n3\n";
+        String input = "1\n1\n1\n1\n1\n\n6\n";
         Scanner scanner = new Scanner(input);
         CoffeeOrderTerminal terminal = new CoffeeOrderTerminal(orderCollection, scanner);
         
@@ -118,7 +121,7 @@ class CoffeeOrderTerminalTest {
     @DisplayName("Should handle invalid size input and retry")
     void shouldHandleInvalidSizeInputAndRetry() {
         // Input: Create order, invalid size, retry with valid size 1, rest valid, Exit
-        String input = "1\ninvalid\n99\n1\n1\n1\n1\n\n3\n";
+        String input = "1\ninvalid\n99\n1\n1\n1\n1\n\n6\n";
         Scanner scanner = new Scanner(input);
         CoffeeOrderTerminal terminal = new CoffeeOrderTerminal(orderCollection, scanner);
         
@@ -133,7 +136,7 @@ class CoffeeOrderTerminalTest {
     @DisplayName("Should handle invalid grind type input and retry")
     void shouldHandleInvalidGrindTypeInputAndRetry() {
         // Input: Create order, Size 1, Beverage category 1 (Coffee), Coffee type 1, invalid grind, valid grind 1, Exit
-        String input = "1\n1\n1\n1\ninvalid\n100\n1\n\n3\n";
+        String input = "1\n1\n1\n1\ninvalid\n100\n1\n\n6\n";
         Scanner scanner = new Scanner(input);
         CoffeeOrderTerminal terminal = new CoffeeOrderTerminal(orderCollection, scanner);
         
@@ -148,7 +151,7 @@ class CoffeeOrderTerminalTest {
     @DisplayName("Should handle invalid coffee type input and retry")
     void shouldHandleInvalidCoffeeTypeInputAndRetry() {
         // Input: Create order, Size 1, Beverage category 1 (Coffee), invalid coffee type, retry, valid coffee type 1, Exit
-        String input = "1\n1\n1\ninvalid\n0\n1\n1\n\n3\n";
+        String input = "1\n1\n1\ninvalid\n0\n1\n1\n\n6\n";
         Scanner scanner = new Scanner(input);
         CoffeeOrderTerminal terminal = new CoffeeOrderTerminal(orderCollection, scanner);
         
@@ -163,7 +166,7 @@ class CoffeeOrderTerminalTest {
     @DisplayName("Should handle invalid additions input gracefully")
     void shouldHandleInvalidAdditionsInputGracefully() {
         // Input: Create order, Size 1, Beverage category 1 (Coffee), Coffee type 1, Grind type 1, additions with invalid entries, Exit
-        String input = "1\n1\n1\n1\n1\n1,invalid,99,2\n3\n";
+        String input = "1\n1\n1\n1\n1\n1,invalid,99,2\n6\n";
         Scanner scanner = new Scanner(input);
         CoffeeOrderTerminal terminal = new CoffeeOrderTerminal(orderCollection, scanner);
         
@@ -179,7 +182,7 @@ class CoffeeOrderTerminalTest {
     @Test
     @DisplayName("Should view orders when collection is empty")
     void shouldViewOrdersWhenCollectionIsEmpty() {
-        String input = "2\n3\n";
+        String input = "2\n6\n";
         Scanner scanner = new Scanner(input);
         CoffeeOrderTerminal terminal = new CoffeeOrderTerminal(orderCollection, scanner);
         
@@ -200,7 +203,7 @@ class CoffeeOrderTerminalTest {
         );
         orderCollection.addOrder(order);
         
-        String input = "2\n3\n";
+        String input = "2\n6\n";
         Scanner scanner = new Scanner(input);
         CoffeeOrderTerminal terminal = new CoffeeOrderTerminal(orderCollection, scanner);
         
@@ -211,11 +214,59 @@ class CoffeeOrderTerminalTest {
         assertTrue(output.contains("Order ID:"));
     }
 
+    @Test
+    @DisplayName("Should page through orders when there is more than one page")
+    void shouldPageThroughOrders() {
+        for (int i = 0; i < 25; i++) {
+            orderCollection.addOrder(new CoffeeOrder(Size.SMALL, GrindType.FINE, CoffeeType.ESPRESSO, null));
+        }
+        CoffeeOrder last = new CoffeeOrder(Size.LARGE, GrindType.FINE, CoffeeType.BLEND, null);
+        orderCollection.addOrder(last);
+        
+        String input = "2\nn\nx\nn\np\nq\n6\n";
+        Scanner scanner = new Scanner(input);
+        CoffeeOrderTerminal terminal = new CoffeeOrderTerminal(orderCollection, scanner);
+        
+        terminal.run();
+        
+        String output = outputStream.toString();
+        assertTrue(output.contains("Total orders: 26"));
+        assertTrue(output.contains("n. Next page  q. Back to menu: "));
+        assertTrue(output.contains("n. Next page  p. Previous page  q. Back to menu: "));
+        assertTrue(output.contains("p. Previous page  q. Back to menu: "));
+        assertTrue(output.contains("Invalid choice."));
+        assertTrue(output.contains(last.getOrderId()));
+        assertTrue(output.contains("Thank you for using the Coffee Order System!"));
+    }
+
+    @Test
+    @DisplayName("Should filter orders with a filter expression")
+    void shouldFilterOrders() {
+        CoffeeOrder largeWithMilk = new CoffeeOrder(Size.LARGE, GrindType.FINE, CoffeeType.ESPRESSO, Set.of(Addition.MILK));
+        CoffeeOrder small = new CoffeeOrder(Size.SMALL, GrindType.FINE, CoffeeType.ESPRESSO, Set.of(Addition.MILK));
+        orderCollection.addOrder(largeWithMilk);
+        orderCollection.addOrder(small);
+        
+        String input = "5\nsize=LARGE and additions contains MILK\n5\nsize = HUGE\n6\n";
+        Scanner scanner = new Scanner(input);
+        CoffeeOrderTerminal terminal = new CoffeeOrderTerminal(orderCollection, scanner);
+        
+        terminal.run();
+        
+        String output = outputStream.toString();
+        assertTrue(output.contains("5. Filter orders"));
+        assertTrue(output.contains("=== Filter Orders ==="));
+        assertTrue(output.contains("Matching orders: 1"));
+        assertTrue(output.contains(largeWithMilk.getOrderId()));
+        assertFalse(output.contains(small.getOrderId()));
+        assertTrue(output.contains("Unknown Size 'HUGE'"));
+    }
+
     @Test
     @DisplayName("Should create multiple orders")
     void shouldCreateMultipleOrders() {
         // Create two orders: first coffee, second soda
-        String input = "1\n1\n1\n1\n1\n\n1\n2\n2\n1\n\n3\n";
+        String input = "1\n1\n1\n1\n1\n\n1\n2\n2\n1\n\n6\n";
         Scanner scanner = new Scanner(input);
         CoffeeOrderTerminal terminal = new CoffeeOrderTerminal(orderCollection, scanner);
         
@@ -227,7 +278,7 @@ class CoffeeOrderTerminalTest {
     @Test
     @DisplayName("Should display menu options")
     void shouldDisplayMenuOptions() {
-        String input = "3\n";
+        String input = "6\n";
         Scanner scanner = new Scanner(input);
         CoffeeOrderTerminal terminal = new CoffeeOrderTerminal(orderCollection, scanner);
         
@@ -237,7 +288,65 @@ class CoffeeOrderTerminalTest {
         assertTrue(output.contains("What would you like to do?"));
         assertTrue(output.contains("1. Create new order"));
         assertTrue(output.contains("2. View all orders"));
-        assertTrue(output.contains("3. Exit"));
+        assertTrue(output.contains("3. View order statistics"));
+        assertTrue(output.contains("4. View order intake rates"));
+        assertTrue(output.contains("5. Filter orders"));
+        assertTrue(output.contains("6. Exit"));
+    }
+
+    @Test
+    @DisplayName("Should view intake rates after orders are created")
+    void shouldViewIntakeRates() {
+        String input = "4\n1\n1\n1\n1\n1\n\n4\n6\n";
+        Scanner scanner = new Scanner(input);
+        CoffeeOrderTerminal terminal = new CoffeeOrderTerminal(orderCollection, scanner);
+        
+        terminal.run();
+        
+        String output = outputStream.toString();
+        assertTrue(output.contains("=== Order Intake Rates ==="));
+        assertTrue(output.contains("No orders in the last 15 minutes."));
+        assertTrue(output.contains("Orders per minute over the last 1 / 5 / 15 minutes:"));
+        assertTrue(output.contains("  All: "));
+        assertTrue(output.contains("  Espresso: "));
+    }
+
+    @Test
+    @DisplayName("Should view statistics when collection is empty")
+    void shouldViewStatisticsWhenCollectionIsEmpty() {
+        String input = "3\n6\n";
+        Scanner scanner = new Scanner(input);
+        CoffeeOrderTerminal terminal = new CoffeeOrderTerminal(orderCollection, scanner);
+        
+        terminal.run();
+        
+        String output = outputStream.toString();
+        assertTrue(output.contains("=== Order Statistics ==="));
+        assertTrue(output.contains("No orders found"));
+    }
+
+    @Test
+    @DisplayName("Should view statistics when collection has orders")
+    void shouldViewStatisticsWhenCollectionHasOrders() {
+        orderCollection.addOrder(new CoffeeOrder(
+            Size.LARGE, 
+            GrindType.FINE, 
+            CoffeeType.ESPRESSO, 
+            Set.of(Addition.MILK)
+        ));
+        
+        String input = "3\n6\n";
+        Scanner scanner = new Scanner(input);
+        CoffeeOrderTerminal terminal = new CoffeeOrderTerminal(orderCollection, scanner);
+        
+        terminal.run();
+        
+        String output = outputStream.toString();
+        assertTrue(output.contains("Total orders: 1"));
+        assertTrue(output.contains("  Large: 1"));
+        assertTrue(output.contains("  Espresso: 1"));
+        assertTrue(output.contains("  Milk: 1"));
+        assertTrue(output.contains("  Large Espresso, Fine, Milk: 1"));
     }
 
     @Test
@@ -246,7 +355,7 @@ class CoffeeOrderTerminalTest {
         for (int i = 1; i <= Size.values().length; i++) {
             OrderCollection collection = new OrderCollection();
             // Create order with size i, coffee category, coffee type 1, grind type 1
-            String input = String.format("1\n%d\n1\n1\n1\n\n3\n", i);
+            String input = String.format("1\n%d\n1\n1\n1\n\n6\n", i);
             Scanner scanner = new Scanner(input);
             CoffeeOrderTerminal terminal = new CoffeeOrderTerminal(collection, scanner);
             
@@ -262,7 +371,7 @@ class CoffeeOrderTerminalTest {
         for (int i = 1; i <= GrindType.values().length; i++) {
             OrderCollection collection = new OrderCollection();
             // Create order with size 1, coffee category, coffee type 1, grind type i
-            String input = String.format("1\n1\n1\n1\n%d\n\n3\n", i);
+            String input = String.format("1\n1\n1\n1\n%d\n\n6\n", i);
             Scanner scanner = new Scanner(input);
             CoffeeOrderTerminal terminal = new CoffeeOrderTerminal(collection, scanner);
             
@@ -278,7 +387,7 @@ class CoffeeOrderTerminalTest {
         for (int i = 1; i <= CoffeeType.values().length; i++) {
             OrderCollection collection = new OrderCollection();
             // Create order with size 1, coffee category, coffee type i, grind type 1
-            String input = String.format("1\n1\n1\n%d\n1\n\n3\n", i);
+            String input = String.format("1\n1\n1\n%d\n1\n\n6\n", i);
             Scanner scanner = new Scanner(input);
             CoffeeOrderTerminal terminal = new CoffeeOrderTerminal(collection, scanner);
             
@@ -294,7 +403,7 @@ class CoffeeOrderTerminalTest {
         for (int i = 1; i <= SodaType.values().length; i++) {
             OrderCollection collection = new OrderCollection();
             // Create order with size 1, soda category (2), soda type i, no additions
-            String input = String.format("1\n1\n2\n%d\n\n3\n", i);
+            String input = String.format("1\n1\n2\n%d\n\n6\n", i);
             Scanner scanner = new Scanner(input);
             CoffeeOrderTerminal terminal = new CoffeeOrderTerminal(collection, scanner);
             
@@ -310,7 +419,7 @@ class CoffeeOrderTerminalTest {
     @Test
     @DisplayName("Should display order ID after creation")
     void shouldDisplayOrderIdAfterCreation() {
-        String input = "1\n1\n1\n1\n1\n\n3\n";
+        String input = "1\n1\n1\n1\n1\n\n6\n";
         Scanner scanner = new Scanner(input);
         CoffeeOrderTerminal terminal = new CoffeeOrderTerminal(orderCollection, scanner);
         
@@ -325,7 +434,7 @@ class CoffeeOrderTerminalTest {
     @DisplayName("Should automatically set grind type to NONE for soda orders")
     void shouldAutomaticallySetGrindTypeToNoneForSodaOrders() {
         // Create a soda order: size 1, soda category (2), soda type 1, no additions
-        String input = "1\n1\n2\n1\n\n3\n";
+        String input = "1\n1\n2\n1\n\n6\n";
         Scanner scanner = new Scanner(input);
         CoffeeOrderTerminal terminal = new CoffeeOrderTerminal(orderCollection, scanner);
         
@@ -338,4 +447,78 @@ class CoffeeOrderTerminalTest {
         String output = outputStream.toString();
         assertTrue(output.contains("Grind type automatically set to 'None' for soda orders"));
     }
+
+    @Test
+    @DisplayName("Should flush buffered output before reading each input line")
+    void shouldFlushOutputBeforeReadingInput() {
+        for (int i = 0; i < 3; i++) {
+            orderCollection.addOrder(new CoffeeOrder(Size.SMALL, GrindType.FINE, CoffeeType.ESPRESSO, Set.of()));
+        }
+        StringBuilder outputAtReads = new StringBuilder();
+        InputStream input = new InputStream() {
+            private final byte[] lines = "2\n6\n".getBytes();
+            private int position;
+
+            @Override
+            public int read() {
+                if (position < lines.length && (position == 0 || lines[position - 1] == '\n')) {
+                    outputAtReads.append(outputStream.toString()).append('|');
+                }
+                return position < lines.length ? lines[position++] : -1;
+            }
+        };
+        CoffeeOrderTerminal terminal = new CoffeeOrderTerminal(orderCollection, new Scanner(input));
+
+        terminal.run();
+
+        assertTrue(outputAtReads.toString().startsWith("=== Coffee Order System ==="));
+        assertTrue(outputAtReads.toString().contains("Enter your choice (1-6): |"));
+        String output = outputStream.toString();
+        assertTrue(output.contains("Total orders: 3"));
+        assertEquals(3, output.split("Order ID:", -1).length - 1);
+        assertTrue(output.endsWith("Thank you for using the Coffee Order System!" + System.lineSeparator()));
+    }
+
+    @Test
+    @DisplayName("Should export every order without prompting")
+    void shouldExportEveryOrder() {
+        for (int i = 0; i < 25; i++) {
+            orderCollection.addOrder(new CoffeeOrder(Size.SMALL, GrindType.FINE, CoffeeType.ESPRESSO, null));
+        }
+        CoffeeOrderTerminal terminal = new CoffeeOrderTerminal(orderCollection, new Scanner(""));
+
+        assertEquals(25, terminal.exportOrders());
+
+        String output = outputStream.toString();
+        assertEquals(25, output.split("Order ID:", -1).length - 1);
+        assertFalse(output.contains("Next page"));
+    }
+
+    @Test
+    @DisplayName("Should load orders in batch mode and print a summary")
+    void shouldLoadOrdersInBatchMode() throws Exception {
+        CoffeeOrderTerminal terminal = new CoffeeOrderTerminal(orderCollection, new Scanner(""));
+
+        terminal.runBatch(new ByteArrayInputStream("LARGE,ESPRESSO,FINE,MILK\nHUGE,COKE,\n".getBytes()));
+
+        assertEquals(1, orderCollection.getOrderCount());
+        String output = outputStream.toString();
+        assertTrue(output.contains("Imported orders: 1"));
+        assertTrue(output.contains("Rejected lines: 1"));
+        assertTrue(output.contains("Line 2: unknown size 'HUGE'"));
+        assertTrue(output.contains("orders/s)"));
+    }
+
+    @Test
+    @DisplayName("Should parse the sync policies accepted after --wal")
+    void shouldParseSyncPolicies() {
+        assertEquals(OrderWriteAheadLog.SyncPolicy.everyWrite(), CoffeeOrderTerminal.syncPolicy("every-write"));
+        assertEquals(OrderWriteAheadLog.SyncPolicy.osBuffered(), CoffeeOrderTerminal.syncPolicy("os-buffered"));
+        assertEquals(OrderWriteAheadLog.SyncPolicy.groupCommit(Duration.ofMillis(10)),
+                CoffeeOrderTerminal.syncPolicy("group-commit"));
+        assertEquals(OrderWriteAheadLog.SyncPolicy.groupCommit(Duration.ofMillis(250)),
+                CoffeeOrderTerminal.syncPolicy("group-commit=250"));
+        assertThrows(IllegalArgumentException.class, () -> CoffeeOrderTerminal.syncPolicy("group-commit=0"));
+        assertThrows(IllegalArgumentException.class, () -> CoffeeOrderTerminal.syncPolicy("sometimes"));
+    }
 }
@@ -5,6 +5,11 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.EnumSource;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -181,6 +186,96 @@ class CoffeeOrderTest {
         assertEquals(hashCode1, hashCode2);
     }
 
+    @Test
+    @DisplayName("Should check additions against the bitmask")
+    void shouldCheckAdditionsAgainstBitmask() {
+        CoffeeOrder order = new CoffeeOrder(Size.SMALL, GrindType.FINE, CoffeeType.ESPRESSO,
+            Set.of(Addition.SUGAR, Addition.MILK));
+
+        assertTrue(order.hasAddition(Addition.MILK));
+        assertTrue(order.hasAddition(Addition.SUGAR));
+        assertFalse(order.hasAddition(Addition.CREAM));
+        assertEquals(1 << Addition.MILK.ordinal() | 1 << Addition.SUGAR.ordinal(), order.additionsMask());
+        assertThrows(NullPointerException.class, () -> order.hasAddition(null));
+    }
+
+    @Test
+    @DisplayName("Should share one additions set between orders with the same additions")
+    void shouldShareAdditionsSets() {
+        CoffeeOrder first = new CoffeeOrder(Size.SMALL, GrindType.FINE, CoffeeType.ESPRESSO,
+            Set.of(Addition.CREAM, Addition.VANILLA));
+        CoffeeOrder second = new CoffeeOrder(Size.LARGE, GrindType.COARSE, CoffeeType.BLEND,
+            new HashSet<>(Set.of(Addition.VANILLA, Addition.CREAM)));
+
+        assertSame(first.getAdditions(), second.getAdditions());
+        assertSame(first.getAdditions(), first.getAdditions());
+        assertEquals(Set.of(Addition.CREAM, Addition.VANILLA), first.getAdditions());
+        assertTrue(first.toString().contains("Additions: Cream, Vanilla"));
+    }
+
+    @Test
+    @DisplayName("Should render the same text into builders, writers and byte buffers")
+    void shouldRenderIntoAppendablesAndBuffers() throws IOException {
+        CoffeeOrder order = new CoffeeOrder(0x0190a1b2c3d47e5fL, 0x8a6b7c8d9e0f1a2bL,
+            OrderShape.of(Size.MEDIUM, GrindType.COARSE, CoffeeType.BLEND, Set.of(Addition.CARAMEL)));
+        CoffeeOrder custom = new CoffeeOrder("custom-id", Size.SMALL, GrindType.NONE, SodaType.COKE, null);
+
+        for (CoffeeOrder o : new CoffeeOrder[] {order, custom}) {
+            String expected = o.toString();
+            StringBuilder builder = new StringBuilder("> ");
+            StringWriter writer = new StringWriter();
+            ByteBuffer buffer = ByteBuffer.allocate(256);
+
+            assertSame(builder, o.appendTo(builder));
+            o.appendTo((Appendable) writer);
+            int written = o.appendTo(buffer);
+
+            assertEquals("> " + expected, builder.toString());
+            assertEquals(expected, writer.toString());
+            assertEquals(expected.length(), written);
+            assertEquals(expected, new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8));
+        }
+        assertTrue(order.toString().startsWith("Order ID: 0190a1b2-c3d4-7e5f-8a6b-7c8d9e0f1a2b\n"));
+    }
+
+    @Test
+    @DisplayName("Should write nothing to a byte buffer that is too small")
+    void shouldNotWriteToSmallBuffer() {
+        CoffeeOrder order = new CoffeeOrder(Size.SMALL, GrindType.FINE, CoffeeType.ESPRESSO, new HashSet<>());
+        ByteBuffer buffer = ByteBuffer.allocate(20);
+
+        assertThrows(BufferOverflowException.class, () -> order.appendTo(buffer));
+        assertEquals(0, buffer.position());
+    }
+
+    @Test
+    @DisplayName("Should equal an order recreated from its ID string")
+    void shouldEqualOrderRecreatedFromIdString() {
+        CoffeeOrder order = new CoffeeOrder(Size.SMALL, GrindType.FINE, CoffeeType.ESPRESSO, new HashSet<>());
+        CoffeeOrder recreated = new CoffeeOrder(order.getOrderId(), Size.SMALL, GrindType.FINE,
+            CoffeeType.ESPRESSO, new HashSet<>());
+        CoffeeOrder custom = new CoffeeOrder("custom-id", Size.SMALL, GrindType.FINE,
+            CoffeeType.ESPRESSO, new HashSet<>());
+
+        assertEquals(order, recreated);
+        assertEquals(order.hashCode(), recreated.hashCode());
+        assertNotEquals(order, custom);
+        assertEquals(custom, new CoffeeOrder("custom-id", Size.LARGE, GrindType.COARSE,
+            CoffeeType.BLEND, new HashSet<>()));
+    }
+
+    @Test
+    @DisplayName("Should format a packed order ID once, on first request")
+    void shouldFormatPackedOrderIdOnce() {
+        CoffeeOrder order = new CoffeeOrder(0x0190a1b2c3d47e5fL, 0x8a6b7c8d9e0f1a2bL,
+            OrderShape.of(Size.SMALL, GrindType.FINE, CoffeeType.ESPRESSO, null));
+
+        String orderId = order.getOrderId();
+
+        assertEquals("0190a1b2-c3d4-7e5f-8a6b-7c8d9e0f1a2b", orderId);
+        assertSame(orderId, order.getOrderId());
+    }
+
     @Test
     @DisplayName("Should generate string representation with all fields")
     void shouldGenerateStringRepresentationWithAllFields() {
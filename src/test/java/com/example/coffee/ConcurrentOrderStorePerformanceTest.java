@@ -0,0 +1,73 @@
+package com.example.coffee;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Multi-threaded throughput checks for {@link ConcurrentOrderStore}.
+ * Each thread repeatedly adds an order, looks it up and removes every other one.
+ */
+@Tag("performance")
+class ConcurrentOrderStorePerformanceTest {
+
+    private static final int[] THREAD_COUNTS = {1, 4, 16, 64};
+    private static final int TOTAL_OPERATIONS = 2_000_000;
+
+    @Test
+    @DisplayName("Should report throughput at 1, 4, 16 and 64 threads")
+    void shouldReportThroughput() throws Exception {
+        for (int threads : THREAD_COUNTS) {
+            OrderCollection orderCollection = OrderCollection.concurrent();
+            int iterations = TOTAL_OPERATIONS / 3 / threads;
+            long nanos = run(orderCollection, threads, iterations);
+            long operations = 3L * iterations * threads;
+            System.out.printf("threads=%d ops/s=%,.0f%n", threads, operations * 1e9 / nanos);
+
+            int expected = threads * (iterations / 2);
+            assertEquals(expected, orderCollection.getOrderCount());
+        }
+    }
+
+    private static long run(OrderCollection orderCollection, int threads, int iterations)
+            throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < iterations; i++) {
+                        CoffeeOrder order = new CoffeeOrder(
+                            Size.LARGE, GrindType.COARSE, CoffeeType.BLEND, Set.of());
+                        orderCollection.addOrder(order);
+                        orderCollection.getOrderById(order.getOrderId());
+                        if (i % 2 == 0) {
+                            orderCollection.removeOrder(order.getOrderId());
+                        }
+                    }
+                    return null;
+                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return System.nanoTime() - begin;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.coffee;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentOrderStoreTest {
+
+    private OrderCollection orderCollection;
+
+    @BeforeEach
+    void setUp() {
+        orderCollection = OrderCollection.concurrent();
+    }
+
+    private static CoffeeOrder newOrder() {
+        return new CoffeeOrder(Size.MEDIUM, GrindType.FINE, CoffeeType.ESPRESSO, Set.of());
+    }
+
+    @Test
+    @DisplayName("Should find orders by packed and by custom IDs alike")
+    void shouldFindPackedAndCustomIds() {
+        CoffeeOrder packed = newOrder();
+        CoffeeOrder custom = new CoffeeOrder("ORDER-1", Size.SMALL, GrindType.FINE, CoffeeType.ESPRESSO, Set.of());
+        CoffeeOrder parsed = new CoffeeOrder(packed.getOrderId(), Size.LARGE, GrindType.FINE,
+                CoffeeType.ESPRESSO, Set.of());
+        orderCollection.addOrder(packed);
+        orderCollection.addOrder(custom);
+        orderCollection.addOrder(parsed);
+
+        assertEquals(2, orderCollection.getOrderCount());
+        assertEquals(Size.LARGE, orderCollection.getOrderById(packed.getOrderId()).orElseThrow().getSize());
+        assertEquals(custom, orderCollection.getOrderById("ORDER-1").orElseThrow());
+        assertTrue(orderCollection.removeOrder("ORDER-1"));
+        assertTrue(orderCollection.removeOrder(packed.getOrderId()));
+        assertTrue(orderCollection.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should keep removed slots empty rather than compact")
+    void shouldNotCompact() {
+        List<CoffeeOrder> orders = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            CoffeeOrder order = newOrder();
+            orders.add(order);
+            orderCollection.addOrder(order);
+        }
+        for (int i = 0; i < 1999; i++) {
+            orderCollection.removeOrder(orders.get(i).getOrderId());
+        }
+        orderCollection.compact();
+
+        assertFalse(orderCollection.store().supportsCompaction());
+        assertEquals(2000, orderCollection.store().slotLimit());
+        assertEquals(List.of(orders.get(1999)), orderCollection.getAllOrders());
+        assertEquals(orders.subList(1999, 2000), orderCollection.pageAfter(OrderCursor.first(), 10).orders());
+    }
+
+    @Test
+    @DisplayName("Should add, find and remove orders")
+    void shouldAddFindAndRemoveOrders() {
+        CoffeeOrder order1 = newOrder();
+        CoffeeOrder order2 = newOrder();
+        orderCollection.addOrder(order1);
+        orderCollection.addOrder(order2);
+
+        assertEquals(2, orderCollection.getOrderCount());
+        assertEquals(order1, orderCollection.getOrderById(order1.getOrderId()).orElseThrow());
+        assertTrue(orderCollection.removeOrder(order1.getOrderId()));
+        assertFalse(orderCollection.removeOrder(order1.getOrderId()));
+        assertFalse(orderCollection.getOrderById(order1.getOrderId()).isPresent());
+        assertEquals(List.of(order2), orderCollection.getAllOrders());
+    }
+
+    @Test
+    @DisplayName("Should keep insertion order across chunk boundaries")
+    void shouldKeepInsertionOrderAcrossChunks() {
+        List<CoffeeOrder> expected = new ArrayList<>();
+        for (int i = 0; i < 40_000; i++) {
+            CoffeeOrder order = newOrder();
+            expected.add(order);
+            orderCollection.addOrder(order);
+        }
+
+        assertEquals(expected, orderCollection.getAllOrders());
+    }
+
+    @Test
+    @DisplayName("Should replace an order added twice without duplicating it")
+    void shouldNotDuplicateOrderAddedTwice() {
+        CoffeeOrder order = newOrder();
+        orderCollection.addOrder(order);
+        orderCollection.addOrder(order);
+
+        assertEquals(1, orderCollection.getOrderCount());
+        assertEquals(List.of(order), orderCollection.getAllOrders());
+    }
+
+    @Test
+    @DisplayName("Should clear all orders")
+    void shouldClearAllOrders() {
+        orderCollection.addOrder(newOrder());
+        orderCollection.clear();
+
+        assertTrue(orderCollection.isEmpty());
+        assertTrue(orderCollection.getAllOrders().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should reject a null store")
+    void shouldRejectNullStore() {
+        assertThrows(NullPointerException.class, () -> new OrderCollection(null));
+    }
+
+    @Test
+    @DisplayName("Should stay consistent under concurrent adds and removes")
+    void shouldStayConsistentUnderConcurrentAccess() throws Exception {
+        int threads = 8;
+        int ordersPerThread = 5_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<List<CoffeeOrder>>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    List<CoffeeOrder> kept = new ArrayList<>();
+                    for (int i = 0; i < ordersPerThread; i++) {
+                        CoffeeOrder order = newOrder();
+                        orderCollection.addOrder(order);
+                        assertTrue(orderCollection.getOrderById(order.getOrderId()).isPresent());
+                        if (i % 2 == 0) {
+                            assertTrue(orderCollection.removeOrder(order.getOrderId()));
+                        } else {
+                            kept.add(order);
+                        }
+                    }
+                    return kept;
+                }));
+            }
+            List<CoffeeOrder> kept = new ArrayList<>();
+            for (Future<List<CoffeeOrder>> future : futures) {
+                kept.addAll(future.get());
+            }
+
+            assertEquals(kept.size(), orderCollection.getOrderCount());
+            assertEquals(kept.size(), orderCollection.getAllOrders().size());
+            for (CoffeeOrder order : kept) {
+                assertTrue(orderCollection.getOrderById(order.getOrderId()).isPresent());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
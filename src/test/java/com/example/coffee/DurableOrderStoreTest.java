@@ -0,0 +1,156 @@
+package com.example.coffee;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DurableOrderStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static CoffeeOrder newOrder(Size size) {
+        return new CoffeeOrder(size, GrindType.MEDIUM, CoffeeType.ARABICA, Set.of(Addition.SUGAR));
+    }
+
+    @Test
+    @DisplayName("Should rebuild the collection from the log on reopen")
+    void shouldRebuildCollectionOnReopen() throws IOException {
+        Path logFile = tempDir.resolve("orders.wal");
+        CoffeeOrder kept = newOrder(Size.SMALL);
+        CoffeeOrder removed = newOrder(Size.LARGE);
+        try (DurableOrderStore store = DurableOrderStore.open(
+                logFile, OrderWriteAheadLog.SyncPolicy.osBuffered())) {
+            OrderCollection orderCollection = new OrderCollection(store);
+            orderCollection.addOrder(newOrder(Size.MEDIUM));
+            orderCollection.clear();
+            orderCollection.addOrder(kept);
+            orderCollection.addOrder(removed);
+            orderCollection.removeOrder(removed.getOrderId());
+            assertFalse(orderCollection.removeOrder("non-existent-id"));
+        }
+
+        try (DurableOrderStore store = DurableOrderStore.open(
+                logFile, OrderWriteAheadLog.SyncPolicy.everyWrite(), new PackedOrderStore())) {
+            OrderCollection orderCollection = new OrderCollection(store);
+
+            assertEquals(List.of(kept), orderCollection.getAllOrders());
+            CoffeeOrder recovered = orderCollection.getOrderById(kept.getOrderId()).orElseThrow();
+            assertEquals(Size.SMALL, recovered.getSize());
+            assertEquals(Set.of(Addition.SUGAR), recovered.getAdditions());
+            assertEquals(1, orderCollection.query().size(Size.SMALL).count());
+        }
+    }
+
+    @Test
+    @DisplayName("Should log batches so they survive a reopen")
+    void shouldRecoverBatches() throws IOException {
+        Path logFile = tempDir.resolve("orders.wal");
+        List<CoffeeOrder> orders = List.of(newOrder(Size.SMALL), newOrder(Size.MEDIUM), newOrder(Size.LARGE));
+        try (DurableOrderStore store = DurableOrderStore.open(
+                logFile, OrderWriteAheadLog.SyncPolicy.everyWrite())) {
+            OrderCollection orderCollection = new OrderCollection(store);
+            orderCollection.addOrders(orders);
+            assertEquals(2, orderCollection.removeOrders(
+                    List.of(orders.get(0).getOrderId(), orders.get(2).getOrderId(), "non-existent-id")));
+        }
+
+        try (DurableOrderStore store = DurableOrderStore.open(
+                logFile, OrderWriteAheadLog.SyncPolicy.osBuffered())) {
+            assertEquals(List.of(orders.get(1)), new OrderCollection(store).getAllOrders());
+        }
+    }
+
+    @Test
+    @DisplayName("Should force mutations to disk on flush")
+    void shouldForceMutationsOnFlush() throws IOException {
+        Path logFile = tempDir.resolve("orders.wal");
+        try (DurableOrderStore store = DurableOrderStore.open(
+                logFile, OrderWriteAheadLog.SyncPolicy.osBuffered())) {
+            OrderCollection orderCollection = new OrderCollection(store);
+            orderCollection.addOrder(newOrder(Size.SMALL));
+            store.flush();
+
+            long[] added = new long[1];
+            OrderWriteAheadLog.replay(logFile, new OrderWriteAheadLog.Listener() {
+                @Override
+                public void added(CoffeeOrder order) {
+                    added[0]++;
+                }
+
+                @Override
+                public void removed(String orderId) {
+                }
+
+                @Override
+                public void cleared() {
+                }
+            });
+            assertEquals(1, added[0]);
+        }
+    }
+
+    @Test
+    @DisplayName("Should not log orders that cannot be stored")
+    void shouldRejectNonCanonicalIds() throws IOException {
+        try (DurableOrderStore store = DurableOrderStore.open(
+                tempDir.resolve("orders.wal"), OrderWriteAheadLog.SyncPolicy.osBuffered())) {
+            OrderCollection orderCollection = new OrderCollection(store);
+            CoffeeOrder order = new CoffeeOrder(
+                "ORDER-1", Size.SMALL, GrindType.FINE, CoffeeType.ESPRESSO, Set.of());
+
+            assertThrows(IllegalArgumentException.class, () -> orderCollection.addOrder(order));
+            assertTrue(orderCollection.isEmpty());
+        }
+    }
+
+    @Test
+    @DisplayName("Should not log orders the underlying store rejects")
+    void shouldNotLogRejectedOrders() throws IOException {
+        Path logFile = tempDir.resolve("orders.wal");
+        CoffeeOrder kept = newOrder(Size.SMALL);
+        try (OffHeapOrderStore full = new OffHeapOrderStore(1);
+             DurableOrderStore store = DurableOrderStore.open(
+                     logFile, OrderWriteAheadLog.SyncPolicy.everyWrite(), full)) {
+            OrderCollection orderCollection = new OrderCollection(store);
+            orderCollection.addOrder(kept);
+
+            assertThrows(IllegalStateException.class, () -> orderCollection.addOrder(newOrder(Size.LARGE)));
+        }
+
+        try (DurableOrderStore store = DurableOrderStore.open(
+                logFile, OrderWriteAheadLog.SyncPolicy.everyWrite())) {
+            assertEquals(List.of(kept), new OrderCollection(store).getAllOrders());
+        }
+    }
+
+    @Test
+    @DisplayName("Should take an add back out of the store when it cannot be logged")
+    void shouldUndoUnloggedAdds() throws IOException {
+        CoffeeOrder kept = newOrder(Size.SMALL);
+        DurableOrderStore store = DurableOrderStore.open(
+                tempDir.resolve("orders.wal"), OrderWriteAheadLog.SyncPolicy.osBuffered());
+        OrderCollection orderCollection = new OrderCollection(store);
+        orderCollection.addOrder(kept);
+        store.close();
+
+        CoffeeOrder replacement = new CoffeeOrder(kept.getOrderId(), Size.LARGE,
+                GrindType.FINE, CoffeeType.ESPRESSO, Set.of());
+        assertThrows(IllegalStateException.class, () -> orderCollection.addOrder(newOrder(Size.LARGE)));
+        assertThrows(IllegalStateException.class, () -> orderCollection.addOrder(replacement));
+        assertThrows(IllegalStateException.class,
+                () -> orderCollection.addOrders(List.of(newOrder(Size.MEDIUM), replacement)));
+        assertThrows(IllegalStateException.class, () -> orderCollection.removeOrder(kept.getOrderId()));
+
+        assertEquals(1, store.size());
+        assertEquals(Size.SMALL, store.get(store.slotOf(kept.getOrderId())).getSize());
+        assertEquals(List.of(kept), orderCollection.getAllOrders());
+    }
+}
@@ -158,4 +158,15 @@ class EnumTest {
         assertEquals("Vanilla", Addition.VANILLA.toString());
         assertEquals("Caramel", Addition.CARAMEL.toString());
     }
+
+    @Test
+    @DisplayName("OrderStatus enum should list the stages in order with display names")
+    void orderStatusEnumShouldListStagesInOrder() {
+        assertArrayEquals(new OrderStatus[] {OrderStatus.PLACED, OrderStatus.GRINDING, OrderStatus.BREWING,
+                OrderStatus.READY, OrderStatus.PICKED_UP}, OrderStatus.values());
+        assertEquals(OrderStatus.BREWING, OrderStatus.GRINDING.next());
+        assertNull(OrderStatus.PICKED_UP.next());
+        assertEquals("Picked Up", OrderStatus.PICKED_UP.getDisplayName());
+        assertEquals("Ready", OrderStatus.READY.toString());
+    }
 }
@@ -0,0 +1,54 @@
+package com.example.coffee;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Time to reopen a large snapshot and serve the first lookups.
+ */
+@Tag("performance")
+class MappedOrderStorePerformanceTest {
+
+    private static final int ORDERS = 5_000_000;
+    private static final long MAX_OPEN_MILLIS = 100;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Reopening a snapshot should take under 100 ms")
+    void reopeningSnapshotShouldBeFast() throws IOException {
+        String[] orderIds = new String[ORDERS];
+        Path file = tempDir.resolve("orders.snapshot");
+        PackedOrderStore packed = new PackedOrderStore();
+        for (int i = 0; i < ORDERS; i++) {
+            CoffeeOrder order = new CoffeeOrder(
+                Size.values()[i % 3], GrindType.FINE, CoffeeType.values()[i % 4], Set.of(Addition.MILK));
+            orderIds[i] = order.getOrderId();
+            packed.add(order);
+        }
+        new OrderCollection(packed).writeSnapshot(file);
+        packed = null;
+
+        long start = System.nanoTime();
+        try (MappedOrderStore store = MappedOrderStore.open(file)) {
+            OrderCollection orderCollection = new OrderCollection(store);
+            for (int i = 0; i < ORDERS; i += ORDERS / 100) {
+                assertTrue(orderCollection.getOrderById(orderIds[i]).isPresent());
+            }
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            System.out.printf("snapshot of %,d orders served after %d ms%n", ORDERS, millis);
+
+            assertTrue(millis < MAX_OPEN_MILLIS, "Snapshot took " + millis + " ms to serve lookups");
+            assertEquals(ORDERS, orderCollection.getOrderCount());
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.coffee;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedOrderStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static CoffeeOrder newOrder(int i) {
+        Size size = Size.values()[i % Size.values().length];
+        GrindType grind = GrindType.values()[i % GrindType.values().length];
+        Set<Addition> additions = i % 2 == 0 ? EnumSet.of(Addition.MILK) : Set.of();
+        return new CoffeeOrder(size, grind, CoffeeType.ROBUSTA, additions);
+    }
+
+    private Path writeSnapshot(List<CoffeeOrder> orders) throws IOException {
+        OrderCollection orderCollection = new OrderCollection();
+        orders.forEach(orderCollection::addOrder);
+        Path file = tempDir.resolve("orders.snapshot");
+        assertEquals(orders.size(), orderCollection.writeSnapshot(file));
+        return file;
+    }
+
+    @Test
+    @DisplayName("Should reopen a snapshot with orders, IDs and queries intact")
+    void shouldReopenSnapshot() throws IOException {
+        List<CoffeeOrder> orders = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            orders.add(newOrder(i));
+        }
+        Path file = writeSnapshot(orders);
+
+        try (MappedOrderStore store = MappedOrderStore.open(file)) {
+            OrderCollection orderCollection = new OrderCollection(store);
+
+            assertEquals(1000, store.snapshotCount());
+            assertEquals(orders, orderCollection.getAllOrders());
+            for (CoffeeOrder order : orders) {
+                assertEquals(order, orderCollection.getOrderById(order.getOrderId()).orElseThrow());
+            }
+            assertEquals(500, orderCollection.query().withAdditions(Addition.MILK).count());
+            assertTrue(orderCollection.getOrderById("non-existent-id").isEmpty());
+        }
+    }
+
+    @Test
+    @DisplayName("Should apply changes in memory without modifying the snapshot file")
+    void shouldApplyChangesInMemory() throws IOException {
+        CoffeeOrder first = newOrder(0);
+        CoffeeOrder second = newOrder(1);
+        Path file = writeSnapshot(List.of(first, second));
+        byte[] original = Files.readAllBytes(file);
+
+        try (MappedOrderStore store = MappedOrderStore.open(file)) {
+            OrderCollection orderCollection = new OrderCollection(store);
+            CoffeeOrder added = newOrder(2);
+            orderCollection.addOrder(added);
+            assertTrue(orderCollection.removeOrder(first.getOrderId()));
+            orderCollection.addOrder(first);
+
+            assertEquals(List.of(second, added, first), orderCollection.getAllOrders());
+            assertEquals(3, orderCollection.getOrderCount());
+            assertEquals(2, orderCollection.query().withAdditions(Addition.MILK).count());
+            assertEquals(4, store.slotLimit());
+        }
+        assertArrayEquals(original, Files.readAllBytes(file));
+    }
+
+    @Test
+    @DisplayName("Should keep the slot when a snapshot order is replaced")
+    void shouldReplaceSnapshotOrderInPlace() throws IOException {
+        CoffeeOrder order = newOrder(0);
+        Path file = writeSnapshot(List.of(order));
+
+        try (MappedOrderStore store = MappedOrderStore.open(file)) {
+            assertEquals(0, store.add(order));
+            assertEquals(1, store.size());
+            assertEquals(0, store.slotOf(order.getOrderId()));
+        }
+    }
+
+    @Test
+    @DisplayName("Should drop the snapshot on clear and fail after close")
+    void shouldClearAndClose() throws IOException {
+        Path file = writeSnapshot(List.of(newOrder(0), newOrder(1)));
+        MappedOrderStore store = MappedOrderStore.open(file);
+        OrderCollection orderCollection = new OrderCollection(store);
+
+        orderCollection.clear();
+        assertTrue(orderCollection.isEmpty());
+        CoffeeOrder order = newOrder(2);
+        orderCollection.addOrder(order);
+        assertEquals(0, store.slotOf(order.getOrderId()));
+
+        store.close();
+        assertTrue(store.isClosed());
+        assertThrows(IllegalStateException.class, store::size);
+        store.close();
+    }
+
+    @Test
+    @DisplayName("Should write an empty collection and replace an existing snapshot")
+    void shouldReplaceExistingSnapshot() throws IOException {
+        Path file = writeSnapshot(List.of(newOrder(0)));
+        MappedOrderStore.write(new OrderCollection(), file);
+
+        try (MappedOrderStore store = MappedOrderStore.open(file)) {
+            assertEquals(0, store.size());
+            assertEquals(0, store.slotLimit());
+        }
+        try (var files = Files.list(tempDir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject files that are not snapshots")
+    void shouldRejectInvalidFiles() throws IOException {
+        Path file = tempDir.resolve("orders.snapshot");
+        Files.write(file, new byte[64]);
+        assertThrows(IOException.class, () -> MappedOrderStore.open(file));
+
+        Path truncated = writeSnapshot(List.of(newOrder(0)));
+        byte[] bytes = Files.readAllBytes(truncated);
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 4));
+        assertThrows(IOException.class, () -> MappedOrderStore.open(truncated));
+    }
+
+    @Test
+    @DisplayName("Should reject orders with non-UUID IDs")
+    void shouldRejectNonUuidIds() throws IOException {
+        OrderCollection orderCollection = new OrderCollection();
+        orderCollection.addOrder(new CoffeeOrder("custom-id", Size.SMALL, GrindType.FINE,
+                CoffeeType.ARABICA, Set.of()));
+        Path file = tempDir.resolve("orders.snapshot");
+
+        assertThrows(IllegalArgumentException.class, () -> MappedOrderStore.write(orderCollection, file));
+        assertFalse(Files.exists(file));
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.coffee;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapOrderStoreTest {
+
+    private OffHeapOrderStore store;
+    private OrderCollection orderCollection;
+
+    @BeforeEach
+    void setUp() {
+        store = new OffHeapOrderStore(100_000);
+        orderCollection = new OrderCollection(store);
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    private static CoffeeOrder newOrder(int i) {
+        return new CoffeeOrder(
+            Size.values()[i % 3], GrindType.values()[i % 6], OrderEncoding.beverageType(i % 10),
+            Set.of(Addition.values()[i % 5]));
+    }
+
+    @Test
+    @DisplayName("Should store, find and remove orders in direct memory")
+    void shouldStoreFindAndRemoveOrders() {
+        List<CoffeeOrder> orders = new ArrayList<>();
+        for (int i = 0; i < 70_000; i++) {
+            CoffeeOrder order = newOrder(i);
+            orders.add(order);
+            orderCollection.addOrder(order);
+        }
+        for (int i = 0; i < orders.size(); i += 3) {
+            assertTrue(orderCollection.removeOrder(orders.get(i).getOrderId()));
+        }
+
+        List<CoffeeOrder> remaining = orderCollection.getAllOrders();
+        assertEquals(orderCollection.getOrderCount(), remaining.size());
+        for (int i = 0; i < orders.size(); i++) {
+            CoffeeOrder order = orders.get(i);
+            var found = orderCollection.getOrderById(order.getOrderId());
+            assertEquals(i % 3 != 0, found.isPresent());
+            if (found.isPresent()) {
+                assertEquals(order.getSize(), found.get().getSize());
+                assertEquals(order.getGrindType(), found.get().getGrindType());
+                assertEquals(order.getBeverageType(), found.get().getBeverageType());
+                assertEquals(order.getAdditions(), found.get().getAdditions());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject orders beyond capacity until cleared")
+    void shouldRejectOrdersBeyondCapacity() {
+        try (OffHeapOrderStore small = new OffHeapOrderStore(2)) {
+            OrderCollection collection = new OrderCollection(small);
+            CoffeeOrder first = newOrder(0);
+            collection.addOrder(first);
+            collection.addOrder(newOrder(1));
+
+            assertEquals(0, small.remainingCapacity());
+            assertThrows(IllegalStateException.class, () -> collection.addOrder(newOrder(2)));
+
+            // Removed orders keep their slot; re-adding a stored order needs no new slot.
+            collection.addOrder(first);
+            collection.removeOrder(first.getOrderId());
+            assertThrows(IllegalStateException.class, () -> collection.addOrder(newOrder(3)));
+
+            collection.clear();
+            assertEquals(2, small.remainingCapacity());
+            collection.addOrder(newOrder(4));
+            assertEquals(1, collection.getOrderCount());
+        }
+    }
+
+    @Test
+    @DisplayName("Should allocate direct memory as orders arrive")
+    void shouldAllocateDirectMemoryAsOrdersArrive() {
+        long empty = store.allocatedBytes();
+        orderCollection.addOrder(newOrder(0));
+
+        assertTrue(store.allocatedBytes() > empty);
+        assertEquals(100_000, store.capacity());
+        assertEquals(99_999, store.remainingCapacity());
+    }
+
+    @Test
+    @DisplayName("Should fail every operation after close")
+    void shouldFailAfterClose() {
+        orderCollection.addOrder(newOrder(0));
+        store.close();
+        store.close();
+
+        assertTrue(store.isClosed());
+        assertThrows(IllegalStateException.class, () -> orderCollection.addOrder(newOrder(1)));
+        assertThrows(IllegalStateException.class, () -> orderCollection.getOrderCount());
+        assertThrows(IllegalStateException.class, () -> orderCollection.getOrderById("x"));
+        assertThrows(IllegalStateException.class, store::allocatedBytes);
+    }
+
+    @Test
+    @DisplayName("Should reject a non-positive capacity")
+    void shouldRejectNonPositiveCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new OffHeapOrderStore(0));
+    }
+
+    @Test
+    @DisplayName("Should give removed slots back to the capacity when compacted")
+    void shouldReclaimCapacityOnCompaction() {
+        List<CoffeeOrder> orders = new ArrayList<>();
+        for (int i = 0; i < 70_000; i++) {
+            orders.add(newOrder(i));
+        }
+        orderCollection.addOrders(orders);
+        orderCollection.removeOrders(orders.subList(0, 60_000).stream().map(CoffeeOrder::getOrderId).toList());
+        orderCollection.compact();
+
+        assertEquals(10_000, store.slotLimit());
+        assertEquals(90_000, store.remainingCapacity());
+        assertEquals(orders.subList(60_000, 70_000), orderCollection.getAllOrders());
+        assertEquals(orders.get(65_000),
+            orderCollection.getOrderById(orders.get(65_000).getOrderId()).orElseThrow());
+    }
+}
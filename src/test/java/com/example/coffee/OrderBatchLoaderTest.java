@@ -0,0 +1,123 @@
+package com.example.coffee;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderBatchLoaderTest {
+
+    private OrderCollection orderCollection;
+
+    @BeforeEach
+    void setUp() {
+        orderCollection = new OrderCollection();
+    }
+
+    @Test
+    @DisplayName("Should load orders from compact lines")
+    void shouldLoadOrdersFromCompactLines() throws IOException {
+        OrderBatchLoader.Summary summary = load("""
+                LARGE,ESPRESSO,FINE,MILK|SUGAR
+                small, arabica , coarse
+                # register 7
+                MEDIUM,COKE,,
+
+                Medium,DR_PEPPER,FINE,VANILLA\r
+                """);
+
+        assertEquals(4, summary.imported());
+        assertEquals(0, summary.rejected());
+        List<CoffeeOrder> orders = orderCollection.getAllOrders();
+        assertEquals(4, orders.size());
+        assertEquals(OrderShape.of(Size.LARGE, GrindType.FINE, CoffeeType.ESPRESSO,
+                Set.of(Addition.MILK, Addition.SUGAR)), orders.get(0).getShape());
+        assertEquals(OrderShape.of(Size.SMALL, GrindType.COARSE, CoffeeType.ARABICA, null), orders.get(1).getShape());
+        assertEquals(OrderShape.of(Size.MEDIUM, GrindType.NONE, SodaType.COKE, null), orders.get(2).getShape());
+        assertEquals(OrderShape.of(Size.MEDIUM, GrindType.NONE, SodaType.DR_PEPPER, Set.of(Addition.VANILLA)),
+                orders.get(3).getShape());
+    }
+
+    @Test
+    @DisplayName("Should count and describe rejected lines")
+    void shouldRejectInvalidLines() throws IOException {
+        OrderBatchLoader.Summary summary = load("""
+                HUGE,ESPRESSO,FINE
+                LARGE,TEA,FINE
+                LARGE,ESPRESSO,POWDER
+                LARGE,ESPRESSO,FINE,HONEY
+                LARGE,ESPRESSO
+                LARGE,ESPRESSO,FINE,MILK,SUGAR
+                LARGE,ESPRESSO,FINE,MILK||SUGAR
+                LARGE,ESPRESSO,FINE""");
+
+        assertEquals(1, summary.imported());
+        assertEquals(7, summary.rejected());
+        assertEquals(List.of(
+                "Line 1: unknown size 'HUGE'",
+                "Line 2: unknown beverage 'TEA'",
+                "Line 3: unknown grind type 'POWDER'",
+                "Line 4: unknown addition 'HONEY'",
+                "Line 5: expected size, beverage, grind and optional additions",
+                "Line 6: expected size, beverage, grind and optional additions",
+                "Line 7: unknown addition ''"), summary.rejectSamples());
+    }
+
+    @Test
+    @DisplayName("Should handle lines split across reads and in several batches")
+    void shouldHandleLargeInputs() throws IOException {
+        StringBuilder lines = new StringBuilder();
+        int count = OrderBatchLoader.BATCH_SIZE * 2 + 17;
+        for (int i = 0; i < count; i++) {
+            lines.append(i % 2 == 0 ? "LARGE,ESPRESSO,FINE,MILK\n" : "SMALL,SPRITE,NONE\n");
+        }
+        lines.append("X".repeat(70_000)).append('\n');
+        byte[] bytes = lines.toString().getBytes(StandardCharsets.US_ASCII);
+        InputStream trickle = new ByteArrayInputStream(bytes) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 7));
+            }
+        };
+
+        OrderBatchLoader.Summary summary = OrderBatchLoader.load(trickle, orderCollection);
+
+        assertEquals(count, summary.imported());
+        assertEquals(1, summary.rejected());
+        assertTrue(summary.rejectSamples().get(0).startsWith("Line " + (count + 1) + ": line is longer than"));
+        assertEquals(count, orderCollection.getOrderCount());
+        assertEquals(count / 2 + 1, orderCollection.statistics().count(Addition.MILK));
+        assertTrue(summary.ordersPerSecond() > 0);
+    }
+
+    @Test
+    @DisplayName("Should not submit a failed batch again")
+    void shouldNotResubmitFailedBatch() {
+        int[] submissions = new int[1];
+        orderCollection = new OrderCollection() {
+            @Override
+            public void addOrders(Collection<CoffeeOrder> orders) {
+                submissions[0]++;
+                throw new IllegalStateException("Order store is full");
+            }
+        };
+
+        assertThrows(IllegalStateException.class, () -> load("LARGE,ESPRESSO,FINE\n".repeat(
+                OrderBatchLoader.BATCH_SIZE + 1)));
+
+        assertEquals(1, submissions[0]);
+    }
+
+    private OrderBatchLoader.Summary load(String text) throws IOException {
+        return OrderBatchLoader.load(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), orderCollection);
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.coffee;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Performance checks for {@link OrderCollection}.
+ * Run with {@code ./gradlew performanceTest}; the largest collection size can be
+ * lowered with {@code -Pperf.maxOrders=<n>} on machines with a small heap.
+ */
+@Tag("performance")
+class OrderCollectionPerformanceTest {
+
+    private static final int[] SIZES = {1_000, 10_000, 100_000, 1_000_000, 10_000_000};
+    private static final int PROBES = 10_000;
+    private static final int ROUNDS = 20;
+    private static final int WARM_UP_ORDERS = 100_000;
+    private static final double MAX_SLOWDOWN = 3.0;
+    // About one main-memory access: below it the small collections are only faster
+    // because they fit in cache, which the larger ones cannot match.
+    private static final double MIN_BASELINE_NANOS = 100.0;
+
+    private final Random random = new Random(42);
+
+    @Test
+    @DisplayName("Lookup and removal latency should stay flat as the collection grows")
+    void lookupLatencyShouldStayFlat() {
+        int maxOrders = Integer.getInteger("perf.maxOrders", 10_000_000);
+        OrderCollection orderCollection = new OrderCollection();
+        String[] probes = new String[PROBES];
+        List<Double> lookupNanos = new ArrayList<>();
+        List<Double> removeNanos = new ArrayList<>();
+
+        // Compile the measured paths before the first point, so it is not the slowest.
+        OrderCollection warmUp = new OrderCollection();
+        String[] warmUpProbes = new String[PROBES];
+        fill(warmUp, WARM_UP_ORDERS, warmUpProbes);
+        measureLookups(warmUp, warmUpProbes);
+        measureRemovals(warmUp, warmUpProbes);
+
+        for (int size : SIZES) {
+            if (size > maxOrders) {
+                break;
+            }
+            fill(orderCollection, size, probes);
+            lookupNanos.add(measureLookups(orderCollection, probes));
+            removeNanos.add(measureRemovals(orderCollection, probes));
+            System.out.printf("orders=%,d lookup=%.1f ns remove+add=%.1f ns%n",
+                    size, lookupNanos.get(lookupNanos.size() - 1),
+                    removeNanos.get(removeNanos.size() - 1));
+        }
+
+        assertFlat(lookupNanos);
+        assertFlat(removeNanos);
+    }
+
+    private void fill(OrderCollection orderCollection, int size, String[] probes) {
+        for (int i = orderCollection.getOrderCount(); i < size; i++) {
+            CoffeeOrder order = new CoffeeOrder(
+                Size.values()[i % Size.values().length],
+                GrindType.MEDIUM,
+                CoffeeType.values()[i % CoffeeType.values().length],
+                Set.of()
+            );
+            orderCollection.addOrder(order);
+            // Reservoir sampling keeps probes spread over the whole collection.
+            if (i < PROBES) {
+                probes[i] = order.getOrderId();
+            } else {
+                int slot = random.nextInt(i + 1);
+                if (slot < PROBES) {
+                    probes[slot] = order.getOrderId();
+                }
+            }
+        }
+    }
+
+    private double measureLookups(OrderCollection orderCollection, String[] probes) {
+        long best = Long.MAX_VALUE;
+        int lookups = Math.min(PROBES, orderCollection.getOrderCount());
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < lookups; i++) {
+                assertTrue(orderCollection.getOrderById(probes[i]).isPresent());
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return (double) best / lookups;
+    }
+
+    private double measureRemovals(OrderCollection orderCollection, String[] probes) {
+        long best = Long.MAX_VALUE;
+        int removals = Math.min(PROBES, orderCollection.getOrderCount());
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < removals; i++) {
+                CoffeeOrder order = orderCollection.getOrderById(probes[i]).orElseThrow();
+                assertTrue(orderCollection.removeOrder(probes[i]));
+                orderCollection.addOrder(order);
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return (double) best / removals;
+    }
+
+    private static void assertFlat(List<Double> nanosPerOperation) {
+        double smallest = nanosPerOperation.get(0);
+        double largest = nanosPerOperation.get(nanosPerOperation.size() - 1);
+        assertTrue(largest <= Math.max(smallest, MIN_BASELINE_NANOS) * MAX_SLOWDOWN,
+                "Per-operation latency grew from " + smallest + " ns to " + largest + " ns");
+    }
+}
@@ -4,6 +4,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
@@ -234,4 +236,166 @@ class OrderCollectionTest {
         orderCollection.clear();
         assertTrue(orderCollection.isEmpty());
     }
+
+    @Test
+    @DisplayName("Should keep insertion order of remaining orders after removal")
+    void shouldKeepInsertionOrderAfterRemoval() {
+        CoffeeOrder testOrder3 = new CoffeeOrder(
+            Size.MEDIUM, 
+            GrindType.MEDIUM, 
+            CoffeeType.ARABICA, 
+            new HashSet<>()
+        );
+        orderCollection.addOrder(testOrder1);
+        orderCollection.addOrder(testOrder2);
+        orderCollection.addOrder(testOrder3);
+        
+        orderCollection.removeOrder(testOrder2.getOrderId());
+        
+        assertEquals(List.of(testOrder1, testOrder3), orderCollection.getAllOrders());
+    }
+
+    @Test
+    @DisplayName("Should not duplicate an order added twice")
+    void shouldNotDuplicateOrderAddedTwice() {
+        orderCollection.addOrder(testOrder1);
+        orderCollection.addOrder(testOrder1);
+        
+        assertEquals(1, orderCollection.getOrderCount());
+        assertTrue(orderCollection.removeOrder(testOrder1.getOrderId()));
+        assertTrue(orderCollection.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should add and remove orders in batches")
+    void shouldAddAndRemoveOrdersInBatches() {
+        CoffeeOrder testOrder3 = new CoffeeOrder(
+            Size.MEDIUM, 
+            GrindType.MEDIUM, 
+            CoffeeType.ARABICA, 
+            new HashSet<>()
+        );
+        orderCollection.addOrder(testOrder1);
+        orderCollection.addOrders(List.of(testOrder2, testOrder1, testOrder3));
+
+        assertEquals(List.of(testOrder1, testOrder2, testOrder3), orderCollection.getAllOrders());
+        assertEquals(1, orderCollection.query().size(Size.SMALL).count());
+        assertEquals(3, orderCollection.statistics().total());
+
+        assertEquals(2, orderCollection.removeOrders(
+                Arrays.asList(testOrder1.getOrderId(), null, "non-existent-id", testOrder3.getOrderId())));
+        assertEquals(List.of(testOrder2), orderCollection.getAllOrders());
+        assertEquals(0, orderCollection.query().size(Size.SMALL).count());
+        assertEquals(1, orderCollection.statistics().total());
+    }
+
+    @Test
+    @DisplayName("Should reject a batch containing null without adding any of it")
+    void shouldRejectBatchContainingNull() {
+        assertThrows(IllegalArgumentException.class, () -> orderCollection.addOrders(null));
+        assertThrows(IllegalArgumentException.class,
+                () -> orderCollection.addOrders(Arrays.asList(testOrder1, null)));
+        assertThrows(IllegalArgumentException.class, () -> orderCollection.removeOrders(null));
+
+        assertTrue(orderCollection.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should reject a batch the store cannot hold without adding any of it")
+    void shouldRejectBatchTheStoreCannotHold() {
+        OrderCollection packed = new OrderCollection(new PackedOrderStore());
+        CoffeeOrder unpackable = new CoffeeOrder(
+            "not-a-uuid", Size.SMALL, GrindType.FINE, CoffeeType.ESPRESSO, new HashSet<>());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> packed.addOrders(List.of(testOrder1, unpackable)));
+
+        assertTrue(packed.isEmpty());
+        assertEquals(0, packed.query().count());
+    }
+
+    @Test
+    @DisplayName("Should keep the orders a store took before failing partway through a batch")
+    void shouldKeepOrdersStoredBeforeBatchFailure() {
+        try (OffHeapOrderStore store = new OffHeapOrderStore(1)) {
+            OrderCollection full = new OrderCollection(store);
+
+            assertThrows(IllegalStateException.class,
+                    () -> full.addOrders(List.of(testOrder1, testOrder2)));
+
+            assertEquals(List.of(testOrder1), full.getAllOrders());
+            assertEquals(1, full.query().size(Size.SMALL).count());
+            assertEquals(1, full.statistics().total());
+            assertEquals(List.of(testOrder1), full.snapshot().toList());
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep finding packed and custom IDs after compaction moves them")
+    void shouldFindMixedIdsAfterCompaction() {
+        List<CoffeeOrder> orders = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            orders.add(i % 2 == 0
+                    ? new CoffeeOrder(Size.SMALL, GrindType.FINE, CoffeeType.ESPRESSO, new HashSet<>())
+                    : new CoffeeOrder("ORDER-" + i, Size.LARGE, GrindType.FINE, CoffeeType.ESPRESSO, new HashSet<>()));
+        }
+        orderCollection.addOrders(orders);
+        for (int i = 0; i < 50; i++) {
+            orderCollection.removeOrder(orders.get(i).getOrderId());
+        }
+
+        orderCollection.compact();
+
+        assertEquals(50, orderCollection.store().slotLimit());
+        for (int i = 50; i < 100; i++) {
+            assertEquals(orders.get(i), orderCollection.getOrderById(orders.get(i).getOrderId()).orElseThrow());
+        }
+        assertTrue(orderCollection.getOrderById(orders.get(0).getOrderId()).isEmpty());
+        assertTrue(orderCollection.getOrderById("ORDER-1").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should compact tombstones in steps once the threshold is crossed")
+    void shouldCompactTombstonesOnceThresholdIsCrossed() {
+        List<CoffeeOrder> orders = new ArrayList<>();
+        for (int i = 0; i < 4096; i++) {
+            orders.add(new CoffeeOrder(Size.values()[i % 3], GrindType.FINE, CoffeeType.ESPRESSO, new HashSet<>()));
+        }
+        orderCollection.addOrders(orders);
+        orderCollection.setCompactionThreshold(0.25);
+        OrderSnapshot before = orderCollection.snapshot();
+
+        for (int i = 0; i < 2048; i++) {
+            assertTrue(orderCollection.removeOrder(orders.get(i).getOrderId()));
+        }
+
+        assertTrue(orderCollection.store().slotLimit() < 3072);
+        assertEquals(orders.subList(2048, 4096), orderCollection.getAllOrders());
+        orderCollection.compact();
+        assertEquals(2048, orderCollection.store().slotLimit());
+        assertEquals(orders.subList(2048, 4096), orderCollection.snapshot().toList());
+        assertEquals(orders, before.toList());
+        assertEquals(683, orderCollection.query().size(Size.SMALL).count());
+        assertEquals(2048, orderCollection.statistics().total());
+        CoffeeOrder last = orders.get(4095);
+        assertEquals(last, orderCollection.getOrderById(last.getOrderId()).orElseThrow());
+    }
+
+    @Test
+    @DisplayName("Should not compact small collections or reject invalid thresholds")
+    void shouldValidateCompactionThreshold() {
+        orderCollection.addOrder(testOrder1);
+        orderCollection.addOrder(testOrder2);
+        orderCollection.removeOrder(testOrder1.getOrderId());
+
+        assertEquals(2, orderCollection.store().slotLimit());
+        orderCollection.compact();
+        assertEquals(1, orderCollection.store().slotLimit());
+        assertEquals(List.of(testOrder2), orderCollection.getAllOrders());
+
+        assertEquals(0.5, orderCollection.getCompactionThreshold());
+        assertThrows(IllegalArgumentException.class, () -> orderCollection.setCompactionThreshold(0));
+        assertThrows(IllegalArgumentException.class, () -> orderCollection.setCompactionThreshold(1.5));
+        assertThrows(IllegalArgumentException.class, () -> orderCollection.setCompactionThreshold(Double.NaN));
+    }
 }
@@ -0,0 +1,107 @@
+package com.example.coffee;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderFilterTest {
+
+    private static List<CoffeeOrder> everyCombination() {
+        List<BeverageType> beverageTypes = new ArrayList<>(List.of(CoffeeType.values()));
+        beverageTypes.addAll(List.of(SodaType.values()));
+        List<CoffeeOrder> orders = new ArrayList<>();
+        for (Size size : Size.values()) {
+            for (GrindType grindType : GrindType.values()) {
+                for (BeverageType beverageType : beverageTypes) {
+                    for (int mask = 0; mask < 1 << Addition.values().length; mask++) {
+                        Set<Addition> additions = EnumSet.noneOf(Addition.class);
+                        for (Addition addition : Addition.values()) {
+                            if ((mask & 1 << addition.ordinal()) != 0) {
+                                additions.add(addition);
+                            }
+                        }
+                        orders.add(new CoffeeOrder(size, grindType, beverageType, additions));
+                    }
+                }
+            }
+        }
+        return orders;
+    }
+
+    private static void assertSameMatches(String expression, Predicate<CoffeeOrder> expected) {
+        OrderFilter filter = OrderFilter.compile(expression);
+        for (CoffeeOrder order : everyCombination()) {
+            assertEquals(expected.test(order), filter.test(order), expression + " on " + order);
+        }
+    }
+
+    @Test
+    @DisplayName("Should match the same orders as the equivalent getter-based predicate")
+    void shouldMatchLikeGetterPredicate() {
+        assertSameMatches("size=LARGE and beverage in (ESPRESSO, ARABICA) and additions contains MILK",
+            order -> order.getSize() == Size.LARGE
+                && (order.getBeverageType() == CoffeeType.ESPRESSO || order.getBeverageType() == CoffeeType.ARABICA)
+                && order.getAdditions().contains(Addition.MILK));
+        assertSameMatches("grind != NONE or not (beverage = coke)",
+            order -> order.getGrindType() != GrindType.NONE || order.getBeverageType() != SodaType.COKE);
+        assertSameMatches("size not in (small) and additions contains any (sugar, vanilla)",
+            order -> order.getSize() != Size.SMALL
+                && (order.getAdditions().contains(Addition.SUGAR) || order.getAdditions().contains(Addition.VANILLA)));
+        assertSameMatches("additions contains all (MILK, CREAM) and additions not contains CARAMEL",
+            order -> order.getAdditions().containsAll(Set.of(Addition.MILK, Addition.CREAM))
+                && !order.getAdditions().contains(Addition.CARAMEL));
+        assertSameMatches("SIZE = medium AND grind = fine OR beverage = DR_PEPPER",
+            order -> order.getSize() == Size.MEDIUM && order.getGrindType() == GrindType.FINE
+                || order.getBeverageType() == SodaType.DR_PEPPER);
+    }
+
+    @Test
+    @DisplayName("Should reuse compiled filters for the same expression")
+    void shouldCacheCompiledFilters() {
+        OrderFilter filter = OrderFilter.compile("size = SMALL");
+
+        assertSame(filter, OrderFilter.compile("  size = SMALL "));
+        assertEquals("size = SMALL", filter.toString());
+    }
+
+    @Test
+    @DisplayName("Should report where an invalid expression goes wrong")
+    void shouldRejectInvalidExpressions() {
+        IllegalArgumentException unknown = assertThrows(IllegalArgumentException.class,
+            () -> OrderFilter.compile("size = HUGE"));
+        assertTrue(unknown.getMessage().contains("Unknown Size 'HUGE' at position 8"));
+
+        assertThrows(IllegalArgumentException.class, () -> OrderFilter.compile(null));
+        assertThrows(IllegalArgumentException.class, () -> OrderFilter.compile("  "));
+        assertThrows(IllegalArgumentException.class, () -> OrderFilter.compile("colour = RED"));
+        assertThrows(IllegalArgumentException.class, () -> OrderFilter.compile("size in (SMALL"));
+        assertThrows(IllegalArgumentException.class, () -> OrderFilter.compile("size = SMALL and"));
+        assertThrows(IllegalArgumentException.class, () -> OrderFilter.compile("size = SMALL)"));
+        assertThrows(IllegalArgumentException.class, () -> OrderFilter.compile("size > SMALL"));
+        assertThrows(IllegalArgumentException.class, () -> OrderFilter.compile("beverage = LATTE"));
+    }
+
+    @Test
+    @DisplayName("Should filter queries and statistics by encoded attributes")
+    void shouldFilterQueriesAndStatistics() {
+        OrderCollection orderCollection = new OrderCollection(new PackedOrderStore());
+        List<CoffeeOrder> orders = everyCombination();
+        orderCollection.addOrders(orders);
+        String expression = "size=LARGE and beverage in (ESPRESSO, ARABICA) and additions contains MILK";
+        OrderFilter filter = OrderFilter.compile(expression);
+        List<CoffeeOrder> expected = orders.stream().filter(filter).toList();
+
+        assertEquals(expected, orderCollection.query().where(expression).orders());
+        assertEquals(expected.size(), orderCollection.statistics().count(filter));
+        assertEquals(expected.size() / 2,
+            orderCollection.query().where(filter).withAdditions(Addition.SUGAR).count());
+        assertThrows(IllegalArgumentException.class, () -> filter.test(null));
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.coffee;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Load test for {@link OrderHttpServer}.
+ * Each client repeatedly creates an order, reads it back and deletes every other one,
+ * and every tenth iteration also reads a page of orders.
+ */
+@Tag("performance")
+class OrderHttpServerPerformanceTest {
+
+    private static final int[] CLIENT_COUNTS = {16, 64, 256, 1024};
+    private static final int TOTAL_ITERATIONS = 20_000;
+    private static final String BODY =
+            "{\"size\":\"LARGE\",\"beverage\":\"ESPRESSO\",\"grind\":\"FINE\",\"additions\":[\"MILK\"]}";
+
+    @Test
+    @DisplayName("Should report requests/s and p99 latency at 16, 64, 256 and 1024 clients")
+    void shouldReportThroughputAndLatency() throws Exception {
+        for (int clients : CLIENT_COUNTS) {
+            OrderCollection orderCollection = OrderCollection.concurrent();
+            try (OrderHttpServer server = OrderHttpServer.start(orderCollection, 0);
+                 HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build()) {
+                int iterations = TOTAL_ITERATIONS / clients;
+                String base = "http://localhost:" + server.getPort() + "/orders";
+                List<long[]> latencies = new ArrayList<>();
+                long nanos = run(client, base, clients, iterations, latencies);
+
+                long[] all = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+                System.out.printf("clients=%d requests/s=%,.0f p50=%.2f ms p99=%.2f ms%n", clients,
+                        all.length * 1e9 / nanos, all[all.length / 2] / 1e6, all[(int) (all.length * 0.99)] / 1e6);
+
+                assertEquals(clients * (iterations / 2), orderCollection.getOrderCount());
+            }
+        }
+    }
+
+    private static long run(HttpClient client, String base, int clients, int iterations,
+                            List<long[]> latencies) throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int c = 0; c < clients; c++) {
+                futures.add(executor.submit(() -> {
+                    long[] times = new long[iterations * 3 + iterations / 10 + 1];
+                    int count = 0;
+                    start.await();
+                    for (int i = 0; i < iterations; i++) {
+                        long begin = System.nanoTime();
+                        HttpResponse<String> created = client.send(HttpRequest.newBuilder(URI.create(base))
+                                .POST(HttpRequest.BodyPublishers.ofString(BODY)).build(),
+                                HttpResponse.BodyHandlers.ofString());
+                        times[count++] = System.nanoTime() - begin;
+                        assertEquals(201, created.statusCode());
+                        URI order = URI.create(base.substring(0, base.length() - "/orders".length())
+                                + created.headers().firstValue("Location").orElseThrow());
+
+                        begin = System.nanoTime();
+                        assertEquals(200, client.send(HttpRequest.newBuilder(order).GET().build(),
+                                HttpResponse.BodyHandlers.discarding()).statusCode());
+                        times[count++] = System.nanoTime() - begin;
+
+                        if (i % 2 == 0) {
+                            begin = System.nanoTime();
+                            assertEquals(204, client.send(HttpRequest.newBuilder(order).DELETE().build(),
+                                    HttpResponse.BodyHandlers.discarding()).statusCode());
+                            times[count++] = System.nanoTime() - begin;
+                        }
+                        if (i % 10 == 0) {
+                            begin = System.nanoTime();
+                            assertEquals(200, client.send(HttpRequest.newBuilder(URI.create(base + "?limit=20"))
+                                    .GET().build(), HttpResponse.BodyHandlers.discarding()).statusCode());
+                            times[count++] = System.nanoTime() - begin;
+                        }
+                    }
+                    return Arrays.copyOf(times, count);
+                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<long[]> future : futures) {
+                latencies.add(future.get());
+            }
+            return System.nanoTime() - begin;
+        }
+    }
+}
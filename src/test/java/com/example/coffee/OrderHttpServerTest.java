@@ -0,0 +1,242 @@
+package com.example.coffee;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderHttpServerTest {
+
+    private OrderCollection orderCollection;
+    private OrderHttpServer server;
+    private HttpClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        orderCollection = OrderCollection.concurrent();
+        server = OrderHttpServer.start(orderCollection, 0);
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+        server.close();
+    }
+
+    @Test
+    @DisplayName("Should create an order from a JSON body")
+    void shouldCreateOrder() throws Exception {
+        HttpResponse<String> response = post("""
+                {"size": "large", "beverage": "ESPRESSO", "grind": "FINE", "additions": ["MILK", "sugar"]}
+                """);
+
+        assertEquals(201, response.statusCode());
+        assertEquals(1, orderCollection.getOrderCount());
+        CoffeeOrder order = orderCollection.getAllOrders().get(0);
+        assertEquals(OrderShape.of(Size.LARGE, GrindType.FINE, CoffeeType.ESPRESSO,
+                Set.of(Addition.MILK, Addition.SUGAR)), order.getShape());
+        assertEquals("/orders/" + order.getOrderId(), response.headers().firstValue("Location").orElseThrow());
+        assertEquals("{\"orderId\":\"" + order.getOrderId() + "\",\"size\":\"LARGE\",\"grind\":\"FINE\","
+                + "\"beverage\":\"ESPRESSO\",\"additions\":[\"MILK\",\"SUGAR\"],\"status\":\"PLACED\"}",
+                response.body());
+        assertTrue(response.headers().firstValue("Content-Type").orElseThrow().startsWith("application/json"));
+    }
+
+    @Test
+    @DisplayName("Should give soda orders no grind type")
+    void shouldCreateSodaWithoutGrind() throws Exception {
+        HttpResponse<String> response = post("{\"size\":\"SMALL\",\"beverage\":\"DR_PEPPER\"}");
+
+        assertEquals(201, response.statusCode());
+        assertEquals(OrderShape.of(Size.SMALL, GrindType.NONE, SodaType.DR_PEPPER, null),
+                orderCollection.getAllOrders().get(0).getShape());
+        assertTrue(response.body().contains("\"grind\":\"NONE\",\"beverage\":\"DR_PEPPER\",\"additions\":[]"));
+    }
+
+    @Test
+    @DisplayName("Should reject malformed orders with 400")
+    void shouldRejectMalformedOrders() throws Exception {
+        for (String body : List.of(
+                "",
+                "{\"size\":\"LARGE\"",
+                "{\"size\":\"HUGE\",\"beverage\":\"ESPRESSO\",\"grind\":\"FINE\"}",
+                "{\"size\":\"LARGE\",\"beverage\":\"TEA\",\"grind\":\"FINE\"}",
+                "{\"size\":\"LARGE\",\"beverage\":\"ESPRESSO\"}",
+                "{\"size\":\"LARGE\",\"beverage\":\"ESPRESSO\",\"grind\":\"FINE\",\"additions\":\"MILK\"}",
+                "{\"size\":\"LARGE\",\"beverage\":\"ESPRESSO\",\"grind\":\"FINE\",\"additions\":[\"HONEY\"]}",
+                "{\"size\":\"LARGE\",\"beverage\":\"ESPRESSO\",\"grind\":\"FINE\"} extra")) {
+            HttpResponse<String> response = post(body);
+            assertEquals(400, response.statusCode(), body);
+            assertTrue(response.body().startsWith("{\"error\":\""), body);
+        }
+        assertEquals(0, orderCollection.getOrderCount());
+    }
+
+    @Test
+    @DisplayName("Should get an order by ID")
+    void shouldGetOrderById() throws Exception {
+        CoffeeOrder order = new CoffeeOrder("id \"1\"", Size.MEDIUM, GrindType.COARSE, CoffeeType.BLEND,
+                Set.of(Addition.VANILLA));
+        orderCollection.addOrder(order);
+        orderCollection.transition(order.getOrderId(), OrderStatus.PLACED, OrderStatus.GRINDING);
+
+        HttpResponse<String> response = send(request("/orders/"
+                + URLEncoder.encode(order.getOrderId(), StandardCharsets.UTF_8).replace("+", "%20")).GET());
+
+        assertEquals(200, response.statusCode());
+        assertEquals("{\"orderId\":\"id \\\"1\\\"\",\"size\":\"MEDIUM\",\"grind\":\"COARSE\","
+                + "\"beverage\":\"BLEND\",\"additions\":[\"VANILLA\"],\"status\":\"GRINDING\"}", response.body());
+        assertEquals(404, send(request("/orders/missing").GET()).statusCode());
+    }
+
+    @Test
+    @DisplayName("Should delete an order by ID")
+    void shouldDeleteOrderById() throws Exception {
+        CoffeeOrder order = new CoffeeOrder(Size.SMALL, GrindType.FINE, CoffeeType.ARABICA, Set.of());
+        orderCollection.addOrder(order);
+
+        assertEquals(204, send(request("/orders/" + order.getOrderId()).DELETE()).statusCode());
+        assertTrue(orderCollection.isEmpty());
+        assertEquals(404, send(request("/orders/" + order.getOrderId()).DELETE()).statusCode());
+    }
+
+    @Test
+    @DisplayName("Should page through orders in both directions with cursors")
+    void shouldPageThroughOrders() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            orderCollection.addOrder(new CoffeeOrder("order-" + i, Size.SMALL, GrindType.FINE,
+                    CoffeeType.ESPRESSO, Set.of()));
+        }
+
+        String first = send(request("/orders?limit=2").GET()).body();
+        assertEquals(List.of("order-0", "order-1"), orderIds(first));
+        assertTrue(first.contains("\"hasPrevious\":false,\"hasNext\":true"));
+
+        orderCollection.removeOrder("order-2");
+        String second = send(request("/orders?limit=2&after=" + cursor(first, "next")).GET()).body();
+        assertEquals(List.of("order-3", "order-4"), orderIds(second));
+        assertTrue(second.contains("\"hasPrevious\":true,\"hasNext\":false"));
+
+        String back = send(request("/orders?limit=2&before=" + cursor(second, "previous")).GET()).body();
+        assertEquals(List.of("order-0", "order-1"), orderIds(back));
+
+        String all = send(request("/orders/").GET()).body();
+        assertEquals(List.of("order-0", "order-1", "order-3", "order-4"), orderIds(all));
+    }
+
+    @Test
+    @DisplayName("Should reject invalid paging parameters with 400")
+    void shouldRejectInvalidPaging() throws Exception {
+        for (String query : List.of("limit=0", "limit=1001", "limit=ten", "after=x1", "after=1&before=2")) {
+            assertEquals(400, send(request("/orders?" + query).GET()).statusCode(), query);
+        }
+    }
+
+    @Test
+    @DisplayName("Should answer unsupported methods and paths")
+    void shouldAnswerUnsupportedMethodsAndPaths() throws Exception {
+        HttpResponse<String> response = send(request("/orders").PUT(HttpRequest.BodyPublishers.noBody()));
+        assertEquals(405, response.statusCode());
+        assertEquals("GET, POST", response.headers().firstValue("Allow").orElseThrow());
+        assertEquals(405, send(request("/orders/1").POST(HttpRequest.BodyPublishers.noBody())).statusCode());
+        assertEquals(404, send(request("/orders/1/status").GET()).statusCode());
+        assertEquals(404, send(request("/ordersX").GET()).statusCode());
+    }
+
+    @Test
+    @DisplayName("Should answer 500 with a JSON error when the collection fails")
+    void shouldAnswerInternalErrors() throws Exception {
+        try (OffHeapOrderStore store = new OffHeapOrderStore(1);
+             OrderHttpServer full = OrderHttpServer.start(new OrderCollection(store), 0)) {
+            String body = "{\"size\": \"SMALL\", \"beverage\": \"COKE\"}";
+            URI orders = URI.create("http://localhost:" + full.getPort() + "/orders");
+            assertEquals(201, send(HttpRequest.newBuilder(orders)
+                    .POST(HttpRequest.BodyPublishers.ofString(body))).statusCode());
+
+            HttpResponse<String> response = send(HttpRequest.newBuilder(orders)
+                    .POST(HttpRequest.BodyPublishers.ofString(body)));
+            assertEquals(500, response.statusCode());
+            assertEquals("{\"error\":\"Internal server error\"}", response.body());
+        }
+    }
+
+    @Test
+    @DisplayName("Should answer 500 when the store rejects a well-formed order")
+    void shouldAnswerInternalErrorForStoreRejection() throws Exception {
+        OrderStore rejecting = new InMemoryOrderStore() {
+            @Override
+            public int add(CoffeeOrder order) {
+                throw new IllegalArgumentException("Store rejected the order");
+            }
+        };
+        try (OrderHttpServer failing = OrderHttpServer.start(new OrderCollection(rejecting), 0)) {
+            URI orders = URI.create("http://localhost:" + failing.getPort() + "/orders");
+
+            HttpResponse<String> response = send(HttpRequest.newBuilder(orders)
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"size\": \"SMALL\", \"beverage\": \"COKE\"}")));
+
+            assertEquals(500, response.statusCode());
+            assertEquals("{\"error\":\"Internal server error\"}", response.body());
+        }
+    }
+
+    @Test
+    @DisplayName("Should parse JSON escapes in request bodies")
+    void shouldParseJsonEscapes() {
+        Map<String, Object> fields = OrderHttpServer.Json.parseObject(
+                " { \"a\" : \"x\\\"\\\\\\/\\n\\u0041\" , \"b\": [ ], \"c\": null, \"d\": [\"1\", \"2\"] } ");
+
+        assertEquals("x\"\\/\nA", fields.get("a"));
+        assertEquals(List.of(), fields.get("b"));
+        assertTrue(fields.containsKey("c"));
+        assertNull(fields.get("c"));
+        assertEquals(List.of("1", "2"), fields.get("d"));
+        assertThrows(IllegalArgumentException.class, () -> OrderHttpServer.Json.parseObject("{\"a\":1}"));
+        assertThrows(IllegalArgumentException.class, () -> OrderHttpServer.Json.parseObject("{\"a\":\"\\q\"}"));
+    }
+
+    @Test
+    @DisplayName("Should reject a null collection")
+    void shouldRejectNullCollection() {
+        assertThrows(NullPointerException.class, () -> OrderHttpServer.start(null, 0));
+    }
+
+    private HttpResponse<String> post(String body) throws Exception {
+        return send(request("/orders").POST(HttpRequest.BodyPublishers.ofString(body)));
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path));
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static List<String> orderIds(String json) {
+        return Pattern.compile("\"orderId\":\"([^\"]*)\"").matcher(json).results()
+                .map(match -> match.group(1))
+                .toList();
+    }
+
+    private static String cursor(String json, String name) {
+        String prefix = "\"" + name + "\":\"";
+        int start = json.indexOf(prefix) + prefix.length();
+        return URLEncoder.encode(json.substring(start, json.indexOf('"', start)), StandardCharsets.UTF_8);
+    }
+}
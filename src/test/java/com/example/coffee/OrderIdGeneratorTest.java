@@ -0,0 +1,102 @@
+package com.example.coffee;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderIdGeneratorTest {
+
+    @Test
+    @DisplayName("Should generate version 7 IDs carrying the clock's timestamp")
+    void shouldGenerateVersion7Ids() {
+        Instant now = Instant.parse("2024-03-01T08:00:00Z");
+        OrderIdGenerator generator = OrderIdGenerator.timeOrdered(Clock.fixed(now, ZoneOffset.UTC));
+
+        UUID id = generator.nextId();
+
+        assertEquals(7, id.version());
+        assertEquals(2, id.variant());
+        assertEquals(now.toEpochMilli(), id.getMostSignificantBits() >>> 16);
+    }
+
+    @Test
+    @DisplayName("Should generate strictly increasing IDs on one thread")
+    void shouldGenerateIncreasingIds() {
+        OrderIdGenerator generator = OrderIdGenerator.timeOrdered();
+        UUID previous = generator.nextId();
+        for (int i = 0; i < 100_000; i++) {
+            UUID id = generator.nextId();
+            assertTrue(Long.compareUnsigned(id.getMostSignificantBits(), previous.getMostSignificantBits()) > 0);
+            previous = id;
+        }
+    }
+
+    @Test
+    @DisplayName("Should move ahead of a stopped clock once the sequence runs out")
+    void shouldMoveAheadWhenSequenceRunsOut() {
+        Instant now = Instant.parse("2024-03-01T08:00:00Z");
+        OrderIdGenerator generator = OrderIdGenerator.timeOrdered(Clock.fixed(now, ZoneOffset.UTC));
+
+        long previous = generator.nextId().getMostSignificantBits();
+        for (int i = 0; i < 10_000; i++) {
+            long high = generator.nextId().getMostSignificantBits();
+            assertTrue(high > previous);
+            previous = high;
+        }
+
+        assertTrue(previous >>> 16 > now.toEpochMilli());
+    }
+
+    @Test
+    @DisplayName("Should generate unique IDs across threads")
+    void shouldGenerateUniqueIdsAcrossThreads() throws Exception {
+        OrderIdGenerator generator = OrderIdGenerator.timeOrdered();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<UUID>>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    List<UUID> ids = new ArrayList<>();
+                    for (int i = 0; i < 50_000; i++) {
+                        ids.add(generator.nextId());
+                    }
+                    return ids;
+                }));
+            }
+            Set<UUID> ids = new HashSet<>();
+            for (Future<List<UUID>> future : futures) {
+                ids.addAll(future.get());
+            }
+            assertEquals(200_000, ids.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Should create orders with IDs from the given generator")
+    void shouldCreateOrdersWithGeneratedIds() {
+        UUID id = UUID.fromString("0190a1b2-c3d4-7e5f-8a6b-7c8d9e0f1a2b");
+
+        CoffeeOrder order = new CoffeeOrder(() -> id, Size.SMALL, GrindType.FINE, CoffeeType.ESPRESSO, Set.of());
+
+        assertEquals(id.toString(), order.getOrderId());
+        assertEquals(4, UUID.fromString(new CoffeeOrder(OrderIdGenerator.random(), Size.SMALL,
+                GrindType.FINE, CoffeeType.ESPRESSO, Set.of()).getOrderId()).version());
+        assertThrows(NullPointerException.class,
+                () -> new CoffeeOrder((OrderIdGenerator) null, Size.SMALL, GrindType.FINE, CoffeeType.ESPRESSO, Set.of()));
+    }
+}
@@ -0,0 +1,253 @@
+package com.example.coffee;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderLifecycleTest {
+
+    private static final Instant START = Instant.parse("2024-03-01T08:00:00Z");
+
+    private MutableClock clock;
+    private OrderCollection orderCollection;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(START);
+        orderCollection = new OrderCollection(new InMemoryOrderStore(), clock);
+    }
+
+    @Test
+    @DisplayName("Should move an order through every status with timestamps")
+    void shouldMoveOrderThroughEveryStatus() {
+        orderCollection.setStatusTimesRecorded(true);
+        CoffeeOrder order = newOrder();
+        orderCollection.addOrder(order);
+        String id = order.getOrderId();
+
+        assertEquals(Optional.of(OrderStatus.PLACED), orderCollection.getStatus(id));
+        OrderStatus status = OrderStatus.PLACED;
+        for (OrderStatus next = status.next(); next != null; status = next, next = next.next()) {
+            clock.advance(Duration.ofMinutes(1));
+            assertTrue(orderCollection.transition(id, status, next));
+            assertEquals(Optional.of(next), orderCollection.getStatus(id));
+        }
+
+        for (OrderStatus s : OrderStatus.values()) {
+            assertEquals(Optional.of(START.plus(Duration.ofMinutes(s.ordinal()))),
+                    orderCollection.getStatusTime(id, s));
+        }
+        assertNull(OrderStatus.PICKED_UP.next());
+    }
+
+    @Test
+    @DisplayName("Should record status times only when enabled")
+    void shouldRecordStatusTimesOnlyWhenEnabled() {
+        CoffeeOrder untimed = newOrder();
+        orderCollection.addOrder(untimed);
+        assertFalse(orderCollection.isStatusTimesRecorded());
+        assertEquals(Optional.empty(), orderCollection.getStatusTime(untimed.getOrderId(), OrderStatus.PLACED));
+
+        orderCollection.setStatusTimesRecorded(true);
+        CoffeeOrder timed = newOrder();
+        orderCollection.addOrder(timed);
+        clock.advance(Duration.ofMinutes(1));
+        assertTrue(orderCollection.transition(untimed.getOrderId(), OrderStatus.PLACED, OrderStatus.GRINDING));
+
+        assertEquals(Optional.of(START), orderCollection.getStatusTime(timed.getOrderId(), OrderStatus.PLACED));
+        assertEquals(Optional.empty(), orderCollection.getStatusTime(untimed.getOrderId(), OrderStatus.PLACED));
+        assertEquals(Optional.of(START.plus(Duration.ofMinutes(1))),
+                orderCollection.getStatusTime(untimed.getOrderId(), OrderStatus.GRINDING));
+
+        orderCollection.clear();
+        assertTrue(orderCollection.isStatusTimesRecorded());
+        orderCollection.setStatusTimesRecorded(false);
+        orderCollection.addOrder(timed);
+        assertEquals(Optional.empty(), orderCollection.getStatusTime(timed.getOrderId(), OrderStatus.PLACED));
+    }
+
+    @Test
+    @DisplayName("Should only move orders that are still in the expected status")
+    void shouldRejectStaleAndInvalidTransitions() {
+        CoffeeOrder order = newOrder();
+        orderCollection.addOrder(order);
+        String id = order.getOrderId();
+
+        assertTrue(orderCollection.transition(id, OrderStatus.PLACED, OrderStatus.GRINDING));
+        assertFalse(orderCollection.transition(id, OrderStatus.PLACED, OrderStatus.GRINDING));
+        assertFalse(orderCollection.transition("unknown", OrderStatus.GRINDING, OrderStatus.BREWING));
+        assertFalse(orderCollection.transition(null, OrderStatus.GRINDING, OrderStatus.BREWING));
+        assertThrows(IllegalArgumentException.class,
+                () -> orderCollection.transition(id, OrderStatus.GRINDING, OrderStatus.READY));
+        assertThrows(IllegalArgumentException.class,
+                () -> orderCollection.transition(id, OrderStatus.BREWING, OrderStatus.GRINDING));
+        assertThrows(IllegalArgumentException.class, () -> orderCollection.transition(id, null, OrderStatus.GRINDING));
+        assertEquals(Optional.empty(), orderCollection.getStatusTime(id, OrderStatus.READY));
+        assertEquals(Optional.empty(), orderCollection.getStatus("unknown"));
+    }
+
+    @Test
+    @DisplayName("Should list and count the orders in each status in insertion order")
+    void shouldListOrdersByStatus() {
+        List<CoffeeOrder> orders = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            orders.add(newOrder());
+        }
+        orderCollection.addOrders(orders);
+        for (int i = 0; i < 6; i += 2) {
+            orderCollection.transition(orders.get(i).getOrderId(), OrderStatus.PLACED, OrderStatus.GRINDING);
+        }
+        orderCollection.removeOrder(orders.get(2).getOrderId());
+
+        assertEquals(List.of(orders.get(0), orders.get(4)), orderCollection.getOrdersByStatus(OrderStatus.GRINDING));
+        assertEquals(List.of(orders.get(1), orders.get(3), orders.get(5)),
+                orderCollection.getOrdersByStatus(OrderStatus.PLACED));
+        assertEquals(2, orderCollection.getOrderCount(OrderStatus.GRINDING));
+        assertEquals(3, orderCollection.getOrderCount(OrderStatus.PLACED));
+        assertTrue(orderCollection.getOrdersByStatus(OrderStatus.READY).isEmpty());
+
+        orderCollection.addOrder(orders.get(0));
+        assertEquals(Optional.of(OrderStatus.GRINDING), orderCollection.getStatus(orders.get(0).getOrderId()));
+
+        orderCollection.clear();
+        assertEquals(0, orderCollection.getOrderCount(OrderStatus.GRINDING));
+        assertTrue(orderCollection.getOrdersByStatus(OrderStatus.PLACED).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should let exactly one of several racing threads win each transition")
+    void shouldLetOneThreadWinEachTransition() throws Exception {
+        OrderCollection concurrent = new OrderCollection(new ConcurrentOrderStore(), clock);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            CoffeeOrder order = newOrder();
+            concurrent.addOrder(order);
+            ids.add(order.getOrderId());
+        }
+        AtomicInteger wins = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    for (OrderStatus from = OrderStatus.PLACED; from.next() != null; from = from.next()) {
+                        for (String id : ids) {
+                            if (concurrent.transition(id, from, from.next())) {
+                                wins.incrementAndGet();
+                            }
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(ids.size() * (OrderStatus.values().length - 1), wins.get());
+        assertEquals(ids.size(), concurrent.getOrderCount(OrderStatus.PICKED_UP));
+        assertEquals(ids.size(), concurrent.getOrdersByStatus(OrderStatus.PICKED_UP).size());
+        for (OrderStatus status : List.of(OrderStatus.PLACED, OrderStatus.GRINDING, OrderStatus.BREWING,
+                OrderStatus.READY)) {
+            assertEquals(0, concurrent.getOrderCount(status));
+            assertTrue(concurrent.getOrdersByStatus(status).isEmpty());
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep statuses when the store is compacted")
+    void shouldKeepStatusesThroughCompaction() {
+        orderCollection.setStatusTimesRecorded(true);
+        List<CoffeeOrder> orders = new ArrayList<>();
+        for (int i = 0; i < 2_048; i++) {
+            orders.add(newOrder());
+        }
+        orderCollection.addOrders(orders);
+        List<String> removed = new ArrayList<>();
+        for (int i = 0; i < orders.size(); i++) {
+            if (i % 3 != 0) {
+                removed.add(orders.get(i).getOrderId());
+            } else if (i % 2 == 0) {
+                orderCollection.transition(orders.get(i).getOrderId(), OrderStatus.PLACED, OrderStatus.GRINDING);
+            }
+        }
+        orderCollection.removeOrders(removed);
+        orderCollection.compact();
+
+        List<CoffeeOrder> grinding = orderCollection.getOrdersByStatus(OrderStatus.GRINDING);
+        assertEquals(342, grinding.size());
+        for (int i = 0; i < orders.size(); i += 3) {
+            OrderStatus expected = i % 2 == 0 ? OrderStatus.GRINDING : OrderStatus.PLACED;
+            assertEquals(Optional.of(expected), orderCollection.getStatus(orders.get(i).getOrderId()));
+        }
+        assertEquals(orders.get(0), grinding.get(0));
+        assertEquals(orders.get(6), grinding.get(1));
+        assertEquals(Optional.of(START), orderCollection.getStatusTime(orders.get(6).getOrderId(), OrderStatus.GRINDING));
+        assertEquals(Optional.empty(), orderCollection.getStatusTime(orders.get(3).getOrderId(), OrderStatus.GRINDING));
+    }
+
+    @Test
+    @DisplayName("Should treat orders already in the store as placed at an unknown time")
+    void shouldPlaceOrdersAlreadyInStore() {
+        PackedOrderStore store = new PackedOrderStore();
+        CoffeeOrder order = newOrder();
+        store.add(order);
+
+        OrderCollection opened = new OrderCollection(store, clock);
+        opened.setStatusTimesRecorded(true);
+
+        assertEquals(Optional.of(OrderStatus.PLACED), opened.getStatus(order.getOrderId()));
+        assertEquals(Optional.empty(), opened.getStatusTime(order.getOrderId(), OrderStatus.PLACED));
+        assertEquals(List.of(order), opened.getOrdersByStatus(OrderStatus.PLACED));
+        assertTrue(opened.transition(order.getOrderId(), OrderStatus.PLACED, OrderStatus.GRINDING));
+    }
+
+    private static CoffeeOrder newOrder() {
+        return new CoffeeOrder(Size.MEDIUM, GrindType.FINE, CoffeeType.ESPRESSO, Set.of());
+    }
+
+    private static final class MutableClock extends Clock {
+        private volatile Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        private void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
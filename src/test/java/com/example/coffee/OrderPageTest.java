@@ -0,0 +1,182 @@
+package com.example.coffee;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderPageTest {
+
+    private OrderCollection orderCollection;
+    private List<CoffeeOrder> orders;
+
+    @BeforeEach
+    void setUp() {
+        orderCollection = new OrderCollection();
+        orders = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            orders.add(newOrder(i));
+        }
+        orderCollection.addOrders(orders);
+    }
+
+    private static CoffeeOrder newOrder(int i) {
+        return new CoffeeOrder(Size.values()[i % 3], GrindType.MEDIUM, CoffeeType.BLEND, Set.of());
+    }
+
+    @Test
+    @DisplayName("Should page forwards and backwards in insertion order")
+    void shouldPageForwardsAndBackwards() {
+        OrderPage first = orderCollection.pageAfter(OrderCursor.first(), 10);
+        OrderPage second = orderCollection.pageAfter(first.next(), 10);
+        OrderPage third = orderCollection.pageAfter(second.next(), 10);
+
+        assertEquals(orders.subList(0, 10), first.orders());
+        assertFalse(first.hasPrevious());
+        assertTrue(first.hasNext());
+        assertEquals(orders.subList(10, 20), second.orders());
+        assertEquals(orders.subList(20, 25), third.orders());
+        assertTrue(third.hasPrevious());
+        assertFalse(third.hasNext());
+
+        assertEquals(orders.subList(10, 20), orderCollection.pageBefore(third.previous(), 10).orders());
+        OrderPage back = orderCollection.pageBefore(second.previous(), 10);
+        assertEquals(orders.subList(0, 10), back.orders());
+        assertFalse(back.hasPrevious());
+        assertTrue(back.hasNext());
+    }
+
+    @Test
+    @DisplayName("Should read the last page backwards from the end")
+    void shouldReadLastPageFromEnd() {
+        OrderPage last = orderCollection.pageBefore(OrderCursor.last(), 10);
+
+        assertEquals(orders.subList(15, 25), last.orders());
+        assertTrue(last.hasPrevious());
+        assertFalse(last.hasNext());
+        assertTrue(orderCollection.pageAfter(last.next(), 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should keep cursor positions under appends, removals and compaction")
+    void shouldKeepPositionUnderChanges() {
+        OrderPage first = orderCollection.pageAfter(OrderCursor.first(), 10);
+        CoffeeOrder appended = newOrder(25);
+
+        orderCollection.addOrder(appended);
+        orderCollection.removeOrder(orders.get(5).getOrderId());
+        orderCollection.removeOrder(orders.get(12).getOrderId());
+        orderCollection.compact();
+
+        List<CoffeeOrder> expected = new ArrayList<>(orders.subList(10, 20));
+        expected.remove(orders.get(12));
+        expected.add(orders.get(20));
+        assertEquals(expected, orderCollection.pageAfter(first.next(), 10).orders());
+        assertTrue(orderCollection.pageBefore(first.previous(), 10).isEmpty());
+
+        OrderPage tail = orderCollection.pageAfter(orderCollection.pageAfter(first.next(), 10).next(), 10);
+        assertEquals(List.of(orders.get(21), orders.get(22), orders.get(23), orders.get(24), appended),
+                tail.orders());
+    }
+
+    @Test
+    @DisplayName("Should skip removed orders in a store that does not compact")
+    void shouldSkipRemovedOrdersWithoutCompaction() {
+        OrderCollection concurrent = OrderCollection.concurrent();
+        List<CoffeeOrder> kept = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            CoffeeOrder order = newOrder(i);
+            concurrent.addOrder(order);
+            if (i % 1000 == 999) {
+                kept.add(order);
+            } else {
+                concurrent.removeOrder(order.getOrderId());
+            }
+        }
+
+        OrderPage first = concurrent.pageAfter(OrderCursor.first(), 2);
+        OrderPage second = concurrent.pageAfter(first.next(), 2);
+        OrderPage last = concurrent.pageBefore(OrderCursor.last(), 2);
+
+        assertEquals(kept.subList(0, 2), first.orders());
+        assertFalse(first.hasPrevious());
+        assertTrue(first.hasNext());
+        assertEquals(kept.subList(2, 4), second.orders());
+        assertTrue(second.hasPrevious());
+        assertTrue(second.hasNext());
+        assertEquals(kept.subList(3, 5), last.orders());
+        assertTrue(last.hasPrevious());
+        assertFalse(last.hasNext());
+    }
+
+    @Test
+    @DisplayName("Should page a store that already held orders without reading all of them")
+    void shouldPagePrePopulatedStoreWithoutIndexing() {
+        int[] reads = new int[1];
+        PackedOrderStore store = new PackedOrderStore() {
+            @Override
+            public int attributes(int slot) {
+                reads[0]++;
+                return super.attributes(slot);
+            }
+        };
+        List<CoffeeOrder> stored = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            CoffeeOrder order = newOrder(i);
+            stored.add(order);
+            store.add(order);
+        }
+        store.remove(0);
+        store.remove(9_999);
+        OrderCollection reopened = new OrderCollection(store);
+
+        OrderPage first = reopened.pageAfter(OrderCursor.first(), 10);
+        OrderPage last = reopened.pageBefore(OrderCursor.last(), 10);
+
+        assertTrue(reads[0] < 100, "slots read: " + reads[0]);
+        assertEquals(stored.subList(1, 11), first.orders());
+        assertFalse(first.hasPrevious());
+        assertTrue(first.hasNext());
+        assertEquals(stored.subList(9_989, 9_999), last.orders());
+        assertTrue(last.hasPrevious());
+        assertFalse(last.hasNext());
+        assertEquals(9_998, reopened.query().count());
+        assertEquals(first.orders(), reopened.pageAfter(OrderCursor.first(), 10).orders());
+    }
+
+    @Test
+    @DisplayName("Should return an empty page for an empty collection and reject invalid arguments")
+    void shouldHandleEmptyCollectionAndInvalidArguments() {
+        OrderCollection empty = new OrderCollection();
+        OrderPage page = empty.pageAfter(OrderCursor.first(), 10);
+
+        assertTrue(page.isEmpty());
+        assertFalse(page.hasNext());
+        assertFalse(page.hasPrevious());
+        assertThrows(IllegalArgumentException.class, () -> empty.pageAfter(null, 10));
+        assertThrows(IllegalArgumentException.class, () -> empty.pageBefore(OrderCursor.last(), 0));
+        assertThrows(UnsupportedOperationException.class,
+                () -> orderCollection.pageAfter(OrderCursor.first(), 1).orders().clear());
+    }
+
+    @Test
+    @DisplayName("Should read cursors back from their tokens")
+    void shouldRoundTripCursorTokens() {
+        OrderPage first = orderCollection.pageAfter(OrderCursor.first(), 10);
+        OrderCursor next = OrderCursor.parse(first.next().token());
+        OrderCursor previous = OrderCursor.parse(orderCollection.pageAfter(first.next(), 10).previous().token());
+
+        assertEquals(orders.subList(10, 20), orderCollection.pageAfter(next, 10).orders());
+        assertEquals(orders.subList(10, 20), orderCollection.pageAfter(previous, 10).orders());
+        assertSame(OrderCursor.first(), OrderCursor.parse(OrderCursor.first().token()));
+        assertSame(OrderCursor.last(), OrderCursor.parse(OrderCursor.last().token()));
+        for (String token : List.of("", "a1", "1x", "99999999999", "2147483647a1")) {
+            assertThrows(IllegalArgumentException.class, () -> OrderCursor.parse(token), token);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.coffee;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Sequential and parallel evaluation of a selective query over a large collection.
+ * The speedup is only checked on machines with more than one core.
+ */
+@Tag("performance")
+class OrderQueryPerformanceTest {
+
+    private static final int ORDERS = 10_000_000;
+    private static final int ROUNDS = 10;
+    private static final double MIN_SPEEDUP = 1.5;
+
+    @Test
+    @DisplayName("Parallel counts should match sequential counts and use every core")
+    void parallelCountShouldUseEveryCore() {
+        int orders = Math.min(ORDERS, Integer.getInteger("perf.maxOrders", ORDERS));
+        OrderCollection orderCollection = new OrderCollection(new PackedOrderStore());
+        for (int i = 0; i < orders; i++) {
+            Set<Addition> additions = i % 3 == 0 ? Set.of(Addition.SUGAR) : Set.of();
+            orderCollection.addOrder(new CoffeeOrder(
+                Size.values()[i % 3], GrindType.MEDIUM, CoffeeType.values()[i % 4], additions));
+        }
+        OrderQuery query = orderCollection.query()
+            .size(Size.MEDIUM)
+            .beverage(CoffeeType.BLEND)
+            .withAdditions(Addition.SUGAR);
+
+        orderCollection.setParallelQueryThreshold(Integer.MAX_VALUE);
+        int expected = query.count();
+        long sequential = bestNanos(query, expected);
+        orderCollection.setParallelQueryThreshold(0);
+        long parallel = bestNanos(query, expected);
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.printf("orders=%,d cores=%d sequential=%.2f ms parallel=%.2f ms%n",
+                orders, cores, sequential / 1e6, parallel / 1e6);
+        if (cores > 1) {
+            assertTrue(sequential >= parallel * MIN_SPEEDUP,
+                    "Parallel count took " + parallel + " ns against " + sequential + " ns sequential");
+        }
+    }
+
+    private static long bestNanos(OrderQuery query, int expected) {
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            int count = query.count();
+            best = Math.min(best, System.nanoTime() - start);
+            assertEquals(expected, count);
+        }
+        return best;
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.coffee;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderQueryTest {
+
+    private OrderCollection orderCollection;
+    private CoffeeOrder largeEspressoWithMilk;
+    private CoffeeOrder largeEspresso;
+    private CoffeeOrder smallArabicaWithMilkAndSugar;
+    private CoffeeOrder mediumCokeWithCaramel;
+
+    @BeforeEach
+    void setUp() {
+        orderCollection = new OrderCollection();
+        largeEspressoWithMilk = new CoffeeOrder(
+            Size.LARGE, GrindType.FINE, CoffeeType.ESPRESSO, Set.of(Addition.MILK));
+        largeEspresso = new CoffeeOrder(
+            Size.LARGE, GrindType.EXTRA_FINE, CoffeeType.ESPRESSO, Set.of());
+        smallArabicaWithMilkAndSugar = new CoffeeOrder(
+            Size.SMALL, GrindType.MEDIUM, CoffeeType.ARABICA, Set.of(Addition.MILK, Addition.SUGAR));
+        mediumCokeWithCaramel = new CoffeeOrder(
+            Size.MEDIUM, GrindType.NONE, SodaType.COKE, Set.of(Addition.CARAMEL));
+        orderCollection.addOrder(largeEspressoWithMilk);
+        orderCollection.addOrder(largeEspresso);
+        orderCollection.addOrder(smallArabicaWithMilkAndSugar);
+        orderCollection.addOrder(mediumCokeWithCaramel);
+    }
+
+    @Test
+    @DisplayName("Should match every order when no condition is given")
+    void shouldMatchEveryOrderWithoutConditions() {
+        assertEquals(4, orderCollection.query().count());
+        assertEquals(orderCollection.getAllOrders(), orderCollection.query().orders());
+    }
+
+    @Test
+    @DisplayName("Should combine conditions on different attributes with AND")
+    void shouldCombineConditionsWithAnd() {
+        OrderQuery query = orderCollection.query()
+            .size(Size.LARGE)
+            .beverage(CoffeeType.ESPRESSO)
+            .withAdditions(Addition.MILK);
+
+        assertEquals(1, query.count());
+        assertEquals(List.of(largeEspressoWithMilk), query.orders());
+    }
+
+    @Test
+    @DisplayName("Should match any of several values of one attribute")
+    void shouldMatchAnyOfSeveralValues() {
+        OrderQuery query = orderCollection.query().size(Size.SMALL, Size.MEDIUM);
+
+        assertEquals(List.of(smallArabicaWithMilkAndSugar, mediumCokeWithCaramel), query.orders());
+    }
+
+    @Test
+    @DisplayName("Should match soda and coffee beverage types")
+    void shouldMatchSodaAndCoffeeBeverageTypes() {
+        assertEquals(1, orderCollection.query().beverage(SodaType.COKE).count());
+        assertEquals(0, orderCollection.query().beverage(SodaType.PEPSI).count());
+        assertEquals(2, orderCollection.query().beverage(CoffeeType.ESPRESSO).count());
+    }
+
+    @Test
+    @DisplayName("Should match grind types")
+    void shouldMatchGrindTypes() {
+        assertEquals(List.of(largeEspresso),
+            orderCollection.query().grind(GrindType.EXTRA_FINE).orders());
+    }
+
+    @Test
+    @DisplayName("Should require all additions or any addition")
+    void shouldRequireAllOrAnyAdditions() {
+        assertEquals(1, orderCollection.query().withAdditions(Addition.MILK, Addition.SUGAR).count());
+        assertEquals(3, orderCollection.query()
+            .withAnyAddition(Addition.MILK, Addition.CARAMEL).count());
+    }
+
+    @Test
+    @DisplayName("Should combine alternative condition sets with OR")
+    void shouldCombineAlternativesWithOr() {
+        OrderQuery query = orderCollection.query()
+            .size(Size.SMALL)
+            .or()
+            .beverage(SodaType.COKE);
+
+        assertEquals(List.of(smallArabicaWithMilkAndSugar, mediumCokeWithCaramel), query.orders());
+    }
+
+    @Test
+    @DisplayName("Should match nothing when one attribute is given disjoint values")
+    void shouldMatchNothingForDisjointValues() {
+        assertEquals(0, orderCollection.query().size(Size.LARGE).size(Size.SMALL).count());
+    }
+
+    @Test
+    @DisplayName("Should reflect removals and clear")
+    void shouldReflectRemovalsAndClear() {
+        OrderQuery query = orderCollection.query().size(Size.LARGE);
+        orderCollection.removeOrder(largeEspresso.getOrderId());
+
+        assertEquals(List.of(largeEspressoWithMilk), query.orders());
+
+        orderCollection.clear();
+        assertEquals(0, query.count());
+        orderCollection.addOrder(largeEspresso);
+        assertEquals(1, query.count());
+    }
+
+    @Test
+    @DisplayName("Should return at most the requested number of matching orders")
+    void shouldLimitMatchingOrders() {
+        OrderQuery query = orderCollection.query().withAnyAddition(Addition.MILK, Addition.CARAMEL);
+
+        assertEquals(List.of(largeEspressoWithMilk), query.orders(1));
+        assertEquals(List.of(largeEspressoWithMilk, smallArabicaWithMilkAndSugar), query.orders(2));
+        assertEquals(query.orders(), query.orders(10));
+        assertThrows(IllegalArgumentException.class, () -> query.orders(0));
+    }
+
+    @Test
+    @DisplayName("Should reject missing values")
+    void shouldRejectMissingValues() {
+        assertThrows(IllegalArgumentException.class, () -> orderCollection.query().size());
+        assertThrows(NullPointerException.class,
+            () -> orderCollection.query().withAdditions((Addition) null));
+    }
+
+    @Test
+    @DisplayName("Should agree with a scan over many orders")
+    void shouldAgreeWithScan() {
+        OrderCollection large = OrderCollection.concurrent();
+        List<CoffeeOrder> removed = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            Set<Addition> additions = i % 5 == 0 ? Set.of(Addition.MILK) : Set.of(Addition.SUGAR);
+            CoffeeOrder order = new CoffeeOrder(
+                Size.values()[i % 3], GrindType.values()[i % 6], CoffeeType.values()[i % 4], additions);
+            large.addOrder(order);
+            if (i % 7 == 0) {
+                removed.add(order);
+            }
+        }
+        removed.forEach(order -> large.removeOrder(order.getOrderId()));
+
+        Predicate<CoffeeOrder> expected = order -> order.getSize() == Size.MEDIUM
+            && order.getBeverageType() == CoffeeType.BLEND
+            && order.getAdditions().contains(Addition.MILK);
+        List<CoffeeOrder> scanned = large.getAllOrders().stream().filter(expected).toList();
+        OrderQuery query = large.query()
+            .size(Size.MEDIUM)
+            .beverage(CoffeeType.BLEND)
+            .withAdditions(Addition.MILK);
+
+        assertFalse(scanned.isEmpty());
+        assertEquals(scanned.size(), query.count());
+        assertEquals(scanned, query.orders());
+    }
+
+    @Test
+    @DisplayName("Should give the same results in parallel as on the calling thread")
+    void shouldAgreeWhenEvaluatedInParallel() {
+        OrderCollection large = new OrderCollection(new PackedOrderStore());
+        for (int i = 0; i < 600_000; i++) {
+            Set<Addition> additions = i % 5 == 0 ? Set.of(Addition.SUGAR) : Set.of();
+            large.addOrder(new CoffeeOrder(
+                Size.values()[i % 3], GrindType.values()[i % 6], CoffeeType.values()[i % 4], additions));
+        }
+        OrderQuery query = large.query()
+            .size(Size.MEDIUM)
+            .beverage(CoffeeType.BLEND)
+            .withAdditions(Addition.SUGAR)
+            .filter(order -> order.getGrindType() != GrindType.COARSE);
+
+        large.setParallelQueryThreshold(Integer.MAX_VALUE);
+        int count = query.count();
+        List<CoffeeOrder> orders = query.orders();
+        Map<Size, Long> bySize = large.query().countBySize();
+        large.setParallelQueryThreshold(0);
+
+        assertEquals(count, query.count());
+        assertEquals(orders, query.orders());
+        assertEquals(bySize, large.query().countBySize());
+        assertEquals(200_000L, large.query().countBySize().get(Size.MEDIUM));
+        assertEquals(120_000L, large.query().countByAddition().get(Addition.SUGAR));
+    }
+
+    @Test
+    @DisplayName("Should count matching orders per attribute value")
+    void shouldCountMatchingOrdersPerValue() {
+        OrderQuery withMilk = orderCollection.query().withAdditions(Addition.MILK);
+
+        assertEquals(Map.of(Size.SMALL, 1L, Size.MEDIUM, 0L, Size.LARGE, 1L), withMilk.countBySize());
+        assertEquals(1L, withMilk.countByBeverage().get(CoffeeType.ARABICA));
+        assertEquals(0L, withMilk.countByBeverage().get(SodaType.COKE));
+        assertEquals(1L, withMilk.countByGrind().get(GrindType.FINE));
+        assertEquals(2L, withMilk.countByAddition().get(Addition.MILK));
+        assertEquals(1L, withMilk.countByAddition().get(Addition.SUGAR));
+    }
+
+    @Test
+    @DisplayName("Should apply a predicate on top of the indexed conditions")
+    void shouldApplyPredicate() {
+        OrderQuery query = orderCollection.query()
+            .size(Size.LARGE)
+            .filter(order -> order.getGrindType() == GrindType.EXTRA_FINE);
+
+        assertEquals(1, query.count());
+        assertEquals(List.of(largeEspresso), query.orders());
+        assertThrows(NullPointerException.class, () -> query.filter(null));
+        assertThrows(IllegalArgumentException.class, () -> orderCollection.setParallelQueryThreshold(-1));
+    }
+}
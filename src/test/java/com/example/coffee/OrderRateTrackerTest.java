@@ -0,0 +1,135 @@
+package com.example.coffee;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderRateTrackerTest {
+
+    private MutableClock clock;
+    private OrderRateTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2024-03-01T08:00:00Z"));
+        tracker = new OrderRateTracker(clock);
+    }
+
+    @Test
+    @DisplayName("Should count orders within each window")
+    void shouldCountOrdersWithinEachWindow() {
+        tracker.record(CoffeeType.ESPRESSO);
+        clock.advance(Duration.ofMinutes(3));
+        tracker.record(CoffeeType.ESPRESSO);
+        tracker.record(SodaType.values()[0]);
+        clock.advance(Duration.ofSeconds(150));
+        tracker.record(CoffeeType.ESPRESSO);
+
+        assertEquals(1, tracker.count(OrderRateTracker.Window.ONE_MINUTE));
+        assertEquals(3, tracker.count(OrderRateTracker.Window.FIVE_MINUTES));
+        assertEquals(4, tracker.count(OrderRateTracker.Window.FIFTEEN_MINUTES));
+        assertEquals(3, tracker.count(OrderRateTracker.Window.FIFTEEN_MINUTES, CoffeeType.ESPRESSO));
+        assertEquals(0, tracker.count(OrderRateTracker.Window.ONE_MINUTE, SodaType.values()[0]));
+        assertEquals(3.0 / 300, tracker.perSecond(OrderRateTracker.Window.FIVE_MINUTES), 1e-9);
+        assertEquals(1.0, tracker.perMinute(OrderRateTracker.Window.ONE_MINUTE), 1e-9);
+        assertEquals(0.2, tracker.perMinute(OrderRateTracker.Window.FIFTEEN_MINUTES, CoffeeType.ESPRESSO), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Should forget orders older than the window, including reused buckets")
+    void shouldForgetOldOrders() {
+        tracker.record(CoffeeType.BLEND);
+        clock.advance(Duration.ofSeconds(59));
+        assertEquals(1, tracker.count(OrderRateTracker.Window.ONE_MINUTE));
+
+        clock.advance(Duration.ofSeconds(1));
+        assertEquals(0, tracker.count(OrderRateTracker.Window.ONE_MINUTE));
+        assertEquals(1, tracker.count(OrderRateTracker.Window.FIFTEEN_MINUTES));
+
+        clock.advance(Duration.ofMinutes(14));
+        tracker.record(CoffeeType.BLEND);
+        assertEquals(1, tracker.count(OrderRateTracker.Window.FIFTEEN_MINUTES, CoffeeType.BLEND));
+    }
+
+    @Test
+    @DisplayName("Should not lose orders recorded concurrently")
+    void shouldNotLoseConcurrentOrders() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    tracker.record(CoffeeType.ARABICA);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(40_000, tracker.count(OrderRateTracker.Window.ONE_MINUTE, CoffeeType.ARABICA));
+    }
+
+    @Test
+    @DisplayName("Should record new orders added to a collection but not replacements")
+    void shouldRecordOrdersAddedToCollection() {
+        OrderCollection orderCollection = new OrderCollection(new InMemoryOrderStore(), clock);
+        CoffeeOrder order = new CoffeeOrder(Size.SMALL, GrindType.FINE, CoffeeType.ROBUSTA, Set.of());
+
+        orderCollection.addOrder(order);
+        orderCollection.addOrder(order);
+        orderCollection.addOrder(new CoffeeOrder(Size.LARGE, GrindType.NONE, SodaType.values()[1], null));
+
+        OrderRateTracker rates = orderCollection.intakeRates();
+        assertEquals(2, rates.count(OrderRateTracker.Window.ONE_MINUTE));
+        assertEquals(1, rates.count(OrderRateTracker.Window.ONE_MINUTE, CoffeeType.ROBUSTA));
+    }
+
+    @Test
+    @DisplayName("Should reject null arguments")
+    void shouldRejectNullArguments() {
+        assertThrows(NullPointerException.class, () -> new OrderRateTracker(null));
+        assertThrows(NullPointerException.class, () -> tracker.record(null));
+        assertThrows(NullPointerException.class, () -> tracker.count(null));
+    }
+
+    /**
+     * Clock that only moves when told to.
+     */
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        private void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
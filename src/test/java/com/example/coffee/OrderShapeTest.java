@@ -0,0 +1,96 @@
+package com.example.coffee;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderShapeTest {
+
+    @Test
+    @DisplayName("Should return one canonical shape per combination")
+    void shouldReturnCanonicalShapes() {
+        List<BeverageType> beverageTypes = new ArrayList<>(List.of(CoffeeType.values()));
+        beverageTypes.addAll(List.of(SodaType.values()));
+        Map<OrderShape, Boolean> shapes = new IdentityHashMap<>();
+        for (Size size : Size.values()) {
+            for (GrindType grindType : GrindType.values()) {
+                for (BeverageType beverageType : beverageTypes) {
+                    for (int mask = 0; mask < 1 << Addition.values().length; mask++) {
+                        Set<Addition> additions = EnumSet.noneOf(Addition.class);
+                        for (Addition addition : Addition.values()) {
+                            if ((mask & 1 << addition.ordinal()) != 0) {
+                                additions.add(addition);
+                            }
+                        }
+                        OrderShape shape = OrderShape.of(size, grindType, beverageType, additions);
+
+                        assertSame(shape, OrderShape.of(size, grindType, beverageType, new HashSet<>(additions)));
+                        assertEquals(size, shape.getSize());
+                        assertEquals(grindType, shape.getGrindType());
+                        assertEquals(beverageType, shape.getBeverageType());
+                        assertEquals(additions, shape.getAdditions());
+                        assertEquals(mask, shape.additionsMask());
+                        shapes.put(shape, true);
+                    }
+                }
+            }
+        }
+
+        assertEquals(Size.values().length * GrindType.values().length * beverageTypes.size() * 32, shapes.size());
+    }
+
+    @Test
+    @DisplayName("Should share the shape between orders with the same configuration")
+    void shouldShareShapeBetweenOrders() {
+        CoffeeOrder first = new CoffeeOrder(Size.LARGE, GrindType.FINE, CoffeeType.ARABICA, Set.of(Addition.MILK));
+        CoffeeOrder second = new CoffeeOrder(Size.LARGE, GrindType.FINE, CoffeeType.ARABICA, Set.of(Addition.MILK));
+        CoffeeOrder other = new CoffeeOrder(Size.LARGE, GrindType.FINE, CoffeeType.ARABICA, null);
+
+        assertSame(first.getShape(), second.getShape());
+        assertNotSame(first.getShape(), other.getShape());
+        assertSame(OrderShape.of(Size.LARGE, GrindType.FINE, CoffeeType.ARABICA, Set.of()), other.getShape());
+    }
+
+    @Test
+    @DisplayName("Should keep the shape of decoded orders")
+    void shouldKeepShapeOfDecodedOrders() {
+        CoffeeOrder order = new CoffeeOrder(Size.SMALL, GrindType.NONE, SodaType.COKE, Set.of(Addition.SUGAR));
+
+        CoffeeOrder decoded = OrderEncoding.decode(order.idHigh(), order.idLow(), OrderEncoding.encode(order));
+
+        assertSame(order.getShape(), decoded.getShape());
+        assertEquals(order.toString(), decoded.toString());
+        assertThrows(IllegalArgumentException.class, () -> OrderShape.of(0x3));
+    }
+
+    @Test
+    @DisplayName("Should describe the shape")
+    void shouldDescribeShape() {
+        OrderShape coffee = OrderShape.of(Size.LARGE, GrindType.FINE, CoffeeType.ESPRESSO,
+                Set.of(Addition.SUGAR, Addition.MILK));
+        OrderShape soda = OrderShape.of(Size.SMALL, GrindType.NONE, SodaType.COKE, null);
+
+        assertEquals(Size.LARGE + " " + GrindType.FINE + " " + CoffeeType.ESPRESSO + " with Milk, Sugar",
+                coffee.toString());
+        assertEquals(Size.SMALL + " " + SodaType.COKE, soda.toString());
+    }
+
+    @Test
+    @DisplayName("Should reject missing attributes")
+    void shouldRejectMissingAttributes() {
+        assertThrows(NullPointerException.class, () -> OrderShape.of(null, GrindType.FINE, CoffeeType.ESPRESSO, null));
+        assertThrows(NullPointerException.class, () -> OrderShape.of(Size.SMALL, null, CoffeeType.ESPRESSO, null));
+        assertThrows(NullPointerException.class, () -> OrderShape.of(Size.SMALL, GrindType.FINE, null, null));
+        assertThrows(NullPointerException.class,
+                () -> OrderShape.of(Size.SMALL, GrindType.FINE, CoffeeType.ESPRESSO, Set.of()).hasAddition(null));
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.coffee;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderSnapshotTest {
+
+    private OrderCollection orderCollection;
+
+    @BeforeEach
+    void setUp() {
+        orderCollection = new OrderCollection();
+    }
+
+    private static CoffeeOrder newOrder() {
+        return new CoffeeOrder(Size.MEDIUM, GrindType.FINE, CoffeeType.ESPRESSO, Set.of());
+    }
+
+    @Test
+    @DisplayName("Should not see changes made after the snapshot was taken")
+    void shouldNotSeeLaterChanges() {
+        List<CoffeeOrder> orders = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            CoffeeOrder order = newOrder();
+            orders.add(order);
+            orderCollection.addOrder(order);
+        }
+        OrderSnapshot snapshot = orderCollection.snapshot();
+
+        orderCollection.removeOrder(orders.get(0).getOrderId());
+        orderCollection.removeOrder(orders.get(5_000).getOrderId());
+        orderCollection.addOrder(newOrder());
+        OrderSnapshot later = orderCollection.snapshot();
+        orderCollection.clear();
+
+        assertEquals(10_000, snapshot.size());
+        assertEquals(orders, snapshot.toList());
+        assertEquals(9_999, later.size());
+        assertEquals(9_999, later.stream().count());
+        assertFalse(later.toList().contains(orders.get(0)));
+        assertEquals(orders.get(1), later.iterator().next());
+        assertTrue(orderCollection.snapshot().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should mirror orders already in the store on the first snapshot")
+    void shouldMirrorExistingOrders() {
+        PackedOrderStore store = new PackedOrderStore();
+        CoffeeOrder first = newOrder();
+        CoffeeOrder second = newOrder();
+        store.add(first);
+        store.add(second);
+        OrderCollection prePopulated = new OrderCollection(store);
+        prePopulated.removeOrder(first.getOrderId());
+
+        OrderSnapshot snapshot = prePopulated.snapshot();
+
+        assertEquals(List.of(second), snapshot.toList());
+    }
+
+    @Test
+    @DisplayName("Should decode snapshot orders of a packed store unaffected by later writes")
+    void shouldIsolatePackedSnapshots() {
+        OrderCollection packed = new OrderCollection(new PackedOrderStore());
+        List<CoffeeOrder> orders = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            CoffeeOrder order = newOrder();
+            orders.add(order);
+            packed.addOrder(order);
+        }
+        OrderSnapshot snapshot = packed.snapshot();
+
+        for (int i = 0; i < 5_000; i += 2) {
+            packed.removeOrder(orders.get(i).getOrderId());
+        }
+        packed.addOrder(newOrder());
+
+        assertEquals(orders, snapshot.toList());
+        assertEquals(2_501, packed.snapshot().size());
+        assertEquals(packed.getAllOrders(), packed.snapshot().toList());
+    }
+
+    @Test
+    @DisplayName("Should keep snapshots consistent while other threads add and remove orders")
+    void shouldStayConsistentUnderConcurrentWrites() throws Exception {
+        OrderCollection shared = OrderCollection.concurrent();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> writer = executor.submit(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    CoffeeOrder order = newOrder();
+                    shared.addOrder(order);
+                    if (i % 2 == 0) {
+                        shared.removeOrder(order.getOrderId());
+                    }
+                }
+            });
+            while (!writer.isDone()) {
+                OrderSnapshot snapshot = shared.snapshot();
+                assertEquals(snapshot.size(), snapshot.stream().count());
+            }
+            writer.get();
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(10_000, shared.snapshot().size());
+        assertEquals(shared.getAllOrders(), shared.snapshot().toList());
+    }
+
+    @Test
+    @DisplayName("Should not allow modification through the iterator")
+    void shouldBeReadOnly() {
+        orderCollection.addOrder(newOrder());
+        Iterator<CoffeeOrder> iterator = orderCollection.snapshot().iterator();
+
+        iterator.next();
+        assertThrows(UnsupportedOperationException.class, iterator::remove);
+        assertThrows(NoSuchElementException.class, iterator::next);
+        assertThrows(UnsupportedOperationException.class,
+                () -> orderCollection.snapshot().toList().add(newOrder()));
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.coffee;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderStatisticsTest {
+
+    private OrderCollection orderCollection;
+    private OrderStatistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        orderCollection = new OrderCollection();
+        statistics = orderCollection.statistics();
+    }
+
+    @Test
+    @DisplayName("Should count orders per attribute and combination")
+    void shouldCountOrdersPerAttribute() {
+        orderCollection.addOrder(new CoffeeOrder(Size.LARGE, GrindType.FINE, CoffeeType.ESPRESSO,
+                EnumSet.of(Addition.MILK, Addition.CARAMEL)));
+        orderCollection.addOrder(new CoffeeOrder(Size.LARGE, GrindType.FINE, CoffeeType.ESPRESSO,
+                EnumSet.of(Addition.CARAMEL, Addition.MILK)));
+        orderCollection.addOrder(new CoffeeOrder(Size.SMALL, GrindType.NONE, SodaType.values()[0], null));
+
+        assertEquals(3, statistics.total());
+        assertEquals(2, statistics.count(Size.LARGE));
+        assertEquals(0, statistics.count(Size.MEDIUM));
+        assertEquals(2, statistics.count(CoffeeType.ESPRESSO));
+        assertEquals(1, statistics.count(SodaType.values()[0]));
+        assertEquals(1, statistics.count(GrindType.NONE));
+        assertEquals(2, statistics.count(Addition.CARAMEL));
+        assertEquals(0, statistics.count(Addition.SUGAR));
+        assertEquals(2, statistics.count(Size.LARGE, GrindType.FINE, CoffeeType.ESPRESSO,
+                Set.of(Addition.MILK, Addition.CARAMEL)));
+        assertEquals(0, statistics.count(Size.LARGE, GrindType.FINE, CoffeeType.ESPRESSO,
+                Set.of(Addition.MILK)));
+        assertEquals(1, statistics.count(Size.SMALL, GrindType.NONE, SodaType.values()[0], null));
+        assertEquals(2, statistics.count(OrderShape.of(Size.LARGE, GrindType.FINE, CoffeeType.ESPRESSO,
+                Set.of(Addition.MILK, Addition.CARAMEL))));
+    }
+
+    @Test
+    @DisplayName("Should update counts on removal, replacement and clear")
+    void shouldUpdateCountsOnMutation() {
+        CoffeeOrder order = new CoffeeOrder(Size.MEDIUM, GrindType.COARSE, CoffeeType.BLEND,
+                Set.of(Addition.SUGAR));
+        orderCollection.addOrder(order);
+        orderCollection.addOrder(order);
+        assertEquals(1, statistics.total());
+        assertEquals(1, statistics.count(Addition.SUGAR));
+
+        orderCollection.removeOrder(order.getOrderId());
+        assertEquals(0, statistics.total());
+        assertEquals(0, statistics.count(Size.MEDIUM));
+        assertEquals(0, statistics.count(Addition.SUGAR));
+
+        orderCollection.addOrder(order);
+        orderCollection.clear();
+        assertEquals(0, statistics.total());
+        assertEquals(0, statistics.count(CoffeeType.BLEND));
+        assertTrue(statistics.topCombinations(5).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should list the most frequent combinations first")
+    void shouldListTopCombinations() {
+        for (int i = 0; i < 3; i++) {
+            orderCollection.addOrder(new CoffeeOrder(Size.SMALL, GrindType.FINE, CoffeeType.ARABICA, null));
+        }
+        orderCollection.addOrder(new CoffeeOrder(Size.LARGE, GrindType.FINE, CoffeeType.ARABICA,
+                Set.of(Addition.VANILLA)));
+
+        List<OrderStatistics.Combination> top = statistics.topCombinations(5);
+
+        assertEquals(List.of(
+                new OrderStatistics.Combination(Size.SMALL, GrindType.FINE, CoffeeType.ARABICA, Set.of(), 3),
+                new OrderStatistics.Combination(Size.LARGE, GrindType.FINE, CoffeeType.ARABICA,
+                        Set.of(Addition.VANILLA), 1)), top);
+        assertEquals(1, statistics.topCombinations(1).size());
+        assertThrows(IllegalArgumentException.class, () -> statistics.topCombinations(-1));
+    }
+
+    @Test
+    @DisplayName("Should count orders of a pre-populated store on first read")
+    void shouldCountPrePopulatedStore() {
+        PackedOrderStore store = new PackedOrderStore();
+        store.add(new CoffeeOrder(Size.SMALL, GrindType.FINE, CoffeeType.ROBUSTA, Set.of(Addition.CREAM)));
+        store.add(new CoffeeOrder(Size.SMALL, GrindType.FINE, CoffeeType.ROBUSTA, null));
+        OrderCollection prePopulated = new OrderCollection(store);
+
+        assertEquals(2, prePopulated.statistics().total());
+        assertEquals(1, prePopulated.statistics().count(Addition.CREAM));
+    }
+}
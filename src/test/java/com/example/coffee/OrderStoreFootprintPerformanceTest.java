@@ -0,0 +1,64 @@
+package com.example.coffee;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Heap footprint comparison between the order stores.
+ */
+@Tag("performance")
+class OrderStoreFootprintPerformanceTest {
+
+    private static final int ORDERS = 1_000_000;
+
+    @Test
+    @DisplayName("Packed store should use a fraction of the heap of the object store")
+    void packedStoreShouldUseLessHeap() {
+        double objectBytes = heapBytesPerOrder(InMemoryOrderStore::new);
+        double packedBytes = heapBytesPerOrder(PackedOrderStore::new);
+        System.out.printf("object store=%.1f B/order packed store=%.1f B/order%n",
+                objectBytes, packedBytes);
+
+        assertTrue(packedBytes * 5 < objectBytes,
+            "Packed store used " + packedBytes + " B/order vs " + objectBytes);
+    }
+
+    @Test
+    @DisplayName("Off-heap store should keep only the bitmap indexes on the heap")
+    void offHeapStoreShouldKeepHeapFlat() {
+        try (OffHeapOrderStore store = new OffHeapOrderStore(ORDERS)) {
+            double heapBytes = heapBytesPerOrder(() -> store);
+            System.out.printf("off-heap store=%.1f heap B/order, %,d direct bytes%n",
+                    heapBytes, store.allocatedBytes());
+
+            assertTrue(heapBytes < 8, "Off-heap store used " + heapBytes + " heap B/order");
+        }
+    }
+
+    private static double heapBytesPerOrder(Supplier<OrderStore> storeFactory) {
+        long before = usedHeap();
+        OrderCollection orderCollection = new OrderCollection(storeFactory.get());
+        for (int i = 0; i < ORDERS; i++) {
+            orderCollection.addOrder(new CoffeeOrder(
+                Size.values()[i % 3], GrindType.MEDIUM, CoffeeType.values()[i % 4],
+                Set.of(Addition.MILK, Addition.SUGAR)));
+        }
+        long after = usedHeap();
+        assertEquals(ORDERS, orderCollection.getOrderCount());
+        return (double) (after - before) / ORDERS;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.coffee;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Append throughput of the durable store in OS-buffered mode, which writes every order
+ * to the file as it is added and only forces the file at the end.
+ */
+@Tag("performance")
+class OrderWriteAheadLogPerformanceTest {
+
+    private static final int ORDERS = 2_000_000;
+    private static final int ROUNDS = 3;
+    private static final double MIN_ORDERS_PER_SECOND = 500_000;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Buffered appends should exceed 500k orders per second")
+    void bufferedAppendsShouldBeFast() throws IOException {
+        CoffeeOrder[] orders = new CoffeeOrder[ORDERS];
+        for (int i = 0; i < ORDERS; i++) {
+            orders[i] = new CoffeeOrder(
+                Size.values()[i % 3], GrindType.FINE, CoffeeType.values()[i % 4], Set.of(Addition.MILK));
+        }
+        double ordersPerSecond = 0;
+        // The first rounds warm up the JIT; the best round is reported.
+        for (int round = 0; round < ROUNDS; round++) {
+            Path logFile = tempDir.resolve("orders-" + round + ".wal");
+            try (DurableOrderStore store = DurableOrderStore.open(
+                    logFile, OrderWriteAheadLog.SyncPolicy.osBuffered(), new PackedOrderStore())) {
+                OrderCollection orderCollection = new OrderCollection(store);
+                long start = System.nanoTime();
+                for (CoffeeOrder order : orders) {
+                    orderCollection.addOrder(order);
+                }
+                store.flush();
+                ordersPerSecond = Math.max(ordersPerSecond,
+                    ORDERS * 1e9 / (System.nanoTime() - start));
+            }
+        }
+        System.out.printf("buffered appends: %,.0f orders/s%n", ordersPerSecond);
+
+        assertTrue(ordersPerSecond > MIN_ORDERS_PER_SECOND,
+            "Appended only " + ordersPerSecond + " orders/s");
+    }
+}
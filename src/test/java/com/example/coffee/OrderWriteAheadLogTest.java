@@ -0,0 +1,218 @@
+package com.example.coffee;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderWriteAheadLogTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static CoffeeOrder newOrder() {
+        return new CoffeeOrder(Size.LARGE, GrindType.FINE, CoffeeType.ESPRESSO, Set.of(Addition.MILK));
+    }
+
+    private static List<String> replay(Path logFile) throws IOException {
+        List<String> events = new ArrayList<>();
+        OrderWriteAheadLog.replay(logFile, new OrderWriteAheadLog.Listener() {
+            @Override
+            public void added(CoffeeOrder order) {
+                events.add("add " + order.getOrderId());
+            }
+
+            @Override
+            public void removed(String orderId) {
+                events.add("remove " + orderId);
+            }
+
+            @Override
+            public void cleared() {
+                events.add("clear");
+            }
+        });
+        return events;
+    }
+
+    @Test
+    @DisplayName("Should replay logged mutations in order")
+    void shouldReplayLoggedMutationsInOrder() throws IOException {
+        Path logFile = tempDir.resolve("orders.wal");
+        CoffeeOrder order = newOrder();
+        try (OrderWriteAheadLog log = OrderWriteAheadLog.open(
+                logFile, OrderWriteAheadLog.SyncPolicy.osBuffered())) {
+            log.appendAdd(order);
+            log.appendRemove(order.getOrderId());
+            log.appendClear();
+        }
+
+        assertEquals(List.of("add " + order.getOrderId(), "remove " + order.getOrderId(), "clear"),
+            replay(logFile));
+    }
+
+    @Test
+    @DisplayName("Should replay nothing for a missing file")
+    void shouldReplayNothingForMissingFile() throws IOException {
+        assertEquals(List.of(), replay(tempDir.resolve("missing.wal")));
+    }
+
+    @Test
+    @DisplayName("Should append after existing records when reopened")
+    void shouldAppendAfterExistingRecords() throws IOException {
+        Path logFile = tempDir.resolve("orders.wal");
+        try (OrderWriteAheadLog log = OrderWriteAheadLog.open(
+                logFile, OrderWriteAheadLog.SyncPolicy.everyWrite())) {
+            log.appendClear();
+        }
+        try (OrderWriteAheadLog log = OrderWriteAheadLog.open(
+                logFile, OrderWriteAheadLog.SyncPolicy.everyWrite())) {
+            log.appendClear();
+        }
+
+        assertEquals(List.of("clear", "clear"), replay(logFile));
+    }
+
+    @Test
+    @DisplayName("Should write every record immediately with the every-write policy")
+    void shouldWriteImmediatelyWithEveryWritePolicy() throws IOException {
+        Path logFile = tempDir.resolve("orders.wal");
+        try (OrderWriteAheadLog log = OrderWriteAheadLog.open(
+                logFile, OrderWriteAheadLog.SyncPolicy.everyWrite())) {
+            log.appendAdd(newOrder());
+
+            assertEquals(1, replay(logFile).size());
+        }
+    }
+
+    @Test
+    @DisplayName("Should write buffered records within the group-commit interval")
+    void shouldWriteWithinGroupCommitInterval() throws Exception {
+        Path logFile = tempDir.resolve("orders.wal");
+        try (OrderWriteAheadLog log = OrderWriteAheadLog.open(
+                logFile, OrderWriteAheadLog.SyncPolicy.groupCommit(Duration.ofMillis(5)))) {
+            log.appendAdd(newOrder());
+            long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while (replay(logFile).isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+
+            assertEquals(1, replay(logFile).size());
+        }
+    }
+
+    @Test
+    @DisplayName("Should cut off a torn record at the end of the log")
+    void shouldCutOffTornRecord() throws IOException {
+        Path logFile = tempDir.resolve("orders.wal");
+        CoffeeOrder order = newOrder();
+        try (OrderWriteAheadLog log = OrderWriteAheadLog.open(
+                logFile, OrderWriteAheadLog.SyncPolicy.osBuffered())) {
+            log.appendAdd(order);
+            log.appendAdd(newOrder());
+        }
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        assertEquals(List.of("add " + order.getOrderId()), replay(logFile));
+        try (OrderWriteAheadLog log = OrderWriteAheadLog.open(
+                logFile, OrderWriteAheadLog.SyncPolicy.osBuffered())) {
+            log.appendClear();
+        }
+        assertEquals(List.of("add " + order.getOrderId(), "clear"), replay(logFile));
+    }
+
+    @Test
+    @DisplayName("Should cut off a final record with a bad checksum")
+    void shouldCutOffBadFinalChecksum() throws IOException {
+        Path logFile = tempDir.resolve("orders.wal");
+        try (OrderWriteAheadLog log = OrderWriteAheadLog.open(
+                logFile, OrderWriteAheadLog.SyncPolicy.osBuffered())) {
+            log.appendClear();
+            log.appendAdd(newOrder());
+        }
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+            // Header (8) + clear record (5) + type byte (1) lands inside the added order's ID.
+            channel.write(ByteBuffer.wrap(new byte[] {0x7F}), 14);
+        }
+
+        assertEquals(List.of("clear"), replay(logFile));
+        OrderWriteAheadLog.open(logFile, OrderWriteAheadLog.SyncPolicy.osBuffered()).close();
+        assertEquals(13, Files.size(logFile));
+    }
+
+    @Test
+    @DisplayName("Should refuse a log that is corrupt before its final record")
+    void shouldRefuseCorruptionBeforeTail() throws IOException {
+        Path logFile = tempDir.resolve("orders.wal");
+        try (OrderWriteAheadLog log = OrderWriteAheadLog.open(
+                logFile, OrderWriteAheadLog.SyncPolicy.osBuffered())) {
+            log.appendClear();
+            log.appendAdd(newOrder());
+            log.appendClear();
+        }
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {0x7F}), 14);
+        }
+        long size = Files.size(logFile);
+
+        assertThrows(IOException.class, () -> replay(logFile));
+        assertThrows(IOException.class,
+                () -> OrderWriteAheadLog.open(logFile, OrderWriteAheadLog.SyncPolicy.osBuffered()));
+        assertEquals(size, Files.size(logFile));
+    }
+
+    @Test
+    @DisplayName("Should cut off zeros a crash left after the last record")
+    void shouldCutOffZeroTail() throws IOException {
+        Path logFile = tempDir.resolve("orders.wal");
+        try (OrderWriteAheadLog log = OrderWriteAheadLog.open(
+                logFile, OrderWriteAheadLog.SyncPolicy.osBuffered())) {
+            log.appendClear();
+        }
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(100), channel.size());
+        }
+
+        assertEquals(List.of("clear"), replay(logFile));
+        OrderWriteAheadLog.open(logFile, OrderWriteAheadLog.SyncPolicy.osBuffered()).close();
+        assertEquals(13, Files.size(logFile));
+    }
+
+    @Test
+    @DisplayName("Should reject a file that is not an order log")
+    void shouldRejectForeignFile() throws IOException {
+        Path logFile = tempDir.resolve("orders.wal");
+        Files.writeString(logFile, "not a write-ahead log");
+
+        assertThrows(IOException.class, () -> replay(logFile));
+        assertThrows(IOException.class,
+            () -> OrderWriteAheadLog.open(logFile, OrderWriteAheadLog.SyncPolicy.osBuffered()));
+    }
+
+    @Test
+    @DisplayName("Should reject appends after close and invalid policies")
+    void shouldRejectAppendsAfterClose() throws IOException {
+        OrderWriteAheadLog log = OrderWriteAheadLog.open(
+            tempDir.resolve("orders.wal"), OrderWriteAheadLog.SyncPolicy.osBuffered());
+        log.close();
+        log.close();
+
+        assertThrows(IllegalStateException.class, log::appendClear);
+        assertThrows(IllegalArgumentException.class,
+            () -> OrderWriteAheadLog.SyncPolicy.groupCommit(Duration.ZERO));
+    }
+}
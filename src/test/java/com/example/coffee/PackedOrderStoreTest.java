@@ -0,0 +1,142 @@
+package com.example.coffee;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PackedOrderStoreTest {
+
+    private OrderCollection orderCollection;
+
+    @BeforeEach
+    void setUp() {
+        orderCollection = new OrderCollection(new PackedOrderStore());
+    }
+
+    @Test
+    @DisplayName("Should rebuild orders with the same ID and attributes")
+    void shouldRebuildOrdersWithSameIdAndAttributes() {
+        CoffeeOrder coffee = new CoffeeOrder(
+            Size.LARGE, GrindType.EXTRA_FINE, CoffeeType.BLEND, Set.of(Addition.MILK, Addition.CARAMEL));
+        CoffeeOrder soda = new CoffeeOrder(
+            Size.SMALL, GrindType.NONE, SodaType.MOUNTAIN_DEW, Set.of());
+        orderCollection.addOrder(coffee);
+        orderCollection.addOrder(soda);
+
+        CoffeeOrder view = orderCollection.getOrderById(coffee.getOrderId()).orElseThrow();
+
+        assertEquals(coffee, view);
+        assertEquals(coffee.getOrderId(), view.getOrderId());
+        assertEquals(Size.LARGE, view.getSize());
+        assertEquals(GrindType.EXTRA_FINE, view.getGrindType());
+        assertEquals(CoffeeType.BLEND, view.getBeverageType());
+        assertEquals(Set.of(Addition.MILK, Addition.CARAMEL), view.getAdditions());
+        assertEquals(SodaType.MOUNTAIN_DEW,
+            orderCollection.getOrderById(soda.getOrderId()).orElseThrow().getBeverageType());
+        assertEquals(List.of(coffee, soda), orderCollection.getAllOrders());
+    }
+
+    @Test
+    @DisplayName("Should find and remove orders across chunks")
+    void shouldFindAndRemoveOrdersAcrossChunks() {
+        List<CoffeeOrder> orders = new ArrayList<>();
+        for (int i = 0; i < 150_000; i++) {
+            CoffeeOrder order = new CoffeeOrder(
+                Size.values()[i % 3], GrindType.values()[i % 6], CoffeeType.values()[i % 4], Set.of());
+            orders.add(order);
+            orderCollection.addOrder(order);
+        }
+        for (int i = 0; i < orders.size(); i += 2) {
+            assertTrue(orderCollection.removeOrder(orders.get(i).getOrderId()));
+        }
+
+        assertEquals(75_000, orderCollection.getOrderCount());
+        for (int i = 0; i < orders.size(); i++) {
+            CoffeeOrder order = orders.get(i);
+            assertEquals(i % 2 == 1, orderCollection.getOrderById(order.getOrderId()).isPresent());
+        }
+        assertEquals(25_000, orderCollection.query().size(Size.MEDIUM).count());
+    }
+
+    @Test
+    @DisplayName("Should replace an order added twice")
+    void shouldReplaceOrderAddedTwice() {
+        CoffeeOrder order = new CoffeeOrder(Size.SMALL, GrindType.FINE, CoffeeType.ESPRESSO, Set.of());
+        orderCollection.addOrder(order);
+        orderCollection.addOrder(order);
+
+        assertEquals(1, orderCollection.getOrderCount());
+    }
+
+    @Test
+    @DisplayName("Should not find unknown or malformed IDs")
+    void shouldNotFindUnknownOrMalformedIds() {
+        orderCollection.addOrder(new CoffeeOrder(Size.SMALL, GrindType.FINE, CoffeeType.ESPRESSO, Set.of()));
+
+        assertFalse(orderCollection.getOrderById("non-existent-id").isPresent());
+        assertFalse(orderCollection.getOrderById("00000000-0000-0000-0000-000000000000").isPresent());
+        assertFalse(orderCollection.removeOrder("non-existent-id"));
+    }
+
+    @Test
+    @DisplayName("Should reject orders whose ID is not a canonical UUID")
+    void shouldRejectNonCanonicalIds() {
+        CoffeeOrder order = new CoffeeOrder(
+            "ORDER-1", Size.SMALL, GrindType.FINE, CoffeeType.ESPRESSO, Set.of());
+
+        assertThrows(IllegalArgumentException.class, () -> orderCollection.addOrder(order));
+        assertTrue(orderCollection.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should clear all orders")
+    void shouldClearAllOrders() {
+        CoffeeOrder order = new CoffeeOrder(Size.SMALL, GrindType.FINE, CoffeeType.ESPRESSO, Set.of());
+        orderCollection.addOrder(order);
+        orderCollection.clear();
+
+        assertTrue(orderCollection.isEmpty());
+        assertFalse(orderCollection.getOrderById(order.getOrderId()).isPresent());
+        orderCollection.addOrder(order);
+        assertEquals(List.of(order), orderCollection.getAllOrders());
+    }
+
+    @Test
+    @DisplayName("Should compact removed orders across chunks in insertion order")
+    void shouldCompactRemovedOrdersAcrossChunks() {
+        List<CoffeeOrder> orders = new ArrayList<>();
+        for (int i = 0; i < 150_000; i++) {
+            CoffeeOrder order = new CoffeeOrder(
+                Size.values()[i % 3], GrindType.values()[i % 6], CoffeeType.values()[i % 4], Set.of());
+            orders.add(order);
+            orderCollection.addOrder(order);
+        }
+        List<CoffeeOrder> kept = new ArrayList<>();
+        for (int i = 0; i < orders.size(); i++) {
+            if (i % 3 == 0) {
+                kept.add(orders.get(i));
+            } else {
+                assertTrue(orderCollection.removeOrder(orders.get(i).getOrderId()));
+            }
+        }
+        orderCollection.compact();
+
+        assertEquals(50_000, orderCollection.store().slotLimit());
+        assertEquals(kept, orderCollection.getAllOrders());
+        for (CoffeeOrder order : kept) {
+            assertEquals(order, orderCollection.getOrderById(order.getOrderId()).orElseThrow());
+        }
+        assertEquals(50_000, orderCollection.query().size(Size.SMALL).count());
+        assertEquals(0, orderCollection.query().size(Size.MEDIUM).count());
+
+        CoffeeOrder added = new CoffeeOrder(Size.LARGE, GrindType.FINE, CoffeeType.BLEND, Set.of());
+        orderCollection.addOrder(added);
+        assertEquals(50_000, orderCollection.store().slotOf(added.getOrderId()));
+    }
+}